@@ -0,0 +1,73 @@
+package edu.wctc.java.demo.tictactoe.app;
+
+import edu.wctc.java.demo.tictactoe.ui.GameWindow;
+import edu.wctc.java.demo.tictactoe.ui.GomokuWindow;
+import edu.wctc.java.demo.tictactoe.ui.QubicWindow;
+import java.util.Arrays;
+import javax.swing.UIManager;
+
+/**
+ * Starts the Swing windows. This code used to live in TicTacToe.main();
+ * keeping it in its own class means the console mode never has to load
+ * (or even verify) a class that refers to AWT or Swing.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+final class SwingLauncher {
+
+    private SwingLauncher() {}
+
+    /**
+     * @param args the command line arguments: "--qubic" opens the 4x4x4
+     * Qubic game and "--gomoku" the 15x15 Gomoku game instead of the
+     * classic board
+     */
+    static void launch(final String[] args) {
+        final boolean qubic = Arrays.asList(args).contains("--qubic");
+        final boolean gomoku = Arrays.asList(args).contains("--gomoku");
+        
+        try {
+            // Normally we would set L&F to the OS system's
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            
+//          But if the L&F doesn't work rightjust use Nimbus
+//            for (UIManager.LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {
+//                if ("Nimbus".equals(info.getName())) {
+//                    UIManager.setLookAndFeel(info.getClassName());
+//                    break;
+//                }
+//            }
+            
+         } catch (ClassNotFoundException ex) {
+            java.util.logging.Logger.getLogger(GameWindow.class.getName())
+                    .log(java.util.logging.Level.SEVERE, null, ex);
+        } catch (InstantiationException ex) {
+            java.util.logging.Logger.getLogger(GameWindow.class.getName())
+                    .log(java.util.logging.Level.SEVERE, null, ex);
+        } catch (IllegalAccessException ex) {
+            java.util.logging.Logger.getLogger(GameWindow.class.getName())
+                    .log(java.util.logging.Level.SEVERE, null, ex);
+        } catch (javax.swing.UnsupportedLookAndFeelException ex) {
+            java.util.logging.Logger.getLogger(GameWindow.class.getName())
+                    .log(java.util.logging.Level.SEVERE, null, ex);
+        }
+        //</editor-fold>
+
+        /*
+         * Create and display the form
+         */
+        java.awt.EventQueue.invokeLater(new Runnable() {
+
+            public void run() {
+                if (qubic) {
+                    new QubicWindow().setVisible(true);
+                } else if (gomoku) {
+                    new GomokuWindow().setVisible(true);
+                } else {
+                    new GameWindow().setVisible(true);
+                }
+            }
+        });
+    }
+}
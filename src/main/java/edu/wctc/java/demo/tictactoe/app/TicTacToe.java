@@ -1,10 +1,12 @@
 package edu.wctc.java.demo.tictactoe.app;
 
-import edu.wctc.java.demo.tictactoe.ui.GameWindow;
-import javax.swing.UIManager;
+import edu.wctc.java.demo.tictactoe.console.ConsoleGame;
+import java.io.IOException;
+import java.util.Arrays;
 
 /**
- * The startup class for a classic Tic-Tac-Toe game.
+ * The startup class for a classic Tic-Tac-Toe game. It only picks a front
+ * end: the console game, which never loads AWT, or the Swing windows.
  *
  * @author   Jim Lombardo
  * @version  1.09
@@ -14,46 +16,18 @@ public class TicTacToe {
     private TicTacToe() {}
 
     /**
-     * @param args the command line arguments not used
+     * @param args the command line arguments: "--console" plays in the
+     * terminal (see ConsoleGame for its options), "--qubic" opens the 4x4x4
+     * Qubic game and "--gomoku" the 15x15 Gomoku game instead of the
+     * classic board
+     * @throws IOException if the console game can not read its input
      */
-    public static void main(final String[] args) {
-        
-        try {
-            // Normally we would set L&F to the OS system's
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-            
-//          But if the L&F doesn't work rightjust use Nimbus
-//            for (UIManager.LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {
-//                if ("Nimbus".equals(info.getName())) {
-//                    UIManager.setLookAndFeel(info.getClassName());
-//                    break;
-//                }
-//            }
-            
-         } catch (ClassNotFoundException ex) {
-            java.util.logging.Logger.getLogger(GameWindow.class.getName())
-                    .log(java.util.logging.Level.SEVERE, null, ex);
-        } catch (InstantiationException ex) {
-            java.util.logging.Logger.getLogger(GameWindow.class.getName())
-                    .log(java.util.logging.Level.SEVERE, null, ex);
-        } catch (IllegalAccessException ex) {
-            java.util.logging.Logger.getLogger(GameWindow.class.getName())
-                    .log(java.util.logging.Level.SEVERE, null, ex);
-        } catch (javax.swing.UnsupportedLookAndFeelException ex) {
-            java.util.logging.Logger.getLogger(GameWindow.class.getName())
-                    .log(java.util.logging.Level.SEVERE, null, ex);
+    public static void main(final String[] args) throws IOException {
+        if (Arrays.asList(args).contains("--console")) {
+            ConsoleGame.main(args);
+        } else {
+            SwingLauncher.launch(args);
         }
-        //</editor-fold>
-
-        /*
-         * Create and display the form
-         */
-        java.awt.EventQueue.invokeLater(new Runnable() {
-
-            public void run() {
-                new GameWindow().setVisible(true);
-            }
-        });
     }
 
 }
@@ -0,0 +1,314 @@
+package edu.wctc.java.demo.tictactoe.cluster;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class runs more self-play games than one JVM should, by spreading
+ * them over worker JVMs on the same machine. Games between two GameEngine
+ * difficulty levels are split by opening (every sequence of the first
+ * few moves) into seeded work units. The coordinator starts each worker
+ * with a ProcessBuilder, accepts its loopback connection and keeps a
+ * couple of units in flight per worker so no worker waits for the next
+ * one; each unit comes back as one result message.
+ * <P>
+ * If a worker's connection fails or goes quiet, the worker is killed and
+ * its unfinished units go back to the queue for the others. Units are
+ * seeded, so the merged results are the same as those of runInProcess()
+ * however the work was shared out. The run fails only if every worker
+ * dies.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class SelfPlayCoordinator {
+    private static final int MAX_PREFIX = 4;
+    private static final int UNIT_GAMES = 250;
+    private static final int IN_FLIGHT = 2;
+    private static final int CONNECT_MILLIS = 30000;
+    private static final int READ_MILLIS = 60000;
+    private static final long POLL_MILLIS = 20;
+
+    private final int xSmarts;
+    private final int oSmarts;
+    private final List<int[]> openings;
+    private final int gamesPerOpening;
+    private final long seed;
+    private String exitOption;
+
+    /**
+     * Constructs a coordinator.
+     *
+     * @param xSmarts - the difficulty level of "X", 0 to 100.
+     * @param oSmarts - the difficulty level of "0", 0 to 100.
+     * @param prefixPlies - the moves in an opening, 0 to 4.
+     * @param gamesPerOpening - the games played from every opening.
+     * @param seed - seeds the work units.
+     * @throws IllegalArgumentException if prefixPlies is out of range
+     */
+    public SelfPlayCoordinator(final int xSmarts, final int oSmarts,
+            final int prefixPlies, final int gamesPerOpening, final long seed) {
+        if (prefixPlies < 0 || prefixPlies > MAX_PREFIX) {
+            throw new IllegalArgumentException("prefixPlies must be 0 to "
+                    + MAX_PREFIX + ": " + prefixPlies);
+        }
+        this.xSmarts = xSmarts;
+        this.oSmarts = oSmarts;
+        this.openings = new ArrayList<int[]>();
+        addOpenings(new int[prefixPlies], 0, 0);
+        this.gamesPerOpening = gamesPerOpening;
+        this.seed = seed;
+    }
+
+    /*
+     * No one can win in four moves, so every sequence of distinct cells
+     * is an opening.
+     */
+    private void addOpenings(final int[] prefix, final int length, final int used) {
+        if (length == prefix.length) {
+            openings.add(prefix.clone());
+            return;
+        }
+        for (int cell = 0; cell < 9; cell++) {
+            if ((used & (1 << cell)) == 0) {
+                prefix[length] = cell;
+                addOpenings(prefix, length + 1, used | (1 << cell));
+            }
+        }
+    }
+
+    /*
+     * Makes the first worker halt on receiving a unit after it has played
+     * this many, as a crash would.
+     */
+    final void setExitAfter(final int units) {
+        this.exitOption = SelfPlayWorker.EXIT_AFTER + units;
+    }
+
+    /*
+     * Makes the first worker halt part way through sending the result of
+     * a unit after it has played this many.
+     */
+    final void setExitMidResult(final int units) {
+        this.exitOption = SelfPlayWorker.EXIT_MID_RESULT + units;
+    }
+
+    private List<WorkUnit> createUnits() {
+        List<WorkUnit> units = new ArrayList<WorkUnit>();
+        for (int opening = 0; opening < openings.size(); opening++) {
+            for (int first = 0; first < gamesPerOpening; first += UNIT_GAMES) {
+                int id = units.size();
+                units.add(new WorkUnit(id, opening, openings.get(opening),
+                        Math.min(UNIT_GAMES, gamesPerOpening - first), seed + id));
+            }
+        }
+        return units;
+    }
+
+    /**
+     * Plays every unit on the calling thread, the reference result for a
+     * distributed run.
+     *
+     * @return the merged results
+     */
+    public final SelfPlayStats runInProcess() {
+        long start = System.nanoTime();
+        SelfPlayStats stats = new SelfPlayStats(openings);
+        Board board = new Board();
+        for (WorkUnit unit : createUnits()) {
+            SelfPlayWorker.play(unit, xSmarts, oSmarts, board);
+            stats.add(unit);
+        }
+        stats.setElapsedNanos(System.nanoTime() - start);
+        return stats;
+    }
+
+    /**
+     * Starts worker JVMs and plays every unit on them.
+     *
+     * @param workers - the number of worker processes.
+     * @return the merged results
+     * @throws IOException if the workers can not be started or all of
+     * them die before the work is done
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public final SelfPlayStats run(final int workers) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        final SelfPlayStats stats = new SelfPlayStats(openings);
+        List<WorkUnit> units = createUnits();
+        final BlockingDeque<WorkUnit> pending = new LinkedBlockingDeque<WorkUnit>(units);
+        final CountDownLatch remaining = new CountDownLatch(units.size());
+        final AtomicInteger alive = new AtomicInteger(workers);
+        final Process[] processes = new Process[workers];
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try (ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+            for (int i = 0; i < workers; i++) {
+                processes[i] = launch(server.getLocalPort(), i);
+            }
+            server.setSoTimeout(CONNECT_MILLIS);
+            for (int i = 0; i < workers; i++) {
+                final Socket socket = server.accept();
+                pool.execute(new Runnable() {
+                    public void run() {
+                        serve(socket, processes, pending, remaining, alive, stats);
+                    }
+                });
+            }
+            while (!remaining.await(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (alive.get() == 0) {
+                    throw new IOException("Every worker died with "
+                            + remaining.getCount() + " units left");
+                }
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(READ_MILLIS, TimeUnit.MILLISECONDS);
+            for (Process process : processes) {
+                if (process != null && !process.waitFor(1, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        }
+        stats.setElapsedNanos(System.nanoTime() - start);
+        return stats;
+    }
+
+    private Process launch(final int port, final int worker) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin"
+                + File.separator + "java";
+        List<String> command = new ArrayList<String>(Arrays.asList(java,
+                "-cp", System.getProperty("java.class.path"),
+                SelfPlayWorker.class.getName(), "127.0.0.1",
+                String.valueOf(port), String.valueOf(worker)));
+        if (worker == 0 && exitOption != null) {
+            command.add(exitOption);
+        }
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    /*
+     * Feeds one worker until every unit is done, then tells it to stop.
+     * Results come back in the order units were sent. A unit stays in
+     * flight until its whole result has been read, so if the connection
+     * fails the worker is killed and all its unfinished units are queued
+     * again.
+     */
+    private void serve(final Socket socket, final Process[] processes,
+            final BlockingDeque<WorkUnit> pending, final CountDownLatch remaining,
+            final AtomicInteger alive, final SelfPlayStats stats) {
+        Map<Integer, WorkUnit> inFlight = new LinkedHashMap<Integer, WorkUnit>();
+        int worker = -1;
+        try {
+            socket.setSoTimeout(READ_MILLIS);
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream()));
+            worker = in.readInt();
+            out.writeInt(xSmarts);
+            out.writeInt(oSmarts);
+            out.flush();
+            while (remaining.getCount() > 0) {
+                WorkUnit unit;
+                while (inFlight.size() < IN_FLIGHT && (unit = pending.poll()) != null) {
+                    out.writeByte(SelfPlayWorker.UNIT);
+                    unit.writeTo(out);
+                    inFlight.put(unit.id, unit);
+                }
+                out.flush();
+                if (inFlight.isEmpty()) {
+                    // Wait in case another worker dies and its units return
+                    unit = pending.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (unit != null) {
+                        pending.addFirst(unit);
+                    }
+                    continue;
+                }
+                int id = in.readInt();
+                unit = inFlight.get(id);
+                if (unit == null) {
+                    throw new IOException("Unexpected result for unit " + id);
+                }
+                unit.readResult(in);
+                inFlight.remove(id);
+                stats.add(unit);
+                remaining.countDown();
+            }
+            out.writeByte(SelfPlayWorker.STOP);
+            out.flush();
+        } catch (IOException ex) {
+            failed(worker, processes, inFlight, pending, alive, stats);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // nothing more to do with this worker
+            }
+        }
+    }
+
+    private void failed(final int worker, final Process[] processes,
+            final Map<Integer, WorkUnit> inFlight, final BlockingDeque<WorkUnit> pending,
+            final AtomicInteger alive, final SelfPlayStats stats) {
+        if (worker >= 0 && worker < processes.length) {
+            processes[worker].destroyForcibly();
+        }
+        stats.addReassigned(inFlight.size());
+        for (WorkUnit unit : inFlight.values()) {
+            unit.clearResult();
+        }
+        pending.addAll(inFlight.values());
+        inFlight.clear();
+        alive.decrementAndGet();
+    }
+
+    /**
+     * Runs distributed self-play from the command line and reports the
+     * results and games per second.
+     *
+     * @param args - [workers] [gamesPerOpening] [xSmarts] [oSmarts]
+     * [prefixPlies]; defaults: 4 10000 50 0 2.
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        int workers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int gamesPerOpening = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        int xSmarts = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        int oSmarts = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        int prefixPlies = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+
+        SelfPlayCoordinator coordinator = new SelfPlayCoordinator(xSmarts, oSmarts,
+                prefixPlies, gamesPerOpening, System.nanoTime());
+        SelfPlayStats stats = coordinator.run(workers);
+        double seconds = stats.getElapsedNanos() / 1e9;
+        System.out.printf("%,d games from %d openings on %d workers in %.2f s "
+                + "(%,.0f games/s), %d units reassigned%n", stats.getGames(),
+                stats.getOpeningCount(), workers, seconds, stats.getGames() / seconds,
+                stats.getReassigned());
+        System.out.printf("X (smarts %d) %,d wins, 0 (smarts %d) %,d wins, %,d draws%n",
+                xSmarts, stats.getWins(Board.X), oSmarts, stats.getWins(Board.O),
+                stats.getDraws());
+    }
+}
@@ -0,0 +1,107 @@
+package edu.wctc.java.demo.tictactoe.cluster;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import java.util.List;
+
+/**
+ * This class holds the merged results of a self-play run: wins and draws
+ * for every opening, the totals, and how many work units had to be
+ * played again because their worker died.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class SelfPlayStats {
+    private final int[][] openings;
+    private final long[] xWins;
+    private final long[] oWins;
+    private final long[] draws;
+    private int reassigned;
+    private long elapsedNanos;
+
+    SelfPlayStats(final List<int[]> openings) {
+        this.openings = openings.toArray(new int[openings.size()][]);
+        this.xWins = new long[openings.size()];
+        this.oWins = new long[openings.size()];
+        this.draws = new long[openings.size()];
+    }
+
+    /*
+     * Results arrive on every connection's thread.
+     */
+    synchronized void add(final WorkUnit unit) {
+        xWins[unit.opening] += unit.xWins;
+        oWins[unit.opening] += unit.oWins;
+        draws[unit.opening] += unit.draws;
+    }
+
+    synchronized void addReassigned(final int units) {
+        reassigned += units;
+    }
+
+    void setElapsedNanos(final long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public final int getOpeningCount() {
+        return openings.length;
+    }
+
+    /**
+     * Returns the moves of an opening, first move first.
+     */
+    public final int[] getOpening(final int opening) {
+        return openings[opening].clone();
+    }
+
+    /**
+     * Returns the games won by a player from one opening.
+     *
+     * @param opening - 0 to getOpeningCount() - 1.
+     * @param mark - Board.X or Board.O.
+     */
+    public final synchronized long getWins(final int opening, final int mark) {
+        return mark == Board.X ? xWins[opening] : oWins[opening];
+    }
+
+    public final synchronized long getDraws(final int opening) {
+        return draws[opening];
+    }
+
+    /**
+     * Returns the games won by a player from every opening.
+     *
+     * @param mark - Board.X or Board.O.
+     */
+    public final synchronized long getWins(final int mark) {
+        return sum(mark == Board.X ? xWins : oWins);
+    }
+
+    public final synchronized long getDraws() {
+        return sum(draws);
+    }
+
+    public final synchronized long getGames() {
+        return sum(xWins) + sum(oWins) + sum(draws);
+    }
+
+    /**
+     * Returns the number of work units lost with a dead worker and given
+     * to another one.
+     */
+    public final synchronized int getReassigned() {
+        return reassigned;
+    }
+
+    public final long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    private static long sum(final long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+}
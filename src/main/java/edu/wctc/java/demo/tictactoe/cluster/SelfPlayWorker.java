@@ -0,0 +1,121 @@
+package edu.wctc.java.demo.tictactoe.cluster;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.Strategies;
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Random;
+
+/**
+ * This class is the main class of a self-play worker JVM. It connects to
+ * a SelfPlayCoordinator, says which worker it is and receives the two
+ * difficulty levels to play, then plays work units until told to stop,
+ * answering each one with a single result message for all its games.
+ * <P>
+ * Messages are written with DataOutputStream. After the hello (the worker
+ * number) and the setup (X smarts, 0 smarts), the coordinator sends UNIT
+ * messages followed by a unit, or STOP; the worker answers every unit
+ * with its result.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class SelfPlayWorker {
+    static final byte UNIT = 1;
+    static final byte STOP = 2;
+    static final String EXIT_AFTER = "--exit-after=";
+    static final String EXIT_MID_RESULT = "--exit-mid-result=";
+
+    private SelfPlayWorker() {
+    }
+
+    /**
+     * Plays every game of a unit and stores the counts in it. Each game
+     * starts from the unit's opening and is played out by the GameEngine
+     * strategy of each level.
+     *
+     * @param unit - the games to play.
+     * @param xSmarts - the difficulty level of "X".
+     * @param oSmarts - the difficulty level of "0".
+     * @param board - the board to play on; it is reset for every game.
+     */
+    static void play(final WorkUnit unit, final int xSmarts, final int oSmarts,
+            final Board board) {
+        Random rand = new Random(unit.seed);
+        Strategy x = Strategies.forSmarts(xSmarts, rand);
+        Strategy o = Strategies.forSmarts(oSmarts, rand);
+        for (int game = 0; game < unit.games; game++) {
+            board.reset();
+            for (int cell : unit.prefix) {
+                board.make(cell);
+            }
+            while (!board.isGameOver()) {
+                int mark = board.getSideToMove();
+                board.play((mark == Board.X ? x : o).selectMove(board, mark), mark);
+            }
+            int winner = board.getWinner();
+            if (winner == Board.X) {
+                unit.xWins++;
+            } else if (winner == Board.O) {
+                unit.oWins++;
+            } else {
+                unit.draws++;
+            }
+        }
+    }
+
+    /**
+     * Runs a worker.
+     *
+     * @param args - host port worker [--exit-after=N | --exit-mid-result=N];
+     * the last option makes the worker halt on its N+1st unit, either
+     * without answering or after sending only the unit id of its result,
+     * to test how the coordinator copes with a crash.
+     */
+    public static void main(final String[] args) throws IOException {
+        String host = args[0];
+        int port = Integer.parseInt(args[1]);
+        int worker = Integer.parseInt(args[2]);
+        int exitAfter = -1;
+        int exitMidResult = -1;
+        if (args.length > 3 && args[3].startsWith(EXIT_AFTER)) {
+            exitAfter = Integer.parseInt(args[3].substring(EXIT_AFTER.length()));
+        } else if (args.length > 3 && args[3].startsWith(EXIT_MID_RESULT)) {
+            exitMidResult = Integer.parseInt(args[3].substring(EXIT_MID_RESULT.length()));
+        }
+
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(worker);
+            out.flush();
+            int xSmarts = in.readInt();
+            int oSmarts = in.readInt();
+            Board board = new Board();
+            int played = 0;
+            while (in.readByte() == UNIT) {
+                WorkUnit unit = WorkUnit.readFrom(in);
+                if (played == exitAfter) {
+                    Runtime.getRuntime().halt(3);
+                }
+                play(unit, xSmarts, oSmarts, board);
+                if (played == exitMidResult) {
+                    out.writeInt(unit.id);
+                    out.flush();
+                    Runtime.getRuntime().halt(3);
+                }
+                unit.writeResult(out);
+                out.flush();
+                played++;
+            }
+        }
+    }
+}
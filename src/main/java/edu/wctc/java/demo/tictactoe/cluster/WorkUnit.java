@@ -0,0 +1,86 @@
+package edu.wctc.java.demo.tictactoe.cluster;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A run of self-play games that all start from one opening, and its
+ * results once played. The games are seeded, so a unit gives the same
+ * results whichever worker plays it, and a unit lost with a worker can
+ * simply be played again elsewhere.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+final class WorkUnit {
+    final int id;
+    final int opening;
+    final int[] prefix;
+    final int games;
+    final long seed;
+    int xWins;
+    int oWins;
+    int draws;
+
+    WorkUnit(final int id, final int opening, final int[] prefix,
+            final int games, final long seed) {
+        this.id = id;
+        this.opening = opening;
+        this.prefix = prefix;
+        this.games = games;
+        this.seed = seed;
+    }
+
+    /*
+     * The coordinator's message: everything needed to play the unit.
+     */
+    void writeTo(final DataOutputStream out) throws IOException {
+        out.writeInt(id);
+        out.writeInt(opening);
+        out.writeByte(prefix.length);
+        for (int cell : prefix) {
+            out.writeByte(cell);
+        }
+        out.writeInt(games);
+        out.writeLong(seed);
+    }
+
+    static WorkUnit readFrom(final DataInputStream in) throws IOException {
+        int id = in.readInt();
+        int opening = in.readInt();
+        int[] prefix = new int[in.readUnsignedByte()];
+        for (int i = 0; i < prefix.length; i++) {
+            prefix[i] = in.readUnsignedByte();
+        }
+        return new WorkUnit(id, opening, prefix, in.readInt(), in.readLong());
+    }
+
+    /*
+     * The worker's reply: the unit id and its three counts.
+     */
+    void writeResult(final DataOutputStream out) throws IOException {
+        out.writeInt(id);
+        out.writeInt(xWins);
+        out.writeInt(oWins);
+        out.writeInt(draws);
+    }
+
+    /*
+     * Forgets any counts, before the unit is played again.
+     */
+    void clearResult() {
+        xWins = 0;
+        oWins = 0;
+        draws = 0;
+    }
+
+    /*
+     * Reads the counts of a result whose id has already been read.
+     */
+    void readResult(final DataInputStream in) throws IOException {
+        xWins = in.readInt();
+        oWins = in.readInt();
+        draws = in.readInt();
+    }
+}
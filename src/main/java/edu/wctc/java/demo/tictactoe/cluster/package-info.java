@@ -0,0 +1,8 @@
+/**
+ * Provides distributed self-play: a coordinator that splits games between
+ * computer strategies by opening and hands them to worker JVMs over
+ * loopback sockets, then merges their results.
+ *
+ * @since 2.0
+ */
+package edu.wctc.java.demo.tictactoe.cluster;
@@ -0,0 +1,223 @@
+package edu.wctc.java.demo.tictactoe.console;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.Strategies;
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.Random;
+
+/**
+ * This class plays the classic game in a terminal. The human is "X" and
+ * types a cell number from 1 to 9; the computer answers as "0" with the
+ * same Strategy the GameWindow's difficulty slider would pick. Only the
+ * headless Board is used, so no AWT or Swing class is ever loaded.
+ * <P>
+ * Input is read line by line, which makes the game easy to script: the
+ * end of input quits, like typing "q".
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class ConsoleGame {
+    private static final String COMP_WIN_MSG = "Computer Wins, Game Over!";
+    private static final String YOU_WIN_MSG = "You Won, Game Over!";
+    private static final String DRAW_MSG = "This game is a draw. No winner!";
+    private static final String PROMPT = "Your move (1-9, q to quit): ";
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final Strategy strategy;
+    private final Board board = new Board();
+    private int xWins;
+    private int oWins;
+    private int draws;
+    private long jvmStart = -1;
+
+    /**
+     * Constructs a game that reads moves from one stream and prints to
+     * another.
+     *
+     * @param in - the player's input, one command per line.
+     * @param out - where the board and messages go.
+     * @param strategy - the computer opponent.
+     */
+    public ConsoleGame(final BufferedReader in, final PrintStream out, final Strategy strategy) {
+        this.in = in;
+        this.out = out;
+        this.strategy = strategy;
+    }
+
+    /**
+     * Plays games until the player quits or input ends.
+     *
+     * @throws IOException if reading the input fails
+     */
+    public final void play() throws IOException {
+        boolean again = true;
+        while (again) {
+            board.reset();
+            if (!playGame()) {
+                break;
+            }
+            out.printf("Computer: %d  You: %d  Draws: %d%n", oWins, xWins, draws);
+            out.print("Want to play a new game? (y/n): ");
+            out.flush();
+            String answer = in.readLine();
+            again = answer != null && answer.trim().toLowerCase().startsWith("y");
+        }
+        out.println("Goodbye!");
+    }
+
+    /*
+     * Plays one game. Returns false if the player quit before it ended.
+     */
+    private boolean playGame() throws IOException {
+        while (true) {
+            printBoard();
+            int cell = readMove();
+            if (cell < 0) {
+                return false;
+            }
+            board.play(cell, Board.X);
+            if (gameOver()) {
+                return true;
+            }
+            board.play(strategy.selectMove(board, Board.O), Board.O);
+            if (gameOver()) {
+                return true;
+            }
+        }
+    }
+
+    /*
+     * Prompts until the player types an empty cell number; -1 means quit.
+     */
+    private int readMove() throws IOException {
+        while (true) {
+            out.print(PROMPT);
+            out.flush();
+            if (jvmStart >= 0) {
+                System.err.printf("Startup: %d ms from JVM start to first prompt%n",
+                        System.currentTimeMillis() - jvmStart);
+                jvmStart = -1;
+            }
+            String line = in.readLine();
+            if (line == null || line.trim().equalsIgnoreCase("q")) {
+                return -1;
+            }
+            int cell;
+            try {
+                cell = Integer.parseInt(line.trim()) - 1;
+            } catch (NumberFormatException ex) {
+                out.println("Please type a number from 1 to 9.");
+                continue;
+            }
+            if (cell < 0 || cell > 8) {
+                out.println("Please type a number from 1 to 9.");
+            } else if (board.get(cell) != Board.EMPTY) {
+                out.println("Sorry, that tile is taken!");
+            } else {
+                return cell;
+            }
+        }
+    }
+
+    private boolean gameOver() {
+        int winner = board.getWinner();
+        if (winner == Board.X) {
+            xWins++;
+            finish(YOU_WIN_MSG);
+        } else if (winner == Board.O) {
+            oWins++;
+            finish(COMP_WIN_MSG);
+        } else if (board.isFull()) {
+            draws++;
+            finish(DRAW_MSG);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void finish(final String msg) {
+        printBoard();
+        out.println(msg);
+    }
+
+    /*
+     * Empty cells show their number, so the player knows what to type.
+     */
+    private void printBoard() {
+        out.println();
+        for (int row = 0; row < 3; row++) {
+            StringBuilder sb = new StringBuilder();
+            for (int col = 0; col < 3; col++) {
+                int cell = row * 3 + col;
+                int mark = board.get(cell);
+                sb.append(' ').append(mark == Board.X ? "X" : mark == Board.O ? "0"
+                        : Integer.toString(cell + 1));
+                sb.append(col < 2 ? " |" : "");
+            }
+            out.println(sb);
+            if (row < 2) {
+                out.println("---+---+---");
+            }
+        }
+        out.println();
+    }
+
+    /**
+     * Asks the game to print, on standard error, how long it took from
+     * the start of the JVM to the first prompt.
+     *
+     * @param jvmStartMillis - the JVM start time, as from
+     * RuntimeMXBean.getStartTime().
+     */
+    public final void reportStartup(final long jvmStartMillis) {
+        this.jvmStart = jvmStartMillis;
+    }
+
+    public final int getxWins() {
+        return xWins;
+    }
+
+    public final int getoWins() {
+        return oWins;
+    }
+
+    public final int getDraws() {
+        return draws;
+    }
+
+    /**
+     * Starts a console game on standard input and output.
+     *
+     * @param args - optional "--smarts=N", the difficulty from 0 (Easy)
+     * through 50 (Smart) to 100 (Genius, the default), and "--timing" to
+     * report the startup time.
+     * @throws IOException if reading standard input fails
+     */
+    public static void main(final String[] args) throws IOException {
+        int smarts = 100;
+        boolean timing = false;
+        for (String arg : args) {
+            if (arg.startsWith("--smarts=")) {
+                smarts = Integer.parseInt(arg.substring("--smarts=".length()));
+            } else if (arg.equals("--timing")) {
+                timing = true;
+            }
+        }
+        Strategy strategy = Strategies.forSmarts(smarts, new Random(System.nanoTime()));
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        ConsoleGame game = new ConsoleGame(in, System.out, strategy);
+        if (timing) {
+            // Only loaded on request, since java.management costs startup time too
+            game.reportStartup(java.lang.management.ManagementFactory
+                    .getRuntimeMXBean().getStartTime());
+        }
+        game.play();
+    }
+}
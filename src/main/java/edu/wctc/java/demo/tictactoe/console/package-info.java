@@ -0,0 +1,8 @@
+/**
+ * Provides a terminal front end for the classic game. It uses only the
+ * headless domain model (Board and the Strategy opponents), so it never
+ * loads AWT or Swing and starts quickly on machines without a display.
+ *
+ * @since 2.0
+ */
+package edu.wctc.java.demo.tictactoe.console;
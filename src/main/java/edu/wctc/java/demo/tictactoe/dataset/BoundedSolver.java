@@ -0,0 +1,104 @@
+package edu.wctc.java.demo.tictactoe.dataset;
+
+import edu.wctc.java.demo.tictactoe.domain.Geometry;
+import edu.wctc.java.demo.tictactoe.domain.PositionSolver;
+
+/**
+ * Solves positions of any Geometry with a negamax search limited to a
+ * horizon of plies. Scores follow PositionSolver: with MATE equal to the
+ * number of cells plus one, MATE - n is a forced win n plies away,
+ * -(MATE - n) a forced loss and 0 a proven draw. Positions that can not
+ * be proven within the horizon score UNKNOWN. Classic boards searched to
+ * the end use the shared PositionSolver table instead.
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+final class BoundedSolver {
+    static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private final Geometry geometry;
+    private final int horizon;
+    private final int mate;
+    private final boolean classic;
+
+    /**
+     * @param geometry - the board shape.
+     * @param horizon - the most plies searched below a position.
+     */
+    BoundedSolver(final Geometry geometry, final int horizon) {
+        this.geometry = geometry;
+        this.horizon = horizon;
+        this.mate = geometry.getCells() + 1;
+        this.classic = geometry.isClassic() && horizon >= geometry.getCells();
+    }
+
+    final int getMate() {
+        return mate;
+    }
+
+    /**
+     * Returns the score of a position for the side to move.
+     * 
+     * @param mover - the cells of the player about to move.
+     * @param other - the cells of the opponent.
+     */
+    final int solve(final long mover, final long other) {
+        if (classic) {
+            return PositionSolver.solve((int) mover, (int) other);
+        }
+        return search(mover, other, horizon);
+    }
+
+    /**
+     * Converts a child score (opponent's view) into the parent's view,
+     * one ply further from the end. UNKNOWN stays UNKNOWN.
+     */
+    static int backUp(final int childScore) {
+        if (childScore == UNKNOWN) {
+            return UNKNOWN;
+        } else if (childScore > 0) {
+            return -(childScore - 1);
+        } else if (childScore < 0) {
+            return -(childScore + 1);
+        }
+        return 0;
+    }
+
+    /*
+     * A proven win beats everything, since any win hidden behind the
+     * horizon would be longer. Otherwise one unknown child makes the whole
+     * position unknown, as it might still be a win.
+     */
+    private int search(final long mover, final long other, final int depth) {
+        if (geometry.hasLine(other)) {
+            return -mate;
+        }
+        long empty = ~(mover | other) & geometry.getFullMask();
+        if (empty == 0L) {
+            return 0;
+        }
+        if (depth == 0) {
+            return UNKNOWN;
+        }
+        int best = Integer.MIN_VALUE;
+        boolean unknown = false;
+        while (empty != 0L) {
+            long bit = empty & -empty;
+            empty ^= bit;
+            int score = backUp(search(other, mover | bit, depth - 1));
+            if (score == UNKNOWN) {
+                unknown = true;
+            } else if (score > best) {
+                best = score;
+                if (best == mate - 1) {
+                    break; // nothing beats winning right now
+                }
+            }
+        }
+        if (best > 0) {
+            return best;
+        }
+        return unknown ? UNKNOWN : best;
+    }
+}
@@ -0,0 +1,290 @@
+package edu.wctc.java.demo.tictactoe.dataset;
+
+import edu.wctc.java.demo.tictactoe.domain.Geometry;
+import edu.wctc.java.demo.tictactoe.domain.Symmetry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class enumerates every position reachable in play, up to a ply
+ * limit, and streams each one with its solved value, best moves and
+ * symmetry class to a file. Nothing but the current search path is kept
+ * in memory: each position is visited once by only following the move
+ * that is its canonical "last move" (the highest cell of the last mover
+ * whose removal leaves a position without a winner), which turns the
+ * graph of positions into a tree.
+ * <P>
+ * The first plies are walked on the calling thread; the subtrees below
+ * them run on a worker pool. Each worker collects rows in its own
+ * RowGroup and writes whole groups through a shared FileChannel, so the
+ * order of rows in the file is not deterministic.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class DatasetExporter {
+    private static final int ROWS_PER_GROUP = 4096;
+    private static final int SPLIT_PLY = 2;
+
+    private final Geometry geometry;
+    private final int maxPly;
+    private final DatasetFormat format;
+    private final BoundedSolver solver;
+    private final Symmetry symmetry;
+
+    /**
+     * Constructs an exporter.
+     *
+     * @param geometry - the board shape.
+     * @param maxPly - positions with more marks than this are not written.
+     * @param horizon - plies searched below each position to solve it;
+     * values that need a deeper search are written as unknown.
+     * @param format - the output file format.
+     */
+    public DatasetExporter(final Geometry geometry, final int maxPly,
+            final int horizon, final DatasetFormat format) {
+        this.geometry = geometry;
+        this.maxPly = Math.min(maxPly, geometry.getCells());
+        this.format = format;
+        this.solver = new BoundedSolver(geometry, horizon);
+        this.symmetry = Symmetry.of(geometry);
+    }
+
+    /**
+     * Writes every position to a file, replacing its contents.
+     *
+     * @param file - the output file.
+     * @param threads - the number of worker threads.
+     * @return the number of positions written
+     * @throws IOException if the file can not be written
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public final long export(final Path file, final int threads)
+            throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final Walker main = new Walker(channel);
+            main.buffer.clear();
+            format.writeHeader(main.buffer, geometry.getSize(), geometry.getWinLength());
+            main.drain();
+
+            final List<long[]> roots = new ArrayList<long[]>();
+            main.walk(0L, 0L, 0, roots);
+            main.flush();
+
+            final AtomicLong written = new AtomicLong(main.count);
+            final ThreadLocal<Walker> walkers = new ThreadLocal<Walker>() {
+                @Override
+                protected Walker initialValue() {
+                    return new Walker(channel);
+                }
+            };
+            List<Future<?>> futures = new ArrayList<Future<?>>(roots.size());
+            for (final long[] root : roots) {
+                futures.add(pool.submit(new Callable<Void>() {
+                    public Void call() {
+                        Walker walker = walkers.get();
+                        long before = walker.count;
+                        walker.walk(root[0], root[1], SPLIT_PLY, null);
+                        walker.flush();
+                        written.addAndGet(walker.count - before);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return written.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) ex.getCause()).getCause();
+            }
+            throw new IllegalStateException("Export failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /*
+     * The per-thread state of the enumeration: a row group and the buffer
+     * it is encoded into.
+     */
+    private final class Walker {
+        private final FileChannel channel;
+        private final RowGroup rows;
+        private final ByteBuffer buffer;
+        private long count;
+
+        Walker(final FileChannel channel) {
+            this.channel = channel;
+            int cells = geometry.getCells();
+            rows = new RowGroup(ROWS_PER_GROUP, cells);
+            buffer = ByteBuffer.allocateDirect(ROWS_PER_GROUP
+                    * format.maxRowBytes(cells) + 64).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /*
+         * Writes the position, then visits the children it owns. On the
+         * calling thread (roots != null) children at SPLIT_PLY are handed
+         * back as subtree roots instead of being walked.
+         */
+        void walk(final long x, final long o, final int ply, final List<long[]> roots) {
+            emit(x, o, ply);
+            if (ply == maxPly || geometry.hasLine(x) || geometry.hasLine(o)) {
+                return;
+            }
+            boolean xMoves = (ply & 1) == 0;
+            long mover = xMoves ? x : o;
+            long empty = ~(x | o) & geometry.getFullMask();
+            while (empty != 0L) {
+                long bit = empty & -empty;
+                empty ^= bit;
+                if (!ownsChild(mover | bit, bit)) {
+                    continue;
+                }
+                long cx = xMoves ? x | bit : x;
+                long co = xMoves ? o : o | bit;
+                if (roots != null && ply + 1 == SPLIT_PLY) {
+                    roots.add(new long[] {cx, co});
+                } else {
+                    walk(cx, co, ply + 1, roots);
+                }
+            }
+        }
+
+        /*
+         * True if the stone just played is the child's canonical last move:
+         * the highest stone of the mover whose removal leaves no winner.
+         * Positions without a winner are reachable in any move order, so
+         * that parent is always a real, unfinished position.
+         */
+        private boolean ownsChild(final long mover, final long played) {
+            long rest = mover;
+            while (rest != 0L) {
+                long top = Long.highestOneBit(rest);
+                if (!geometry.hasLine(mover ^ top)) {
+                    return top == played;
+                }
+                rest ^= top;
+            }
+            return false;
+        }
+
+        private void emit(final long x, final long o, final int ply) {
+            boolean xMoves = (ply & 1) == 0;
+            long mover = xMoves ? x : o;
+            long other = xMoves ? o : x;
+            long empty = ~(x | o) & geometry.getFullMask();
+            byte outcome;
+            int plies = 0;
+            long best = 0L;
+            if (geometry.hasLine(x) || geometry.hasLine(o)) {
+                outcome = RowGroup.LOSS;
+            } else if (empty == 0L) {
+                outcome = RowGroup.DRAW;
+            } else {
+                int bestScore = Integer.MIN_VALUE;
+                long unknown = 0L;
+                for (long rest = empty; rest != 0L; rest &= rest - 1) {
+                    long bit = rest & -rest;
+                    int score = BoundedSolver.backUp(solver.solve(other, mover | bit));
+                    if (score == BoundedSolver.UNKNOWN) {
+                        unknown |= bit;
+                    } else if (score > bestScore) {
+                        bestScore = score;
+                        best = bit;
+                    } else if (score == bestScore) {
+                        best |= bit;
+                    }
+                }
+                int mate = solver.getMate();
+                if (bestScore > 0) {
+                    outcome = RowGroup.WIN;
+                    plies = mate - bestScore;
+                } else if (unknown != 0L) {
+                    outcome = RowGroup.UNKNOWN;
+                    best = unknown;
+                } else if (bestScore < 0) {
+                    outcome = RowGroup.LOSS;
+                    plies = mate + bestScore;
+                } else {
+                    outcome = RowGroup.DRAW;
+                    plies = Long.bitCount(empty);
+                }
+            }
+            int s = symmetry.canonicalSymmetry(x, o);
+            rows.add(x, o, ply, outcome, plies, best,
+                    symmetry.transform(x, s), symmetry.transform(o, s));
+            count++;
+            if (rows.isFull()) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (rows.size() == 0) {
+                return;
+            }
+            buffer.clear();
+            format.writeRows(buffer, rows);
+            rows.clear();
+            drain();
+        }
+
+        void drain() {
+            buffer.flip();
+            try {
+                synchronized (channel) {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Exports positions from the command line and reports throughput.
+     *
+     * @param args - file [csv|columnar] [size] [winLength] [maxPly]
+     * [horizon] [threads]; defaults: positions.csv csv 3 3 9 9 (all cores).
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "positions.csv");
+        DatasetFormat format = args.length > 1
+                ? DatasetFormat.valueOf(args[1].toUpperCase()) : DatasetFormat.CSV;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int winLength = args.length > 3 ? Integer.parseInt(args[3]) : size;
+        int maxPly = args.length > 4 ? Integer.parseInt(args[4]) : size * size;
+        int horizon = args.length > 5 ? Integer.parseInt(args[5]) : size * size;
+        int threads = args.length > 6 ? Integer.parseInt(args[6])
+                : Runtime.getRuntime().availableProcessors();
+
+        DatasetExporter exporter = new DatasetExporter(
+                Geometry.of(size, winLength), maxPly, horizon, format);
+        long start = System.nanoTime();
+        long positions = exporter.export(file, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d positions to %s in %.2f s (%,.0f positions/s)%n",
+                positions, file, seconds, positions / seconds);
+    }
+}
@@ -0,0 +1,71 @@
+package edu.wctc.java.demo.tictactoe.dataset;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The file formats a DatasetExporter can write.
+ * <P>
+ * COLUMNAR is a little-endian binary file: the magic bytes "TTTD", a
+ * version byte, the board size and win length, then any number of row
+ * groups. Each row group is an int row count followed by its columns, one
+ * after the other: x mask (long), 0 mask (long), ply (byte), outcome
+ * (byte: 1 win, 0 draw, -1 loss, 2 unknown, for the side to move), plies
+ * to the end (byte), best-move mask (long), symmetry class x mask (long)
+ * and symmetry class 0 mask (long).
+ * <P>
+ * CSV has a header line and one line per position: the board as "X", "0"
+ * and "-" cells, ply, outcome (W, D, L or ?), plies, best moves as cell
+ * numbers separated by spaces, and the canonical board of the symmetry
+ * class.
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public enum DatasetFormat {
+    COLUMNAR {
+        @Override
+        void writeHeader(final ByteBuffer out, final int size, final int winLength) {
+            out.put(MAGIC).put((byte) 1).put((byte) size).put((byte) winLength);
+        }
+
+        @Override
+        int maxRowBytes(final int cells) {
+            return 8 * 5 + 3;
+        }
+
+        @Override
+        void writeRows(final ByteBuffer out, final RowGroup rows) {
+            rows.writeColumns(out);
+        }
+    },
+    CSV {
+        @Override
+        void writeHeader(final ByteBuffer out, final int size, final int winLength) {
+            out.put("board,ply,outcome,plies,best_moves,symmetry_class\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+        }
+
+        @Override
+        int maxRowBytes(final int cells) {
+            return 2 * cells + 3 * cells + 16;
+        }
+
+        @Override
+        void writeRows(final ByteBuffer out, final RowGroup rows) {
+            rows.writeCsv(out);
+        }
+    };
+
+    private static final byte[] MAGIC = {'T', 'T', 'T', 'D'};
+
+    abstract void writeHeader(ByteBuffer out, int size, int winLength);
+
+    /*
+     * An upper bound on the encoded size of one row, plus its share of the
+     * row group header, used to size the output buffers.
+     */
+    abstract int maxRowBytes(int cells);
+
+    abstract void writeRows(ByteBuffer out, RowGroup rows);
+}
@@ -0,0 +1,299 @@
+package edu.wctc.java.demo.tictactoe.dataset;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.Geometry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class walks every legal move sequence of a game, as opposed to the
+ * DatasetExporter, which visits each position once. On the classic board
+ * that is all 255,168 possible games; larger boards have far too many, so
+ * the walk can stop at a ply limit. Along the way it counts the nodes at
+ * each ply, the wins and draws by game length, how the games starting
+ * with each first move end and the distinct positions at each ply.
+ * <P>
+ * The tree is split into one fork-join task per opening of SPLIT_PLY
+ * moves, and idle workers steal subtrees from busy ones. Below the split a
+ * task walks its subtree recursively on two bit masks and an int, with
+ * nothing allocated per node, and counts into its own TreeStatistics.
+ * Distinct positions are found with a shared bit set indexed by the
+ * base-3 number of the position, so they are only tracked for boards of
+ * up to 16 cells.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class GameTreeEnumerator {
+    private static final int SPLIT_PLY = 3;
+    private static final int MAX_TRACKED_CELLS = 16;
+
+    private final Geometry geometry;
+    private final int cells;
+    private final int maxPly;
+    private final long fullMask;
+    private final long[][] linesThrough;
+    private final int[] powers;
+
+    /**
+     * Constructs an enumerator.
+     *
+     * @param geometry - the board shape.
+     * @param maxPly - sequences are not followed past this many moves.
+     */
+    public GameTreeEnumerator(final Geometry geometry, final int maxPly) {
+        this.geometry = geometry;
+        this.cells = geometry.getCells();
+        this.maxPly = Math.min(maxPly, cells);
+        this.fullMask = geometry.getFullMask();
+        this.linesThrough = buildLinesThrough(geometry);
+        if (cells <= MAX_TRACKED_CELLS) {
+            powers = new int[cells];
+            int power = 1;
+            for (int cell = 0; cell < cells; cell++) {
+                powers[cell] = power;
+                power *= 3;
+            }
+        } else {
+            powers = null;
+        }
+    }
+
+    /*
+     * A move can only complete a line through its own cell, so each cell
+     * keeps just those lines.
+     */
+    private static long[][] buildLinesThrough(final Geometry geometry) {
+        long[][] result = new long[geometry.getCells()][];
+        for (int cell = 0; cell < result.length; cell++) {
+            List<Long> lines = new ArrayList<Long>();
+            for (int i = 0; i < geometry.getLineCount(); i++) {
+                if ((geometry.getLine(i) & (1L << cell)) != 0L) {
+                    lines.add(geometry.getLine(i));
+                }
+            }
+            result[cell] = new long[lines.size()];
+            for (int i = 0; i < lines.size(); i++) {
+                result[cell][i] = lines.get(i);
+            }
+        }
+        return result;
+    }
+
+    public final Geometry getGeometry() {
+        return geometry;
+    }
+
+    public final int getMaxPly() {
+        return maxPly;
+    }
+
+    /**
+     * Walks the game tree on a fork-join pool of its own.
+     *
+     * @param threads - the number of worker threads.
+     * @return the counts, with the elapsed time
+     */
+    public final TreeStatistics enumerate(final int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return enumerate(pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Walks the game tree on the supplied fork-join pool.
+     *
+     * @param pool - runs the subtree tasks.
+     * @return the counts, with the elapsed time
+     */
+    public final TreeStatistics enumerate(final ForkJoinPool pool) {
+        AtomicLongArray seen = powers == null
+                ? null : new AtomicLongArray((int) ((pow3(cells) + 63) / 64));
+        long start = System.nanoTime();
+        TreeStatistics stats = pool.invoke(new Subtree(seen, 0L, 0L, 0, -1, -1, 0));
+        stats.setElapsedNanos(System.nanoTime() - start);
+        return stats;
+    }
+
+    private static long pow3(final int n) {
+        long result = 1;
+        for (int i = 0; i < n; i++) {
+            result *= 3;
+        }
+        return result;
+    }
+
+    /*
+     * One node of the tree, where the player who just moved holds
+     * "other". Records the node and returns true if the game goes on
+     * below it.
+     */
+    private boolean visit(final AtomicLongArray seen, final long other,
+            final int ply, final int last, final int first, final int index,
+            final TreeStatistics stats) {
+        stats.nodes[ply]++;
+        if (seen != null) {
+            markSeen(seen, index, ply, stats);
+        }
+        if (last >= 0 && completesLine(other, last)) {
+            // ply is odd when "X" made the last move
+            if ((ply & 1) == 1) {
+                stats.xWins[ply]++;
+                stats.firstXWins[first]++;
+            } else {
+                stats.oWins[ply]++;
+                stats.firstOWins[first]++;
+            }
+            return false;
+        }
+        if (ply == cells) {
+            stats.draws[ply]++;
+            stats.firstDraws[first]++;
+            return false;
+        }
+        if (ply == maxPly) {
+            stats.cutoffs++;
+            return false;
+        }
+        return true;
+    }
+
+    private boolean completesLine(final long mask, final int cell) {
+        for (long line : linesThrough[cell]) {
+            if ((mask & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Sets the position's bit and counts it the first time it is seen.
+     * Most positions are reached again and again, so a plain read comes
+     * before any compare-and-set.
+     */
+    private static void markSeen(final AtomicLongArray seen, final int index,
+            final int ply, final TreeStatistics stats) {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        long current = seen.get(word);
+        while ((current & bit) == 0L) {
+            if (seen.compareAndSet(word, current, current | bit)) {
+                stats.positions[ply]++;
+                return;
+            }
+            current = seen.get(word);
+        }
+    }
+
+    /*
+     * The sequential walk below the split ply.
+     */
+    private void walk(final AtomicLongArray seen, final long mover, final long other,
+            final int ply, final int last, final int first, final int index,
+            final TreeStatistics stats) {
+        if (!visit(seen, other, ply, last, first, index, stats)) {
+            return;
+        }
+        int mark = (ply & 1) == 0 ? Board.X : Board.O;
+        long empty = ~(mover | other) & fullMask;
+        while (empty != 0L) {
+            long bit = empty & -empty;
+            empty ^= bit;
+            int cell = Long.numberOfTrailingZeros(bit);
+            walk(seen, other, mover | bit, ply + 1, cell, first < 0 ? cell : first,
+                    powers == null ? 0 : index + mark * powers[cell], stats);
+        }
+    }
+
+    /*
+     * A node above the split ply forks one task per move; below it the
+     * task walks its whole subtree.
+     */
+    private final class Subtree extends RecursiveTask<TreeStatistics> {
+        private final AtomicLongArray seen;
+        private final long mover;
+        private final long other;
+        private final int ply;
+        private final int last;
+        private final int first;
+        private final int index;
+
+        Subtree(final AtomicLongArray seen, final long mover, final long other,
+                final int ply, final int last, final int first, final int index) {
+            this.seen = seen;
+            this.mover = mover;
+            this.other = other;
+            this.ply = ply;
+            this.last = last;
+            this.first = first;
+            this.index = index;
+        }
+
+        @Override
+        protected TreeStatistics compute() {
+            TreeStatistics stats = new TreeStatistics(cells, powers != null);
+            if (ply >= SPLIT_PLY) {
+                walk(seen, mover, other, ply, last, first, index, stats);
+                return stats;
+            }
+            if (!visit(seen, other, ply, last, first, index, stats)) {
+                return stats;
+            }
+            int mark = (ply & 1) == 0 ? Board.X : Board.O;
+            List<Subtree> children = new ArrayList<Subtree>();
+            long empty = ~(mover | other) & fullMask;
+            while (empty != 0L) {
+                long bit = empty & -empty;
+                empty ^= bit;
+                int cell = Long.numberOfTrailingZeros(bit);
+                children.add(new Subtree(seen, other, mover | bit, ply + 1, cell,
+                        first < 0 ? cell : first,
+                        powers == null ? 0 : index + mark * powers[cell]));
+            }
+            for (Subtree child : invokeAll(children)) {
+                stats.merge(child.join());
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * Enumerates a game tree from the command line and reports the counts
+     * and nodes per second.
+     *
+     * @param args - [size] [winLength] [maxPly] [threads]; defaults:
+     * 3 3 9 (all cores).
+     */
+    public static void main(final String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int winLength = args.length > 1 ? Integer.parseInt(args[1]) : size;
+        int maxPly = args.length > 2 ? Integer.parseInt(args[2]) : size * size;
+        int threads = args.length > 3 ? Integer.parseInt(args[3])
+                : Runtime.getRuntime().availableProcessors();
+
+        GameTreeEnumerator enumerator = new GameTreeEnumerator(
+                Geometry.of(size, winLength), maxPly);
+        TreeStatistics stats = enumerator.enumerate(threads);
+        System.out.printf("%4s %16s %12s %14s %14s %14s%n",
+                "ply", "nodes", "positions", "X wins", "0 wins", "draws");
+        for (int ply = 0; ply <= enumerator.getMaxPly(); ply++) {
+            System.out.printf("%4d %,16d %,12d %,14d %,14d %,14d%n", ply,
+                    stats.getNodes(ply), stats.getPositions(ply),
+                    stats.getWins(Board.X, ply), stats.getWins(Board.O, ply),
+                    stats.getDraws(ply));
+        }
+        System.out.printf("%,d games, %,d cut off at ply %d; X %,d, 0 %,d, draws %,d%n",
+                stats.getGames(), stats.getCutoffs(), enumerator.getMaxPly(),
+                stats.getWins(Board.X), stats.getWins(Board.O), stats.getDraws());
+        System.out.printf("%,d nodes in %.3f s on %d threads (%,.0f nodes/s)%n",
+                stats.getTotalNodes(), stats.getElapsedNanos() / 1e9, threads,
+                stats.getNodesPerSecond());
+    }
+}
@@ -0,0 +1,234 @@
+package edu.wctc.java.demo.tictactoe.dataset;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.Geometry;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class solves every position of a board of up to 16 cells by
+ * retrograde analysis, too many for the PositionSolver's search from the
+ * root (a 4x4 board has 3^16, about 43 million, indexes). Every move adds
+ * a mark, so the positions fall into layers by the number of marks and a
+ * position's value depends only on the layer below it. The solver starts
+ * with the full boards and finished games of the last layer and works back
+ * to the empty board, one layer per pass: a position is a WIN if some
+ * move leaves the opponent a LOSS, a DRAW if the best move leaves a DRAW
+ * and otherwise a LOSS.
+ * <P>
+ * The values are 2-bit packed into a direct ByteBuffer off the Java heap.
+ * Each pass splits the index range into stripes of whole bytes that the
+ * worker threads take in turn; a pass only writes its own layer and only
+ * reads the finished one below it, so the threads need no locks, and
+ * waiting for all the stripes of a pass is the only synchronization.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class RetrogradeSolver {
+    static final int MAX_CELLS = 16;
+
+    private static final int STRIPES_PER_THREAD = 8;
+
+    private final Geometry geometry;
+    private final int cells;
+    private final int[] powers;
+    private final int states;
+    private long solvedStates;
+    private long elapsedNanos;
+
+    /**
+     * @param geometry - the board shape, 16 cells at most.
+     * @throws IllegalArgumentException if the board is too large
+     */
+    public RetrogradeSolver(final Geometry geometry) {
+        if (geometry.getCells() > MAX_CELLS) {
+            throw new IllegalArgumentException("Boards of up to "
+                    + MAX_CELLS + " cells can be solved: " + geometry);
+        }
+        this.geometry = geometry;
+        this.cells = geometry.getCells();
+        this.powers = Tablebase.powersOf3(cells);
+        this.states = powers[cells - 1] * 3;
+    }
+
+    /**
+     * Returns the number of reachable-looking positions (legal mark
+     * counts) given a value by the last solve().
+     */
+    public final long getSolvedStates() {
+        return solvedStates;
+    }
+
+    public final long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Solves every position.
+     *
+     * @param threads - the number of worker threads.
+     * @return the solved positions
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public final Tablebase solve(final int threads) throws InterruptedException {
+        long start = System.nanoTime();
+        final ByteBuffer values = ByteBuffer.allocateDirect((states + 3) / 4);
+        final AtomicLong solved = new AtomicLong();
+        int stripes = threads * STRIPES_PER_THREAD;
+        // Whole bytes per stripe, so no two threads share a byte
+        int stripeSize = ((states + stripes - 1) / stripes + 3) & ~3;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int layer = cells; layer >= 0; layer--) {
+                final int marks = layer;
+                List<Future<?>> futures = new ArrayList<Future<?>>(stripes);
+                for (int from = 0; from < states; from += stripeSize) {
+                    final int first = from;
+                    final int last = Math.min(states, from + stripeSize);
+                    futures.add(pool.submit(new Callable<Void>() {
+                        public Void call() {
+                            solved.addAndGet(solveStripe(values, marks, first, last));
+                            return null;
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Solve failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        solvedStates = solved.get();
+        elapsedNanos = System.nanoTime() - start;
+        return new Tablebase(geometry, values);
+    }
+
+    /*
+     * Solves the positions of one layer within [first, last). The masks
+     * of each index are kept up to date like an odometer instead of being
+     * decoded from scratch.
+     */
+    private int solveStripe(final ByteBuffer values, final int marks,
+            final int first, final int last) {
+        long x = 0L;
+        long o = 0L;
+        int rest = first;
+        for (int cell = 0; cell < cells; cell++) {
+            int digit = rest % 3;
+            rest /= 3;
+            if (digit == Board.X) {
+                x |= 1L << cell;
+            } else if (digit == Board.O) {
+                o |= 1L << cell;
+            }
+        }
+        int count = 0;
+        for (int index = first; index < last; index++) {
+            int xCount = Long.bitCount(x);
+            int oCount = Long.bitCount(o);
+            if (xCount + oCount == marks && (xCount == oCount || xCount == oCount + 1)) {
+                Tablebase.set(values, index, valueOf(values, index, x, o, xCount == oCount));
+                count++;
+            }
+            // Next index: add one to the lowest cell, carrying past "0"s
+            for (int cell = 0; cell < cells; cell++) {
+                long bit = 1L << cell;
+                if ((o & bit) != 0L) {
+                    o ^= bit;
+                } else {
+                    if ((x & bit) != 0L) {
+                        x ^= bit;
+                        o |= bit;
+                    } else {
+                        x |= bit;
+                    }
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    /*
+     * The value for the side to move, from the finished layer below.
+     */
+    private int valueOf(final ByteBuffer values, final int index,
+            final long x, final long o, final boolean xToMove) {
+        if (geometry.hasLine(xToMove ? o : x)) {
+            return Tablebase.LOSS;
+        }
+        long empty = ~(x | o) & geometry.getFullMask();
+        if (empty == 0L) {
+            return Tablebase.DRAW;
+        }
+        int mark = xToMove ? Board.X : Board.O;
+        int result = Tablebase.LOSS;
+        for (; empty != 0L; empty &= empty - 1) {
+            int child = Tablebase.get(values,
+                    index + mark * powers[Long.numberOfTrailingZeros(empty)]);
+            if (child == Tablebase.LOSS) {
+                return Tablebase.WIN;
+            } else if (child == Tablebase.DRAW) {
+                result = Tablebase.DRAW;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Solves a board from the command line, writes the tablebase file and
+     * reports the solve time, states per second and peak memory.
+     *
+     * @param args - [size] [winLength] [file] [threads]; defaults: 4 4
+     * tablebase-4x4.ttt (all cores).
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int winLength = args.length > 1 ? Integer.parseInt(args[1]) : size;
+        Path file = Paths.get(args.length > 2 ? args[2]
+                : "tablebase-" + size + "x" + size + ".ttt");
+        int threads = args.length > 3 ? Integer.parseInt(args[3])
+                : Runtime.getRuntime().availableProcessors();
+
+        RetrogradeSolver solver = new RetrogradeSolver(Geometry.of(size, winLength));
+        Tablebase tablebase = solver.solve(threads);
+        tablebase.save(file);
+        double seconds = solver.getElapsedNanos() / 1e9;
+        String[] names = {"unknown", "win", "loss", "draw"};
+        System.out.printf("%s solved in %.2f s on %d threads: %,d of %,d indexes "
+                + "(%,.0f states/s); empty board is a %s%n",
+                tablebase.getGeometry(), seconds, threads, solver.getSolvedStates(),
+                tablebase.getStates(), tablebase.getStates() / seconds,
+                names[tablebase.valueOf(0L, 0L)]);
+        long heapPeak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPeak += pool.getPeakUsage().getUsed();
+            }
+        }
+        long direct = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            direct += pool.getMemoryUsed();
+        }
+        System.out.printf("peak heap %.1f MB, off-heap buffers %.1f MB; wrote %s%n",
+                heapPeak / 1048576.0, direct / 1048576.0, file);
+    }
+}
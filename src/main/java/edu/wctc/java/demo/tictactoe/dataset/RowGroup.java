@@ -0,0 +1,137 @@
+package edu.wctc.java.demo.tictactoe.dataset;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A fixed-capacity batch of positions held column by column in primitive
+ * arrays, so a worker can collect rows without creating objects and then
+ * encode the whole batch in one pass. RowGroups are reused after clear().
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+final class RowGroup {
+    static final byte WIN = 1;
+    static final byte DRAW = 0;
+    static final byte LOSS = -1;
+    static final byte UNKNOWN = 2;
+
+    private final int cells;
+    private final long[] x;
+    private final long[] o;
+    private final byte[] ply;
+    private final byte[] outcome;
+    private final byte[] plies;
+    private final long[] best;
+    private final long[] classX;
+    private final long[] classO;
+    private int rows;
+
+    RowGroup(final int capacity, final int cells) {
+        this.cells = cells;
+        x = new long[capacity];
+        o = new long[capacity];
+        ply = new byte[capacity];
+        outcome = new byte[capacity];
+        plies = new byte[capacity];
+        best = new long[capacity];
+        classX = new long[capacity];
+        classO = new long[capacity];
+    }
+
+    final void add(final long xMask, final long oMask, final int plyCount,
+            final byte result, final int distance, final long bestMoves,
+            final long symX, final long symO) {
+        x[rows] = xMask;
+        o[rows] = oMask;
+        ply[rows] = (byte) plyCount;
+        outcome[rows] = result;
+        plies[rows] = (byte) distance;
+        best[rows] = bestMoves;
+        classX[rows] = symX;
+        classO[rows] = symO;
+        rows++;
+    }
+
+    final boolean isFull() {
+        return rows == x.length;
+    }
+
+    final int size() {
+        return rows;
+    }
+
+    final void clear() {
+        rows = 0;
+    }
+
+    final void writeColumns(final ByteBuffer out) {
+        out.putInt(rows);
+        putLongs(out, x);
+        putLongs(out, o);
+        out.put(ply, 0, rows);
+        out.put(outcome, 0, rows);
+        out.put(plies, 0, rows);
+        putLongs(out, best);
+        putLongs(out, classX);
+        putLongs(out, classO);
+    }
+
+    private void putLongs(final ByteBuffer out, final long[] column) {
+        for (int i = 0; i < rows; i++) {
+            out.putLong(column[i]);
+        }
+    }
+
+    final void writeCsv(final ByteBuffer out) {
+        for (int i = 0; i < rows; i++) {
+            putBoard(out, x[i], o[i]);
+            out.put((byte) ',');
+            putNumber(out, ply[i]);
+            out.put((byte) ',');
+            out.put(outcomeChar(outcome[i]));
+            out.put((byte) ',');
+            putNumber(out, plies[i]);
+            out.put((byte) ',');
+            long rest = best[i];
+            while (rest != 0L) {
+                putNumber(out, Long.numberOfTrailingZeros(rest));
+                rest &= rest - 1;
+                if (rest != 0L) {
+                    out.put((byte) ' ');
+                }
+            }
+            out.put((byte) ',');
+            putBoard(out, classX[i], classO[i]);
+            out.put((byte) '\n');
+        }
+    }
+
+    private void putBoard(final ByteBuffer out, final long xMask, final long oMask) {
+        for (int cell = 0; cell < cells; cell++) {
+            long bit = 1L << cell;
+            out.put((xMask & bit) != 0 ? (byte) 'X'
+                    : (oMask & bit) != 0 ? (byte) '0' : (byte) '-');
+        }
+    }
+
+    private static void putNumber(final ByteBuffer out, final int value) {
+        if (value >= 10) {
+            putNumber(out, value / 10);
+        }
+        out.put((byte) ('0' + value % 10));
+    }
+
+    private static byte outcomeChar(final byte result) {
+        switch (result) {
+            case WIN:
+                return 'W';
+            case DRAW:
+                return 'D';
+            case LOSS:
+                return 'L';
+            default:
+                return '?';
+        }
+    }
+}
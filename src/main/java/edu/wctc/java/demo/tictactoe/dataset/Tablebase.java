@@ -0,0 +1,213 @@
+package edu.wctc.java.demo.tictactoe.dataset;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.Geometry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class holds the solved value of every position of a small board,
+ * as built by a RetrogradeSolver. A position's index is its base-3
+ * number: cell n adds 3^n for an "X" and 2 * 3^n for a "0". Each value is
+ * 2 bits, WIN, LOSS or DRAW for the side to move, packed four to a byte,
+ * so a 4x4 board (3^16 indexes) fits in about 11 MB. Unreachable indexes
+ * hold UNKNOWN.
+ * <P>
+ * A tablebase file is a little-endian header (the magic bytes "TTTB", the
+ * board size, win length and index count as ints) followed by the packed
+ * values. Loading maps the file read-only instead of copying it onto the
+ * heap. A Tablebase is never changed once built, so it may be shared
+ * between threads.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class Tablebase {
+    public static final int UNKNOWN = 0;
+    public static final int WIN = 1;
+    public static final int LOSS = 2;
+    public static final int DRAW = 3;
+
+    private static final int MAGIC = 0x42545454; // "TTTB" little-endian
+    private static final int HEADER_BYTES = 16;
+
+    private final Geometry geometry;
+    private final ByteBuffer values;
+    private final int[] powers;
+    private final int states;
+
+    Tablebase(final Geometry geometry, final ByteBuffer values) {
+        this.geometry = geometry;
+        this.values = values;
+        this.powers = powersOf3(geometry.getCells());
+        this.states = powers[powers.length - 1] * 3;
+    }
+
+    /*
+     * Returns 3^n for every cell n.
+     */
+    static int[] powersOf3(final int cells) {
+        int[] result = new int[cells];
+        int power = 1;
+        for (int cell = 0; cell < cells; cell++) {
+            result[cell] = power;
+            power *= 3;
+        }
+        return result;
+    }
+
+    static int get(final ByteBuffer values, final int index) {
+        return (values.get(index >>> 2) >>> ((index & 3) << 1)) & 3;
+    }
+
+    /*
+     * Only the solver writes values, each thread to its own stripe of
+     * whole bytes, so the read-modify-write needs no lock.
+     */
+    static void set(final ByteBuffer values, final int index, final int value) {
+        int shift = (index & 3) << 1;
+        int b = values.get(index >>> 2);
+        values.put(index >>> 2, (byte) ((b & ~(3 << shift)) | value << shift));
+    }
+
+    public final Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Returns the number of indexes, 3 to the power of the cell count.
+     */
+    public final int getStates() {
+        return states;
+    }
+
+    /**
+     * Returns the index of a position.
+     *
+     * @param x - the cells held by "X".
+     * @param o - the cells held by "0".
+     */
+    public final int indexOf(final long x, final long o) {
+        int index = 0;
+        for (long rest = x; rest != 0L; rest &= rest - 1) {
+            index += powers[Long.numberOfTrailingZeros(rest)];
+        }
+        for (long rest = o; rest != 0L; rest &= rest - 1) {
+            index += 2 * powers[Long.numberOfTrailingZeros(rest)];
+        }
+        return index;
+    }
+
+    /**
+     * Returns the value of a position for the side to move: WIN, LOSS,
+     * DRAW, or UNKNOWN if it can not come up in play.
+     *
+     * @param x - the cells held by "X".
+     * @param o - the cells held by "0".
+     */
+    public final int valueOf(final long x, final long o) {
+        return get(values, indexOf(x, o));
+    }
+
+    /**
+     * Chooses a move that keeps the best value for a player: a win if
+     * there is one (completing a line at once if possible), otherwise a
+     * draw, otherwise any move.
+     *
+     * @param board - the current position; it is not modified.
+     * @param mark - the player to move, Board.X or Board.O.
+     * @return the chosen empty cell, or -1 if there is none
+     * @throws IllegalArgumentException if the board has another shape
+     */
+    public final int bestMove(final Board board, final int mark) {
+        Geometry shape = board.getGeometry();
+        if (shape.getSize() != geometry.getSize()
+                || shape.getWinLength() != geometry.getWinLength()) {
+            throw new IllegalArgumentException("Tablebase is for "
+                    + geometry + ", not " + shape);
+        }
+        long mine = board.getMask(mark);
+        int index = indexOf(board.getMask(Board.X), board.getMask(Board.O));
+        int best = -1;
+        int bestRank = -1;
+        for (long empty = board.getEmptyMask(); empty != 0L; empty &= empty - 1) {
+            int cell = Long.numberOfTrailingZeros(empty);
+            if (geometry.hasLine(mine | 1L << cell)) {
+                return cell;
+            }
+            // The child's value is for the opponent
+            int child = get(values, index + mark * powers[cell]);
+            int rank = child == LOSS ? 2 : child == DRAW ? 1 : 0;
+            if (rank > bestRank) {
+                best = cell;
+                bestRank = rank;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Writes this tablebase to a file, replacing its contents.
+     *
+     * @param file - the output file.
+     * @throws IOException if the file can not be written
+     */
+    public final void save(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(geometry.getSize())
+                    .putInt(geometry.getWinLength()).putInt(states).flip();
+            ByteBuffer body = values.duplicate();
+            body.clear();
+            while (header.hasRemaining() || body.hasRemaining()) {
+                channel.write(new ByteBuffer[] {header, body});
+            }
+        }
+    }
+
+    /**
+     * Maps a tablebase file into memory.
+     *
+     * @param file - a file written by save().
+     * @return the tablebase
+     * @throws IOException if the file can not be read or is not a
+     * tablebase
+     */
+    public static Tablebase load(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    break;
+                }
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new IOException("Not a tablebase file: " + file);
+            }
+            int size = header.getInt();
+            int winLength = header.getInt();
+            int states = header.getInt();
+            Geometry geometry;
+            try {
+                geometry = Geometry.of(size, winLength);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("Bad tablebase header: " + file, ex);
+            }
+            long bytes = (states + 3L) / 4;
+            if (geometry.getCells() > RetrogradeSolver.MAX_CELLS
+                    || states != powersOf3(geometry.getCells())[geometry.getCells() - 1] * 3
+                    || channel.size() != HEADER_BYTES + bytes) {
+                throw new IOException("Bad tablebase size: " + file);
+            }
+            return new Tablebase(geometry,
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, bytes));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package edu.wctc.java.demo.tictactoe.dataset;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Perfect-play Strategy for any board a Tablebase has been solved for,
+ * e.g. 4x4, where the GeniusStrategy's PositionSolver can not go. Each
+ * move is a handful of table lookups. Strategies sharing one Tablebase
+ * may run on different threads.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class TablebaseStrategy implements Strategy {
+    private final Tablebase tablebase;
+
+    /**
+     * @param tablebase - the solved positions.
+     */
+    public TablebaseStrategy(final Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Loads a tablebase file written by the RetrogradeSolver.
+     *
+     * @param file - the tablebase file.
+     * @throws IOException if the file can not be read or is not a
+     * tablebase
+     */
+    public TablebaseStrategy(final Path file) throws IOException {
+        this(Tablebase.load(file));
+    }
+
+    public final Tablebase getTablebase() {
+        return tablebase;
+    }
+
+    @Override
+    public int selectMove(final Board board, final int mark) {
+        return tablebase.bestMove(board, mark);
+    }
+}
@@ -0,0 +1,182 @@
+package edu.wctc.java.demo.tictactoe.dataset;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+
+/**
+ * This class holds the counts gathered by a GameTreeEnumerator: game
+ * sequences per ply, finished games by winner and length, the outcome of
+ * the games that start with each first move and the number of distinct
+ * positions per ply. A ply is the number of marks on the board, so the
+ * length of a game is the ply it ends on.
+ * <P>
+ * Each enumeration task fills its own TreeStatistics and the results are
+ * merged when the tasks join, so the counters need no synchronization.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class TreeStatistics {
+    final long[] nodes;
+    final long[] positions;
+    final long[] xWins;
+    final long[] oWins;
+    final long[] draws;
+    final long[] firstXWins;
+    final long[] firstOWins;
+    final long[] firstDraws;
+    long cutoffs;
+    private final boolean positionsTracked;
+    private long elapsedNanos;
+
+    TreeStatistics(final int cells, final boolean positionsTracked) {
+        this.nodes = new long[cells + 1];
+        this.positions = new long[cells + 1];
+        this.xWins = new long[cells + 1];
+        this.oWins = new long[cells + 1];
+        this.draws = new long[cells + 1];
+        this.firstXWins = new long[cells];
+        this.firstOWins = new long[cells];
+        this.firstDraws = new long[cells];
+        this.positionsTracked = positionsTracked;
+    }
+
+    /*
+     * Adds another task's counts to these.
+     */
+    void merge(final TreeStatistics other) {
+        add(nodes, other.nodes);
+        add(positions, other.positions);
+        add(xWins, other.xWins);
+        add(oWins, other.oWins);
+        add(draws, other.draws);
+        add(firstXWins, other.firstXWins);
+        add(firstOWins, other.firstOWins);
+        add(firstDraws, other.firstDraws);
+        cutoffs += other.cutoffs;
+    }
+
+    private static void add(final long[] to, final long[] from) {
+        for (int i = 0; i < to.length; i++) {
+            to[i] += from[i];
+        }
+    }
+
+    private static long sum(final long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    void setElapsedNanos(final long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the deepest ply this enumeration can hold, the number of
+     * cells on the board.
+     */
+    public final int getMaxPly() {
+        return nodes.length - 1;
+    }
+
+    /**
+     * Returns the number of move sequences of a given length that were
+     * walked, i.e. the nodes of the game tree at that ply.
+     */
+    public final long getNodes(final int ply) {
+        return nodes[ply];
+    }
+
+    public final long getTotalNodes() {
+        return sum(nodes);
+    }
+
+    /**
+     * Returns the number of distinct positions reached at a ply, or -1 if
+     * the board was too large for positions to be tracked.
+     */
+    public final long getPositions(final int ply) {
+        return positionsTracked ? positions[ply] : -1;
+    }
+
+    /**
+     * Returns the number of distinct positions reached, or -1 if the board
+     * was too large for positions to be tracked.
+     */
+    public final long getTotalPositions() {
+        return positionsTracked ? sum(positions) : -1;
+    }
+
+    /**
+     * Returns the number of finished games won by a player.
+     *
+     * @param mark - Board.X or Board.O.
+     */
+    public final long getWins(final int mark) {
+        return sum(mark == Board.X ? xWins : oWins);
+    }
+
+    /**
+     * Returns the number of finished games a player won on a given ply.
+     *
+     * @param mark - Board.X or Board.O.
+     * @param length - the ply the game ended on.
+     */
+    public final long getWins(final int mark, final int length) {
+        return mark == Board.X ? xWins[length] : oWins[length];
+    }
+
+    public final long getDraws() {
+        return sum(draws);
+    }
+
+    public final long getDraws(final int length) {
+        return draws[length];
+    }
+
+    /**
+     * Returns the number of games that ended within the ply limit.
+     */
+    public final long getGames() {
+        return sum(xWins) + sum(oWins) + sum(draws);
+    }
+
+    /**
+     * Returns the number of sequences still undecided at the ply limit.
+     */
+    public final long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     * Returns the number of finished games that opened on a cell and were
+     * won by a player.
+     *
+     * @param cell - the first move.
+     * @param mark - Board.X or Board.O.
+     */
+    public final long getFirstMoveWins(final int cell, final int mark) {
+        return mark == Board.X ? firstXWins[cell] : firstOWins[cell];
+    }
+
+    /**
+     * Returns the number of finished games that opened on a cell and
+     * ended in a draw.
+     */
+    public final long getFirstMoveDraws(final int cell) {
+        return firstDraws[cell];
+    }
+
+    public final long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the enumeration speed, tree nodes per second of wall time.
+     */
+    public final double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : getTotalNodes() * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * Provides tools that enumerate and solve game positions and stream them
+ * to files, e.g. as training data for external models.
+ *
+ * @since 2.0
+ */
+package edu.wctc.java.demo.tictactoe.dataset;
@@ -0,0 +1,297 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.util.Random;
+
+/**
+ * This class is a headless model of a game board. Unlike the Tile objects,
+ * which are Swing components, a Board keeps the marks of both players as
+ * bit masks, so strategies can play thousands of games per second without
+ * a GUI. Bit n of a mask stands for cell n of the board's Geometry.
+ * <P>
+ * The player marks are the ints X and 0 (named O here); "X" always moves
+ * first. Every change also updates the Board's Zobrist key, so getHash()
+ * identifies the position at no cost.
+ * <P>
+ * Moves are kept on a stack in the order they were played, so undo() and
+ * redo() step through a game in constant time, and a search can make a
+ * move and unmake it without copying the board. A Board is not thread
+ * safe.
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class Board {
+    public static final int EMPTY = 0;
+    public static final int X = 1;
+    public static final int O = 2;
+
+    private final Geometry geometry;
+    // cell | mark << 8 for each move; entries past tilesPlayed can be redone
+    private final int[] history;
+    private int redoable;
+    private long xMask;
+    private long oMask;
+    private int tilesPlayed;
+    private long hash;
+
+    /**
+     * Constructs an empty classic 3x3 Board.
+     */
+    public Board() {
+        this(Geometry.CLASSIC);
+    }
+
+    /**
+     * Constructs an empty Board of the given shape.
+     * 
+     * @param geometry - the size and winning lines of the board.
+     */
+    public Board(final Geometry geometry) {
+        this.geometry = geometry;
+        this.history = new int[geometry.getCells()];
+    }
+
+    /**
+     * Returns the other player's mark.
+     * 
+     * @param mark - X or O.
+     */
+    public static int opponent(final int mark) {
+        return mark == X ? O : X;
+    }
+
+    public final Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Clears every cell so the Board can be used for a new game.
+     */
+    public final void reset() {
+        xMask = 0L;
+        oMask = 0L;
+        tilesPlayed = 0;
+        redoable = 0;
+        hash = 0L;
+    }
+
+    /**
+     * Returns the mark in a cell: X, O or EMPTY.
+     */
+    public final int get(final int cell) {
+        long bit = 1L << cell;
+        if ((xMask & bit) != 0) {
+            return X;
+        }
+        return (oMask & bit) != 0 ? O : EMPTY;
+    }
+
+    /**
+     * Places a mark in an empty cell and pushes it on the move stack.
+     * Any moves that could have been redone are forgotten.
+     * 
+     * @param cell - the cell index.
+     * @param mark - X or O.
+     * @throws IllegalArgumentException if the cell is already marked
+     */
+    public final void play(final int cell, final int mark) {
+        if (((xMask | oMask) & (1L << cell)) != 0) {
+            throw new IllegalArgumentException("Cell " + cell + " is taken");
+        }
+        redoable = 0;
+        place(cell, mark);
+    }
+
+    /**
+     * Plays a cell for the side to move.
+     * 
+     * @param cell - an empty cell.
+     * @throws IllegalArgumentException if the cell is already marked
+     */
+    public final void make(final int cell) {
+        play(cell, getSideToMove());
+    }
+
+    /**
+     * Takes back the last move. It can be played again with redo() until
+     * a different move is played.
+     * 
+     * @return the cell that was cleared
+     * @throws IllegalStateException if no move has been played
+     */
+    public final int undo() {
+        if (tilesPlayed == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        int cell = history[tilesPlayed - 1] & 0xFF;
+        remove(cell);
+        redoable++;
+        return cell;
+    }
+
+    /**
+     * Plays again the last move taken back by undo().
+     * 
+     * @return the cell that was marked
+     * @throws IllegalStateException if there is no move to redo
+     */
+    public final int redo() {
+        if (redoable == 0) {
+            throw new IllegalStateException("No move to redo");
+        }
+        int move = history[tilesPlayed];
+        redoable--;
+        place(move & 0xFF, move >> 8);
+        return move & 0xFF;
+    }
+
+    public final boolean canUndo() {
+        return tilesPlayed > 0;
+    }
+
+    public final boolean canRedo() {
+        return redoable > 0;
+    }
+
+    /**
+     * Returns the cell of move number n, counting from 0.
+     * 
+     * @param n - 0 to getTilesPlayed() - 1.
+     */
+    public final int getMove(final int n) {
+        return history[n] & 0xFF;
+    }
+
+    /**
+     * Removes the mark from a cell, if there is one, and drops it from the
+     * move stack. Moves that could have been redone are forgotten.
+     */
+    public final void clear(final int cell) {
+        if (get(cell) == EMPTY) {
+            return;
+        }
+        int n = 0;
+        while ((history[n] & 0xFF) != cell) {
+            n++;
+        }
+        remove(cell);
+        System.arraycopy(history, n + 1, history, n, tilesPlayed - n);
+        redoable = 0;
+    }
+
+    /*
+     * The O(1) make and unmake behind every change: the mask bit, the
+     * stack, the count and the Zobrist key.
+     */
+    private void place(final int cell, final int mark) {
+        int side = getSideToMove();
+        if (mark == X) {
+            xMask |= 1L << cell;
+        } else {
+            oMask |= 1L << cell;
+        }
+        history[tilesPlayed++] = cell | mark << 8;
+        updateHash(cell, mark, side);
+    }
+
+    private void remove(final int cell) {
+        int mark = get(cell);
+        int side = getSideToMove();
+        xMask &= ~(1L << cell);
+        oMask &= ~(1L << cell);
+        tilesPlayed--;
+        updateHash(cell, mark, side);
+    }
+
+    /*
+     * XORs a mark in or out of the key, and the side-to-move key if the
+     * change passed the turn.
+     */
+    private void updateHash(final int cell, final int mark, final int oldSide) {
+        hash ^= Zobrist.key(cell, mark);
+        if (getSideToMove() != oldSide) {
+            hash ^= Zobrist.SIDE;
+        }
+    }
+
+    /**
+     * Returns the cells held by one player as a mask.
+     * 
+     * @param mark - X or O.
+     */
+    public final long getMask(final int mark) {
+        return mark == X ? xMask : oMask;
+    }
+
+    public final long getEmptyMask() {
+        return ~(xMask | oMask) & geometry.getFullMask();
+    }
+
+    /**
+     * Returns the Zobrist key of the position, side to move included.
+     */
+    public final long getHash() {
+        return hash;
+    }
+
+    public final int getTilesPlayed() {
+        return tilesPlayed;
+    }
+
+    /**
+     * Returns the player whose turn it is, assuming "X" moved first.
+     */
+    public final int getSideToMove() {
+        return Long.bitCount(xMask) > Long.bitCount(oMask) ? O : X;
+    }
+
+    /**
+     * Returns the mark of the player holding a winning line, or EMPTY.
+     */
+    public final int getWinner() {
+        if (geometry.hasLine(xMask)) {
+            return X;
+        }
+        return geometry.hasLine(oMask) ? O : EMPTY;
+    }
+
+    public final boolean isFull() {
+        return getEmptyMask() == 0L;
+    }
+
+    public final boolean isGameOver() {
+        return isFull() || getWinner() != EMPTY;
+    }
+
+    /**
+     * Returns a randomly chosen empty cell, or -1 if the board is full.
+     * 
+     * @param rand - the source of randomness.
+     */
+    public final int randomEmptyCell(final Random rand) {
+        long empty = getEmptyMask();
+        int count = Long.bitCount(empty);
+        if (count == 0) {
+            return -1;
+        }
+        for (int pick = rand.nextInt(count); pick > 0; pick--) {
+            empty &= empty - 1;
+        }
+        return Long.numberOfTrailingZeros(empty);
+    }
+
+    /**
+     * Returns the board row by row using "X", "0" and "-" for empty cells,
+     * e.g. "X-0------".
+     */
+    @Override
+    public String toString() {
+        int cells = geometry.getCells();
+        StringBuilder sb = new StringBuilder(cells);
+        for (int i = 0; i < cells; i++) {
+            int mark = get(i);
+            sb.append(mark == X ? 'X' : mark == O ? '0' : '-');
+        }
+        return sb.toString();
+    }
+}
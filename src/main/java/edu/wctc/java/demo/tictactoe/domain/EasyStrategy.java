@@ -0,0 +1,49 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.util.Random;
+
+/**
+ * Easy-level Strategy: mostly random. Only finds a winning move 30% of the
+ * time, never blocks, never prioritizes strategic positions.
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class EasyStrategy implements Strategy {
+    private final Random rand;
+
+    public EasyStrategy(final Random rand) {
+        this.rand = rand;
+    }
+
+    @Override
+    public int selectMove(final Board board, final int mark) {
+        // Occasionally spot a winning move (30% chance)
+        if (rand.nextInt(100) < 30) {
+            int winMove = findTwoInARow(board, mark);
+            if (winMove >= 0) return winMove;
+        }
+
+        return board.randomEmptyCell(rand);
+    }
+
+    /*
+     * Scans all lines for one that is a single mark short of a win for the
+     * given player, with the missing cell empty. Returns that cell (the
+     * winning move), or -1 if no such line exists.
+     */
+    private static int findTwoInARow(final Board board, final int mark) {
+        Geometry geometry = board.getGeometry();
+        long own = board.getMask(mark);
+        long empty = board.getEmptyMask();
+        int needed = geometry.getWinLength() - 1;
+        for (int i = 0; i < geometry.getLineCount(); i++) {
+            long line = geometry.getLine(i);
+            long open = line & empty;
+            if (Long.bitCount(line & own) == needed && Long.bitCount(open) == 1) {
+                return Long.numberOfTrailingZeros(open);
+            }
+        }
+        return -1;
+    }
+}
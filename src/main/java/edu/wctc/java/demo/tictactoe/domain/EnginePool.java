@@ -0,0 +1,157 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps a bounded number of idle GameEngines, each with its
+ * own nine Tiles, for code that plays many short games without a window
+ * (bots, tests, benchmarks). An engine taken with acquire() is reset in
+ * place for a new game: its Tiles are cleared and initNewGame() is given
+ * the same Tiles again, so the Rails, the Board and the Strategy are all
+ * kept and a new game allocates nothing. An engine handed back with
+ * release() is kept for the next acquire(), unless the pool is full, in
+ * which case it is left to the garbage collector.
+ * <P>
+ * Any thread may acquire and release; an engine itself is used by one
+ * thread at a time. Win and draw totals carry over from one game to the
+ * next, just as they do in a window.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class EnginePool {
+    private final ArrayBlockingQueue<GameEngine> idle;
+    private final AtomicLong created = new AtomicLong();
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param capacity - the most idle engines kept.
+     */
+    public EnginePool(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.idle = new ArrayBlockingQueue<GameEngine>(capacity);
+    }
+
+    /**
+     * Returns an engine set up for a new game at a difficulty level,
+     * reusing an idle one if there is any.
+     *
+     * @param smarts - the difficulty level, 0 to 100.
+     * @return an engine with nine clear Tiles and no moves played
+     */
+    public final GameEngine acquire(final int smarts) {
+        GameEngine engine = idle.poll();
+        if (engine == null) {
+            created.incrementAndGet();
+            engine = fresh();
+        } else {
+            for (Tile tile : engine.getTiles()) {
+                tile.setText("");
+            }
+            engine.initNewGame(engine.getTiles());
+        }
+        if (engine.getSmarts() != smarts) {
+            engine.setSmarts(smarts);
+        }
+        return engine;
+    }
+
+    /**
+     * Hands an engine back for reuse. The caller must not touch it
+     * afterwards, and should remove any GameEventListener it added.
+     *
+     * @param engine - an engine from acquire().
+     * @return true if the engine was kept, false if the pool was full
+     */
+    public final boolean release(final GameEngine engine) {
+        return idle.offer(engine);
+    }
+
+    /**
+     * Returns the number of idle engines.
+     */
+    public final int getIdle() {
+        return idle.size();
+    }
+
+    /**
+     * Returns the number of engines acquire() had to create.
+     */
+    public final long getCreated() {
+        return created.get();
+    }
+
+    /*
+     * A new engine on nine new Tiles, the way a game was started before
+     * engines were pooled.
+     */
+    private static GameEngine fresh() {
+        Tile[] tiles = new Tile[9];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = new Tile();
+        }
+        GameEngine engine = new GameEngine();
+        engine.initNewGame(tiles);
+        return engine;
+    }
+
+    /*
+     * Plays one game: random "X" moves against the computer, checking
+     * for a draw and then a win after every move as GameWindow does.
+     */
+    private static void play(final GameEngine engine, final Random rand) {
+        Tile[] tiles = engine.getTiles();
+        String mark = "X";
+        while (true) {
+            Tile tile;
+            if ("X".equals(mark)) {
+                do {
+                    tile = tiles[rand.nextInt(tiles.length)];
+                } while (tile.isSelected());
+            } else {
+                tile = engine.selectComputerMove();
+            }
+            engine.markTile(tile, mark);
+            if (engine.checkForDraw() || engine.checkForWin()) {
+                return;
+            }
+            mark = "X".equals(mark) ? "0" : "X";
+        }
+    }
+
+    /**
+     * Measures games per second with a fresh engine and Tiles for every
+     * game against engines taken from a pool.
+     *
+     * @param args - [games] [smarts]; defaults: 20000 0.
+     */
+    public static void main(final String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int smarts = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        Random rand = new Random(1);
+        EnginePool pool = new EnginePool(1);
+        for (int pass = 0; pass < 3; pass++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < games; i++) {
+                GameEngine engine = fresh();
+                engine.setSmarts(smarts);
+                play(engine, rand);
+            }
+            double freshSeconds = (System.nanoTime() - start) / 1e9;
+            start = System.nanoTime();
+            for (int i = 0; i < games; i++) {
+                GameEngine engine = pool.acquire(smarts);
+                play(engine, rand);
+                pool.release(engine);
+            }
+            double pooledSeconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("pass %d, smarts %d: fresh %,.0f games/s, pooled %,.0f games/s%n",
+                    pass + 1, smarts, games / freshSeconds, games / pooledSeconds);
+        }
+    }
+}
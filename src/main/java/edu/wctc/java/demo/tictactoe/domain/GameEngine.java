@@ -1,7 +1,8 @@
 package edu.wctc.java.demo.tictactoe.domain;
 
-import java.awt.Color;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This class is the engine that drives the game logic. Its collaborators
@@ -11,6 +12,16 @@ import java.util.Random;
  * The GameEngine provides a computer opponent for any "X" player.
  * Currently the human player is always "X" and the GameEngine will only
  * support a computer opponent.
+ * <P>
+ * Moves recorded with markTile() are kept on the headless Board's move
+ * stack, so they can be undone, redone or taken back without starting a
+ * new game.
+ * <P>
+ * Every change to the game is also reported to GameEventListeners as a
+ * GameEvent, e.g. so a game can be recorded and replayed later. Views,
+ * metrics and broadcasters that should not slow the game down subscribe
+ * to a GameEventPublisher instead. The engine never touches the UI: how
+ * a win is shown, e.g. by painting getWinningCells(), is up to the view.
  * 
  * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
  * @version  1.1.0
@@ -43,21 +54,72 @@ public class GameEngine {
     private int tilesPlayed = 0;
     private Rail[] rails;
     private String winningPlayer = "";
+    private long winningCells;
     private int smarts = 100;
+    private Strategy strategy = strategyFor(smarts, rand);
+    private final Board board = new Board();
+    private final List<GameEventListener> listeners = new CopyOnWriteArrayList<GameEventListener>();
     
     /**
      * Constructs a GameEngine with nine (9) supplied Tile objects that are
      * are born unmarked. Possible winning combinations of three (3) tiles are
      * then constructed as Rail objects. This makes checks for wins and draws
      * easy by comparing the state of the Rails.
+     * <P>
+     * Starting the next game with the same nine Tiles is a reset in place:
+     * the Rails already hold those Tiles, so they are kept, and nothing is
+     * allocated.
      * 
      * @param tiles - an array of Tile objects (custom JButton objects) 
      * representing each square space (9 total) on the game board.
      */
     public final void initNewGame(final Tile[] tiles) {
-        this.tiles = tiles;
+        if (!sameTiles(tiles)) {
+            this.tiles = tiles;
+            initRails();
+        }
         tilesPlayed = 0;
-        initRails();
+        winningCells = 0L;
+        board.reset();
+        fire(GameEvent.Type.NEW_GAME, 0, Board.EMPTY);
+    }
+
+    /*
+     * Whether the Rails were built from these very Tiles, in this order,
+     * even if the array holding them is a new one.
+     */
+    private boolean sameTiles(final Tile[] tiles) {
+        if (this.tiles == null || rails == null || this.tiles.length != tiles.length) {
+            return false;
+        }
+        for (int i = 0; i < tiles.length; i++) {
+            if (this.tiles[i] != tiles[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public final void addGameEventListener(final GameEventListener listener) {
+        listeners.add(listener);
+    }
+
+    public final void removeGameEventListener(final GameEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /*
+     * Tells the listeners about a change. No event is made when nobody
+     * listens.
+     */
+    private void fire(final GameEvent.Type type, final int value, final int mark) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        GameEvent event = new GameEvent(type, value, mark);
+        for (GameEventListener listener : listeners) {
+            listener.gameEvent(this, event);
+        }
     }
     
     /*
@@ -115,214 +177,193 @@ public class GameEngine {
         );
     }
     
+    /**
+     * Returns the computer opponent for a difficulty level; see
+     * Strategies.forSmarts() for the levels.
+     * 
+     * @param smarts - the difficulty level, 0 to 100.
+     * @param rand - the source of randomness for the levels below Smart.
+     * @return a new Strategy for that level
+     */
+    public static Strategy strategyFor(final int smarts, final Random rand) {
+        return Strategies.forSmarts(smarts, rand);
+    }
+
     /*
      * Selects a computer ("0") move based on the current difficulty level.
-     *
-     * Genius (smarts > 50): Uses the minimax algorithm for perfect play.
-     *   The computer will always win or draw — it cannot be beaten.
-     * Smart (smarts == 50): Uses heuristics — wins when possible, blocks
-     *   opponent wins, prefers center then corners. Beatable but competent.
-     * Easy (smarts < 50): Mostly random moves. May miss winning
-     *   opportunities. Good for beginners.
+     * The Tile marks are copied into a headless Board first, so the
+     * strategies never touch the Swing components.
      *
      * @return a non-null, empty Tile representing the computer's chosen move
      */
     public final Tile selectComputerMove() {
-
-        // Genius level: use minimax for perfect play
-        if (smarts > 50) {
-            return selectMinimaxMove();
-        }
-
-        // Smart level: heuristic approach
-        if (smarts == 50) {
-            return selectSmartMove();
-        }
-
-        // Easy level: mostly random, occasionally finds a win
-        return selectEasyMove();
+        syncBoard();
+        int cell = strategy.selectMove(board, Board.O);
+        return cell < 0 ? null : tiles[cell];
     }
 
-    /*
-     * Minimax algorithm — evaluates every possible game state to find the
-     * optimal move. Guarantees the computer never loses.
+    /**
+     * Scores every empty tile for the player about to move, assuming
+     * perfect play from both sides afterwards. Solved positions are shared
+     * by every game, so a full-board analysis soon costs no more than a
+     * table lookup. Useful for hints and post-game review.
+     * 
+     * @param playerMark - the player about to move, "X" or "0".
+     * @return nine MoveScore objects aligned with getTiles(); occupied tiles
+     * and every tile of a finished game are null.
      */
-    private Tile selectMinimaxMove() {
-        int bestScore = Integer.MIN_VALUE;
-        Tile bestTile = null;
-
-        for (Tile t : tiles) {
-            if (!t.isSelected()) {
-                t.setText("0");
-                int score = minimax(false);
-                t.setText("");
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestTile = t;
-                }
-            }
-        }
-        return bestTile;
+    public final MoveScore[] analyzeMoves(final String playerMark) {
+        syncBoard();
+        int mark = "X".equals(playerMark) ? Board.X : Board.O;
+        return PositionSolver.analyze((int) board.getMask(mark),
+                (int) board.getMask(Board.opponent(mark)));
     }
 
-    /*
-     * Recursive minimax scoring. Returns +10 for a computer win,
-     * -10 for a human win, 0 for a draw, adjusted by depth so the AI
-     * prefers faster wins and slower losses.
-     *
-     * @param isComputerTurn true if it is the computer's turn to move
-     * @return the minimax score for the current board state
+    /**
+     * Marks a tile and records the move, so it can later be undone. The
+     * tile is only marked once the move has been accepted.
+     * 
+     * @param tile - an empty tile of this game.
+     * @param playerMark - "X" or "0".
+     * @throws IllegalArgumentException if the tile is taken or is not
+     * part of this game
      */
-    private int minimax(boolean isComputerTurn) {
-        // Check terminal states
-        String winner = findWinner();
-        if ("0".equals(winner)) return 10;
-        if ("X".equals(winner)) return -10;
-        if (isBoardFull()) return 0;
-
-        if (isComputerTurn) {
-            int bestScore = Integer.MIN_VALUE;
-            for (Tile t : tiles) {
-                if (!t.isSelected()) {
-                    t.setText("0");
-                    int score = minimax(false);
-                    t.setText("");
-                    bestScore = Math.max(score, bestScore);
-                }
-            }
-            return bestScore;
-        } else {
-            int bestScore = Integer.MAX_VALUE;
-            for (Tile t : tiles) {
-                if (!t.isSelected()) {
-                    t.setText("X");
-                    int score = minimax(true);
-                    t.setText("");
-                    bestScore = Math.min(score, bestScore);
-                }
-            }
-            return bestScore;
-        }
+    public final void markTile(final Tile tile, final String playerMark) {
+        syncBoard();
+        int cell = indexOf(tile);
+        int mark = "X".equals(playerMark) ? Board.X : Board.O;
+        board.play(cell, mark);
+        tile.setText(playerMark);
+        tilesPlayed++;
+        fire(GameEvent.Type.MOVE, cell, mark);
     }
 
-    /*
-     * Returns the winning player mark ("X" or "0") if any rail is won,
-     * or null if no winner yet. Used by minimax to evaluate board state.
+    /**
+     * Takes back the last move, clearing its tile.
+     * 
+     * @return the cleared tile, or null if no move has been played
      */
-    private String findWinner() {
-        for (Rail rail : rails) {
-            if (rail.isWinner()) {
-                // All three tiles in a winning rail have the same mark
-                return rail.getTiles()[0].getText();
-            }
+    public final Tile undoMove() {
+        syncBoard();
+        if (!board.canUndo()) {
+            return null;
         }
-        return null;
+        int cell = board.undo();
+        Tile tile = tiles[cell];
+        tile.setText("");
+        tilesPlayed--;
+        winningCells = 0L;
+        fire(GameEvent.Type.UNDO, cell, Board.EMPTY);
+        return tile;
     }
 
-    /*
-     * Returns true if all 9 tiles are occupied.
+    /**
+     * Plays again the last move taken back, as long as no other move was
+     * played since.
+     * 
+     * @return the marked tile, or null if there is nothing to redo
      */
-    private boolean isBoardFull() {
-        for (Tile t : tiles) {
-            if (!t.isSelected()) return false;
+    public final Tile redoMove() {
+        syncBoard();
+        if (!board.canRedo()) {
+            return null;
         }
-        return true;
+        int cell = board.redo();
+        tiles[cell].setText(board.get(cell) == Board.X ? "X" : "0");
+        tilesPlayed++;
+        fire(GameEvent.Type.REDO, cell, board.get(cell));
+        return tiles[cell];
     }
 
-    /*
-     * Smart-level heuristic: win if possible, block opponent wins,
-     * prefer center, then corners, then pick randomly.
+    /**
+     * Takes back the human's last "X" move together with the computer's
+     * reply, if it made one, so it is the human's turn again.
+     * 
+     * @return the number of moves taken back: 0, 1 or 2
      */
-    private Tile selectSmartMove() {
-        // 1. Try to win
-        Tile winMove = findTwoInARow("0");
-        if (winMove != null) return winMove;
-
-        // 2. Block opponent from winning
-        Tile blockMove = findTwoInARow("X");
-        if (blockMove != null) return blockMove;
-
-        // 3. Take center if available
-        if (!tiles[R2C2].isSelected()) {
-            return tiles[R2C2];
-        }
-
-        // 4. Take an open corner
-        int[] corners = {R1C1, R1C3, R3C1, R3C3};
-        for (int idx : corners) {
-            if (!tiles[idx].isSelected()) {
-                return tiles[idx];
+    public final int takeBack() {
+        syncBoard();
+        int undone = 0;
+        while (board.canUndo()) {
+            int cell = board.getMove(board.getTilesPlayed() - 1);
+            boolean human = board.get(cell) == Board.X;
+            undoMove();
+            undone++;
+            if (human) {
+                break;
             }
         }
+        return undone;
+    }
 
-        // 5. Take any open tile
-        return findRandomEmptyTile();
+    public final boolean canUndo() {
+        syncBoard();
+        return board.canUndo();
     }
 
-    /*
-     * Easy-level: mostly random. Only finds a winning move 30% of the time,
-     * never blocks, never prioritizes strategic positions.
-     */
-    private Tile selectEasyMove() {
-        // Occasionally spot a winning move (30% chance)
-        if (rand.nextInt(100) < 30) {
-            Tile winMove = findTwoInARow("0");
-            if (winMove != null) return winMove;
-        }
+    public final boolean canRedo() {
+        syncBoard();
+        return board.canRedo();
+    }
 
-        return findRandomEmptyTile();
+    /**
+     * Returns the player whose turn it is, "X" or "0".
+     */
+    public final String getPlayerToMove() {
+        syncBoard();
+        return board.getSideToMove() == Board.X ? "X" : "0";
     }
 
     /*
-     * Scans all rails for one that has two tiles marked by the given player
-     * and one empty tile. Returns the empty tile (the winning/blocking move),
-     * or null if no such rail exists.
+     * Brings the headless Board in line with the marks shown on the Tiles.
+     * Moves recorded through markTile() are already there, so normally
+     * nothing changes and the move stack survives. Marks set on the Tiles
+     * directly are appended; if a Tile was cleared behind the engine's
+     * back, the Board is rebuilt from scratch. The Tiles are read once,
+     * into masks, and nothing is allocated.
      */
-    private Tile findTwoInARow(String playerMark) {
-        for (Rail rail : rails) {
-            int markCount = 0;
-            Tile emptyTile = null;
-            for (Tile t : rail.getTiles()) {
-                if (t.getText().equals(playerMark)) {
-                    markCount++;
-                } else if (t.getText().equals("")) {
-                    emptyTile = t;
-                }
-            }
-            if (markCount == 2 && emptyTile != null) {
-                return emptyTile;
+    private void syncBoard() {
+        long xTiles = 0L;
+        long oTiles = 0L;
+        for (int i = 0; i < tiles.length; i++) {
+            int mark = markOf(tiles[i].getText());
+            if (mark == Board.X) {
+                xTiles |= 1L << i;
+            } else if (mark == Board.O) {
+                oTiles |= 1L << i;
             }
         }
-        return null;
+        if ((board.getMask(Board.X) & ~xTiles) != 0L
+                || (board.getMask(Board.O) & ~oTiles) != 0L) {
+            board.reset();
+        }
+        long missing = (xTiles | oTiles) & board.getEmptyMask();
+        while (missing != 0L) {
+            int cell = Long.numberOfTrailingZeros(missing);
+            missing &= missing - 1;
+            board.play(cell, (xTiles & (1L << cell)) != 0L ? Board.X : Board.O);
+        }
     }
 
-    /*
-     * Returns a random empty tile from the board. Guaranteed to return
-     * a non-null tile as long as at least one empty tile exists.
-     */
-    private Tile findRandomEmptyTile() {
-        // Collect all empty tiles, then pick one at random
-        int emptyCount = 0;
-        for (Tile t : tiles) {
-            if (!t.isSelected()) emptyCount++;
+    private static int markOf(final String text) {
+        if ("X".equals(text)) {
+            return Board.X;
         }
-        if (emptyCount == 0) return null;
-
-        int pick = rand.nextInt(emptyCount);
-        int idx = 0;
-        for (Tile t : tiles) {
-            if (!t.isSelected()) {
-                if (idx == pick) return t;
-                idx++;
+        return "0".equals(text) ? Board.O : Board.EMPTY;
+    }
+
+    private int indexOf(final Tile tile) {
+        for (int i = 0; i < tiles.length; i++) {
+            if (tiles[i] == tile) {
+                return i;
             }
         }
-        return null; // should never reach here
+        throw new IllegalArgumentException("Tile is not part of this game");
     }
     
     // Be sure to call this before checkForWin
     public final boolean checkForDraw() {
         boolean result = false;
-        String player = "";
         
         for (Rail rail : rails) {
             if (rail.isWinner()) {
@@ -332,8 +373,8 @@ public class GameEngine {
         
         if (tilesPlayed == 9) {
             draws++;
-//            window.getStatusMsg().setText(DRAW_MSG);  
             result = true;
+            fire(GameEvent.Type.DRAW, 0, Board.EMPTY);
         }
         
         return result;
@@ -347,8 +388,9 @@ public class GameEngine {
         for (Rail rail : rails) {
             if (rail.isWinner()) {
                 result = true;
+                winningCells = 0L;
                 for(Tile tile : rail.getTiles()) {
-                    tile.setBackground(Color.GREEN);
+                    winningCells |= 1L << indexOf(tile);
                     player = tile.getText();
                 }
                 if (player.equals("X")) {
@@ -358,6 +400,7 @@ public class GameEngine {
                     winningPlayer = "0";
                     this.oWins++;
                 }
+                fire(GameEvent.Type.WIN, 0, markOf(player));
                 break;
             }
         }
@@ -377,6 +420,14 @@ public class GameEngine {
         return winningPlayer;
     }
 
+    /**
+     * Returns the cells of the line found by the last checkForWin() as
+     * bits of a mask, cell 0 lowest, or 0 if there is none.
+     */
+    public final long getWinningCells() {
+        return winningCells;
+    }
+
     public final void setWinningPlayer(final String winningPlayer) {
         this.winningPlayer = winningPlayer;
     }
@@ -401,8 +452,28 @@ public class GameEngine {
         return smarts;
     }
 
+    /**
+     * Plays against a given computer opponent, e.g. a LearnedStrategy,
+     * instead of the one for the smarts level, until setSmarts() is
+     * called again.
+     * 
+     * @param strategy - the opponent; it is asked for "0" moves.
+     */
+    public final void setStrategy(final Strategy strategy) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("strategy is required");
+        }
+        this.strategy = strategy;
+    }
+
+    public final Strategy getStrategy() {
+        return strategy;
+    }
+
     public final void setSmarts(int smarts) {
         this.smarts = smarts;
+        this.strategy = strategyFor(smarts, rand);
+        fire(GameEvent.Type.SMARTS, smarts, Board.EMPTY);
     }
 
 }
@@ -0,0 +1,90 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+/**
+ * Something that happened in a GameEngine: a new game, a move, a move
+ * taken back or played again, the end of a game or a new difficulty.
+ * Events are immutable and carry just enough to replay the game: the
+ * cell and mark of moves, the mark of the winner and the new smarts
+ * level.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class GameEvent {
+
+    /** The kinds of event, in the order their codes are stored. */
+    public enum Type {
+        /** initNewGame() cleared the board. */
+        NEW_GAME,
+        /** markTile() marked a cell. */
+        MOVE,
+        /** undoMove() cleared the last cell marked. */
+        UNDO,
+        /** redoMove() marked the last cleared cell again. */
+        REDO,
+        /** checkForWin() found a winner. */
+        WIN,
+        /** checkForDraw() found a draw. */
+        DRAW,
+        /** setSmarts() changed the difficulty level. */
+        SMARTS
+    }
+
+    private final Type type;
+    private final int value;
+    private final int mark;
+
+    /**
+     * Creates an event.
+     *
+     * @param type - what happened.
+     * @param value - the cell for MOVE, UNDO and REDO, the smarts level
+     * for SMARTS; otherwise 0.
+     * @param mark - the mark placed by MOVE and REDO or the winner of a
+     * WIN: Board.X or Board.O; otherwise Board.EMPTY.
+     */
+    public GameEvent(final Type type, final int value, final int mark) {
+        this.type = type;
+        this.value = value;
+        this.mark = mark;
+    }
+
+    public final Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the cell of a MOVE, UNDO or REDO, the smarts level of a
+     * SMARTS event and 0 for the rest.
+     */
+    public final int getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the mark of a MOVE or REDO, the winner of a WIN and
+     * Board.EMPTY for the rest.
+     */
+    public final int getMark() {
+        return mark;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof GameEvent)) {
+            return false;
+        }
+        GameEvent other = (GameEvent) obj;
+        return type == other.type && value == other.value && mark == other.mark;
+    }
+
+    @Override
+    public int hashCode() {
+        return (type.ordinal() * 256 + value) * 4 + mark;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + value + " " + mark;
+    }
+}
@@ -0,0 +1,17 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+/**
+ * Hears about everything that happens in a GameEngine, on the thread
+ * that called the engine and right after the change.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public interface GameEventListener {
+
+    /**
+     * @param engine - the engine that changed.
+     * @param event - what happened.
+     */
+    void gameEvent(GameEngine engine, GameEvent event);
+}
@@ -0,0 +1,119 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+
+/**
+ * This class streams a GameEngine's moves, wins, draws and totals to any
+ * number of Flow.Subscribers (a view, metrics, a recorder, a network
+ * broadcaster), each on a thread of its own, so none of them can hold up
+ * the game. It listens to the engine like any GameEventListener and turns
+ * every GameEvent into a GameUpdate, read on the engine's thread so the
+ * totals in it are those right after the event.
+ * <P>
+ * Every subscriber has a bounded buffer and gets updates in order, at
+ * the pace it asks for them with request(). The engine never waits: an
+ * update that finds a subscriber's buffer full is dropped for that
+ * subscriber only, and counted. Swing subscribers should hand each update
+ * to the event thread with SwingUtilities.invokeLater().
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class GameEventPublisher implements GameEventListener, Flow.Publisher<GameUpdate>,
+        AutoCloseable {
+    private final GameEngine engine;
+    private final ExecutorService executor;
+    private final SubmissionPublisher<GameUpdate> publisher;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final BiPredicate<Flow.Subscriber<? super GameUpdate>, GameUpdate> onDrop =
+            new BiPredicate<Flow.Subscriber<? super GameUpdate>, GameUpdate>() {
+                public boolean test(final Flow.Subscriber<? super GameUpdate> subscriber,
+                        final GameUpdate update) {
+                    dropped.increment();
+                    return false;
+                }
+            };
+
+    /**
+     * Publishes an engine's events with Flow's default buffer of 256
+     * updates per subscriber.
+     *
+     * @param engine - the engine to listen to.
+     */
+    public GameEventPublisher(final GameEngine engine) {
+        this(engine, Flow.defaultBufferSize());
+    }
+
+    /**
+     * Publishes an engine's events.
+     *
+     * @param engine - the engine to listen to.
+     * @param bufferSize - the most updates held for a subscriber that
+     * falls behind, rounded up to a power of two.
+     */
+    public GameEventPublisher(final GameEngine engine, final int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("buffer size must be positive: " + bufferSize);
+        }
+        this.engine = engine;
+        this.executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            public Thread newThread(final Runnable r) {
+                Thread thread = new Thread(r, "game-events");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.publisher = new SubmissionPublisher<GameUpdate>(executor, bufferSize);
+        engine.addGameEventListener(this);
+    }
+
+    public void gameEvent(final GameEngine engine, final GameEvent event) {
+        published.increment();
+        if (publisher.hasSubscribers()) {
+            publisher.offer(new GameUpdate(event, engine.getxWins(), engine.getoWins(),
+                    engine.getDraws(), engine.getWinningCells()), onDrop);
+        }
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super GameUpdate> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    public final int getSubscribers() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    /**
+     * Returns the number of events heard from the engine.
+     */
+    public final long getPublished() {
+        return published.sum();
+    }
+
+    /**
+     * Returns the number of updates dropped, one per subscriber whose
+     * buffer was full.
+     */
+    public final long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops listening to the engine. Subscribers get the updates already
+     * buffered and then onComplete().
+     */
+    @Override
+    public void close() {
+        engine.removeGameEventListener(this);
+        publisher.close();
+        executor.shutdown();
+    }
+}
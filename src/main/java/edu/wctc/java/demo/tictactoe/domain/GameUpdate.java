@@ -0,0 +1,70 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+/**
+ * What a GameEventPublisher sends its subscribers: a GameEvent together
+ * with the engine's totals and winning line as they stood right after
+ * it, so a subscriber never has to ask the engine, from another thread,
+ * how things stand. Updates are immutable.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class GameUpdate {
+    private final GameEvent event;
+    private final int xWins;
+    private final int oWins;
+    private final int draws;
+    private final long winningCells;
+
+    /**
+     * Creates an update.
+     *
+     * @param event - what happened.
+     * @param xWins - the games won by "X" so far.
+     * @param oWins - the games won by "0" so far.
+     * @param draws - the games drawn so far.
+     * @param winningCells - the winning line as a mask of cells, or 0.
+     */
+    public GameUpdate(final GameEvent event, final int xWins, final int oWins,
+            final int draws, final long winningCells) {
+        this.event = event;
+        this.xWins = xWins;
+        this.oWins = oWins;
+        this.draws = draws;
+        this.winningCells = winningCells;
+    }
+
+    public final GameEvent getEvent() {
+        return event;
+    }
+
+    public final GameEvent.Type getType() {
+        return event.getType();
+    }
+
+    public final int getxWins() {
+        return xWins;
+    }
+
+    public final int getoWins() {
+        return oWins;
+    }
+
+    public final int getDraws() {
+        return draws;
+    }
+
+    /**
+     * Returns the cells of the winning line, cell 0 lowest, once a WIN
+     * has been found and until the next move is taken back or a new game
+     * starts; otherwise 0.
+     */
+    public final long getWinningCells() {
+        return winningCells;
+    }
+
+    @Override
+    public String toString() {
+        return event + " (" + xWins + "/" + oWins + "/" + draws + ")";
+    }
+}
@@ -0,0 +1,21 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+/**
+ * Genius-level Strategy: perfect play using the PositionSolver. It can not
+ * be beaten. Only the classic 3x3 board is supported.
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class GeniusStrategy implements Strategy {
+
+    @Override
+    public int selectMove(final Board board, final int mark) {
+        if (!board.getGeometry().isClassic()) {
+            throw new IllegalArgumentException(
+                    "Genius play needs a classic board: " + board.getGeometry());
+        }
+        return PositionSolver.bestMove((int) board.getMask(mark),
+                (int) board.getMask(Board.opponent(mark)));
+    }
+}
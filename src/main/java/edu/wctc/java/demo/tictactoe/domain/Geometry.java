@@ -0,0 +1,156 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+/**
+ * This class describes the shape of a square k-in-a-row board: its size,
+ * the number of marks in a row needed to win and every winning line,
+ * stored as a 64-bit mask of board cells. It generalizes the winning
+ * combinations that GameEngine builds as Rail objects to boards of up to
+ * 8x8 cells. Cells are numbered row by row starting at zero.
+ * <P>
+ * Geometry objects are immutable and may be shared between threads.
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class Geometry {
+    /** The classic 3x3, three-in-a-row board. */
+    public static final Geometry CLASSIC = new Geometry(3, 3);
+
+    private static final int MAX_SIZE = 8;
+
+    private final int size;
+    private final int winLength;
+    private final long[] lines;
+    private final long fullMask;
+
+    private Geometry(final int size, final int winLength) {
+        this.size = size;
+        this.winLength = winLength;
+        this.lines = buildLines(size, winLength);
+        int cells = size * size;
+        this.fullMask = cells == 64 ? -1L : (1L << cells) - 1;
+    }
+
+    /**
+     * Returns the Geometry of a size x size board won by winLength marks
+     * in a row, column or diagonal.
+     * 
+     * @param size - cells per side, 1 to 8.
+     * @param winLength - marks in a row needed to win, 1 to size.
+     * @return the matching Geometry
+     * @throws IllegalArgumentException if either value is out of range
+     */
+    public static Geometry of(final int size, final int winLength) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("size must be 1 to "
+                    + MAX_SIZE + ": " + size);
+        }
+        if (winLength < 1 || winLength > size) {
+            throw new IllegalArgumentException("winLength must be 1 to "
+                    + size + ": " + winLength);
+        }
+        if (size == 3 && winLength == 3) {
+            return CLASSIC;
+        }
+        return new Geometry(size, winLength);
+    }
+
+    /*
+       Enumerates every window of winLength cells along rows, columns,
+       diagonals and anti-diagonals, in that order. For the classic board
+       this is the same order GameEngine uses for its Rails.
+    */
+    private static long[] buildLines(final int size, final int k) {
+        int windows = size - k + 1;
+        long[] result = new long[2 * size * windows + 2 * windows * windows];
+        int n = 0;
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < windows; c++) {
+                result[n++] = line(size, k, r, c, 0, 1);
+            }
+        }
+        for (int c = 0; c < size; c++) {
+            for (int r = 0; r < windows; r++) {
+                result[n++] = line(size, k, r, c, 1, 0);
+            }
+        }
+        for (int r = 0; r < windows; r++) {
+            for (int c = 0; c < windows; c++) {
+                result[n++] = line(size, k, r, c, 1, 1);
+            }
+        }
+        for (int r = 0; r < windows; r++) {
+            for (int c = size - 1; c >= k - 1; c--) {
+                result[n++] = line(size, k, r, c, 1, -1);
+            }
+        }
+        return result;
+    }
+
+    private static long line(final int size, final int k, final int row,
+            final int col, final int dRow, final int dCol) {
+        long mask = 0L;
+        for (int i = 0; i < k; i++) {
+            mask |= 1L << ((row + i * dRow) * size + col + i * dCol);
+        }
+        return mask;
+    }
+
+    public final int getSize() {
+        return size;
+    }
+
+    public final int getCells() {
+        return size * size;
+    }
+
+    public final int getWinLength() {
+        return winLength;
+    }
+
+    /**
+     * Returns a mask with one bit set for every cell of the board.
+     */
+    public final long getFullMask() {
+        return fullMask;
+    }
+
+    public final int getLineCount() {
+        return lines.length;
+    }
+
+    /**
+     * Returns the cells of one winning line as a mask.
+     * 
+     * @param index - 0 to getLineCount() - 1.
+     */
+    public final long getLine(final int index) {
+        return lines[index];
+    }
+
+    /**
+     * Returns true if the supplied mask covers any winning line.
+     * 
+     * @param mask - the cells held by one player.
+     */
+    public final boolean hasLine(final long mask) {
+        for (long line : lines) {
+            if ((mask & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if this is the classic 3x3 board.
+     */
+    public final boolean isClassic() {
+        return this == CLASSIC;
+    }
+
+    @Override
+    public String toString() {
+        return size + "x" + size + "/" + winLength;
+    }
+}
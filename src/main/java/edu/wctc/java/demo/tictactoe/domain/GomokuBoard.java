@@ -0,0 +1,324 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+/**
+ * This class models Gomoku: five (or more) in a row on a 15x15 board.
+ * Like the Rails of the classic game, winning chances are judged along
+ * lines, but with 225 cells rescanning lines after every move would be far
+ * too slow for a search. Instead every cell keeps, for each of the four
+ * line directions, a 16-bit code of its eight neighbours (two bits each:
+ * empty, "X", "0" or off the board). A move only rewrites the codes of the
+ * 32 cells that can see it, and a precomputed table turns a code into the
+ * pattern a player would make by marking that cell: five, open four, four,
+ * open three, three, open two, two or nothing.
+ * <P>
+ * The board also counts, for every cell, the stones within two cells of
+ * it, so searches can restrict themselves to candidate moves next to the
+ * action. Moves are kept on a stack and can be taken back with undo(); both
+ * keep the position's Zobrist key up to date.
+ * Cells are numbered row * 15 + column. "X" moves first. A GomokuBoard is
+ * not thread safe.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class GomokuBoard {
+    public static final int SIZE = 15;
+    public static final int CELLS = SIZE * SIZE;
+    public static final int DIRECTIONS = 4;
+
+    public static final int NONE = 0;
+    public static final int TWO = 1;
+    public static final int OPEN_TWO = 2;
+    public static final int THREE = 3;
+    public static final int OPEN_THREE = 4;
+    public static final int FOUR = 5;
+    public static final int OPEN_FOUR = 6;
+    public static final int FIVE = 7;
+
+    private static final int WALL = 3;
+    private static final int NEAR = 2;
+    private static final int[] DROW = {0, 1, 1, 1};
+    private static final int[] DCOL = {1, 0, 1, -1};
+    private static final int[] OFFSETS = {-4, -3, -2, -1, 1, 2, 3, 4};
+
+    // RAYS[(cell * 4 + dir) * 8 + i] = the cell at OFFSETS[i] along dir, or -1
+    private static final int[] RAYS = new int[CELLS * DIRECTIONS * 8];
+    // PATTERNS[mark - 1][code] = pattern made by marking the center cell
+    private static final byte[][] PATTERNS = new byte[2][1 << 16];
+    private static final int[] INITIAL_CODES = new int[CELLS * DIRECTIONS];
+
+    static {
+        for (int cell = 0; cell < CELLS; cell++) {
+            int row = cell / SIZE;
+            int col = cell % SIZE;
+            for (int d = 0; d < DIRECTIONS; d++) {
+                int code = 0;
+                for (int i = 0; i < 8; i++) {
+                    int r = row + OFFSETS[i] * DROW[d];
+                    int c = col + OFFSETS[i] * DCOL[d];
+                    boolean inside = r >= 0 && r < SIZE && c >= 0 && c < SIZE;
+                    RAYS[(cell * DIRECTIONS + d) * 8 + i] = inside ? r * SIZE + c : -1;
+                    if (!inside) {
+                        code |= WALL << (2 * i);
+                    }
+                }
+                INITIAL_CODES[cell * DIRECTIONS + d] = code;
+            }
+        }
+        for (int mark = Board.X; mark <= Board.O; mark++) {
+            byte[] table = PATTERNS[mark - 1];
+            java.util.Arrays.fill(table, (byte) -1);
+            for (int code = 0; code < table.length; code++) {
+                classify(table, code, mark);
+            }
+        }
+    }
+
+    /*
+     * Classifies the nine-cell line around a cell the player has just
+     * marked. A "four" has one empty cell that completes five, an open
+     * four has two; a three (two) is one move from a four (three), and it
+     * is open if that move can make the open version. Results are
+     * memoized in the table, since the recursion revisits codes.
+     */
+    private static int classify(final byte[] table, final int code, final int mark) {
+        if (table[code] >= 0) {
+            return table[code];
+        }
+        int result;
+        if (isFive(code, mark)) {
+            result = FIVE;
+        } else {
+            int fivePoints = 0;
+            int best = NONE;
+            for (int i = 0; i < 8; i++) {
+                if (((code >> (2 * i)) & 3) != Board.EMPTY) {
+                    continue;
+                }
+                int next = code | (mark << (2 * i));
+                if (isFive(next, mark)) {
+                    fivePoints++;
+                } else {
+                    best = Math.max(best, classify(table, next, mark));
+                }
+            }
+            if (fivePoints >= 2) {
+                result = OPEN_FOUR;
+            } else if (fivePoints == 1) {
+                result = FOUR;
+            } else if (best == OPEN_FOUR) {
+                result = OPEN_THREE;
+            } else if (best == FOUR) {
+                result = THREE;
+            } else if (best == OPEN_THREE) {
+                result = OPEN_TWO;
+            } else if (best == THREE) {
+                result = TWO;
+            } else {
+                result = NONE;
+            }
+        }
+        table[code] = (byte) result;
+        return result;
+    }
+
+    /*
+     * True if the center (always the player's) and its neighbours hold
+     * five in a row.
+     */
+    private static boolean isFive(final int code, final int mark) {
+        int run = 1;
+        for (int i = 3; i >= 0 && ((code >> (2 * i)) & 3) == mark; i--) {
+            run++;
+        }
+        for (int i = 4; i < 8 && ((code >> (2 * i)) & 3) == mark; i++) {
+            run++;
+        }
+        return run >= 5;
+    }
+
+    private final byte[] cells = new byte[CELLS];
+    private final int[] codes = new int[CELLS * DIRECTIONS];
+    private final byte[] near = new byte[CELLS];
+    private final int[] history = new int[CELLS];
+    private int movesPlayed;
+    private int winner = Board.EMPTY;
+    private long hash;
+
+    /**
+     * Constructs an empty board.
+     */
+    public GomokuBoard() {
+        System.arraycopy(INITIAL_CODES, 0, codes, 0, codes.length);
+    }
+
+    /**
+     * Returns the cell index of a row and column.
+     */
+    public static int cell(final int row, final int col) {
+        return row * SIZE + col;
+    }
+
+    /**
+     * Returns the mark in a cell: Board.X, Board.O or Board.EMPTY.
+     */
+    public final int get(final int cell) {
+        return cells[cell];
+    }
+
+    /**
+     * Returns the Zobrist key of the position, side to move included.
+     */
+    public final long getHash() {
+        return hash;
+    }
+
+    public final int getMovesPlayed() {
+        return movesPlayed;
+    }
+
+    /**
+     * Returns the cell played by move number n, counting from 0.
+     */
+    public final int getMove(final int n) {
+        return history[n];
+    }
+
+    public final int getSideToMove() {
+        return (movesPlayed & 1) == 0 ? Board.X : Board.O;
+    }
+
+    /**
+     * Returns the game winner, or Board.EMPTY while undecided or drawn.
+     */
+    public final int getWinner() {
+        return winner;
+    }
+
+    public final boolean isGameOver() {
+        return winner != Board.EMPTY || movesPlayed == CELLS;
+    }
+
+    /**
+     * Returns the pattern a player would make along one direction by
+     * marking an empty cell. Direction 0 is horizontal, 1 vertical, 2 and
+     * 3 the two diagonals.
+     */
+    public final int getPattern(final int cell, final int dir, final int mark) {
+        return PATTERNS[mark - 1][codes[cell * DIRECTIONS + dir]];
+    }
+
+    /**
+     * Returns the strongest pattern a player would make in any direction
+     * by marking an empty cell.
+     */
+    public final int getBestPattern(final int cell, final int mark) {
+        byte[] table = PATTERNS[mark - 1];
+        int base = cell * DIRECTIONS;
+        return Math.max(Math.max(table[codes[base]], table[codes[base + 1]]),
+                Math.max(table[codes[base + 2]], table[codes[base + 3]]));
+    }
+
+    /**
+     * Returns true if a cell is empty and has a stone within two cells,
+     * which is where nearly every sensible move is found.
+     */
+    public final boolean isCandidate(final int cell) {
+        return cells[cell] == Board.EMPTY && near[cell] > 0;
+    }
+
+    /**
+     * Writes the candidate moves into an array: the empty cells near a
+     * stone, or just the center on an empty board.
+     *
+     * @param moves - receives the cells; needs room for CELLS entries.
+     * @return the number of candidates
+     */
+    public final int candidates(final int[] moves) {
+        if (movesPlayed == 0) {
+            moves[0] = cell(SIZE / 2, SIZE / 2);
+            return 1;
+        }
+        int count = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (cells[cell] == Board.EMPTY && near[cell] > 0) {
+                moves[count++] = cell;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Plays a cell for the side to move.
+     *
+     * @throws IllegalArgumentException if the cell is taken or the game
+     * is over
+     */
+    public final void play(final int cell) {
+        if (cell < 0 || cell >= CELLS || cells[cell] != Board.EMPTY || isGameOver()) {
+            throw new IllegalArgumentException("Illegal move: " + cell);
+        }
+        playUnchecked(cell);
+    }
+
+    /**
+     * Plays a cell known to be empty while the game is not over. Used by
+     * searches, where the checks in play() would be wasted work.
+     */
+    public final void playUnchecked(final int cell) {
+        int mark = getSideToMove();
+        if (getBestPattern(cell, mark) == FIVE) {
+            winner = mark;
+        }
+        cells[cell] = (byte) mark;
+        updateCodes(cell, mark);
+        updateNear(cell, 1);
+        hash ^= Zobrist.key(cell, mark) ^ Zobrist.SIDE;
+        history[movesPlayed++] = cell;
+    }
+
+    /**
+     * Takes back the last move.
+     *
+     * @throws IllegalStateException if no move has been played
+     */
+    public final void undo() {
+        if (movesPlayed == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        int cell = history[--movesPlayed];
+        hash ^= Zobrist.key(cell, cells[cell]) ^ Zobrist.SIDE;
+        cells[cell] = Board.EMPTY;
+        updateCodes(cell, Board.EMPTY);
+        updateNear(cell, -1);
+        winner = Board.EMPTY; // no move is ever played after a win
+    }
+
+    /*
+     * Rewrites this cell's two bits in the codes of every cell that sees
+     * it: for the neighbour at OFFSETS[i], this cell sits at OFFSETS[7 - i].
+     */
+    private void updateCodes(final int cell, final int mark) {
+        for (int d = 0; d < DIRECTIONS; d++) {
+            int ray = (cell * DIRECTIONS + d) * 8;
+            for (int i = 0; i < 8; i++) {
+                int n = RAYS[ray + i];
+                if (n >= 0) {
+                    int shift = 2 * (7 - i);
+                    int index = n * DIRECTIONS + d;
+                    codes[index] = (codes[index] & ~(3 << shift)) | (mark << shift);
+                }
+            }
+        }
+    }
+
+    private void updateNear(final int cell, final int delta) {
+        int row = cell / SIZE;
+        int col = cell % SIZE;
+        for (int r = Math.max(0, row - NEAR); r <= Math.min(SIZE - 1, row + NEAR); r++) {
+            for (int c = Math.max(0, col - NEAR); c <= Math.min(SIZE - 1, col + NEAR); c++) {
+                near[r * SIZE + c] += delta;
+            }
+        }
+    }
+}
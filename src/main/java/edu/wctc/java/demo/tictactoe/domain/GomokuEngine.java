@@ -0,0 +1,284 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+/**
+ * This class chooses Gomoku moves. Like the QubicEngine, its core is a
+ * threat-space search, here in the form known as VCF (victory by
+ * continuous fours): the attacker only plays moves that make a four, so
+ * the defender's reply is forced, and a sequence that ends in an open four
+ * or two fours at once is a forced win. Only candidate cells within two of
+ * a stone are ever considered, and the patterns each move would make come
+ * straight from the GomokuBoard's incremental tables.
+ * <P>
+ * Each turn the engine, in order: wins if it can, blocks a four, plays the
+ * first move of a forced win if the search finds one, and otherwise plays
+ * the best-scoring candidate that does not let the opponent start a forced
+ * win. The search plays and undoes moves on the GomokuBoard it is given,
+ * which is left as it was. Threat sequences reach the same position in
+ * many orders, so finished results are kept in a TranspositionTable keyed
+ * by the board's Zobrist key. A GomokuEngine is not thread safe.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class GomokuEngine {
+    public static final long DEFAULT_MILLIS = 500;
+
+    private static final int TABLE_BITS = 18;
+    private static final int MAX_DEPTH = 24;
+    private static final int REFUTE_DEPTH = 12;
+    // Indexed by GomokuBoard pattern, NONE through FIVE
+    private static final int[] WEIGHTS = {0, 2, 8, 10, 60, 70, 1000, 10000};
+    private static final int DOUBLE_THREAT = 500;
+
+    private final int[][] moveBuffers = new int[MAX_DEPTH + 2][GomokuBoard.CELLS];
+    private final int[] fives = new int[GomokuBoard.CELLS];
+    private final int[] scores = new int[GomokuBoard.CELLS];
+    private final TranspositionTable table = new TranspositionTable(TABLE_BITS);
+    private long deadline;
+    private boolean aborted;
+    private long nodes;
+
+    /**
+     * Chooses a move for the side to move within the default time budget.
+     *
+     * @param board - the current position; left unchanged on return.
+     * @return the chosen cell, or -1 if the game is over
+     */
+    public final int selectMove(final GomokuBoard board) {
+        return selectMove(board, DEFAULT_MILLIS);
+    }
+
+    /**
+     * Chooses a move for the side to move.
+     *
+     * @param board - the current position; left unchanged on return.
+     * @param millis - the time budget for the searches.
+     * @return the chosen cell, or -1 if the game is over
+     */
+    public final int selectMove(final GomokuBoard board, final long millis) {
+        if (board.isGameOver()) {
+            return -1;
+        }
+        int me = board.getSideToMove();
+        int you = Board.opponent(me);
+        nodes = 0;
+        if (fiveCells(board, me, fives) > 0) {
+            return fives[0];
+        }
+        if (fiveCells(board, you, fives) > 0) {
+            return fives[0];
+        }
+
+        int forced = findForcedWin(board, millis / 3);
+        if (forced >= 0) {
+            return forced;
+        }
+
+        // Best scoring move that does not hand the opponent a forced win
+        deadline = System.nanoTime() + (millis - millis / 3) * 1000000L;
+        aborted = false;
+        int[] candidates = moveBuffers[MAX_DEPTH + 1];
+        int count = rankMoves(board, me, candidates);
+        for (int i = 0; i < count && System.nanoTime() < deadline; i++) {
+            board.playUnchecked(candidates[i]);
+            boolean refuted = attack(board, you, 0, REFUTE_DEPTH) >= 0;
+            board.undo();
+            if (!refuted) {
+                return candidates[i];
+            }
+        }
+        return candidates[0];
+    }
+
+    /**
+     * Searches for a forced win by continuous fours for the side to move,
+     * deepening iteratively as long as the time budget allows.
+     *
+     * @param board - the current position; left unchanged on return.
+     * @param millis - the time budget.
+     * @return the first move of a forced win, or -1 if none was found
+     */
+    public final int findForcedWin(final GomokuBoard board, final long millis) {
+        deadline = System.nanoTime() + millis * 1000000L;
+        aborted = false;
+        int me = board.getSideToMove();
+        if (fiveCells(board, me, fives) > 0) {
+            return fives[0];
+        }
+        for (int depth = 2; depth <= MAX_DEPTH && System.nanoTime() < deadline; depth += 2) {
+            int move = attack(board, me, 0, depth);
+            if (move >= 0) {
+                return move;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of positions visited by the last search.
+     */
+    public final long getNodes() {
+        return nodes;
+    }
+
+    /*
+     * The attacker is to move. Returns the first move of a forced win
+     * within the remaining depth, or -1. Finished results are cached by
+     * position: a win holds at any depth, a failure only for searches no
+     * deeper than the one that failed. Results cut short by the deadline
+     * are not stored.
+     */
+    private int attack(final GomokuBoard board, final int attacker,
+            final int ply, final int depth) {
+        if (ply >= depth) {
+            return -1;
+        }
+        if ((++nodes & 255) == 0 && System.nanoTime() > deadline) {
+            aborted = true;
+        }
+        if (aborted) {
+            return -1;
+        }
+        int remaining = depth - ply;
+        long key = board.getHash();
+        int cached = table.probe(key);
+        if (cached != TranspositionTable.MISS
+                && (cached >> 8 > 0 || (cached & 0xFF) >= remaining)) {
+            return (cached >> 8) - 1;
+        }
+        int move = tryFours(board, attacker, ply, depth);
+        if (!aborted) {
+            table.store(key, (move + 1) << 8 | remaining);
+        }
+        return move;
+    }
+
+    /*
+     * The attacker is to move and has no five to complete. Tries every
+     * move that makes a four and returns the first one that still wins
+     * against every defence, or -1.
+     */
+    private int tryFours(final GomokuBoard board, final int attacker,
+            final int ply, final int depth) {
+        int defender = Board.opponent(attacker);
+        int[] moves = moveBuffers[ply];
+        int mustBlock = fiveCells(board, defender, moves);
+        if (mustBlock > 1) {
+            return -1;
+        }
+        int block = mustBlock == 1 ? moves[0] : -1;
+        int count = fourMoves(board, attacker, moves);
+        for (int i = 0; i < count; i++) {
+            int cell = moves[i];
+            if (block >= 0 && cell != block) {
+                continue; // ignoring the defender's four loses
+            }
+            board.playUnchecked(cell);
+            boolean win = defend(board, attacker, ply + 1, depth);
+            board.undo();
+            if (win) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * The attacker has just made a four and the defender is to move.
+     * Returns true if every reply still loses.
+     */
+    private boolean defend(final GomokuBoard board, final int attacker,
+            final int ply, final int depth) {
+        int defender = Board.opponent(attacker);
+        if (board.getWinner() == attacker) {
+            return true;
+        }
+        int[] replies = moveBuffers[ply];
+        if (fiveCells(board, defender, replies) > 0) {
+            return false; // the defender wins first
+        }
+        int count = fiveCells(board, attacker, replies);
+        if (count > 1) {
+            return true; // two fives can not both be blocked
+        }
+        if (count == 0) {
+            return false;
+        }
+        board.playUnchecked(replies[0]);
+        boolean win = attack(board, attacker, ply + 1, depth) >= 0;
+        board.undo();
+        return win;
+    }
+
+    /*
+     * Collects the empty cells where a player would complete five.
+     */
+    private int fiveCells(final GomokuBoard board, final int mark, final int[] cells) {
+        int count = 0;
+        for (int cell = 0; cell < GomokuBoard.CELLS; cell++) {
+            if (board.isCandidate(cell) && board.getBestPattern(cell, mark) == GomokuBoard.FIVE) {
+                cells[count++] = cell;
+            }
+        }
+        return count;
+    }
+
+    /*
+     * Collects the cells where a player would make a four, open fours
+     * first since they win outright.
+     */
+    private int fourMoves(final GomokuBoard board, final int mark, final int[] moves) {
+        int count = 0;
+        for (int cell = 0; cell < GomokuBoard.CELLS; cell++) {
+            if (board.isCandidate(cell) && board.getBestPattern(cell, mark) == GomokuBoard.OPEN_FOUR) {
+                moves[count++] = cell;
+            }
+        }
+        for (int cell = 0; cell < GomokuBoard.CELLS; cell++) {
+            if (board.isCandidate(cell) && board.getBestPattern(cell, mark) == GomokuBoard.FOUR) {
+                moves[count++] = cell;
+            }
+        }
+        return count;
+    }
+
+    /*
+     * Orders the candidate cells by the patterns they would make, for
+     * attack and (slightly less) for defence. A cell that makes two
+     * threes or fours at once gets a bonus, since one reply can not stop
+     * both.
+     */
+    private int rankMoves(final GomokuBoard board, final int mark, final int[] moves) {
+        int other = Board.opponent(mark);
+        int count = board.candidates(moves);
+        for (int i = 0; i < count; i++) {
+            int cell = moves[i];
+            scores[cell] = 5 * patternScore(board, cell, mark)
+                    + 4 * patternScore(board, cell, other);
+        }
+        // Insertion sort by score, best first
+        for (int i = 1; i < count; i++) {
+            int cell = moves[i];
+            int j = i - 1;
+            while (j >= 0 && scores[moves[j]] < scores[cell]) {
+                moves[j + 1] = moves[j];
+                j--;
+            }
+            moves[j + 1] = cell;
+        }
+        return count;
+    }
+
+    private int patternScore(final GomokuBoard board, final int cell, final int mark) {
+        int score = 0;
+        int threats = 0;
+        for (int d = 0; d < GomokuBoard.DIRECTIONS; d++) {
+            int pattern = board.getPattern(cell, d, mark);
+            score += WEIGHTS[pattern];
+            if (pattern >= GomokuBoard.OPEN_THREE) {
+                threats++;
+            }
+        }
+        return threats >= 2 ? score + DOUBLE_THREAT : score;
+    }
+}
@@ -0,0 +1,82 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+/**
+ * This class holds the perfect-play evaluation of one candidate move: the
+ * Outcome the mover can force and how many plies it takes to get there.
+ * MoveScore objects are immutable and are produced by the PositionSolver.
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class MoveScore {
+    private final int cell;
+    private final Outcome outcome;
+    private final int plies;
+
+    /**
+     * Constructs a MoveScore for one board cell.
+     * 
+     * @param cell - the board index (0-8, row by row) of the move.
+     * @param outcome - the result the mover can force after this move.
+     * @param plies - the number of plies, counting this move, until the
+     * game ends when both sides play perfectly.
+     */
+    public MoveScore(final int cell, final Outcome outcome, final int plies) {
+        this.cell = cell;
+        this.outcome = outcome;
+        this.plies = plies;
+    }
+
+    public final int getCell() {
+        return cell;
+    }
+
+    public final Outcome getOutcome() {
+        return outcome;
+    }
+
+    public final int getPlies() {
+        return plies;
+    }
+
+    /**
+     * Returns a short label suitable for a hint overlay, e.g. "W3" for a
+     * win in three plies, "L2" for a loss in two or "D" for a draw.
+     * 
+     * @return a one to three character label
+     */
+    public final String getLabel() {
+        switch (outcome) {
+            case WIN:
+                return "W" + plies;
+            case LOSS:
+                return "L" + plies;
+            default:
+                return "D";
+        }
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MoveScore)) {
+            return false;
+        }
+        MoveScore other = (MoveScore) obj;
+        return cell == other.cell && outcome == other.outcome
+                && plies == other.plies;
+    }
+
+    @Override
+    public int hashCode() {
+        return (cell * 31 + outcome.hashCode()) * 31 + plies;
+    }
+
+    @Override
+    public String toString() {
+        return "MoveScore{cell=" + cell + ", outcome=" + outcome
+                + ", plies=" + plies + '}';
+    }
+}
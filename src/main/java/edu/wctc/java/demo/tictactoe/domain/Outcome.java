@@ -0,0 +1,12 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+/**
+ * The result of a game, or of a single move under perfect play, seen from
+ * the point of view of the player making that move.
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public enum Outcome {
+    WIN, DRAW, LOSS
+}
@@ -0,0 +1,193 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.util.Arrays;
+
+/**
+ * This class solves classic 3x3 positions with a negamax search and
+ * remembers every solved position in a table shared by all callers. Once a
+ * position has been seen it is never searched again, so scoring all the
+ * moves of a position costs about the same as choosing one of them.
+ * <P>
+ * Positions are described by two 9-bit masks, one per player, where bit n
+ * stands for board cell n (row by row, R1C1 = 0 ... R3C3 = 8). Each position
+ * is stored under the base-3 index of the (mover, opponent) pair, so the
+ * side to move is part of the key. Table writes are idempotent single
+ * bytes, so the table may be shared between threads.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class PositionSolver {
+    /** Score of a position already won by the player who just moved. */
+    static final int MATE = 10;
+
+    private static final int CELLS = 9;
+    private static final int FULL = 0x1FF;
+    private static final int STATES = 19683; // 3^9
+    private static final byte UNKNOWN = Byte.MIN_VALUE;
+    private static final int[] WIN_LINES = {
+        0x007, 0x038, 0x1C0, // rows
+        0x049, 0x092, 0x124, // columns
+        0x111, 0x054         // diagonals
+    };
+    private static final int[] POW3 = new int[CELLS];
+    private static final byte[] TABLE = new byte[STATES];
+
+    static {
+        int p = 1;
+        for (int i = 0; i < CELLS; i++) {
+            POW3[i] = p;
+            p *= 3;
+        }
+        Arrays.fill(TABLE, UNKNOWN);
+    }
+
+    private PositionSolver() {}
+
+    /**
+     * Returns true if the supplied mask covers any winning line.
+     *
+     * @param mask - the cells held by one player
+     * @return true if those cells contain three in a row
+     */
+    public static boolean hasLine(final int mask) {
+        for (int line : WIN_LINES) {
+            if ((mask & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scores every empty cell of a position for the side to move.
+     *
+     * @param mover - the cells held by the player about to move
+     * @param other - the cells held by the opponent
+     * @return an array of nine entries aligned with the board cells; occupied
+     * cells (and every cell of a finished game) hold null
+     */
+    public static MoveScore[] analyze(final int mover, final int other) {
+        MoveScore[] scores = new MoveScore[CELLS];
+        if (hasLine(mover) || hasLine(other)) {
+            return scores;
+        }
+        int empty = ~(mover | other) & FULL;
+        int emptyCount = Integer.bitCount(empty);
+        for (int cell = 0; cell < CELLS; cell++) {
+            if ((empty & (1 << cell)) != 0) {
+                int score = scoreMove(mover, other, cell);
+                scores[cell] = toMoveScore(cell, score, emptyCount);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Returns the best cell for the side to move, preferring faster wins
+     * and slower losses. Ties go to the lowest cell index.
+     *
+     * @param mover - the cells held by the player about to move
+     * @param other - the cells held by the opponent
+     * @return the chosen cell, or -1 if the board is full
+     */
+    public static int bestMove(final int mover, final int other) {
+        int empty = ~(mover | other) & FULL;
+        int bestScore = Integer.MIN_VALUE;
+        int bestCell = -1;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if ((empty & (1 << cell)) != 0) {
+                int score = scoreMove(mover, other, cell);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestCell = cell;
+                }
+            }
+        }
+        return bestCell;
+    }
+
+    /**
+     * Returns the negamax score of a position for the side to move:
+     * MATE - n for a forced win n plies away, -(MATE - n) for a forced loss
+     * and 0 for a draw.
+     *
+     * @param mover - the cells held by the player about to move
+     * @param other - the cells held by the opponent
+     * @return the score from the mover's point of view
+     */
+    public static int solve(final int mover, final int other) {
+        int key = index(mover, other);
+        byte cached = TABLE[key];
+        if (cached != UNKNOWN) {
+            return cached;
+        }
+
+        int result;
+        if (hasLine(other)) {
+            result = -MATE;
+        } else if (hasLine(mover)) {
+            result = MATE;
+        } else {
+            int empty = ~(mover | other) & FULL;
+            if (empty == 0) {
+                result = 0;
+            } else {
+                result = Integer.MIN_VALUE;
+                while (empty != 0) {
+                    int bit = empty & -empty;
+                    empty ^= bit;
+                    result = Math.max(result, backUp(solve(other, mover | bit)));
+                }
+            }
+        }
+        TABLE[key] = (byte) result;
+        return result;
+    }
+
+    /*
+     * Scores playing the given cell from the mover's point of view.
+     */
+    private static int scoreMove(final int mover, final int other, final int cell) {
+        return backUp(solve(other, mover | (1 << cell)));
+    }
+
+    /*
+     * Converts a child score (opponent's view) into the parent's view,
+     * moving it one ply further away from the end of the game.
+     */
+    private static int backUp(final int childScore) {
+        if (childScore > 0) {
+            return -(childScore - 1);
+        } else if (childScore < 0) {
+            return -(childScore + 1);
+        }
+        return 0;
+    }
+
+    /*
+     * Base-3 index with the mover's cells as 1s and the opponent's as 2s.
+     */
+    private static int index(final int mover, final int other) {
+        int key = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            int bit = 1 << cell;
+            if ((mover & bit) != 0) {
+                key += POW3[cell];
+            } else if ((other & bit) != 0) {
+                key += 2 * POW3[cell];
+            }
+        }
+        return key;
+    }
+
+    private static MoveScore toMoveScore(final int cell, final int score,
+            final int emptyCount) {
+        if (score > 0) {
+            return new MoveScore(cell, Outcome.WIN, MATE - score);
+        } else if (score < 0) {
+            return new MoveScore(cell, Outcome.LOSS, MATE + score);
+        }
+        return new MoveScore(cell, Outcome.DRAW, emptyCount);
+    }
+}
@@ -0,0 +1,309 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+/**
+ * This class models Qubic, three-dimensional tic-tac-toe on a 4x4x4 cube,
+ * where four marks in a row along any of the 76 straight lines win. It
+ * applies the idea behind GameEngine's Rails (enumerate every winning line
+ * once, up front) to the cube: each line is a 64-bit mask of cells, and a
+ * cell-to-lines index lists the 4 to 7 lines through every cell.
+ * <P>
+ * Every move updates the per-line mark counts of just the lines through
+ * its cell, so the number of open threats (three marks of one player and
+ * an empty fourth cell) is always known without rescanning the cube.
+ * Moves are kept on a stack and can be taken back with undo(), and both
+ * keep the position's Zobrist key up to date.
+ * <P>
+ * Cells are numbered layer * 16 + row * 4 + column. "X" moves first. A
+ * QubicBoard is not thread safe.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class QubicBoard {
+    public static final int CELLS = 64;
+    public static final int LINES = 76;
+
+    private static final long[] LINE_MASKS = new long[LINES];
+    private static final int[][] CELL_LINES = new int[CELLS][];
+
+    /*
+       Walks every cell in each of the 13 directions of the cube (those
+       whose first non-zero step is positive, so no line is found twice)
+       and keeps the walks that stay inside for four cells:
+       48 rows/columns/pillars, 24 plane diagonals and 4 space diagonals.
+    */
+    static {
+        int n = 0;
+        int[] perCell = new int[CELLS];
+        for (int dz = -1; dz <= 1; dz++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if (!isForward(dx, dy, dz)) {
+                        continue;
+                    }
+                    for (int start = 0; start < CELLS; start++) {
+                        long mask = walk(start, dx, dy, dz);
+                        if (mask != 0L) {
+                            LINE_MASKS[n++] = mask;
+                            for (long rest = mask; rest != 0L; rest &= rest - 1) {
+                                perCell[Long.numberOfTrailingZeros(rest)]++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            CELL_LINES[cell] = new int[perCell[cell]];
+            int k = 0;
+            for (int line = 0; line < LINES; line++) {
+                if ((LINE_MASKS[line] & (1L << cell)) != 0L) {
+                    CELL_LINES[cell][k++] = line;
+                }
+            }
+        }
+    }
+
+    private static boolean isForward(final int dx, final int dy, final int dz) {
+        if (dz != 0) {
+            return dz > 0;
+        }
+        if (dy != 0) {
+            return dy > 0;
+        }
+        return dx > 0;
+    }
+
+    /*
+     * Returns the four cells from start in one direction, or 0 if the walk
+     * leaves the cube or does not start at the line's first cell.
+     */
+    private static long walk(final int start, final int dx, final int dy, final int dz) {
+        int x = start & 3;
+        int y = (start >> 2) & 3;
+        int z = start >> 4;
+        if (inside(x - dx, y - dy, z - dz)) {
+            return 0L; // not the first cell of the line
+        }
+        long mask = 0L;
+        for (int i = 0; i < 4; i++) {
+            if (!inside(x, y, z)) {
+                return 0L;
+            }
+            mask |= 1L << (z * 16 + y * 4 + x);
+            x += dx;
+            y += dy;
+            z += dz;
+        }
+        return mask;
+    }
+
+    private static boolean inside(final int x, final int y, final int z) {
+        return x >= 0 && x < 4 && y >= 0 && y < 4 && z >= 0 && z < 4;
+    }
+
+    private long xMask;
+    private long oMask;
+    private final byte[] xCount = new byte[LINES];
+    private final byte[] oCount = new byte[LINES];
+    private final int[] history = new int[CELLS];
+    private int movesPlayed;
+    private int xThreats;
+    private int oThreats;
+    private int winner = Board.EMPTY;
+    private long hash;
+
+    /**
+     * Returns the cells of one line as a mask.
+     *
+     * @param line - 0 to LINES - 1.
+     */
+    public static long getLineMask(final int line) {
+        return LINE_MASKS[line];
+    }
+
+    /**
+     * Returns the number of lines through a cell (4 to 7).
+     */
+    public static int getLineCount(final int cell) {
+        return CELL_LINES[cell].length;
+    }
+
+    /**
+     * Returns one of the lines through a cell.
+     *
+     * @param cell - the cell index.
+     * @param i - 0 to getLineCount(cell) - 1.
+     */
+    public static int getLine(final int cell, final int i) {
+        return CELL_LINES[cell][i];
+    }
+
+    /**
+     * Returns the mark in a cell: Board.X, Board.O or Board.EMPTY.
+     */
+    public final int get(final int cell) {
+        long bit = 1L << cell;
+        if ((xMask & bit) != 0L) {
+            return Board.X;
+        }
+        return (oMask & bit) != 0L ? Board.O : Board.EMPTY;
+    }
+
+    public final long getMask(final int mark) {
+        return mark == Board.X ? xMask : oMask;
+    }
+
+    public final long getEmptyMask() {
+        return ~(xMask | oMask);
+    }
+
+    /**
+     * Returns how many marks a player has on a line.
+     */
+    public final int getMarks(final int line, final int mark) {
+        return mark == Board.X ? xCount[line] : oCount[line];
+    }
+
+    /**
+     * Returns the Zobrist key of the position, side to move included.
+     */
+    public final long getHash() {
+        return hash;
+    }
+
+    public final int getMovesPlayed() {
+        return movesPlayed;
+    }
+
+    public final int getSideToMove() {
+        return (movesPlayed & 1) == 0 ? Board.X : Board.O;
+    }
+
+    /**
+     * Returns the game winner, or Board.EMPTY while undecided or drawn.
+     */
+    public final int getWinner() {
+        return winner;
+    }
+
+    public final boolean isGameOver() {
+        return winner != Board.EMPTY || movesPlayed == CELLS;
+    }
+
+    /**
+     * Returns the number of lines where a player has three marks and the
+     * fourth cell is empty, i.e. lines that player could complete next.
+     */
+    public final int getThreatCount(final int mark) {
+        return mark == Board.X ? xThreats : oThreats;
+    }
+
+    /**
+     * Returns the empty cells that would complete a line for a player.
+     */
+    public final long getThreatCells(final int mark) {
+        if (getThreatCount(mark) == 0) {
+            return 0L;
+        }
+        byte[] own = mark == Board.X ? xCount : oCount;
+        byte[] other = mark == Board.X ? oCount : xCount;
+        long cells = 0L;
+        for (int line = 0; line < LINES; line++) {
+            if (own[line] == 3 && other[line] == 0) {
+                cells |= LINE_MASKS[line];
+            }
+        }
+        return cells & getEmptyMask();
+    }
+
+    /**
+     * Plays a cell for the side to move.
+     *
+     * @param cell - an empty cell.
+     * @throws IllegalArgumentException if the cell is taken or the game
+     * is over
+     */
+    public final void play(final int cell) {
+        if (cell < 0 || cell >= CELLS || get(cell) != Board.EMPTY || isGameOver()) {
+            throw new IllegalArgumentException("Illegal move: " + cell);
+        }
+        playUnchecked(cell);
+    }
+
+    /**
+     * Plays a cell known to be empty while the game is not over. Used by
+     * searches, where the checks in play() would be wasted work.
+     */
+    public final void playUnchecked(final int cell) {
+        boolean x = (movesPlayed & 1) == 0;
+        byte[] own = x ? xCount : oCount;
+        byte[] other = x ? oCount : xCount;
+        int ownThreats = 0;
+        int lostThreats = 0;
+        for (int line : CELL_LINES[cell]) {
+            int count = ++own[line];
+            if (other[line] == 0) {
+                if (count == 3) {
+                    ownThreats++;
+                } else if (count == 4) {
+                    ownThreats--;
+                    winner = x ? Board.X : Board.O;
+                }
+            } else if (own[line] == 1 && other[line] == 3) {
+                lostThreats++; // this mark blocks an opponent threat
+            }
+        }
+        if (x) {
+            xMask |= 1L << cell;
+            xThreats += ownThreats;
+            oThreats -= lostThreats;
+        } else {
+            oMask |= 1L << cell;
+            oThreats += ownThreats;
+            xThreats -= lostThreats;
+        }
+        hash ^= Zobrist.key(cell, x ? Board.X : Board.O) ^ Zobrist.SIDE;
+        history[movesPlayed++] = cell;
+    }
+
+    /**
+     * Takes back the last move.
+     *
+     * @throws IllegalStateException if no move has been played
+     */
+    public final void undo() {
+        if (movesPlayed == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        int cell = history[--movesPlayed];
+        boolean x = (movesPlayed & 1) == 0;
+        byte[] own = x ? xCount : oCount;
+        byte[] other = x ? oCount : xCount;
+        int ownThreats = 0;
+        int restoredThreats = 0;
+        for (int line : CELL_LINES[cell]) {
+            int count = own[line]--;
+            if (other[line] == 0) {
+                if (count == 3) {
+                    ownThreats--;
+                } else if (count == 4) {
+                    ownThreats++;
+                }
+            } else if (count == 1 && other[line] == 3) {
+                restoredThreats++;
+            }
+        }
+        if (x) {
+            xMask &= ~(1L << cell);
+            xThreats += ownThreats;
+            oThreats += restoredThreats;
+        } else {
+            oMask &= ~(1L << cell);
+            oThreats += ownThreats;
+            xThreats += restoredThreats;
+        }
+        hash ^= Zobrist.key(cell, x ? Board.X : Board.O) ^ Zobrist.SIDE;
+        winner = Board.EMPTY; // no move is ever played after a win
+    }
+}
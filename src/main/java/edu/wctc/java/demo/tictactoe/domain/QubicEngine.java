@@ -0,0 +1,291 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+/**
+ * This class chooses Qubic moves. Its core is a threat-space search: it
+ * only considers moves that make a threat (three in an open line), since
+ * each of those leaves the opponent exactly one reply. A sequence of such
+ * forcing moves that ends in two threats at once is a forced win, and
+ * because the opponent never gets a free move the search stays narrow
+ * enough to look many moves deep in a few seconds.
+ * <P>
+ * Each turn the engine, in order: wins if it can, blocks an opponent
+ * threat, plays the first move of a forced win if the search finds one
+ * within the time budget, avoids moves that let the opponent start a
+ * forced win, and otherwise plays the cell with the most line potential.
+ * The search plays and undoes moves on the QubicBoard it is given, which
+ * is left as it was, and remembers the outcome of every position it
+ * finishes in a TranspositionTable keyed by the board's Zobrist key, so
+ * positions reached again by another move order cost nothing, even on
+ * later turns. A QubicEngine is not thread safe.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class QubicEngine {
+    private static final int TABLE_BITS = 18;
+    private static final int MAX_DEPTH = 32;
+    private static final int[] LINE_WEIGHTS = {1, 4, 16, 64};
+
+    private final int[][] moveBuffers = new int[MAX_DEPTH + 2][QubicBoard.CELLS];
+    private final TranspositionTable table = new TranspositionTable(TABLE_BITS);
+    private long deadline;
+    private boolean aborted;
+    private long nodes;
+
+    /**
+     * Chooses a move for the side to move.
+     *
+     * @param board - the current position; left unchanged on return.
+     * @param millis - the time budget for the forced-win searches.
+     * @return the chosen cell, or -1 if the game is over
+     */
+    public final int selectMove(final QubicBoard board, final long millis) {
+        if (board.isGameOver()) {
+            return -1;
+        }
+        int me = board.getSideToMove();
+        int you = Board.opponent(me);
+        nodes = 0;
+        deadline = System.nanoTime() + millis * 1000000L;
+        aborted = false;
+
+        long wins = board.getThreatCells(me);
+        if (wins != 0L) {
+            return Long.numberOfTrailingZeros(wins);
+        }
+        long blocks = board.getThreatCells(you);
+        if (blocks != 0L) {
+            return Long.numberOfTrailingZeros(blocks);
+        }
+
+        int forced = findForcedWin(board, millis / 2);
+        if (forced >= 0) {
+            return forced;
+        }
+
+        // Best positional move that does not hand the opponent a forced win
+        deadline = System.nanoTime() + (millis - millis / 2) * 1000000L;
+        aborted = false;
+        int[] candidates = moveBuffers[MAX_DEPTH + 1];
+        int count = rankMoves(board, me, candidates);
+        for (int i = 0; i < count && System.nanoTime() < deadline; i++) {
+            board.playUnchecked(candidates[i]);
+            boolean refuted = forcedWin(board, you, 0, MAX_DEPTH / 2);
+            board.undo();
+            if (!refuted) {
+                return candidates[i];
+            }
+        }
+        return candidates[0];
+    }
+
+    /**
+     * Searches for a forced win for the side to move with iterative
+     * deepening, as long as the time budget allows.
+     *
+     * @param board - the current position; left unchanged on return.
+     * @param millis - the time budget.
+     * @return the first move of a forced win, or -1 if none was found
+     */
+    public final int findForcedWin(final QubicBoard board, final long millis) {
+        deadline = System.nanoTime() + millis * 1000000L;
+        aborted = false;
+        int me = board.getSideToMove();
+        long wins = board.getThreatCells(me);
+        if (wins != 0L) {
+            return Long.numberOfTrailingZeros(wins);
+        }
+        for (int depth = 2; depth <= MAX_DEPTH && System.nanoTime() < deadline; depth += 2) {
+            int move = attack(board, me, 0, depth);
+            if (move >= 0) {
+                return move;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of positions visited by the last search.
+     */
+    public final long getNodes() {
+        return nodes;
+    }
+
+    /*
+     * The attacker is to move. Returns the first move of a forced win
+     * within the remaining depth, or -1. Finished results are cached by
+     * position: a win holds at any depth, a failure only for searches no
+     * deeper than the one that failed. Results cut short by the deadline
+     * are not stored.
+     */
+    private int attack(final QubicBoard board, final int attacker,
+            final int ply, final int depth) {
+        if (ply >= depth) {
+            return -1;
+        }
+        if ((++nodes & 1023) == 0 && System.nanoTime() > deadline) {
+            aborted = true;
+        }
+        if (aborted) {
+            return -1;
+        }
+        int remaining = depth - ply;
+        long key = board.getHash();
+        int cached = table.probe(key);
+        if (cached != TranspositionTable.MISS
+                && (cached >> 8 > 0 || (cached & 0xFF) >= remaining)) {
+            return (cached >> 8) - 1;
+        }
+        int move = tryThreats(board, attacker, ply, depth);
+        if (!aborted) {
+            table.store(key, (move + 1) << 8 | remaining);
+        }
+        return move;
+    }
+
+    /*
+     * The attacker is to move. Returns true if it can force a win using
+     * only threatening moves within the remaining depth.
+     */
+    private boolean forcedWin(final QubicBoard board, final int attacker,
+            final int ply, final int depth) {
+        nodes++;
+        if (board.getThreatCount(attacker) > 0) {
+            return true; // it can complete a line right now
+        }
+        return attack(board, attacker, ply, depth) >= 0;
+    }
+
+    /*
+     * Tries every threatening move of the attacker and returns the first
+     * one that still wins against every defence, or -1.
+     */
+    private int tryThreats(final QubicBoard board, final int attacker,
+            final int ply, final int depth) {
+        int defender = Board.opponent(attacker);
+        long mustBlock = board.getThreatCells(defender);
+        if (Long.bitCount(mustBlock) > 1) {
+            return -1;
+        }
+        int[] moves = moveBuffers[ply];
+        int count = threatMoves(board, attacker, moves);
+        for (int i = 0; i < count; i++) {
+            int cell = moves[i];
+            if (mustBlock != 0L && (mustBlock & (1L << cell)) == 0L) {
+                continue; // ignoring the defender's threat loses
+            }
+            board.playUnchecked(cell);
+            boolean win = defend(board, attacker, ply + 1, depth);
+            board.undo();
+            if (win) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * The attacker has just made a threat and the defender is to move.
+     * Returns true if every reply still loses.
+     */
+    private boolean defend(final QubicBoard board, final int attacker,
+            final int ply, final int depth) {
+        int defender = Board.opponent(attacker);
+        if (board.getWinner() == attacker) {
+            return true;
+        }
+        if (board.getThreatCount(defender) > 0) {
+            return false; // the defender wins first
+        }
+        long replies = board.getThreatCells(attacker);
+        if (Long.bitCount(replies) > 1) {
+            return true; // two threats can not both be blocked
+        }
+        if (replies == 0L) {
+            return false;
+        }
+        board.playUnchecked(Long.numberOfTrailingZeros(replies));
+        boolean win = forcedWin(board, attacker, ply + 1, depth);
+        board.undo();
+        return win;
+    }
+
+    /*
+     * Collects the empty cells that give the player a threat: cells on a
+     * line where it has two marks and the opponent none. Cells that make
+     * several threats at once come first.
+     */
+    private int threatMoves(final QubicBoard board, final int mark, final int[] moves) {
+        int other = Board.opponent(mark);
+        long empty = board.getEmptyMask();
+        long candidates = 0L;
+        for (int line = 0; line < QubicBoard.LINES; line++) {
+            if (board.getMarks(line, mark) == 2 && board.getMarks(line, other) == 0) {
+                candidates |= QubicBoard.getLineMask(line);
+            }
+        }
+        candidates &= empty;
+        int count = 0;
+        for (long rest = candidates; rest != 0L; rest &= rest - 1) {
+            moves[count++] = Long.numberOfTrailingZeros(rest);
+        }
+        // Insertion sort by the number of threats each move creates
+        for (int i = 1; i < count; i++) {
+            int cell = moves[i];
+            int score = threatsMade(board, mark, cell);
+            int j = i - 1;
+            while (j >= 0 && threatsMade(board, mark, moves[j]) < score) {
+                moves[j + 1] = moves[j];
+                j--;
+            }
+            moves[j + 1] = cell;
+        }
+        return count;
+    }
+
+    private int threatsMade(final QubicBoard board, final int mark, final int cell) {
+        int other = Board.opponent(mark);
+        int made = 0;
+        for (int i = 0; i < QubicBoard.getLineCount(cell); i++) {
+            int line = QubicBoard.getLine(cell, i);
+            if (board.getMarks(line, mark) == 2 && board.getMarks(line, other) == 0) {
+                made++;
+            }
+        }
+        return made;
+    }
+
+    /*
+     * Orders every empty cell by line potential: for each line through the
+     * cell that only one player has marked, more marks weigh more, for
+     * attack and for defence alike.
+     */
+    private int rankMoves(final QubicBoard board, final int mark, final int[] moves) {
+        int other = Board.opponent(mark);
+        int[] scores = new int[QubicBoard.CELLS];
+        int count = 0;
+        for (long rest = board.getEmptyMask(); rest != 0L; rest &= rest - 1) {
+            int cell = Long.numberOfTrailingZeros(rest);
+            int score = 0;
+            for (int i = 0; i < QubicBoard.getLineCount(cell); i++) {
+                int line = QubicBoard.getLine(cell, i);
+                int own = board.getMarks(line, mark);
+                int theirs = board.getMarks(line, other);
+                if (theirs == 0) {
+                    score += 2 * LINE_WEIGHTS[own];
+                } else if (own == 0) {
+                    score += LINE_WEIGHTS[theirs];
+                }
+            }
+            scores[cell] = score;
+            int j = count - 1;
+            while (j >= 0 && scores[moves[j]] < score) {
+                moves[j + 1] = moves[j];
+                j--;
+            }
+            moves[j + 1] = cell;
+            count++;
+        }
+        return count;
+    }
+}
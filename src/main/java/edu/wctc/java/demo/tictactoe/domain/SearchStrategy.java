@@ -0,0 +1,186 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.util.Random;
+
+/**
+ * A Strategy with a compute budget: every empty cell is scored by a
+ * depth-limited alpha-beta search that stops after a number of nodes,
+ * and the move is then drawn from a softmax over the scores. A low
+ * temperature almost always plays the best-scoring move; a high one plays
+ * nearly at random. Strategies.forSmarts() uses it for every difficulty
+ * level, so weaker levels really do search less.
+ * <P>
+ * A win found n moves ahead scores cells + 1 - n points, a loss the
+ * negative of that and a draw 0. A position cut off by the depth or node
+ * limit is judged by the lines still open to each side, worth less than
+ * a point, so even a shallow search likes the center. Moves that score
+ * the same are told apart by the lines left open after them, so a full
+ * search still plays for the win against a weak opponent. The node budget
+ * is shared evenly between the empty cells. Searching allocates nothing
+ * and works on any Geometry.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class SearchStrategy implements Strategy {
+    // Search scores are in 1/POINT of a point, so open lines can count
+    private static final int POINT = 16;
+
+    private final int depth;
+    private final long maxNodes;
+    private final double temperature;
+    private final Random rand;
+    private final double[] scores = new double[64];
+    private Geometry geometry;
+    private long nodes;
+    private long limit;
+    private long searched;
+
+    /**
+     * Creates a searching Strategy.
+     *
+     * @param depth - the most moves looked ahead, 1 or more; 1 only sees
+     * immediate wins.
+     * @param maxNodes - the most positions searched per move.
+     * @param temperature - the softmax temperature in score points; 0
+     * always plays the best move, lowest cell first among equals.
+     * @param rand - the source of randomness for the softmax.
+     */
+    public SearchStrategy(final int depth, final long maxNodes,
+            final double temperature, final Random rand) {
+        if (depth < 1 || maxNodes < 1 || temperature < 0) {
+            throw new IllegalArgumentException("bad search budget: depth " + depth
+                    + ", nodes " + maxNodes + ", temperature " + temperature);
+        }
+        this.depth = depth;
+        this.maxNodes = maxNodes;
+        this.temperature = temperature;
+        this.rand = rand;
+    }
+
+    @Override
+    public int selectMove(final Board board, final int mark) {
+        geometry = board.getGeometry();
+        long mover = board.getMask(mark);
+        long other = board.getMask(Board.opponent(mark));
+        long empty = board.getEmptyMask();
+        int count = Long.bitCount(empty);
+        if (count == 0) {
+            return -1;
+        }
+        long share = Math.max(1L, maxNodes / count);
+        double best = Double.NEGATIVE_INFINITY;
+        int bestCell = -1;
+        for (long open = empty; open != 0L; open &= open - 1) {
+            int cell = Long.numberOfTrailingZeros(open);
+            nodes = 0;
+            limit = share;
+            long played = mover | 1L << cell;
+            int score = geometry.hasLine(played) ? geometry.getCells() * POINT
+                    : -search(other, played, depth - 1, 2, -Integer.MAX_VALUE, Integer.MAX_VALUE);
+            searched += nodes;
+            scores[cell] = score + evaluate(played, other) / (double) POINT;
+            if (scores[cell] > best) {
+                best = scores[cell];
+                bestCell = cell;
+            }
+        }
+        return temperature == 0 ? bestCell : sample(empty, best);
+    }
+
+    /*
+     * Negamax with alpha-beta for the player owning mover, ply moves
+     * after the root. Only positions that are expanded count as nodes;
+     * once the budget is spent, the rest are judged as they stand.
+     */
+    private int search(final long mover, final long other, final int left,
+            final int ply, final int alpha, final int beta) {
+        long empty = geometry.getFullMask() & ~(mover | other);
+        if (empty == 0L) {
+            return 0;
+        }
+        if (left == 0 || nodes >= limit) {
+            return evaluate(mover, other);
+        }
+        nodes++;
+        int win = (geometry.getCells() + 1 - ply) * POINT;
+        int best = -Integer.MAX_VALUE;
+        int a = alpha;
+        for (long open = empty; open != 0L; open &= open - 1) {
+            long played = mover | (open & -open);
+            int score = geometry.hasLine(played) ? win
+                    : -search(other, played, left - 1, ply + 1, -beta, -a);
+            if (score > best) {
+                best = score;
+                if (best > a) {
+                    a = best;
+                    if (a >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /*
+     * The lines the mover could still complete less the opponent's, kept
+     * under a point.
+     */
+    private int evaluate(final long mover, final long other) {
+        int open = 0;
+        for (int i = 0; i < geometry.getLineCount(); i++) {
+            long line = geometry.getLine(i);
+            if ((line & other) == 0L) {
+                open++;
+            }
+            if ((line & mover) == 0L) {
+                open--;
+            }
+        }
+        return Math.max(1 - POINT, Math.min(POINT - 1, open));
+    }
+
+    /*
+     * Draws a cell with probability proportional to
+     * exp((score - best) / temperature).
+     */
+    private int sample(final long empty, final double best) {
+        double total = 0;
+        for (long open = empty; open != 0L; open &= open - 1) {
+            int cell = Long.numberOfTrailingZeros(open);
+            scores[cell] = Math.exp((scores[cell] - best) / (temperature * POINT));
+            total += scores[cell];
+        }
+        double pick = rand.nextDouble() * total;
+        int cell = -1;
+        for (long open = empty; open != 0L; open &= open - 1) {
+            cell = Long.numberOfTrailingZeros(open);
+            pick -= scores[cell];
+            if (pick < 0) {
+                break;
+            }
+        }
+        return cell;
+    }
+
+    public final int getDepth() {
+        return depth;
+    }
+
+    public final long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public final double getTemperature() {
+        return temperature;
+    }
+
+    /**
+     * Returns the number of positions searched by every selectMove() so
+     * far, a measure of the CPU spent.
+     */
+    public final long getNodesSearched() {
+        return searched;
+    }
+}
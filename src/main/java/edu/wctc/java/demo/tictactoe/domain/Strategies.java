@@ -0,0 +1,174 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+/**
+ * This class maps the difficulty slider's "smarts" level to a computer
+ * opponent. It lives apart from GameEngine, which works with Swing Tile
+ * objects, so front ends that must not load AWT (like the console game)
+ * can still get the very same opponents.
+ * <P>
+ * The slider is continuous and every value on it, the three labelled
+ * stops included, is a SearchStrategy on one budget curve: its look-ahead
+ * depth and node budget grow with smarts while its softmax temperature
+ * (its randomness) falls, so no level costs less CPU per move, or plays
+ * worse, than one below it. Genius is the top of the curve, a full search
+ * that plays perfectly; Smart is its midpoint. Servers may cap the node
+ * budget with forSmarts(smarts, rand, maxNodes).
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class Strategies {
+    /** The smarts of the Easy stop on the slider. */
+    public static final int EASY = 0;
+    /** The smarts of the Smart stop on the slider. */
+    public static final int SMART = 50;
+    /** The smarts of the Genius stop on the slider. */
+    public static final int GENIUS = 100;
+
+    // Deep enough to search the classic board to the end
+    private static final int MAX_DEPTH = 9;
+
+    private static final int MIN_NODES_LOG2 = 4;
+    private static final int MAX_NODES_LOG2 = 20;
+    private static final double MAX_TEMPERATURE = 20.0;
+
+    private Strategies() {
+    }
+
+    /**
+     * Returns the computer opponent for a difficulty level: a
+     * SearchStrategy with the budget given by depthFor(), nodesFor() and
+     * temperatureFor().
+     *
+     * Genius (smarts 100): Searches every line to the end for perfect
+     *   play. The computer will always win or draw — it cannot be beaten.
+     * Smart (smarts 50): Looks five moves ahead with no randomness — wins
+     *   when possible, blocks opponent wins, prefers center then corners.
+     *   Beatable but competent.
+     * Easy (smarts 0): Looks one move ahead and then plays almost at
+     *   random. May miss winning opportunities. Good for beginners.
+     *
+     * @param smarts - the difficulty level, 0 to 100.
+     * @param rand - the source of randomness for the levels below Smart.
+     * @return a new Strategy for that level
+     */
+    public static Strategy forSmarts(final int smarts, final Random rand) {
+        return forSmarts(smarts, rand, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the computer opponent for a difficulty level, searching no
+     * more than a number of positions per move. A cap below a level's own
+     * budget weakens it; capped, even Genius may no longer play perfectly.
+     *
+     * @param smarts - the difficulty level, 0 to 100.
+     * @param rand - the source of randomness for the levels below Smart.
+     * @param maxNodes - the most positions searched per move.
+     * @return a new Strategy for that level
+     */
+    public static Strategy forSmarts(final int smarts, final Random rand, final long maxNodes) {
+        return new SearchStrategy(depthFor(smarts), Math.min(nodesFor(smarts), maxNodes),
+                temperatureFor(smarts), rand);
+    }
+
+    /**
+     * Returns how many moves ahead a level looks, one more every 12.5
+     * points: 1 at Easy, 5 at Smart and 9, every move to the end of a
+     * classic game, at Genius.
+     */
+    public static int depthFor(final int smarts) {
+        return 1 + clamp(smarts) * (MAX_DEPTH - 1) / GENIUS;
+    }
+
+    /**
+     * Returns the most positions a level searches per move, doubling
+     * every six or so points: 16 at Easy, 4,096 at Smart and 1,048,576
+     * at Genius, more than a full search of the classic board needs.
+     */
+    public static long nodesFor(final int smarts) {
+        int log2 = MIN_NODES_LOG2
+                + clamp(smarts) * (MAX_NODES_LOG2 - MIN_NODES_LOG2) / GENIUS;
+        return 1L << log2;
+    }
+
+    /**
+     * Returns a level's softmax temperature in score points, falling with
+     * the cube of smarts from 20 (close to random) at Easy to 0 (always
+     * the best move found) at Smart and above.
+     */
+    public static double temperatureFor(final int smarts) {
+        double weakness = Math.max(0.0, 1.0 - clamp(smarts) / (double) SMART);
+        return MAX_TEMPERATURE * weakness * weakness * weakness;
+    }
+
+    private static int clamp(final int smarts) {
+        return Math.max(EASY, Math.min(GENIUS, smarts));
+    }
+
+    /*
+     * Plays one game with "X" moving first, from a given cell or -1 for
+     * its own choice, and returns the winner, or Board.EMPTY for a draw.
+     */
+    private static int play(final Strategy x, final Strategy o, final int opening,
+            final Board board) {
+        board.reset();
+        if (opening >= 0) {
+            board.play(opening, Board.X);
+        }
+        while (!board.isGameOver()) {
+            int mark = board.getSideToMove();
+            board.play((mark == Board.X ? x : o).selectMove(board, mark), mark);
+        }
+        return board.getWinner();
+    }
+
+    /**
+     * Measures every tenth slider value as the computer ("0") against an
+     * Easy and a Genius "X": CPU time and positions searched per move,
+     * and the computer's results. Genius opens in every cell in turn, as
+     * it would otherwise play the same game every time.
+     *
+     * @param args - [games]; default 2000 against each opponent.
+     */
+    public static void main(final String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        ThreadMXBean cpu = ManagementFactory.getThreadMXBean();
+        Random rand = new Random(1);
+        Board board = new Board();
+        // Warm up the JIT so the first rows are timed like the rest
+        for (int smarts = 0; smarts <= 100; smarts += 10) {
+            for (int i = 0; i < 200; i++) {
+                play(new EasyStrategy(rand), forSmarts(smarts, rand), -1, board);
+            }
+        }
+        System.out.println("smarts depth  nodes   temp   cpu us/move  nodes/move"
+                + "   vs Easy W/D/L %      vs Genius D/L %");
+        for (int smarts = 0; smarts <= 100; smarts += 10) {
+            Strategy computer = forSmarts(smarts, rand);
+            Strategy[] opponents = {new EasyStrategy(rand), new GeniusStrategy()};
+            int[][] results = new int[2][3];
+            long moves = 0;
+            long start = cpu.getCurrentThreadCpuTime();
+            for (int opponent = 0; opponent < opponents.length; opponent++) {
+                for (int i = 0; i < games; i++) {
+                    int winner = play(opponents[opponent], computer,
+                            opponent == 0 ? -1 : i % board.getGeometry().getCells(), board);
+                    moves += board.getTilesPlayed() / 2;
+                    results[opponent][winner == Board.O ? 0 : winner == Board.EMPTY ? 1 : 2]++;
+                }
+            }
+            double micros = (cpu.getCurrentThreadCpuTime() - start) / 1e3 / moves;
+            double searched = ((SearchStrategy) computer).getNodesSearched() / (double) moves;
+            System.out.printf("%6d %5d %7d %6.2f %12.2f %,11.0f   %5.1f/%5.1f/%5.1f   %5.1f/%5.1f%n",
+                    smarts, depthFor(smarts), nodesFor(smarts), temperatureFor(smarts),
+                    micros, searched,
+                    100.0 * results[0][0] / games, 100.0 * results[0][1] / games,
+                    100.0 * results[0][2] / games,
+                    100.0 * results[1][1] / games, 100.0 * results[1][2] / games);
+        }
+    }
+}
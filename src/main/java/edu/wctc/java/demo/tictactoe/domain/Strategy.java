@@ -0,0 +1,24 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+/**
+ * A Strategy chooses moves for one player. Each difficulty level of the
+ * GameEngine is a Strategy, which lets other front ends (and tournaments)
+ * use the same computer opponents without Swing Tile objects.
+ * <P>
+ * Strategies only recommend a move; they must leave the Board as they
+ * found it. Implementations are not required to be thread safe.
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public interface Strategy {
+
+    /**
+     * Chooses a move for the given player.
+     * 
+     * @param board - the current position; it is not modified.
+     * @param mark - the player to move, Board.X or Board.O.
+     * @return the chosen empty cell, or -1 if there is none
+     */
+    int selectMove(Board board, int mark);
+}
@@ -0,0 +1,127 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+/**
+ * This class maps positions of a square board through its eight
+ * symmetries (four rotations, each optionally mirrored). Positions that
+ * map onto each other are equivalent for play, so the smallest image of a
+ * position identifies its symmetry class and can be used as a cache key.
+ * <P>
+ * Symmetry objects are immutable and may be shared between threads.
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class Symmetry {
+    /** The number of symmetries of a square board. */
+    public static final int COUNT = 8;
+
+    private static final Symmetry CLASSIC = new Symmetry(Geometry.CLASSIC);
+
+    private final int cells;
+    private final int[][] images; // images[s][cell] = cell it moves to
+
+    private Symmetry(final Geometry geometry) {
+        int n = geometry.getSize();
+        cells = geometry.getCells();
+        images = new int[COUNT][cells];
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) {
+                int cell = r * n + c;
+                int m = n - 1;
+                images[0][cell] = r * n + c;             // identity
+                images[1][cell] = c * n + (m - r);       // rotate 90
+                images[2][cell] = (m - r) * n + (m - c); // rotate 180
+                images[3][cell] = (m - c) * n + r;       // rotate 270
+                images[4][cell] = r * n + (m - c);       // mirror
+                images[5][cell] = c * n + r;             // transpose
+                images[6][cell] = (m - r) * n + c;       // flip
+                images[7][cell] = (m - c) * n + (m - r); // anti-transpose
+            }
+        }
+    }
+
+    /**
+     * Returns the symmetries of a board shape.
+     * 
+     * @param geometry - the board shape.
+     */
+    public static Symmetry of(final Geometry geometry) {
+        return geometry.isClassic() ? CLASSIC : new Symmetry(geometry);
+    }
+
+    /**
+     * Returns the cell a given cell moves to under a symmetry.
+     * 
+     * @param cell - the cell index.
+     * @param symmetry - 0 (identity) to COUNT - 1.
+     */
+    public final int transformCell(final int cell, final int symmetry) {
+        return images[symmetry][cell];
+    }
+
+    /**
+     * Maps every cell in a mask through a symmetry.
+     * 
+     * @param mask - a set of cells.
+     * @param symmetry - 0 (identity) to COUNT - 1.
+     */
+    public final long transform(final long mask, final int symmetry) {
+        int[] image = images[symmetry];
+        long result = 0L;
+        long rest = mask;
+        while (rest != 0L) {
+            int cell = Long.numberOfTrailingZeros(rest);
+            rest &= rest - 1;
+            result |= 1L << image[cell];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the symmetry that maps a position onto its canonical form:
+     * the image with the smallest (xMask, oMask) pair, compared as
+     * unsigned numbers. The lowest such symmetry wins ties.
+     * 
+     * @param xMask - the cells marked "X".
+     * @param oMask - the cells marked "0".
+     */
+    public final int canonicalSymmetry(final long xMask, final long oMask) {
+        int best = 0;
+        long bestX = xMask;
+        long bestO = oMask;
+        for (int s = 1; s < COUNT; s++) {
+            long x = transform(xMask, s);
+            int cmp = Long.compareUnsigned(x, bestX);
+            if (cmp < 0) {
+                best = s;
+                bestX = x;
+                bestO = transform(oMask, s);
+            } else if (cmp == 0) {
+                long o = transform(oMask, s);
+                if (Long.compareUnsigned(o, bestO) < 0) {
+                    best = s;
+                    bestO = o;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the inverse of a symmetry, which maps images back.
+     * 
+     * @param symmetry - 0 (identity) to COUNT - 1.
+     */
+    public static int inverse(final int symmetry) {
+        // Rotations by 90 and 270 degrees undo each other; the rest are
+        // their own inverse
+        if (symmetry == 1) {
+            return 3;
+        }
+        return symmetry == 3 ? 1 : symmetry;
+    }
+
+    public final int getCells() {
+        return cells;
+    }
+}
@@ -1,5 +1,8 @@
 package edu.wctc.java.demo.tictactoe.domain;
 
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
 import javax.swing.JButton;
 
 /**
@@ -10,7 +13,12 @@ import javax.swing.JButton;
  * @version  1.01
  */
 public class Tile extends JButton {
+    private static final Color WIN_HINT = new Color(0, 128, 0);
+    private static final Color DRAW_HINT = Color.GRAY;
+    private static final Color LOSS_HINT = new Color(192, 0, 0);
+    private static final Font HINT_FONT = new Font("Tahoma", Font.BOLD, 11);
     private boolean selected;
+    private MoveScore hint;
 
     public Tile() {
     }
@@ -51,4 +59,45 @@ public class Tile extends JButton {
         super.setSelected(b);
         this.selected = b;
     }
+
+    /**
+     * Sets the move evaluation shown as a small overlay in the corner of
+     * this Tile. Only repaints when the hint actually changes.
+     * 
+     * @param hint - the MoveScore for this Tile, or null to hide the hint.
+     */
+    public final void setHint(final MoveScore hint) {
+        if (hint == null ? this.hint == null : hint.equals(this.hint)) {
+            return;
+        }
+        this.hint = hint;
+        repaint();
+    }
+
+    public final MoveScore getHint() {
+        return hint;
+    }
+
+    /**
+     * Paints the button as usual, then the hint label (if any) on top.
+     */
+    @Override
+    protected void paintComponent(final Graphics g) {
+        super.paintComponent(g);
+        if (hint == null || selected) {
+            return;
+        }
+        switch (hint.getOutcome()) {
+            case WIN:
+                g.setColor(WIN_HINT);
+                break;
+            case LOSS:
+                g.setColor(LOSS_HINT);
+                break;
+            default:
+                g.setColor(DRAW_HINT);
+        }
+        g.setFont(HINT_FONT);
+        g.drawString(hint.getLabel(), 5, getHeight() - 5);
+    }
 }
@@ -0,0 +1,91 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+/**
+ * This class is a fixed-size cache of search results keyed by Zobrist
+ * position keys. Searches reach the same position through different move
+ * orders all the time; storing what was learned about a position the first
+ * time lets every later visit skip the work.
+ * <P>
+ * Entries live in two primitive arrays indexed by the low bits of the key,
+ * and a new entry simply replaces whatever shared its slot. The full key is
+ * stored too, so a probe only hits the position it was stored for (short of
+ * a genuine 64-bit key collision). What the int value means is up to the
+ * search using the table. A TranspositionTable is not thread safe.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class TranspositionTable {
+    /** Returned by probe() when the position is not in the table. */
+    public static final int MISS = Integer.MIN_VALUE;
+
+    private final long[] keys;
+    private final int[] values;
+    private final int mask;
+    private long probes;
+    private long hits;
+
+    /**
+     * Constructs an empty table.
+     *
+     * @param bits - the table holds 2 to the power bits entries (1 to 30);
+     * each takes 12 bytes.
+     * @throws IllegalArgumentException if bits is out of range
+     */
+    public TranspositionTable(final int bits) {
+        if (bits < 1 || bits > 30) {
+            throw new IllegalArgumentException("Table size must be 1 to 30 bits: " + bits);
+        }
+        keys = new long[1 << bits];
+        values = new int[1 << bits];
+        mask = (1 << bits) - 1;
+        clear();
+    }
+
+    /**
+     * Returns the value stored for a position, or MISS.
+     */
+    public final int probe(final long key) {
+        probes++;
+        int slot = (int) key & mask;
+        if (keys[slot] == key && values[slot] != MISS) {
+            hits++;
+            return values[slot];
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores a value for a position, replacing the slot's previous entry.
+     *
+     * @param key - the position's Zobrist key.
+     * @param value - anything but MISS.
+     */
+    public final void store(final long key, final int value) {
+        int slot = (int) key & mask;
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    /**
+     * Removes every entry and zeroes the statistics.
+     */
+    public final void clear() {
+        java.util.Arrays.fill(keys, 0L);
+        java.util.Arrays.fill(values, MISS);
+        probes = 0;
+        hits = 0;
+    }
+
+    public final int getCapacity() {
+        return keys.length;
+    }
+
+    public final long getProbes() {
+        return probes;
+    }
+
+    public final long getHits() {
+        return hits;
+    }
+}
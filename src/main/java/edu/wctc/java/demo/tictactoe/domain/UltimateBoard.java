@@ -0,0 +1,266 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+/**
+ * This class models Ultimate Tic-Tac-Toe: nine classic sub-boards laid out
+ * as a 3x3 meta-board. Winning a sub-board claims its square on the
+ * meta-board, and three claimed squares in a row win the game. The cell a
+ * player marks decides which sub-board the opponent must play in next;
+ * if that sub-board is already decided, the opponent may play in any
+ * open sub-board.
+ * <P>
+ * Each sub-board is stored as one 9-bit mask per player, and the
+ * meta-board as 9-bit masks of boards won by "X", won by "0" or drawn.
+ * Wins are found with a 512-entry table built from the same winning lines
+ * as the classic Rails. Moves are numbered board * 9 + cell, so 0 to 80.
+ * The Zobrist key covers the marks, the side to move and the sub-board the
+ * next player is sent to. "X" moves first. An UltimateBoard is not thread safe.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class UltimateBoard {
+    /** The number of distinct moves, board * 9 + cell. */
+    public static final int MOVES = 81;
+    /** Value of getForcedBoard() when any open sub-board may be played. */
+    public static final int ANY_BOARD = -1;
+
+    private static final int FULL = 0x1FF;
+    private static final boolean[] WINS = new boolean[FULL + 1];
+
+    static {
+        Geometry classic = Geometry.CLASSIC;
+        for (int mask = 0; mask <= FULL; mask++) {
+            WINS[mask] = classic.hasLine(mask);
+        }
+    }
+
+    private final int[] xCells = new int[9];
+    private final int[] oCells = new int[9];
+    private int xMeta;
+    private int oMeta;
+    private int drawnMeta;
+    private int forcedBoard = ANY_BOARD;
+    private int sideToMove = Board.X;
+    private int winner = Board.EMPTY;
+    private int movesPlayed;
+    private long hash;
+
+    /**
+     * Returns true if a 9-bit mask contains three in a row.
+     *
+     * @param mask - cells (or sub-boards) held by one player.
+     */
+    public static boolean isWin(final int mask) {
+        return WINS[mask];
+    }
+
+    /**
+     * Clears every sub-board so the board can be used for a new game.
+     */
+    public final void reset() {
+        for (int b = 0; b < 9; b++) {
+            xCells[b] = 0;
+            oCells[b] = 0;
+        }
+        xMeta = 0;
+        oMeta = 0;
+        drawnMeta = 0;
+        forcedBoard = ANY_BOARD;
+        sideToMove = Board.X;
+        winner = Board.EMPTY;
+        movesPlayed = 0;
+        hash = 0L;
+    }
+
+    /**
+     * Makes this board an exact copy of another one.
+     *
+     * @param other - the board to copy.
+     */
+    public final void copyFrom(final UltimateBoard other) {
+        System.arraycopy(other.xCells, 0, xCells, 0, 9);
+        System.arraycopy(other.oCells, 0, oCells, 0, 9);
+        xMeta = other.xMeta;
+        oMeta = other.oMeta;
+        drawnMeta = other.drawnMeta;
+        forcedBoard = other.forcedBoard;
+        sideToMove = other.sideToMove;
+        winner = other.winner;
+        movesPlayed = other.movesPlayed;
+        hash = other.hash;
+    }
+
+    /**
+     * Returns the mark in one cell of one sub-board: Board.X, Board.O or
+     * Board.EMPTY.
+     */
+    public final int get(final int board, final int cell) {
+        int bit = 1 << cell;
+        if ((xCells[board] & bit) != 0) {
+            return Board.X;
+        }
+        return (oCells[board] & bit) != 0 ? Board.O : Board.EMPTY;
+    }
+
+    /**
+     * Returns the owner of a sub-board's meta square: Board.X, Board.O or
+     * Board.EMPTY (still open, or drawn).
+     */
+    public final int getBoardWinner(final int board) {
+        int bit = 1 << board;
+        if ((xMeta & bit) != 0) {
+            return Board.X;
+        }
+        return (oMeta & bit) != 0 ? Board.O : Board.EMPTY;
+    }
+
+    /**
+     * Returns true if a sub-board is won or full, so it takes no moves.
+     */
+    public final boolean isDecided(final int board) {
+        return ((xMeta | oMeta | drawnMeta) & (1 << board)) != 0;
+    }
+
+    /**
+     * Returns the sub-board the side to move must play in, or ANY_BOARD.
+     */
+    public final int getForcedBoard() {
+        return forcedBoard;
+    }
+
+    public final int getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Returns the Zobrist key of the position.
+     */
+    public final long getHash() {
+        return hash;
+    }
+
+    public final int getMovesPlayed() {
+        return movesPlayed;
+    }
+
+    /**
+     * Returns the game winner, or Board.EMPTY while undecided or drawn.
+     */
+    public final int getWinner() {
+        return winner;
+    }
+
+    /**
+     * Returns true once the game is won or every sub-board is decided.
+     */
+    public final boolean isGameOver() {
+        return winner != Board.EMPTY || (xMeta | oMeta | drawnMeta) == FULL;
+    }
+
+    /**
+     * Writes every legal move of the side to move into an array.
+     *
+     * @param moves - receives the moves; needs room for MOVES entries.
+     * @return the number of legal moves
+     */
+    public final int legalMoves(final int[] moves) {
+        if (isGameOver()) {
+            return 0;
+        }
+        int count = 0;
+        if (forcedBoard != ANY_BOARD) {
+            return addMoves(forcedBoard, moves, 0);
+        }
+        int open = ~(xMeta | oMeta | drawnMeta) & FULL;
+        while (open != 0) {
+            int board = Integer.numberOfTrailingZeros(open);
+            open &= open - 1;
+            count = addMoves(board, moves, count);
+        }
+        return count;
+    }
+
+    private int addMoves(final int board, final int[] moves, final int start) {
+        int count = start;
+        int empty = ~(xCells[board] | oCells[board]) & FULL;
+        while (empty != 0) {
+            moves[count++] = board * 9 + Integer.numberOfTrailingZeros(empty);
+            empty &= empty - 1;
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if the side to move may play a move.
+     *
+     * @param move - board * 9 + cell.
+     */
+    public final boolean isLegal(final int move) {
+        if (move < 0 || move >= MOVES || isGameOver()) {
+            return false;
+        }
+        int board = move / 9;
+        if (isDecided(board) || (forcedBoard != ANY_BOARD && forcedBoard != board)) {
+            return false;
+        }
+        return ((xCells[board] | oCells[board]) & (1 << (move % 9))) == 0;
+    }
+
+    /**
+     * Plays a move for the side to move and passes the turn.
+     *
+     * @param move - board * 9 + cell; must be legal.
+     * @throws IllegalArgumentException if the move is not legal
+     */
+    public final void play(final int move) {
+        if (!isLegal(move)) {
+            throw new IllegalArgumentException("Illegal move: " + move);
+        }
+        playUnchecked(move);
+    }
+
+    /**
+     * Plays a move known to be legal, e.g. one from legalMoves(). Used by
+     * searches, where the check in play() would be wasted work.
+     *
+     * @param move - board * 9 + cell.
+     */
+    public final void playUnchecked(final int move) {
+        int board = move / 9;
+        int cell = move - board * 9;
+        int boardBit = 1 << board;
+        if (sideToMove == Board.X) {
+            int cells = xCells[board] | (1 << cell);
+            xCells[board] = cells;
+            if (WINS[cells]) {
+                xMeta |= boardBit;
+                if (WINS[xMeta]) {
+                    winner = Board.X;
+                }
+            } else if ((cells | oCells[board]) == FULL) {
+                drawnMeta |= boardBit;
+            }
+        } else {
+            int cells = oCells[board] | (1 << cell);
+            oCells[board] = cells;
+            if (WINS[cells]) {
+                oMeta |= boardBit;
+                if (WINS[oMeta]) {
+                    winner = Board.O;
+                }
+            } else if ((cells | xCells[board]) == FULL) {
+                drawnMeta |= boardBit;
+            }
+        }
+        hash ^= Zobrist.key(move, sideToMove) ^ Zobrist.SIDE;
+        if (forcedBoard != ANY_BOARD) {
+            hash ^= Zobrist.extra(forcedBoard);
+        }
+        forcedBoard = isDecided(cell) ? ANY_BOARD : cell;
+        if (forcedBoard != ANY_BOARD) {
+            hash ^= Zobrist.extra(forcedBoard);
+        }
+        sideToMove = Board.opponent(sideToMove);
+        movesPlayed++;
+    }
+}
@@ -0,0 +1,209 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.util.Random;
+
+/**
+ * This class chooses moves for Ultimate Tic-Tac-Toe with Monte Carlo tree
+ * search (UCT). The game tree is far too large for the minimax search the
+ * classic GameEngine uses, so the engine instead plays thousands of random
+ * games from the current position within a time budget and grows a search
+ * tree towards the moves that win most often.
+ * <P>
+ * The tree is kept in parallel primitive arrays that are reused from move
+ * to move, so a search creates no objects. An UltimateEngine is not thread
+ * safe; use one per thread.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class UltimateEngine {
+    private static final int DEFAULT_NODES = 1 << 20;
+    private static final double EXPLORATION = 1.41;
+
+    private final Random rand;
+    private final int capacity;
+    private final int[] move;
+    private final int[] parent;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] visits;
+    private final float[] wins; // for the player who made the move
+    private final int[] moves = new int[UltimateBoard.MOVES];
+    private final UltimateBoard scratch = new UltimateBoard();
+    private int nodes;
+    private int lastIterations;
+
+    public UltimateEngine() {
+        this(new Random(System.nanoTime()), DEFAULT_NODES);
+    }
+
+    /**
+     * Constructs an engine.
+     *
+     * @param rand - the source of randomness for playouts.
+     * @param capacity - the most tree nodes kept; once full, the search
+     * keeps running playouts without growing the tree.
+     */
+    public UltimateEngine(final Random rand, final int capacity) {
+        this.rand = rand;
+        this.capacity = capacity;
+        move = new int[capacity];
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        childCount = new int[capacity];
+        visits = new int[capacity];
+        wins = new float[capacity];
+    }
+
+    /**
+     * Chooses a move for the side to move.
+     *
+     * @param board - the current position; it is not modified.
+     * @param millis - the time budget in milliseconds.
+     * @return the chosen move (board * 9 + cell), or -1 if the game is over
+     */
+    public final int selectMove(final UltimateBoard board, final long millis) {
+        return selectMove(board, millis, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Chooses a move for the side to move, stopping at whichever limit is
+     * reached first. If the search never got as far as the root's moves
+     * (no time, a single playout or too small a tree), a random legal
+     * move is played instead.
+     *
+     * @param board - the current position; it is not modified.
+     * @param millis - the time budget in milliseconds.
+     * @param maxIterations - the most playouts to run.
+     * @return the chosen move (board * 9 + cell), or -1 if the game is over
+     */
+    public final int selectMove(final UltimateBoard board, final long millis,
+            final int maxIterations) {
+        int count = board.legalMoves(moves);
+        if (count == 0) {
+            return -1;
+        }
+        // A move that wins the game outright needs no search
+        for (int i = 0; i < count; i++) {
+            scratch.copyFrom(board);
+            scratch.playUnchecked(moves[i]);
+            if (scratch.getWinner() != Board.EMPTY) {
+                lastIterations = 0;
+                return moves[i];
+            }
+        }
+
+        nodes = 1;
+        move[0] = -1;
+        parent[0] = -1;
+        childCount[0] = 0;
+        visits[0] = 0;
+        wins[0] = 0f;
+        long deadline = System.nanoTime() + millis * 1000000L;
+        int iterations = 0;
+        while (iterations < maxIterations
+                && ((iterations & 63) != 0 || System.nanoTime() < deadline)) {
+            iterate(board);
+            iterations++;
+        }
+        lastIterations = iterations;
+
+        int best = -1;
+        int bestVisits = -1;
+        for (int c = firstChild[0]; c < firstChild[0] + childCount[0]; c++) {
+            if (visits[c] > bestVisits) {
+                bestVisits = visits[c];
+                best = move[c];
+            }
+        }
+        if (best < 0) {
+            // expand() reuses moves, so the legal moves are listed again
+            best = moves[rand.nextInt(board.legalMoves(moves))];
+        }
+        return best;
+    }
+
+    /**
+     * Returns the number of playouts run by the last selectMove() call.
+     */
+    public final int getLastIterations() {
+        return lastIterations;
+    }
+
+    /*
+     * One round of selection, expansion, random playout and back-up.
+     */
+    private void iterate(final UltimateBoard root) {
+        scratch.copyFrom(root);
+        int node = 0;
+        while (childCount[node] > 0) {
+            node = selectChild(node);
+            scratch.playUnchecked(move[node]);
+        }
+        if (visits[node] > 0 && !scratch.isGameOver()) {
+            expand(node);
+            if (childCount[node] > 0) {
+                node = firstChild[node] + rand.nextInt(childCount[node]);
+                scratch.playUnchecked(move[node]);
+            }
+        }
+        // The player who made the move into the leaf
+        int mover = Board.opponent(scratch.getSideToMove());
+        int winner = playout();
+        while (node >= 0) {
+            visits[node]++;
+            if (winner == mover) {
+                wins[node] += 1f;
+            } else if (winner == Board.EMPTY) {
+                wins[node] += 0.5f;
+            }
+            mover = Board.opponent(mover);
+            node = parent[node];
+        }
+    }
+
+    private int selectChild(final int node) {
+        int start = firstChild[node];
+        int end = start + childCount[node];
+        double logParent = Math.log(visits[node] + 1);
+        int best = start;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int c = start; c < end; c++) {
+            if (visits[c] == 0) {
+                return c;
+            }
+            double value = wins[c] / visits[c]
+                    + EXPLORATION * Math.sqrt(logParent / visits[c]);
+            if (value > bestValue) {
+                bestValue = value;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private void expand(final int node) {
+        int count = scratch.legalMoves(moves);
+        if (nodes + count > capacity) {
+            return;
+        }
+        firstChild[node] = nodes;
+        childCount[node] = count;
+        for (int i = 0; i < count; i++) {
+            int c = nodes++;
+            move[c] = moves[i];
+            parent[c] = node;
+            childCount[c] = 0;
+            visits[c] = 0;
+            wins[c] = 0f;
+        }
+    }
+
+    private int playout() {
+        while (!scratch.isGameOver()) {
+            int count = scratch.legalMoves(moves);
+            scratch.playUnchecked(moves[rand.nextInt(count)]);
+        }
+        return scratch.getWinner();
+    }
+}
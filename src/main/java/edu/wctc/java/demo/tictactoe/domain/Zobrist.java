@@ -0,0 +1,82 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.util.Random;
+
+/**
+ * This class holds the random keys for Zobrist hashing, the position keys
+ * shared by every board type. A position's key is the XOR of one random
+ * 64-bit number per marked cell (one table per player) and, when "0" is to
+ * move, the SIDE key. Because XOR undoes itself, a board updates its key
+ * with a single XOR when a mark is placed or removed, and positions reached
+ * by different move orders get the same key.
+ * <P>
+ * The keys come from a fixed seed, so they are the same in every run and
+ * keys written to a file stay meaningful.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class Zobrist {
+    /** The most cells a board may have; Gomoku's 15x15 is the largest. */
+    public static final int MAX_CELLS = 256;
+    /** XORed into the key whenever the side to move changes. */
+    public static final long SIDE;
+
+    private static final long[] KEYS = new long[2 * MAX_CELLS];
+    private static final long[] EXTRAS = new long[16];
+
+    static {
+        Random rand = new Random(0x5EED2B0A4DL);
+        for (int i = 0; i < KEYS.length; i++) {
+            KEYS[i] = rand.nextLong();
+        }
+        for (int i = 0; i < EXTRAS.length; i++) {
+            EXTRAS[i] = rand.nextLong();
+        }
+        SIDE = rand.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of one player's mark in one cell.
+     *
+     * @param cell - 0 to MAX_CELLS - 1.
+     * @param mark - Board.X or Board.O.
+     */
+    public static long key(final int cell, final int mark) {
+        return KEYS[(cell << 1) + mark - 1];
+    }
+
+    /**
+     * Returns a key for position state other than marks, such as the
+     * sub-board an Ultimate player is sent to.
+     *
+     * @param i - 0 to 15.
+     */
+    public static long extra(final int i) {
+        return EXTRAS[i];
+    }
+
+    /**
+     * Computes the key of a position from scratch: the marks of two cell
+     * masks, plus SIDE when "0" is to move. Boards keep their key up to
+     * date as they go; this is for checking them and for building keys
+     * of positions that are not on a board.
+     *
+     * @param xMask - the cells held by "X".
+     * @param oMask - the cells held by "0".
+     * @param sideToMove - Board.X or Board.O.
+     */
+    public static long hash(final long xMask, final long oMask, final int sideToMove) {
+        long hash = sideToMove == Board.O ? SIDE : 0L;
+        for (long rest = xMask; rest != 0L; rest &= rest - 1) {
+            hash ^= key(Long.numberOfTrailingZeros(rest), Board.X);
+        }
+        for (long rest = oMask; rest != 0L; rest &= rest - 1) {
+            hash ^= key(Long.numberOfTrailingZeros(rest), Board.O);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,91 @@
+package edu.wctc.java.demo.tictactoe.history;
+
+/**
+ * A count-min sketch: approximate counts of any number of distinct keys
+ * in a fixed amount of memory. Each key adds to one counter in each of a
+ * few rows, picked by a different hash per row, and its estimate is the
+ * smallest of those counters. Collisions can only add, so an estimate is
+ * never below the true count, and with width w it is above it by no more
+ * than about 2/w of the total, most of the time.
+ * <P>
+ * Not thread safe; one pass over a log uses one sketch.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class CountMinSketch {
+    private static final long[] SEEDS = {
+        0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L,
+        0xD6E8FEB86659FD93L, 0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L
+    };
+
+    private final int depth;
+    private final int shift;
+    private final long[] counts;
+    private long total;
+
+    /**
+     * Creates an empty sketch of depth * width counters.
+     *
+     * @param depth - the number of rows, 1 to 6.
+     * @param width - the counters per row, a power of two.
+     */
+    public CountMinSketch(final int depth, final int width) {
+        if (depth < 1 || depth > SEEDS.length || width < 2 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("bad sketch size: " + depth + " x " + width);
+        }
+        this.depth = depth;
+        this.shift = 64 - Integer.numberOfTrailingZeros(width);
+        this.counts = new long[depth * width];
+    }
+
+    /*
+     * The counter of a key in a row: multiply-shift hashing, which keeps
+     * the well mixed top bits of the product.
+     */
+    private int slot(final long key, final int row) {
+        long h = (key ^ (key >>> 31)) * SEEDS[row];
+        return (row << (64 - shift)) + (int) (h >>> shift);
+    }
+
+    /**
+     * Counts a key n more times.
+     */
+    public final void add(final long key, final long n) {
+        for (int row = 0; row < depth; row++) {
+            counts[slot(key, row)] += n;
+        }
+        total += n;
+    }
+
+    /**
+     * Counts a key once more and returns its new estimate.
+     */
+    public final long addAndEstimate(final long key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int i = slot(key, row);
+            min = Math.min(min, ++counts[i]);
+        }
+        total++;
+        return min;
+    }
+
+    /**
+     * Returns how often a key was counted, or a little more.
+     */
+    public final long estimate(final long key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[slot(key, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Returns the sum of every count added.
+     */
+    public final long getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,34 @@
+package edu.wctc.java.demo.tictactoe.history;
+
+import edu.wctc.java.demo.tictactoe.domain.GameEngine;
+import edu.wctc.java.demo.tictactoe.domain.GameEvent;
+import edu.wctc.java.demo.tictactoe.domain.GameEventListener;
+
+/**
+ * Records everything that happens in a GameEngine to an EventStore under
+ * one session number. Add it with GameEngine.addGameEventListener().
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class EngineRecorder implements GameEventListener {
+    private final EventStore store;
+    private final long session;
+
+    /**
+     * @param store - where the events go.
+     * @param session - the session number to record them under.
+     */
+    public EngineRecorder(final EventStore store, final long session) {
+        this.store = store;
+        this.session = session;
+    }
+
+    public void gameEvent(final GameEngine engine, final GameEvent event) {
+        store.append(session, event);
+    }
+
+    public final long getSession() {
+        return session;
+    }
+}
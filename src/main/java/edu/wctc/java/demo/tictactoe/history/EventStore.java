@@ -0,0 +1,718 @@
+package edu.wctc.java.demo.tictactoe.history;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.GameEvent;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * This class is an append-only store of GameEvents from many sessions,
+ * kept in a directory of log segments and snapshots.
+ * <P>
+ * Each event is packed into one 8-byte record: a 40-bit session number,
+ * the event type, the cell or smarts level and the mark. Records go to
+ * numbered segment files, each named after the sequence number of its
+ * first event, so any event can be found without an index.
+ * <P>
+ * Writers never touch the disk. append() puts the record in an in-memory
+ * batch under a short lock, and a single writer thread swaps the full
+ * batch for an empty one and writes it out with one channel write (and,
+ * for a durable store, one force). While it writes, the next batch
+ * fills up, so the busier the store, the bigger the batches. flush()
+ * waits until everything appended so far has been written.
+ * <P>
+ * Replays map the segments and decode records straight out of the page
+ * cache without making objects, at many millions of events per second.
+ * compact() folds the closed segments into a snapshot of every session's
+ * state (see SessionState) and deletes them, so rebuilding a session
+ * reads one snapshot and the short log written since.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class EventStore {
+    static final int RECORD_BYTES = 8;
+    private static final int MAGIC = 0x45545454; // "TTTE" little-endian
+    private static final int VERSION = 1;
+    private static final long MAX_SESSION = (1L << 40) - 1;
+    private static final String LOG = ".log";
+    private static final String SNAPSHOT = "snapshot-";
+    private static final String SNAPSHOT_END = ".bin";
+    private static final GameEvent.Type[] TYPES = GameEvent.Type.values();
+
+    private final Path dir;
+    private final long segmentEvents;
+    private final boolean durable;
+    private final Thread writer;
+
+    // Guarded by lock
+    private final Object lock = new Object();
+    private ByteBuffer filling;
+    private ByteBuffer writing;
+    private long appended;
+    private long written;
+    private boolean rollRequested;
+    private long rolledAt;
+    private boolean closed;
+    private IOException failure;
+
+    // Used by the writer thread only
+    private FileChannel segment;
+    private long segmentStart;
+    private long segmentRecords;
+    private volatile long batches;
+
+    // Held while files are read or deleted
+    private final Object files = new Object();
+
+    /**
+     * Opens a store with 1M events per segment and batches of up to 64K
+     * events that are not forced to disk.
+     *
+     * @param dir - the directory; created if needed.
+     * @throws IOException if the directory can not be used
+     */
+    public EventStore(final Path dir) throws IOException {
+        this(dir, 1 << 20, 1 << 16, false);
+    }
+
+    /**
+     * Opens a store, picking up after the last event already in it. A
+     * record cut short by a crash is dropped.
+     *
+     * @param dir - the directory; created if needed.
+     * @param segmentEvents - the number of events per segment file.
+     * @param batchEvents - the most events written at once; append()
+     * waits while a full batch is being written.
+     * @param durable - if true, every batch is forced to disk before
+     * flush() returns.
+     * @throws IOException if the directory can not be used
+     */
+    public EventStore(final Path dir, final int segmentEvents, final int batchEvents,
+            final boolean durable) throws IOException {
+        if (segmentEvents < 1 || batchEvents < 1) {
+            throw new IllegalArgumentException("sizes must be positive");
+        }
+        this.dir = dir;
+        this.segmentEvents = segmentEvents;
+        this.durable = durable;
+        this.filling = ByteBuffer.allocateDirect(batchEvents * RECORD_BYTES);
+        this.writing = ByteBuffer.allocateDirect(batchEvents * RECORD_BYTES);
+        Files.createDirectories(dir);
+        List<Long> starts = segmentStarts();
+        if (starts.isEmpty()) {
+            openSegment(latestSnapshot());
+        } else {
+            segmentStart = starts.get(starts.size() - 1);
+            segment = FileChannel.open(segmentPath(segmentStart),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segmentRecords = segment.size() / RECORD_BYTES;
+            segment.truncate(segmentRecords * RECORD_BYTES);
+            segment.position(segmentRecords * RECORD_BYTES);
+        }
+        appended = segmentStart + segmentRecords;
+        written = appended;
+        writer = new Thread(new Runnable() {
+            public void run() {
+                writeLoop();
+            }
+        }, "event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Adds an event to the end of the log.
+     *
+     * @param session - the session it belongs to, 0 to 2^40 - 1.
+     * @param event - what happened.
+     * @throws IllegalStateException if the store is closed or failed
+     */
+    public final void append(final long session, final GameEvent event) {
+        append(session, event.getType(), event.getValue(), event.getMark());
+    }
+
+    /**
+     * Adds an event to the end of the log without making a GameEvent.
+     *
+     * @param session - the session it belongs to, 0 to 2^40 - 1.
+     * @param type - what happened.
+     * @param value - the cell or smarts level, 0 to 255.
+     * @param mark - the mark, 0 to 255.
+     * @throws IllegalStateException if the store is closed or failed
+     */
+    public final void append(final long session, final GameEvent.Type type,
+            final int value, final int mark) {
+        if (session < 0 || session > MAX_SESSION) {
+            throw new IllegalArgumentException("session out of range: " + session);
+        }
+        if ((value & ~0xFF) != 0 || (mark & ~0xFF) != 0) {
+            throw new IllegalArgumentException("value and mark must be 0 to 255");
+        }
+        long record = session << 24 | (long) type.ordinal() << 16 | value << 8 | mark;
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (!filling.hasRemaining() && !closed && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (closed || failure != null) {
+                throw new IllegalStateException("Event store is closed", failure);
+            }
+            if (filling.position() == 0) {
+                lock.notifyAll(); // the writer may be waiting for work
+            }
+            filling.putLong(record);
+            appended++;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits until every event appended so far has been written (and, for
+     * a durable store, forced to disk).
+     *
+     * @throws IOException if the writer failed
+     */
+    public final void flush() throws IOException {
+        synchronized (lock) {
+            long target = appended;
+            waitFor(target);
+        }
+    }
+
+    /*
+     * Waits, holding the lock, until the writer has written up to a
+     * sequence number, and reports a writer failure.
+     */
+    private void waitFor(final long target) throws IOException {
+        boolean interrupted = false;
+        while ((written < target || rollRequested) && failure == null && writer.isAlive()) {
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw new IOException("Event writer failed", failure);
+        }
+    }
+
+    /**
+     * Writes what is left and closes the store.
+     *
+     * @throws IOException if the writer failed
+     */
+    public final void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw new IOException("Event writer failed", failure);
+        }
+    }
+
+    /*
+     * Swaps batches and writes them until the store is closed and the
+     * last batch is out.
+     */
+    private void writeLoop() {
+        try {
+            while (true) {
+                long upTo;
+                boolean roll;
+                synchronized (lock) {
+                    while (filling.position() == 0 && !closed && !rollRequested) {
+                        lock.wait();
+                    }
+                    if (filling.position() == 0 && !rollRequested) {
+                        return;
+                    }
+                    ByteBuffer full = filling;
+                    filling = writing;
+                    writing = full;
+                    upTo = appended;
+                    roll = rollRequested;
+                    lock.notifyAll(); // appenders waiting for room
+                }
+                writing.flip();
+                if (writing.hasRemaining()) {
+                    writeBatch(writing);
+                    batches++;
+                    if (durable) {
+                        segment.force(false);
+                    }
+                }
+                writing.clear();
+                if (roll && segmentRecords > 0) {
+                    openSegment(segmentStart + segmentRecords);
+                }
+                synchronized (lock) {
+                    written = upTo;
+                    if (roll) {
+                        rolledAt = segmentStart;
+                        rollRequested = false;
+                    }
+                    lock.notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new IOException("Event writer interrupted", e));
+        } finally {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+    }
+
+    private void fail(final IOException e) {
+        synchronized (lock) {
+            if (failure == null) {
+                failure = e;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /*
+     * Writes a batch, starting new segments as they fill up. Records are
+     * never split between segments.
+     */
+    private void writeBatch(final ByteBuffer batch) throws IOException {
+        while (batch.hasRemaining()) {
+            if (segmentRecords >= segmentEvents) {
+                openSegment(segmentStart + segmentRecords);
+            }
+            long room = (segmentEvents - segmentRecords) * RECORD_BYTES;
+            ByteBuffer part = batch.duplicate();
+            part.limit((int) Math.min(batch.limit(), batch.position() + room));
+            int bytes = part.remaining();
+            while (part.hasRemaining()) {
+                segment.write(part);
+            }
+            batch.position(batch.position() + bytes);
+            segmentRecords += bytes / RECORD_BYTES;
+        }
+    }
+
+    private void openSegment(final long start) throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+        segment = FileChannel.open(segmentPath(start),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        segmentStart = start;
+        segmentRecords = 0;
+    }
+
+    /*
+     * Asks the writer to start a new segment after the events appended
+     * so far and returns its first sequence number.
+     */
+    final long roll() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Event store is closed");
+            }
+            rollRequested = true;
+            lock.notifyAll();
+            waitFor(appended);
+            return rolledAt;
+        }
+    }
+
+    private Path segmentPath(final long start) {
+        return dir.resolve(String.format("%020d%s", start, LOG));
+    }
+
+    private Path snapshotPath(final long offset) {
+        return dir.resolve(String.format("%s%020d%s", SNAPSHOT, offset, SNAPSHOT_END));
+    }
+
+    /*
+     * Returns the numbers in the names of the files with a given prefix
+     * and suffix, in order.
+     */
+    private List<Long> numbered(final String prefix, final String suffix) throws IOException {
+        List<Long> numbers = new ArrayList<Long>();
+        DirectoryStream<Path> stream = Files.newDirectoryStream(dir, prefix + "*" + suffix);
+        try {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                String digits = name.substring(prefix.length(), name.length() - suffix.length());
+                if (!digits.isEmpty() && digits.matches("[0-9]+")) {
+                    numbers.add(Long.parseLong(digits));
+                }
+            }
+        } finally {
+            stream.close();
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    private List<Long> segmentStarts() throws IOException {
+        return numbered("", LOG);
+    }
+
+    private long latestSnapshot() throws IOException {
+        List<Long> offsets = numbered(SNAPSHOT, SNAPSHOT_END);
+        return offsets.isEmpty() ? 0 : offsets.get(offsets.size() - 1);
+    }
+
+    /**
+     * Returns the sequence number of the oldest event still in the log;
+     * older events only live on in the snapshot.
+     */
+    public final long getFirstSequence() throws IOException {
+        synchronized (files) {
+            List<Long> starts = segmentStarts();
+            return Math.max(latestSnapshot(), starts.isEmpty() ? 0 : starts.get(0));
+        }
+    }
+
+    /**
+     * Returns the number of events ever appended, which is also the
+     * sequence number the next one will get.
+     */
+    public final long getAppended() {
+        synchronized (lock) {
+            return appended;
+        }
+    }
+
+    /**
+     * Returns the number of batches written since the store was opened.
+     */
+    public final long getBatches() {
+        return batches;
+    }
+
+    /**
+     * Shows every event still in the log from a sequence number on, up to
+     * the last one written.
+     *
+     * @param from - the first sequence number wanted.
+     * @param visitor - sees the events, oldest first.
+     * @return the number of events replayed
+     * @throws IOException if the log can not be read
+     */
+    public final long replay(final long from, final EventVisitor visitor) throws IOException {
+        synchronized (files) {
+            long upTo;
+            synchronized (lock) {
+                upTo = written;
+            }
+            return scan(from, upTo, visitor);
+        }
+    }
+
+    /*
+     * Decodes the events from one sequence number up to (not including)
+     * another, segment by segment.
+     */
+    private long scan(final long from, final long to, final EventVisitor visitor) throws IOException {
+        List<Long> starts = segmentStarts();
+        long count = 0;
+        for (int i = 0; i < starts.size(); i++) {
+            long start = starts.get(i);
+            long end = i + 1 < starts.size() ? Math.min(starts.get(i + 1), to) : to;
+            long first = Math.max(start, from);
+            if (first >= end) {
+                continue;
+            }
+            FileChannel channel = FileChannel.open(segmentPath(start), StandardOpenOption.READ);
+            try {
+                MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY,
+                        (first - start) * RECORD_BYTES, (end - first) * RECORD_BYTES);
+                for (long seq = first; seq < end; seq++) {
+                    long record = buf.getLong();
+                    int type = (int) (record >>> 16) & 0xFF;
+                    if (type >= TYPES.length) {
+                        throw new IOException("Bad event " + seq + " in " + segmentPath(start));
+                    }
+                    visitor.event(seq, record >>> 24, TYPES[type],
+                            (int) (record >>> 8) & 0xFF, (int) record & 0xFF);
+                }
+                count += end - first;
+            } finally {
+                channel.close();
+            }
+        }
+        return count;
+    }
+
+    /*
+     * Applies events to the states of the sessions they belong to, or of
+     * just one session.
+     */
+    private static final class Rebuilder implements EventVisitor {
+        final Map<Long, SessionState> states;
+        final long only;
+
+        Rebuilder(final Map<Long, SessionState> states, final long only) {
+            this.states = states;
+            this.only = only;
+        }
+
+        public void event(final long sequence, final long session, final GameEvent.Type type,
+                final int value, final int mark) {
+            if (only >= 0 && session != only) {
+                return;
+            }
+            SessionState state = states.get(session);
+            if (state == null) {
+                state = new SessionState(session);
+                states.put(session, state);
+            }
+            state.apply(type, value, mark);
+        }
+    }
+
+    /**
+     * Rebuilds the state of every session from the latest snapshot and
+     * the events written since.
+     *
+     * @return the sessions by number
+     * @throws IOException if the store can not be read
+     */
+    public final Map<Long, SessionState> rebuild() throws IOException {
+        synchronized (files) {
+            long upTo;
+            synchronized (lock) {
+                upTo = written;
+            }
+            Map<Long, SessionState> states = new HashMap<Long, SessionState>();
+            long offset = readSnapshot(states, -1);
+            scan(offset, upTo, new Rebuilder(states, -1));
+            return states;
+        }
+    }
+
+    /**
+     * Rebuilds the state of one session.
+     *
+     * @param session - the session number.
+     * @return its state, or null if it has no events
+     * @throws IOException if the store can not be read
+     */
+    public final SessionState rebuild(final long session) throws IOException {
+        synchronized (files) {
+            long upTo;
+            synchronized (lock) {
+                upTo = written;
+            }
+            Map<Long, SessionState> states = new HashMap<Long, SessionState>();
+            long offset = readSnapshot(states, session);
+            scan(offset, upTo, new Rebuilder(states, session));
+            return states.get(session);
+        }
+    }
+
+    /**
+     * Folds every event written so far into a new snapshot, then deletes
+     * the log segments and older snapshots it replaces. Appending goes on
+     * meanwhile, into a new segment.
+     *
+     * @return the sequence number the snapshot covers up to
+     * @throws IOException if the store can not be read or written
+     */
+    public final long compact() throws IOException {
+        long upTo = roll();
+        synchronized (files) {
+            Map<Long, SessionState> states = new HashMap<Long, SessionState>();
+            long offset = readSnapshot(states, -1);
+            if (upTo <= offset) {
+                return offset;
+            }
+            scan(offset, upTo, new Rebuilder(states, -1));
+            writeSnapshot(upTo, states);
+            for (long start : segmentStarts()) {
+                if (start < upTo) {
+                    Files.delete(segmentPath(start));
+                }
+            }
+            for (long old : numbered(SNAPSHOT, SNAPSHOT_END)) {
+                if (old < upTo) {
+                    Files.delete(snapshotPath(old));
+                }
+            }
+            return upTo;
+        }
+    }
+
+    private void writeSnapshot(final long offset, final Map<Long, SessionState> states)
+            throws IOException {
+        SnapshotFile.write(snapshotPath(offset), MAGIC, VERSION, new SnapshotFile.Content() {
+            public void writeTo(final DataOutputStream out) throws IOException {
+                out.writeLong(offset);
+                out.writeInt(states.size());
+                for (SessionState state : states.values()) {
+                    state.writeTo(out);
+                }
+            }
+        });
+    }
+
+    /*
+     * Reads the latest snapshot, or one session of it, and returns the
+     * sequence number it covers up to; 0 if there is none.
+     */
+    private long readSnapshot(final Map<Long, SessionState> states, final long only)
+            throws IOException {
+        long offset = latestSnapshot();
+        Path file = snapshotPath(offset);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        DataInputStream in = SnapshotFile.open(file, MAGIC, VERSION, "an event snapshot");
+        try {
+            if (in.readLong() != offset) {
+                throw new IOException(file + " is not an event snapshot");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                SessionState state = SessionState.readFrom(in);
+                if (only < 0 || state.getSession() == only) {
+                    states.put(state.getSession(), state);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return offset;
+    }
+
+    /*
+     * Appends the events of one random game: a new game, moves until
+     * someone wins or the board fills, and now and then a new level.
+     */
+    private static void appendGame(final EventStore store, final long session,
+            final Random rand, final Board board) {
+        board.reset();
+        store.append(session, GameEvent.Type.NEW_GAME, 0, Board.EMPTY);
+        if (rand.nextInt(10) == 0) {
+            store.append(session, GameEvent.Type.SMARTS, rand.nextInt(101), Board.EMPTY);
+        }
+        while (!board.isGameOver()) {
+            int mark = board.getSideToMove();
+            int cell = board.randomEmptyCell(rand);
+            board.play(cell, mark);
+            store.append(session, GameEvent.Type.MOVE, cell, mark);
+        }
+        if (board.getWinner() != Board.EMPTY) {
+            store.append(session, GameEvent.Type.WIN, 0, board.getWinner());
+        } else {
+            store.append(session, GameEvent.Type.DRAW, 0, Board.EMPTY);
+        }
+    }
+
+    private static void deleteTree(final Path dir) throws IOException {
+        File[] children = dir.toFile().listFiles();
+        if (children != null) {
+            for (File child : children) {
+                Files.delete(child.toPath());
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Measures the store: several threads append random games for their
+     * own sessions, then the log is replayed, compacted and rebuilt.
+     *
+     * @param args - [games] [threads]; defaults: 1000000 4.
+     */
+    public static void main(final String[] args) throws Exception {
+        final int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        Path dir = Files.createTempDirectory("events");
+        final EventStore store = new EventStore(dir);
+        final CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            final int share = games / threads;
+            new Thread(new Runnable() {
+                public void run() {
+                    Random rand = new Random(thread);
+                    Board board = new Board();
+                    for (int i = 0; i < share; i++) {
+                        appendGame(store, thread * 1000L + rand.nextInt(1000), rand, board);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        store.flush();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long events = store.getAppended();
+        System.out.printf("appended %,d events in %.2f s (%,.0f events/s) in %,d batches%n",
+                events, seconds, events / seconds, store.getBatches());
+
+        final long[] moves = new long[1];
+        EventVisitor counter = new EventVisitor() {
+            public void event(final long sequence, final long session,
+                    final GameEvent.Type type, final int value, final int mark) {
+                if (type == GameEvent.Type.MOVE) {
+                    moves[0]++;
+                }
+            }
+        };
+        for (int round = 0; round < 3; round++) {
+            moves[0] = 0;
+            start = System.nanoTime();
+            long replayed = store.replay(0, counter);
+            seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("replayed %,d events (%,d moves) in %.3f s (%,.0f events/s)%n",
+                    replayed, moves[0], seconds, replayed / seconds);
+        }
+
+        start = System.nanoTime();
+        long offset = store.compact();
+        System.out.printf("compacted up to %,d in %.3f s%n", offset,
+                (System.nanoTime() - start) / 1e9);
+        start = System.nanoTime();
+        Map<Long, SessionState> states = store.rebuild();
+        System.out.printf("rebuilt %,d sessions in %.3f s, e.g. %s%n", states.size(),
+                (System.nanoTime() - start) / 1e9, states.get(0L));
+        store.close();
+        deleteTree(dir);
+    }
+}
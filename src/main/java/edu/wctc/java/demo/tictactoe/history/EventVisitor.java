@@ -0,0 +1,22 @@
+package edu.wctc.java.demo.tictactoe.history;
+
+import edu.wctc.java.demo.tictactoe.domain.GameEvent;
+
+/**
+ * Sees every event of an EventStore replay, oldest first. The event is
+ * handed over in pieces, so a replay makes no objects.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public interface EventVisitor {
+
+    /**
+     * @param sequence - the event's position in the log, counting from 0.
+     * @param session - the session the event belongs to.
+     * @param type - what happened.
+     * @param value - the cell or smarts level; see GameEvent.getValue().
+     * @param mark - the mark; see GameEvent.getMark().
+     */
+    void event(long sequence, long session, GameEvent.Type type, int value, int mark);
+}
@@ -0,0 +1,511 @@
+package edu.wctc.java.demo.tictactoe.history;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.GameEvent;
+import edu.wctc.java.demo.tictactoe.domain.Geometry;
+import edu.wctc.java.demo.tictactoe.domain.PositionSolver;
+import edu.wctc.java.demo.tictactoe.domain.Strategies;
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import edu.wctc.java.demo.tictactoe.domain.Symmetry;
+import java.io.PrintStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * This class finds where human players go wrong, in one pass over the
+ * events of an EventStore: give it to replay() and read the report when
+ * the replay returns. Human moves are the "X" moves, since the
+ * GameEngine's computer always plays "0".
+ * <P>
+ * Every human move is checked against perfect play (the PositionSolver
+ * table): a move is a mistake if the position was worth more before it
+ * than after it, e.g. a won game let slip to a draw. Mistakes and visits
+ * are counted per position, with the eight symmetric images of a position
+ * counted as one, so mistake rates can be read for any position. Games
+ * the human lost are counted by their moves, again up to symmetry, and
+ * every finished game by its difficulty level and result.
+ * <P>
+ * Memory is fixed however long the log is. Per-position and per-line
+ * counts go to count-min sketches, with the most frequent keys kept in a
+ * TopK each. Sessions are followed in a table of fixed size, four slots
+ * to a hash bucket, with the least recently seen session of a full
+ * bucket making way for a new one; a session pushed out loses its
+ * current game and its difficulty level. A game whose start was not
+ * seen (e.g. one in progress when the log was compacted) is skipped
+ * until the session's next new game. Moves are taken to alternate, "X"
+ * first, as they do in every GameEngine game.
+ * <P>
+ * Nothing is allocated per event. Not thread safe.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class GameAnalytics implements EventVisitor {
+    /** A game the human won. */
+    public static final int WON = 0;
+    /** A drawn game. */
+    public static final int DRAWN = 1;
+    /** A game the human lost. */
+    public static final int LOST = 2;
+
+    private static final Symmetry SYMMETRY = Symmetry.of(Geometry.CLASSIC);
+    private static final int LEVELS = 101;
+    private static final int CELLS = 9;
+    private static final byte UNKNOWN = 0;
+    private static final byte PLAYING = 1;
+    private static final byte OVER = 2;
+
+    private final int bucketMask;
+    private final int ways;
+    private final long[] sessions;
+    // the sequence after each session's latest event, 0 for a free slot
+    private final long[] lastSeen;
+    // 4 bits per move, first move lowest; moves past played can be redone
+    private final long[] lines;
+    private final byte[] played;
+    private final byte[] redoable;
+    private final byte[] smarts;
+    private final byte[] states;
+
+    private final CountMinSketch visits;
+    private final CountMinSketch mistakes;
+    private final CountMinSketch losingLines;
+    private final TopK topMistakes;
+    private final TopK topLines;
+    private final long[][] outcomes = new long[LEVELS][3];
+
+    private long events;
+    private long games;
+    private long humanMoves;
+    private long humanMistakes;
+    private long evicted;
+    private long skipped;
+
+    /**
+     * Creates an analysis with room for 65,536 games in progress, sketches
+     * of 4 x 65,536 counters and the top 20 of each list: about 7 MB.
+     */
+    public GameAnalytics() {
+        this(1 << 16, 1 << 16, 20);
+    }
+
+    /**
+     * Creates an analysis of a given size.
+     *
+     * @param sessionSlots - the games that can be followed at once, a
+     * power of two.
+     * @param sketchWidth - the counters per sketch row, a power of two.
+     * @param top - the length of each top list.
+     */
+    public GameAnalytics(final int sessionSlots, final int sketchWidth, final int top) {
+        if (sessionSlots < 1 || Integer.bitCount(sessionSlots) != 1) {
+            throw new IllegalArgumentException("session slots must be a power of two: "
+                    + sessionSlots);
+        }
+        ways = Math.min(4, sessionSlots);
+        bucketMask = sessionSlots - ways;
+        sessions = new long[sessionSlots];
+        lastSeen = new long[sessionSlots];
+        lines = new long[sessionSlots];
+        played = new byte[sessionSlots];
+        redoable = new byte[sessionSlots];
+        smarts = new byte[sessionSlots];
+        states = new byte[sessionSlots];
+        visits = new CountMinSketch(4, sketchWidth);
+        mistakes = new CountMinSketch(4, sketchWidth);
+        losingLines = new CountMinSketch(4, sketchWidth);
+        topMistakes = new TopK(top);
+        topLines = new TopK(top);
+    }
+
+    public void event(final long sequence, final long session, final GameEvent.Type type,
+            final int value, final int mark) {
+        events++;
+        int slot = slotOf(session, sequence);
+        switch (type) {
+            case NEW_GAME:
+                lines[slot] = 0L;
+                played[slot] = 0;
+                redoable[slot] = 0;
+                states[slot] = PLAYING;
+                break;
+            case SMARTS:
+                smarts[slot] = (byte) value;
+                break;
+            case MOVE:
+                if (states[slot] == PLAYING && played[slot] < CELLS) {
+                    move(slot, value, mark);
+                } else {
+                    skip(slot);
+                }
+                break;
+            case UNDO:
+                if (states[slot] != UNKNOWN && played[slot] > 0) {
+                    played[slot]--;
+                    redoable[slot]++;
+                    states[slot] = PLAYING;
+                } else {
+                    skip(slot);
+                }
+                break;
+            case REDO:
+                if (states[slot] == PLAYING && redoable[slot] > 0) {
+                    played[slot]++;
+                    redoable[slot]--;
+                } else {
+                    skip(slot);
+                }
+                break;
+            case WIN:
+            case DRAW:
+                if (states[slot] == PLAYING) {
+                    finish(slot, type == GameEvent.Type.DRAW ? DRAWN
+                            : mark == Board.X ? WON : LOST);
+                } else {
+                    skip(slot);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /*
+     * Finds a session's slot in its bucket, or takes the bucket's least
+     * recently seen slot for it. A newcomer's difficulty is taken to be
+     * the GameEngine's default.
+     */
+    private int slotOf(final long session, final long sequence) {
+        long h = session * 0x9E3779B97F4A7C15L;
+        int bucket = (int) (h ^ (h >>> 32)) & bucketMask;
+        int slot = bucket;
+        for (int i = bucket; i < bucket + ways; i++) {
+            if (sessions[i] == session + 1) {
+                lastSeen[i] = sequence + 1;
+                return i;
+            }
+            if (lastSeen[i] < lastSeen[slot]) {
+                slot = i;
+            }
+        }
+        if (sessions[slot] != 0L) {
+            evicted++;
+        }
+        sessions[slot] = session + 1;
+        lastSeen[slot] = sequence + 1;
+        lines[slot] = 0L;
+        played[slot] = 0;
+        redoable[slot] = 0;
+        smarts[slot] = 100;
+        states[slot] = UNKNOWN;
+        return slot;
+    }
+
+    private void skip(final int slot) {
+        if (states[slot] == PLAYING) {
+            states[slot] = UNKNOWN;
+        }
+        skipped++;
+    }
+
+    /*
+     * Judges a human move against perfect play, then records it.
+     */
+    private void move(final int slot, final int cell, final int mark) {
+        long line = lines[slot];
+        int count = played[slot];
+        int x = 0;
+        int o = 0;
+        for (int i = 0; i < count; i++) {
+            int bit = 1 << (int) ((line >>> (4 * i)) & 0xF);
+            if (i % 2 == 0) {
+                x |= bit;
+            } else {
+                o |= bit;
+            }
+        }
+        if (((x | o) & (1 << cell)) != 0) {
+            skip(slot);
+            return;
+        }
+        if (mark == Board.X) {
+            int before = Integer.signum(PositionSolver.solve(x, o));
+            int after = -Integer.signum(PositionSolver.solve(o, x | 1 << cell));
+            long position = positionKey(x, o);
+            visits.add(position, 1);
+            humanMoves++;
+            if (after < before) {
+                humanMistakes++;
+                topMistakes.offer(position, mistakes.addAndEstimate(position));
+            }
+        }
+        long shift = 4L * count;
+        lines[slot] = line & ((1L << shift) - 1) | (long) cell << shift;
+        played[slot]++;
+        redoable[slot] = 0;
+    }
+
+    private void finish(final int slot, final int result) {
+        games++;
+        outcomes[smarts[slot] & 0xFF][result]++;
+        states[slot] = OVER;
+        if (result == LOST) {
+            long key = lineKey(lines[slot], played[slot]);
+            topLines.offer(key, losingLines.addAndEstimate(key));
+        }
+    }
+
+    /*
+     * The canonical form of a position, "X" cells above "0" cells.
+     */
+    static long positionKey(final int x, final int o) {
+        int s = SYMMETRY.canonicalSymmetry(x, o);
+        return SYMMETRY.transform(x, s) << CELLS | SYMMETRY.transform(o, s);
+    }
+
+    /*
+     * The smallest packing of a game's moves under the eight symmetries,
+     * with the number of moves above them.
+     */
+    static long lineKey(final long line, final int count) {
+        long best = Long.MAX_VALUE;
+        for (int s = 0; s < Symmetry.COUNT; s++) {
+            long packed = 0L;
+            for (int i = 0; i < count; i++) {
+                int cell = SYMMETRY.transformCell((int) ((line >>> (4 * i)) & 0xF), s);
+                packed |= (long) cell << (4 * i);
+            }
+            best = Math.min(best, packed);
+        }
+        return (long) count << 36 | best;
+    }
+
+    /**
+     * Writes a position key as a board, e.g. "X-0------".
+     */
+    public static String positionOf(final long key) {
+        StringBuilder sb = new StringBuilder(CELLS);
+        for (int cell = 0; cell < CELLS; cell++) {
+            boolean x = (key & (1L << (cell + CELLS))) != 0;
+            boolean o = (key & (1L << cell)) != 0;
+            sb.append(x ? 'X' : o ? '0' : '-');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes a line key as its cells in the order played, e.g. "0 4 8 2".
+     */
+    public static String lineOf(final long key) {
+        int count = (int) (key >>> 36);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append((key >>> (4 * i)) & 0xF);
+        }
+        return sb.toString();
+    }
+
+    public final long getEvents() {
+        return events;
+    }
+
+    /**
+     * Returns the number of finished games counted.
+     */
+    public final long getGames() {
+        return games;
+    }
+
+    public final long getHumanMoves() {
+        return humanMoves;
+    }
+
+    public final long getMistakes() {
+        return humanMistakes;
+    }
+
+    /**
+     * Returns the number of times a session was pushed out of the table
+     * by others, losing its game in progress and its difficulty level.
+     */
+    public final long getEvicted() {
+        return evicted;
+    }
+
+    /**
+     * Returns the number of events skipped because they did not fit the
+     * game as followed, e.g. moves of a game whose start was not seen.
+     */
+    public final long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Returns how many finished games at a difficulty the human won, drew
+     * or lost.
+     *
+     * @param smarts - the difficulty level, 0 to 100.
+     * @param result - WON, DRAWN or LOST.
+     */
+    public final long getOutcomes(final int smarts, final int result) {
+        return outcomes[smarts][result];
+    }
+
+    /**
+     * Returns about how many human moves were made in a position; the
+     * count may be a little high.
+     */
+    public final long getVisits(final long position) {
+        return visits.estimate(position);
+    }
+
+    /**
+     * Returns about how many human mistakes were made in a position.
+     */
+    public final long getMistakes(final long position) {
+        return mistakes.estimate(position);
+    }
+
+    /**
+     * Returns the positions with the most human mistakes, most first.
+     */
+    public final long[] getTopMistakes() {
+        return topMistakes.getKeys();
+    }
+
+    /**
+     * Returns the lines of moves lost most often by humans, most first.
+     */
+    public final long[] getTopLosingLines() {
+        return topLines.getKeys();
+    }
+
+    /**
+     * Returns about how often a line of moves was lost by a human.
+     */
+    public final long getLosses(final long line) {
+        return losingLines.estimate(line);
+    }
+
+    /**
+     * Writes the findings: totals, results by difficulty, the positions
+     * with most mistakes and the lines most often lost.
+     *
+     * @param out - where to write.
+     */
+    public final void printReport(final PrintStream out) {
+        out.printf("%,d events, %,d games, %,d human moves, %,d mistakes (%.1f%%), "
+                + "%,d sessions evicted, %,d events skipped%n", events, games, humanMoves,
+                humanMistakes, 100.0 * humanMistakes / Math.max(1, humanMoves), evicted, skipped);
+        out.println("smarts     games   won %  drawn %  lost %");
+        for (int level = 0; level < LEVELS; level++) {
+            long n = outcomes[level][WON] + outcomes[level][DRAWN] + outcomes[level][LOST];
+            if (n > 0) {
+                out.printf("%6d %,9d %7.1f %8.1f %7.1f%n", level, n,
+                        100.0 * outcomes[level][WON] / n, 100.0 * outcomes[level][DRAWN] / n,
+                        100.0 * outcomes[level][LOST] / n);
+            }
+        }
+        out.println("position   mistakes    moves  mistake %");
+        for (long position : getTopMistakes()) {
+            long seen = getVisits(position);
+            out.printf("%s %,10d %,9d %9.1f%n", positionOf(position), getMistakes(position),
+                    seen, 100.0 * getMistakes(position) / Math.max(1, seen));
+        }
+        out.println("   losses  lost line (cells in order played)");
+        for (long line : getTopLosingLines()) {
+            out.printf("%,9d  %s%n", getLosses(line), lineOf(line));
+        }
+    }
+
+    /*
+     * Records random games between simulated humans of varying skill
+     * and the computer at a few difficulty levels, many sessions at once.
+     */
+    private static void record(final EventStore store, final long games, final int sessions) {
+        Random rand = new Random(1);
+        int[] levels = {0, 25, 50, 75, 100};
+        Strategy[] humans = new Strategy[61];
+        for (int skill = 0; skill < humans.length; skill++) {
+            humans[skill] = Strategies.forSmarts(skill, rand);
+        }
+        Strategy[] computers = new Strategy[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            computers[i] = Strategies.forSmarts(levels[i], rand);
+        }
+        boolean[] started = new boolean[sessions];
+        Board board = new Board();
+        for (long game = 0; game < games; game++) {
+            int session = rand.nextInt(sessions);
+            int level = session % levels.length;
+            Strategy human = humans[session % humans.length];
+            store.append(session, GameEvent.Type.NEW_GAME, 0, Board.EMPTY);
+            if (!started[session]) {
+                started[session] = true;
+                store.append(session, GameEvent.Type.SMARTS, levels[level], Board.EMPTY);
+            }
+            board.reset();
+            while (!board.isGameOver()) {
+                int mark = board.getSideToMove();
+                int cell = (mark == Board.X ? human : computers[level]).selectMove(board, mark);
+                board.play(cell, mark);
+                store.append(session, GameEvent.Type.MOVE, cell, mark);
+            }
+            if (board.getWinner() != Board.EMPTY) {
+                store.append(session, GameEvent.Type.WIN, 0, board.getWinner());
+            } else {
+                store.append(session, GameEvent.Type.DRAW, 0, Board.EMPTY);
+            }
+        }
+    }
+
+    /**
+     * Analyzes the events of a store in one pass and prints the report
+     * and the pass's speed. Given a number instead of a directory, records
+     * that many simulated games in a temporary store first.
+     *
+     * @param args - [storeDirectory | games]; default 200000 games.
+     */
+    public static void main(final String[] args) throws Exception {
+        Path dir;
+        boolean temporary = args.length == 0 || !Files.isDirectory(Paths.get(args[0]));
+        if (temporary) {
+            long games = args.length > 0 ? Long.parseLong(args[0]) : 200000;
+            dir = Files.createTempDirectory("analytics");
+            EventStore store = new EventStore(dir);
+            long start = System.nanoTime();
+            record(store, games, 10000);
+            store.close();
+            System.out.printf("recorded %,d games in %.1f s%n", games,
+                    (System.nanoTime() - start) / 1e9);
+        } else {
+            dir = Paths.get(args[0]);
+        }
+        EventStore store = new EventStore(dir);
+        try {
+            GameAnalytics analytics = new GameAnalytics();
+            long start = System.nanoTime();
+            store.replay(store.getFirstSequence(), analytics);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("one pass in %.2f s: %,.0f events/s, %,.0f games/s%n", seconds,
+                    analytics.getEvents() / seconds, analytics.getGames() / seconds);
+            analytics.printReport(System.out);
+        } finally {
+            store.close();
+        }
+        if (temporary) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path file : files) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package edu.wctc.java.demo.tictactoe.history;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.GameEvent;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The state of one recorded session, built by applying its events in
+ * order: the current game's moves (including moves that could be
+ * redone), its result, the difficulty level and the running totals.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class SessionState {
+    /** The result of a game that is still being played. */
+    public static final int IN_PLAY = 0;
+    /** The result of a drawn game; a won game's result is the winner. */
+    public static final int DRAW = 3;
+
+    private static final int CELLS = 9;
+
+    private final long session;
+    // cell | mark << 8 for each move; entries past played can be redone
+    private final int[] moves = new int[CELLS];
+    private int played;
+    private int redoable;
+    private int smarts = 100;
+    private int result = IN_PLAY;
+    private long games;
+    private long xWins;
+    private long oWins;
+    private long draws;
+
+    SessionState(final long session) {
+        this.session = session;
+    }
+
+    /**
+     * Applies one event.
+     *
+     * @throws IllegalStateException if the event can not follow the ones
+     * before it, e.g. an undo with no move to take back
+     */
+    void apply(final GameEvent.Type type, final int value, final int mark) {
+        switch (type) {
+            case NEW_GAME:
+                played = 0;
+                redoable = 0;
+                result = IN_PLAY;
+                games++;
+                break;
+            case MOVE:
+                if (played == CELLS) {
+                    throw new IllegalStateException("Session " + session + ": board is full");
+                }
+                moves[played++] = value | mark << 8;
+                redoable = 0;
+                break;
+            case UNDO:
+                if (played == 0) {
+                    throw new IllegalStateException("Session " + session + ": no move to undo");
+                }
+                played--;
+                redoable++;
+                result = IN_PLAY;
+                break;
+            case REDO:
+                if (redoable == 0) {
+                    throw new IllegalStateException("Session " + session + ": no move to redo");
+                }
+                played++;
+                redoable--;
+                break;
+            case WIN:
+                result = mark;
+                if (mark == Board.X) {
+                    xWins++;
+                } else {
+                    oWins++;
+                }
+                break;
+            case DRAW:
+                result = DRAW;
+                draws++;
+                break;
+            case SMARTS:
+                smarts = value;
+                break;
+            default:
+                throw new IllegalStateException("Unknown event " + type);
+        }
+    }
+
+    void writeTo(final DataOutput out) throws IOException {
+        out.writeLong(session);
+        out.writeByte(played);
+        out.writeByte(redoable);
+        for (int i = 0; i < played + redoable; i++) {
+            out.writeShort(moves[i]);
+        }
+        out.writeByte(smarts);
+        out.writeByte(result);
+        out.writeLong(games);
+        out.writeLong(xWins);
+        out.writeLong(oWins);
+        out.writeLong(draws);
+    }
+
+    static SessionState readFrom(final DataInput in) throws IOException {
+        SessionState state = new SessionState(in.readLong());
+        state.played = in.readUnsignedByte();
+        state.redoable = in.readUnsignedByte();
+        for (int i = 0; i < state.played + state.redoable; i++) {
+            state.moves[i] = in.readUnsignedShort();
+        }
+        state.smarts = in.readUnsignedByte();
+        state.result = in.readUnsignedByte();
+        state.games = in.readLong();
+        state.xWins = in.readLong();
+        state.oWins = in.readLong();
+        state.draws = in.readLong();
+        return state;
+    }
+
+    public final long getSession() {
+        return session;
+    }
+
+    /**
+     * Returns the current game as a Board, with the moves that were
+     * taken back ready to be redone.
+     */
+    public final Board getBoard() {
+        Board board = new Board();
+        for (int i = 0; i < played + redoable; i++) {
+            board.play(moves[i] & 0xFF, moves[i] >> 8);
+        }
+        for (int i = 0; i < redoable; i++) {
+            board.undo();
+        }
+        return board;
+    }
+
+    public final int getMovesPlayed() {
+        return played;
+    }
+
+    public final int getSmarts() {
+        return smarts;
+    }
+
+    /**
+     * Returns IN_PLAY, the winning mark or DRAW.
+     */
+    public final int getResult() {
+        return result;
+    }
+
+    /**
+     * Returns the number of games started.
+     */
+    public final long getGames() {
+        return games;
+    }
+
+    public final long getxWins() {
+        return xWins;
+    }
+
+    public final long getoWins() {
+        return oWins;
+    }
+
+    public final long getDraws() {
+        return draws;
+    }
+
+    @Override
+    public String toString() {
+        return "Session " + session + ": " + getBoard() + ", smarts " + smarts
+                + ", " + games + " games (" + xWins + "/" + oWins + "/" + draws + ")";
+    }
+}
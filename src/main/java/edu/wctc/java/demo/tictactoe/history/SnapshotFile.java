@@ -0,0 +1,128 @@
+package edu.wctc.java.demo.tictactoe.history;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The snapshot files of the EventStore, the StatsStore and the
+ * ValueTable, written one way. A file starts with a four-letter magic
+ * word, written as text (e.g. "TTTE"), and a format version; the rest is
+ * up to its owner. A snapshot is written next to the old one and then
+ * moved over it, so a reader never sees half a file, and can be taken on
+ * a background thread every so often.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class SnapshotFile {
+
+    /**
+     * Writes what follows a snapshot's header.
+     */
+    public interface Content {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Takes one snapshot, for schedule().
+     */
+    public interface Snapshot {
+        void take() throws IOException;
+    }
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Writes a snapshot file.
+     *
+     * @param file - the file; replaced if it exists.
+     * @param magic - the magic word, its first letter in the lowest byte.
+     * @param version - the format version.
+     * @param content - writes the rest of the file.
+     * @throws IOException if the file can not be written
+     */
+    public static void write(final Path file, final int magic, final int version,
+            final Content content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temp)));
+        try {
+            out.writeInt(Integer.reverseBytes(magic));
+            out.writeInt(version);
+            content.writeTo(out);
+        } finally {
+            out.close();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Opens a snapshot file after checking its header. The caller reads
+     * the rest and closes the stream.
+     *
+     * @param file - a file written by write().
+     * @param magic - the magic word it must start with.
+     * @param version - the format version it must have.
+     * @param what - what the file should be, for the error message, e.g.
+     * "a value table".
+     * @throws IOException if the file can not be read or is not one
+     */
+    public static DataInputStream open(final Path file, final int magic, final int version,
+            final String what) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        boolean ok = false;
+        try {
+            ok = in.readInt() == Integer.reverseBytes(magic) && in.readInt() == version;
+        } finally {
+            if (!ok) {
+                in.close();
+            }
+        }
+        if (!ok) {
+            throw new IOException(file + " is not " + what);
+        }
+        return in;
+    }
+
+    /**
+     * Takes a snapshot on a daemon thread every so often. Failures are
+     * reported on standard error and the next snapshot is tried as usual.
+     *
+     * @param name - the thread's name, also used in failure messages.
+     * @param periodMillis - the time between snapshots.
+     * @param snapshot - takes one snapshot.
+     * @return the thread's executor; shut it down to stop
+     */
+    public static ScheduledExecutorService schedule(final String name, final long periodMillis,
+            final Snapshot snapshot) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactory() {
+                    public Thread newThread(final Runnable r) {
+                        Thread thread = new Thread(r, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    snapshot.take();
+                } catch (IOException e) {
+                    System.err.println(name + " failed: " + e);
+                }
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+}
@@ -0,0 +1,77 @@
+package edu.wctc.java.demo.tictactoe.history;
+
+/**
+ * The k keys with the highest counts offered so far, in fixed memory.
+ * Fed with running estimates from a CountMinSketch, it finds the most
+ * frequent keys of a stream in one pass: a key seen often enough to
+ * matter will be offered with a count above the smallest one kept.
+ * <P>
+ * k is meant to be small (tens), so keys are found by scanning; offering
+ * a key makes no objects. Not thread safe.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class TopK {
+    private final long[] keys;
+    private final long[] counts;
+    private int size;
+
+    /**
+     * @param k - the number of keys kept.
+     */
+    public TopK(final int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.keys = new long[k];
+        this.counts = new long[k];
+    }
+
+    /**
+     * Records a key's latest count. A key already kept takes the new
+     * count; otherwise it replaces the lowest count kept, if it beats it.
+     */
+    public final void offer(final long key, final long count) {
+        int min = 0;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                counts[i] = Math.max(counts[i], count);
+                return;
+            }
+            if (counts[i] < counts[min]) {
+                min = i;
+            }
+        }
+        if (size < keys.length) {
+            keys[size] = key;
+            counts[size++] = count;
+        } else if (count > counts[min]) {
+            keys[min] = key;
+            counts[min] = count;
+        }
+    }
+
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * Returns the keys kept, highest count first.
+     */
+    public final long[] getKeys() {
+        long[] sortedKeys = new long[size];
+        long[] sortedCounts = new long[size];
+        for (int i = 0; i < size; i++) {
+            int at = i;
+            while (at > 0 && sortedCounts[at - 1] < counts[i]) {
+                sortedKeys[at] = sortedKeys[at - 1];
+                sortedCounts[at] = sortedCounts[at - 1];
+                at--;
+            }
+            sortedKeys[at] = keys[i];
+            sortedCounts[at] = counts[i];
+        }
+        return sortedKeys;
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * Provides an append-only store of game events, with snapshots that let
+ * any game be rebuilt quickly and the log be compacted, and the snapshot
+ * file format that other stores share.
+ *
+ * @since 2.0
+ */
+package edu.wctc.java.demo.tictactoe.history;
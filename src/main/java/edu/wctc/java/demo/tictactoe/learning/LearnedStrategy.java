@@ -0,0 +1,50 @@
+package edu.wctc.java.demo.tictactoe.learning;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A Strategy that plays whatever a ValueTable has learned: always the
+ * move to the position valued highest for the player moving. Only the
+ * classic board is supported. Give it to GameEngine.setStrategy() to play
+ * against it in the game window. Strategies sharing one table may run on
+ * different threads, even while the table is still being trained.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class LearnedStrategy implements Strategy {
+    private final ValueTable table;
+
+    /**
+     * @param table - the learned values.
+     */
+    public LearnedStrategy(final ValueTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Loads a table snapshot written by a SelfPlayTrainer.
+     *
+     * @param file - the table file.
+     * @throws IOException if the file can not be read or is not a table
+     */
+    public LearnedStrategy(final Path file) throws IOException {
+        this(ValueTable.load(file));
+    }
+
+    public final ValueTable getTable() {
+        return table;
+    }
+
+    @Override
+    public int selectMove(final Board board, final int mark) {
+        if (!board.getGeometry().isClassic()) {
+            throw new IllegalArgumentException(
+                    "A learned opponent needs a classic board: " + board.getGeometry());
+        }
+        return table.bestMove(board, mark);
+    }
+}
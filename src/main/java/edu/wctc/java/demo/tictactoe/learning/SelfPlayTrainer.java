@@ -0,0 +1,288 @@
+package edu.wctc.java.demo.tictactoe.learning;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.EasyStrategy;
+import edu.wctc.java.demo.tictactoe.domain.Geometry;
+import edu.wctc.java.demo.tictactoe.domain.GeniusStrategy;
+import edu.wctc.java.demo.tictactoe.domain.MoveScore;
+import edu.wctc.java.demo.tictactoe.domain.Outcome;
+import edu.wctc.java.demo.tictactoe.domain.PositionSolver;
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import edu.wctc.java.demo.tictactoe.history.SnapshotFile;
+import edu.wctc.java.demo.tictactoe.tournament.Tournament;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class teaches a ValueTable the classic game by self-play. Any
+ * number of threads play games against themselves at once, all reading
+ * and updating the one shared table with no lock (Hogwild! style); on a
+ * table of 19,683 floats collisions are rare and cost nothing but a lost
+ * update.
+ * <P>
+ * Learning is Q-learning on the positions after each move: before moving,
+ * a player looks at every move it could make, and the position its
+ * opponent left it is moved towards minus the best of those values, the
+ * best the player can do from there. The move actually played is the
+ * best one except, with probability epsilon, a random one, so that every
+ * line gets explored. Since the best reply is used whatever was played,
+ * the values head for those of perfect play.
+ * <P>
+ * The table can be written to a file every so often while training goes
+ * on, ready to be played with a LearnedStrategy.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class SelfPlayTrainer {
+    private static final long FULL = Geometry.CLASSIC.getFullMask();
+
+    private final ValueTable table;
+    private final float alpha;
+    private final double epsilon;
+    private final LongAdder games = new LongAdder();
+    private ScheduledExecutorService snapshotter;
+
+    /**
+     * Creates a trainer.
+     *
+     * @param table - the table to train; it may already hold values.
+     * @param alpha - the learning rate, above 0 and at most 1.
+     * @param epsilon - the share of random moves, 0 to 1.
+     */
+    public SelfPlayTrainer(final ValueTable table, final double alpha, final double epsilon) {
+        if (alpha <= 0 || alpha > 1 || epsilon < 0 || epsilon > 1) {
+            throw new IllegalArgumentException("bad learning rates: alpha " + alpha
+                    + ", epsilon " + epsilon);
+        }
+        this.table = table;
+        this.alpha = (float) alpha;
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * Plays games on several threads until each has played its share.
+     *
+     * @param threads - the number of self-play threads.
+     * @param gamesPerThread - the games each thread plays.
+     * @param seed - seeds each thread's moves.
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public final void train(final int threads, final long gamesPerThread, final long seed)
+            throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final Random rand = new Random(seed + t);
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        for (long i = 0; i < gamesPerThread; i++) {
+                            playGame(rand);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }, "self-play-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+    }
+
+    /**
+     * Plays one game against itself, learning from every move.
+     *
+     * @param rand - chooses the random moves.
+     */
+    final void playGame(final Random rand) {
+        long mover = 0L;
+        long other = 0L;
+        boolean xToMove = true;
+        boolean started = false;
+        while (true) {
+            long empty = FULL & ~(mover | other);
+            float best = Float.NEGATIVE_INFINITY;
+            int bestCell = -1;
+            for (long open = empty; open != 0L; open &= open - 1) {
+                int cell = Long.numberOfTrailingZeros(open);
+                float value = table.valueAfter(mover | 1L << cell, other, xToMove);
+                if (value > best) {
+                    best = value;
+                    bestCell = cell;
+                }
+            }
+            if (started) {
+                table.update(other, mover, !xToMove, -best, alpha);
+            }
+            int cell = rand.nextDouble() < epsilon ? randomCell(empty, rand) : bestCell;
+            mover |= 1L << cell;
+            if (Geometry.CLASSIC.hasLine(mover) || (mover | other) == FULL) {
+                break;
+            }
+            long swap = mover;
+            mover = other;
+            other = swap;
+            xToMove = !xToMove;
+            started = true;
+        }
+        games.increment();
+    }
+
+    private static int randomCell(final long empty, final Random rand) {
+        long rest = empty;
+        for (int pick = rand.nextInt(Long.bitCount(empty)); pick > 0; pick--) {
+            rest &= rest - 1;
+        }
+        return Long.numberOfTrailingZeros(rest);
+    }
+
+    public final ValueTable getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the number of games played so far.
+     */
+    public final long getGames() {
+        return games.sum();
+    }
+
+    /**
+     * Writes the table on a background thread every so often; see
+     * SnapshotFile.schedule().
+     *
+     * @param file - the table file.
+     * @param periodMillis - the time between snapshots.
+     */
+    public final synchronized void startSnapshots(final Path file, final long periodMillis) {
+        if (snapshotter != null) {
+            throw new IllegalStateException("snapshots already started");
+        }
+        snapshotter = SnapshotFile.schedule("value-snapshot", periodMillis,
+                new SnapshotFile.Snapshot() {
+                    public void take() throws IOException {
+                        table.save(file);
+                    }
+                });
+    }
+
+    /**
+     * Stops taking snapshots.
+     */
+    public final synchronized void shutdown() {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+            snapshotter = null;
+        }
+    }
+
+    /**
+     * Returns the share of unfinished positions, reachable from the empty
+     * board and counted once per canonical form, in which the table's
+     * move is as good as the best move under perfect play. 1.0 means the
+     * table plays perfectly.
+     *
+     * @param table - the table to judge.
+     */
+    public static double optimalMoveRate(final ValueTable table) {
+        int[] counts = new int[2];
+        countOptimal(table, new Board(), new boolean[ValueTable.SIZE], counts);
+        return counts[0] / (double) counts[1];
+    }
+
+    /*
+     * Walks the game tree from a position; counts[0] gets the positions
+     * where the table's move keeps the best outcome, counts[1] all of them.
+     */
+    private static void countOptimal(final ValueTable table, final Board board,
+            final boolean[] seen, final int[] counts) {
+        if (board.isGameOver()) {
+            return;
+        }
+        int index = ValueTable.index(board.getMask(Board.X), board.getMask(Board.O));
+        if (seen[index]) {
+            return;
+        }
+        seen[index] = true;
+        int mark = board.getSideToMove();
+        MoveScore[] scores = PositionSolver.analyze((int) board.getMask(mark),
+                (int) board.getMask(Board.opponent(mark)));
+        Outcome best = Outcome.LOSS;
+        for (MoveScore score : scores) {
+            if (score != null && score.getOutcome().compareTo(best) < 0) {
+                best = score.getOutcome();
+            }
+        }
+        counts[1]++;
+        if (scores[table.bestMove(board, mark)].getOutcome() == best) {
+            counts[0]++;
+        }
+        for (long open = board.getEmptyMask(); open != 0L; open &= open - 1) {
+            board.make(Long.numberOfTrailingZeros(open));
+            countOptimal(table, board, seen, counts);
+            board.undo();
+        }
+    }
+
+    /*
+     * Plays a Strategy against an opponent, half the games each way
+     * round, and returns its wins, draws and losses.
+     */
+    private static int[] results(final Strategy strategy, final Strategy opponent,
+            final int games) {
+        int[] results = new int[3];
+        Board board = new Board();
+        for (int i = 0; i < games; i++) {
+            boolean first = i % 2 == 0;
+            int winner = first ? Tournament.playGame(board, strategy, opponent)
+                    : Tournament.playGame(board, opponent, strategy);
+            int mark = first ? Board.X : Board.O;
+            results[winner == mark ? 0 : winner == Board.EMPTY ? 1 : 2]++;
+        }
+        return results;
+    }
+
+    /**
+     * Trains a table from scratch and reports, after every round,
+     * throughput and how close the table is to perfect play: the share of
+     * positions where it finds a best move and its results against the
+     * Genius level and against random-ish Easy play.
+     *
+     * @param args - [threads] [rounds] [gamesPerRound] [file]; defaults:
+     * two per processor, 10, 20000 and learned.ttt, snapshotted every
+     * second.
+     */
+    public static void main(final String[] args) throws InterruptedException, IOException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0])
+                : 2 * Runtime.getRuntime().availableProcessors();
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long perRound = args.length > 2 ? Long.parseLong(args[2]) : 20000;
+        Path file = Paths.get(args.length > 3 ? args[3] : "learned.ttt");
+        SelfPlayTrainer trainer = new SelfPlayTrainer(new ValueTable(), 0.2, 0.2);
+        trainer.startSnapshots(file, 1000);
+        Strategy learned = new LearnedStrategy(trainer.getTable());
+        Random rand = new Random(1);
+        System.out.println("   games    games/s  optimal %   vs Genius W/D/L   vs Easy W/D/L");
+        for (int round = 1; round <= rounds; round++) {
+            long start = System.nanoTime();
+            trainer.train(threads, perRound / threads, round * 1000L);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            int[] genius = results(learned, new GeniusStrategy(), 2);
+            int[] easy = results(learned, new EasyStrategy(rand), 1000);
+            System.out.printf("%,8d %,10.0f %10.1f       %d/%d/%d      %5.1f/%4.1f/%4.1f%n",
+                    trainer.getGames(), perRound / threads * threads / seconds,
+                    100 * optimalMoveRate(trainer.getTable()),
+                    genius[0], genius[1], genius[2],
+                    easy[0] / 10.0, easy[1] / 10.0, easy[2] / 10.0);
+        }
+        trainer.shutdown();
+        trainer.getTable().save(file);
+        System.out.println("Saved " + file.toAbsolutePath());
+    }
+}
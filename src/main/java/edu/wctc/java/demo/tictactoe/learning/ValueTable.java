@@ -0,0 +1,164 @@
+package edu.wctc.java.demo.tictactoe.learning;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.Geometry;
+import edu.wctc.java.demo.tictactoe.domain.Symmetry;
+import edu.wctc.java.demo.tictactoe.history.SnapshotFile;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The learned value of every classic board position, kept in one float
+ * array indexed by the position's canonical form, so the eight rotations
+ * and reflections of a position share one entry. A value is the expected
+ * result for the player who made the last move: 1 for a win, 0 for a
+ * draw and -1 for a loss. Finished positions are never looked up; a win
+ * is worth 1 and a full board 0 by the rules.
+ * <P>
+ * The array is shared by every training thread with no lock at all: an
+ * update is a plain read and write of one float, and the rare update
+ * lost to another thread writing the same entry at the same moment only
+ * slows learning a little. Readers may see values a moment old.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class ValueTable {
+    /** The number of entries: one per way of filling nine cells. */
+    public static final int SIZE = 19683;
+
+    private static final int MAGIC = 0x4c545454; // "TTTL" little-endian
+    private static final int VERSION = 1;
+    private static final Symmetry SYMMETRY = Symmetry.of(Geometry.CLASSIC);
+    private static final int[] POW3 = new int[9];
+
+    static {
+        POW3[0] = 1;
+        for (int i = 1; i < POW3.length; i++) {
+            POW3[i] = POW3[i - 1] * 3;
+        }
+    }
+
+    private final float[] values = new float[SIZE];
+
+    /**
+     * Returns the entry of a position: its canonical form read as a base
+     * 3 number, one digit per cell (0 empty, 1 "X", 2 "0").
+     *
+     * @param xMask - the cells marked "X".
+     * @param oMask - the cells marked "0".
+     */
+    static int index(final long xMask, final long oMask) {
+        int s = SYMMETRY.canonicalSymmetry(xMask, oMask);
+        long x = SYMMETRY.transform(xMask, s);
+        long o = SYMMETRY.transform(oMask, s);
+        int index = 0;
+        for (long rest = x; rest != 0L; rest &= rest - 1) {
+            index += POW3[Long.numberOfTrailingZeros(rest)];
+        }
+        for (long rest = o; rest != 0L; rest &= rest - 1) {
+            index += 2 * POW3[Long.numberOfTrailingZeros(rest)];
+        }
+        return index;
+    }
+
+    /**
+     * Returns the value of a position for the player who just moved,
+     * the rules deciding for finished ones.
+     *
+     * @param moved - the cells of the player who just moved.
+     * @param other - the cells of the opponent.
+     * @param xMoved - whether the player who just moved is "X".
+     */
+    final float valueAfter(final long moved, final long other, final boolean xMoved) {
+        if (Geometry.CLASSIC.hasLine(moved)) {
+            return 1f;
+        }
+        if ((moved | other) == Geometry.CLASSIC.getFullMask()) {
+            return 0f;
+        }
+        return values[xMoved ? index(moved, other) : index(other, moved)];
+    }
+
+    /**
+     * Moves the value of an unfinished position a step towards a target.
+     *
+     * @param moved - the cells of the player who just moved.
+     * @param other - the cells of the opponent.
+     * @param xMoved - whether the player who just moved is "X".
+     * @param target - the value seen one move later.
+     * @param alpha - the step size, 0 to 1.
+     */
+    final void update(final long moved, final long other, final boolean xMoved,
+            final float target, final float alpha) {
+        int i = xMoved ? index(moved, other) : index(other, moved);
+        values[i] += alpha * (target - values[i]);
+    }
+
+    /**
+     * Returns the empty cell whose position has the highest value for
+     * the player to move; ties go to the lowest cell.
+     *
+     * @param board - the position; it is not modified.
+     * @param mark - the player to move, Board.X or Board.O.
+     * @return the chosen cell, or -1 if the board is full
+     */
+    public final int bestMove(final Board board, final int mark) {
+        long mover = board.getMask(mark);
+        long other = board.getMask(Board.opponent(mark));
+        float best = Float.NEGATIVE_INFINITY;
+        int bestCell = -1;
+        for (long open = board.getEmptyMask(); open != 0L; open &= open - 1) {
+            int cell = Long.numberOfTrailingZeros(open);
+            float value = valueAfter(mover | 1L << cell, other, mark == Board.X);
+            if (value > best) {
+                best = value;
+                bestCell = cell;
+            }
+        }
+        return bestCell;
+    }
+
+    /**
+     * Writes the table to a file, next to the old one and then moved over
+     * it, so a reader never sees half a table. Training may go on while a
+     * snapshot is written.
+     *
+     * @param file - the table file; replaced if it exists.
+     * @throws IOException if the file can not be written
+     */
+    public final void save(final Path file) throws IOException {
+        SnapshotFile.write(file, MAGIC, VERSION, new SnapshotFile.Content() {
+            public void writeTo(final DataOutputStream out) throws IOException {
+                out.writeInt(SIZE);
+                for (float value : values) {
+                    out.writeFloat(value);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads a table written by save().
+     *
+     * @param file - the table file.
+     * @throws IOException if the file can not be read or is not a table
+     */
+    public static ValueTable load(final Path file) throws IOException {
+        ValueTable table = new ValueTable();
+        DataInputStream in = SnapshotFile.open(file, MAGIC, VERSION, "a value table");
+        try {
+            if (in.readInt() != SIZE) {
+                throw new IOException(file + " is not a value table");
+            }
+            for (int i = 0; i < SIZE; i++) {
+                table.values[i] = in.readFloat();
+            }
+        } finally {
+            in.close();
+        }
+        return table;
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * Provides a computer opponent that learns the classic game by playing
+ * itself: a shared table of position values, many self-play threads that
+ * update it without locks, and a Strategy that plays from a saved table.
+ *
+ * @since 2.0
+ */
+package edu.wctc.java.demo.tictactoe.learning;
@@ -0,0 +1,26 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import edu.wctc.java.demo.tictactoe.domain.Geometry;
+
+/**
+ * The boards a player can ask the Lobby for.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public enum BoardType {
+    /** The classic 3x3 board, three in a row. */
+    CLASSIC(Geometry.CLASSIC),
+    /** A 4x4 board, four in a row. */
+    FOUR_BY_FOUR(Geometry.of(4, 4));
+
+    private final Geometry geometry;
+
+    BoardType(final Geometry geometry) {
+        this.geometry = geometry;
+    }
+
+    public final Geometry getGeometry() {
+        return geometry;
+    }
+}
@@ -0,0 +1,176 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class is one game on the server: a Board, the players in its two
+ * seats and, for a game against the computer, the Strategy in the "0"
+ * seat, which replies as soon as the human has moved. Players may send
+ * moves from any thread; each session serializes its own moves and
+ * reports each one to its SessionListeners.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class GameSession {
+    /** The player name used for the computer seat. */
+    public static final String COMPUTER = "computer";
+    /** The result of a game that is still being played. */
+    public static final int IN_PLAY = 0;
+    /** The result of a drawn game; a won game's result is the winner. */
+    public static final int DRAW = 3;
+
+    private final long id;
+    private final BoardType type;
+    private final int smarts;
+    private final String xPlayer;
+    private final String oPlayer;
+    private final Strategy computer;
+    private final Board board;
+    private final List<SessionListener> listeners = new CopyOnWriteArrayList<SessionListener>();
+
+    /**
+     * Creates a game.
+     *
+     * @param id - the session number.
+     * @param type - the board to play on.
+     * @param smarts - the difficulty the players asked for, 0 to 100.
+     * @param xPlayer - the player who moves first.
+     * @param oPlayer - the other player, or COMPUTER.
+     * @param computer - plays "0" when oPlayer is COMPUTER; otherwise null.
+     */
+    GameSession(final long id, final BoardType type, final int smarts,
+            final String xPlayer, final String oPlayer, final Strategy computer) {
+        this.id = id;
+        this.type = type;
+        this.smarts = smarts;
+        this.xPlayer = xPlayer;
+        this.oPlayer = oPlayer;
+        this.computer = computer;
+        this.board = new Board(type.getGeometry());
+    }
+
+    public final long getId() {
+        return id;
+    }
+
+    public final BoardType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the difficulty the players asked for in the Lobby.
+     */
+    public final int getSmarts() {
+        return smarts;
+    }
+
+    /**
+     * Returns the player in a seat.
+     *
+     * @param mark - Board.X or Board.O.
+     */
+    public final String getPlayer(final int mark) {
+        return mark == Board.X ? xPlayer : oPlayer;
+    }
+
+    public final boolean isAgainstComputer() {
+        return computer != null;
+    }
+
+    public final synchronized int get(final int cell) {
+        return board.get(cell);
+    }
+
+    public final synchronized int getMovesPlayed() {
+        return board.getTilesPlayed();
+    }
+
+    /**
+     * Returns the cell of a move, 0 being the first.
+     */
+    public final synchronized int getMove(final int n) {
+        return board.getMove(n);
+    }
+
+    public final synchronized int getSideToMove() {
+        return board.getSideToMove();
+    }
+
+    public final synchronized boolean isGameOver() {
+        return board.isGameOver();
+    }
+
+    public final void addSessionListener(final SessionListener listener) {
+        listeners.add(listener);
+    }
+
+    public final void removeSessionListener(final SessionListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns IN_PLAY, the winning mark or DRAW.
+     */
+    public final synchronized int getResult() {
+        if (board.getWinner() != Board.EMPTY) {
+            return board.getWinner();
+        }
+        return board.isFull() ? DRAW : IN_PLAY;
+    }
+
+    /**
+     * Returns the winning mark, or Board.EMPTY if there is none yet.
+     */
+    public final synchronized int getWinner() {
+        return board.getWinner();
+    }
+
+    /**
+     * Plays a player's move and, in a game against the computer, the
+     * computer's reply.
+     *
+     * @param player - the player making the move.
+     * @param cell - the cell to mark.
+     * @return the computer's reply, or -1 if it did not move
+     * @throws IllegalStateException if the game is over or it is not the
+     * player's turn
+     * @throws IllegalArgumentException if the cell is off the board or
+     * not empty
+     */
+    public final synchronized int play(final String player, final int cell) {
+        if (board.isGameOver()) {
+            throw new IllegalStateException("Game " + id + " is over");
+        }
+        int mark = board.getSideToMove();
+        if (!getPlayer(mark).equals(player)) {
+            throw new IllegalStateException("It is not " + player + "'s turn");
+        }
+        if (cell < 0 || cell >= type.getGeometry().getCells()) {
+            throw new IllegalArgumentException("No cell " + cell + " on " + type);
+        }
+        place(cell, mark);
+        if (computer == null || board.isGameOver()) {
+            return -1;
+        }
+        int reply = computer.selectMove(board, Board.O);
+        place(reply, Board.O);
+        return reply;
+    }
+
+    private void place(final int cell, final int mark) {
+        board.play(cell, mark);
+        int result = getResult();
+        for (SessionListener listener : listeners) {
+            listener.moved(this, cell, mark, result);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Game " + id + " (" + type + "): " + xPlayer + " vs " + oPlayer;
+    }
+}
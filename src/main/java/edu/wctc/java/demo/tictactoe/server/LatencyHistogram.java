@@ -0,0 +1,159 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds, precise enough for
+ * percentiles. Values below 64 get a bucket each; above that every power
+ * of two is split into 32 buckets, so a reported value is never more
+ * than about 3% above the true one while the whole range of a long fits
+ * in under 2,000 counters. Any number of threads may record at once.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /*
+     * Values under 2 * SUB map to themselves; larger ones keep their top
+     * SUB_BITS + 1 bits.
+     */
+    static int bucketOf(final long value) {
+        if (value < 2 * SUB) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB + (int) (value >>> shift) - SUB;
+    }
+
+    /*
+     * The largest value that falls in a bucket.
+     */
+    static long highestIn(final int bucket) {
+        if (bucket < 2 * SUB) {
+            return bucket;
+        }
+        int shift = bucket / SUB - 1;
+        long sub = bucket % SUB + SUB;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Records one latency. Negative values count as zero.
+     *
+     * @param nanos - the latency in nanoseconds.
+     */
+    public final void record(final long nanos) {
+        long value = Math.max(0L, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        total.incrementAndGet();
+        long m = max.get();
+        while (value > m && !max.compareAndSet(m, value)) {
+            m = max.get();
+        }
+    }
+
+    /**
+     * Records one latency and corrects for coordinated omission: a client
+     * that sends a request every expectedInterval and is held up for
+     * longer than that would have sent more requests meanwhile, each of
+     * which would have waited a little less. Those are recorded too, so a
+     * stall counts as often as it would have been felt.
+     *
+     * @param nanos - the latency in nanoseconds.
+     * @param expectedIntervalNanos - the time between requests when
+     * nothing is held up; 0 records the latency alone.
+     */
+    public final void recordCorrected(final long nanos, final long expectedIntervalNanos) {
+        record(nanos);
+        if (expectedIntervalNanos <= 0) {
+            return;
+        }
+        for (long missed = nanos - expectedIntervalNanos; missed >= expectedIntervalNanos;
+                missed -= expectedIntervalNanos) {
+            record(missed);
+        }
+    }
+
+    /**
+     * Adds every value recorded by another histogram to this one.
+     *
+     * @param other - the histogram to add.
+     */
+    public final void add(final LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long n = other.counts.get(i);
+            if (n != 0) {
+                counts.addAndGet(i, n);
+            }
+        }
+        total.addAndGet(other.total.get());
+        long value = other.max.get();
+        long m = max.get();
+        while (value > m && !max.compareAndSet(m, value)) {
+            m = max.get();
+        }
+    }
+
+    /**
+     * Forgets every value recorded so far.
+     */
+    public final void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        max.set(0);
+    }
+
+    public final long getCount() {
+        return total.get();
+    }
+
+    public final long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Returns the latency that a given share of the recorded values do
+     * not exceed, e.g. getPercentileNanos(99) for the 99th percentile.
+     *
+     * @param percentile - 0 to 100.
+     * @return the latency in nanoseconds; 0 if nothing was recorded
+     */
+    public final long getPercentileNanos(final double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestIn(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Returns the 50th, 99th and 99.9th percentiles and the maximum in
+     * milliseconds, e.g. "p50 0.120 ms, p99 1.450 ms, p99.9 2.100 ms,
+     * max 3.000 ms".
+     */
+    @Override
+    public String toString() {
+        return String.format("p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms",
+                getPercentileNanos(50) / 1e6, getPercentileNanos(99) / 1e6,
+                getPercentileNanos(99.9) / 1e6, getMaxNanos() / 1e6);
+    }
+}
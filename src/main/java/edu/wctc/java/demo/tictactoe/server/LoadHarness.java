@@ -0,0 +1,376 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class puts the engine under the load of many simulated players.
+ * Each player plays complete games as "X", picking random cells, and
+ * waits for the computer's reply after every move. The computer is
+ * either the engine's own Strategy in this JVM or a MoveService reached
+ * over HTTP, so the same run can measure the engine alone or the engine
+ * behind the server.
+ * <P>
+ * Players are tasks on a scheduled thread pool, so thousands of them
+ * share a few threads. Between moves a player thinks for a random time
+ * (exponentially distributed around a set mean), and each player asks
+ * for the difficulty level drawn from a weighted mix.
+ * <P>
+ * Latency is measured from the moment a move was meant to be sent, not
+ * from when a busy pool got around to sending it, and stalls longer than
+ * the think time are back-filled (see LatencyHistogram.recordCorrected).
+ * Both corrections keep a load generator from hiding the very stalls it
+ * causes ("coordinated omission"). The plain service times are kept
+ * alongside for comparison, and throughput and p99 are kept for every
+ * interval of the run.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class LoadHarness {
+    private final int players;
+    private final int threads;
+    private final long durationNanos;
+    private final long intervalNanos;
+    private long thinkNanos;
+    private int[] levels = {0, 50, 100};
+    private int[] weights = {1, 1, 1};
+    private String url;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder games = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private AtomicLongArray intervalMoves;
+    private AtomicLongArray intervalGames;
+    private LatencyHistogram[] intervalLatency;
+    private long elapsedNanos;
+
+    /*
+     * How a player gets the computer's reply.
+     */
+    private interface Opponent {
+        int reply(Board board) throws IOException;
+    }
+
+    /**
+     * Creates a harness that plays against the engine in this JVM.
+     *
+     * @param players - the number of simulated players.
+     * @param threads - the threads the players share.
+     * @param durationMillis - how long the run lasts.
+     * @param intervalMillis - the length of each throughput interval.
+     */
+    public LoadHarness(final int players, final int threads, final long durationMillis,
+            final long intervalMillis) {
+        if (players < 1 || threads < 1 || durationMillis < 1 || intervalMillis < 1) {
+            throw new IllegalArgumentException("counts and times must be positive");
+        }
+        this.players = players;
+        this.threads = threads;
+        this.durationNanos = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    }
+
+    /**
+     * Sets the mean time a player thinks before each move.
+     *
+     * @param thinkMillis - the mean think time; 0 moves again at once.
+     */
+    public final void setThinkMillis(final double thinkMillis) {
+        this.thinkNanos = (long) (thinkMillis * 1e6);
+    }
+
+    /**
+     * Sets the difficulty levels players ask for, e.g. "0:20,50:30,100:50"
+     * for one player in five at Easy, three in ten at Smart and half at
+     * Genius.
+     *
+     * @param mix - comma separated smarts:weight pairs.
+     * @throws IllegalArgumentException if the mix can not be read
+     */
+    public final void setMix(final String mix) {
+        String[] parts = mix.split(",");
+        int[] l = new int[parts.length];
+        int[] w = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            String[] pair = parts[i].trim().split(":");
+            try {
+                l[i] = Integer.parseInt(pair[0].trim());
+                w[i] = pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("not a smarts:weight pair: " + parts[i]);
+            }
+            if (pair.length > 2 || l[i] < 0 || l[i] > 100 || w[i] < 0) {
+                throw new IllegalArgumentException("not a smarts:weight pair: " + parts[i]);
+            }
+        }
+        this.levels = l;
+        this.weights = w;
+    }
+
+    /**
+     * Plays against a MoveService instead of the engine in this JVM.
+     *
+     * @param url - the service, e.g. "http://localhost:8080".
+     */
+    public final void setServer(final String url) {
+        this.url = url;
+    }
+
+    /*
+     * Picks a player's difficulty level from the weighted mix.
+     */
+    final int pickLevel(final Random rand) {
+        int total = 0;
+        for (int w : weights) {
+            total += w;
+        }
+        int pick = rand.nextInt(total);
+        for (int i = 0; i < levels.length; i++) {
+            pick -= weights[i];
+            if (pick < 0) {
+                return levels[i];
+            }
+        }
+        return levels[levels.length - 1];
+    }
+
+    private Opponent opponentFor(final int smarts, final Random rand) {
+        if (url == null) {
+            final Strategy strategy = Lobby.computerFor(BoardType.CLASSIC, smarts, rand);
+            return new Opponent() {
+                public int reply(final Board board) {
+                    return strategy.selectMove(board, Board.O);
+                }
+            };
+        }
+        final String base = url + "/move?smarts=" + smarts + "&board=";
+        return new Opponent() {
+            public int reply(final Board board) throws IOException {
+                return Integer.parseInt(MoveLoadGenerator.get(base + board).trim());
+            }
+        };
+    }
+
+    /*
+     * One simulated player. Every run() is one move and the computer's
+     * reply; the player then schedules its next move.
+     */
+    private final class Player implements Runnable {
+        final Board board = new Board();
+        final Random rand;
+        final Opponent opponent;
+        final ScheduledExecutorService pool;
+        final CountDownLatch done;
+        final long startNanos;
+        long intendedNanos;
+
+        Player(final Random rand, final ScheduledExecutorService pool,
+                final CountDownLatch done, final long startNanos) {
+            this.rand = rand;
+            this.opponent = opponentFor(pickLevel(rand), rand);
+            this.pool = pool;
+            this.done = done;
+            this.startNanos = startNanos;
+        }
+
+        public void run() {
+            long start = System.nanoTime();
+            boolean ok = true;
+            try {
+                board.play(board.randomEmptyCell(rand), Board.X);
+                if (!board.isGameOver()) {
+                    board.play(opponent.reply(board), Board.O);
+                }
+            } catch (IOException e) {
+                ok = false;
+            } catch (RuntimeException e) {
+                ok = false;
+            }
+            long end = System.nanoTime();
+            int interval = (int) Math.min((end - startNanos) / intervalNanos,
+                    intervalMoves.length() - 1);
+            if (ok) {
+                moves.increment();
+                intervalMoves.incrementAndGet(interval);
+                latency.recordCorrected(end - intendedNanos, thinkNanos);
+                intervalLatency[interval].recordCorrected(end - intendedNanos, thinkNanos);
+                serviceTime.record(end - start);
+            } else {
+                failures.increment();
+            }
+            if (!ok || board.isGameOver()) {
+                if (ok) {
+                    games.increment();
+                    intervalGames.incrementAndGet(interval);
+                }
+                board.reset();
+            }
+            if (end - startNanos >= durationNanos) {
+                done.countDown();
+                return;
+            }
+            long think = thinkNanos == 0 ? 0
+                    : (long) (-Math.log(1 - rand.nextDouble()) * thinkNanos);
+            intendedNanos = end + think;
+            pool.schedule(this, think, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Runs the players until the time is up and every player has
+     * finished its last move.
+     *
+     * @param seed - seeds the players, one stream each.
+     */
+    public final void run(final long seed) throws InterruptedException {
+        int intervals = (int) ((durationNanos + intervalNanos - 1) / intervalNanos) + 1;
+        intervalMoves = new AtomicLongArray(intervals);
+        intervalGames = new AtomicLongArray(intervals);
+        intervalLatency = new LatencyHistogram[intervals];
+        for (int i = 0; i < intervals; i++) {
+            intervalLatency[i] = new LatencyHistogram();
+        }
+        final AtomicInteger count = new AtomicInteger();
+        ScheduledExecutorService pool = Executors.newScheduledThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(final Runnable r) {
+                Thread thread = new Thread(r, "player-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        CountDownLatch done = new CountDownLatch(players);
+        long start = System.nanoTime();
+        Random seeds = new Random(seed);
+        for (int p = 0; p < players; p++) {
+            Player player = new Player(new Random(seeds.nextLong()), pool, done, start);
+            // Players start spread over one think time, not all at once
+            long delay = thinkNanos == 0 ? 0 : (long) (seeds.nextDouble() * thinkNanos);
+            player.intendedNanos = start + delay;
+            pool.schedule(player, delay, TimeUnit.NANOSECONDS);
+        }
+        done.await();
+        elapsedNanos = System.nanoTime() - start;
+        pool.shutdownNow();
+    }
+
+    public final long getMoves() {
+        return moves.sum();
+    }
+
+    public final long getGames() {
+        return games.sum();
+    }
+
+    public final long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Returns the latency of every move from when it was meant to be
+     * sent, corrected for coordinated omission.
+     */
+    public final LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Returns the time every move took from when it was actually sent.
+     */
+    public final LatencyHistogram getServiceTime() {
+        return serviceTime;
+    }
+
+    public final int getIntervals() {
+        return intervalMoves.length();
+    }
+
+    public final long getIntervalMoves(final int interval) {
+        return intervalMoves.get(interval);
+    }
+
+    public final long getIntervalGames(final int interval) {
+        return intervalGames.get(interval);
+    }
+
+    public final LatencyHistogram getIntervalLatency(final int interval) {
+        return intervalLatency[interval];
+    }
+
+    /**
+     * Prints throughput and p99 for each interval, then the totals.
+     *
+     * @param out - where to print.
+     */
+    public final void printReport(final PrintStream out) {
+        double seconds = intervalNanos / 1e9;
+        out.printf("%8s %12s %12s %10s%n", "time s", "games/s", "moves/s", "p99 ms");
+        for (int i = 0; i < getIntervals(); i++) {
+            if (getIntervalMoves(i) == 0) {
+                continue;
+            }
+            out.printf("%8.1f %,12.0f %,12.0f %10.3f%n", (i + 1) * seconds,
+                    getIntervalGames(i) / seconds, getIntervalMoves(i) / seconds,
+                    getIntervalLatency(i).getPercentileNanos(99) / 1e6);
+        }
+        double total = elapsedNanos / 1e9;
+        out.printf("%,d games, %,d moves in %.1f s: %,.0f games/s, %,.0f moves/s, %d failed%n",
+                getGames(), getMoves(), total, getGames() / total, getMoves() / total,
+                getFailures());
+        out.println("latency (corrected): " + latency);
+        out.println("service time:        " + serviceTime);
+    }
+
+    /**
+     * Runs a load test and prints the report.
+     *
+     * @param args - [players] [seconds] [thinkMillis] [mix] [target];
+     * defaults: 2000 10 20 0:1,50:1,100:1 local. The target is "local"
+     * for the engine in this JVM, "loopback" for a MoveService started
+     * in this JVM, or the URL of a running MoveService.
+     */
+    public static void main(final String[] args) throws Exception {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        double think = args.length > 2 ? Double.parseDouble(args[2]) : 20;
+        String target = args.length > 4 ? args[4] : "local";
+        int cpus = Runtime.getRuntime().availableProcessors();
+        MoveService service = null;
+        if ("loopback".equals(target)) {
+            MoveService.useNoDelay();
+            service = new MoveService(0, 2 * cpus);
+            target = "http://localhost:" + service.getPort();
+        }
+        boolean local = "local".equals(target);
+        // Players waiting on the network hold their thread
+        int threads = local ? cpus : 16 * cpus;
+        LoadHarness harness = new LoadHarness(players, threads, seconds * 1000L, 1000);
+        harness.setThinkMillis(think);
+        if (args.length > 3) {
+            harness.setMix(args[3]);
+        }
+        if (!local) {
+            harness.setServer(target);
+        }
+        System.out.printf("%,d players on %d threads, %.1f ms think time, %s%n",
+                players, threads, think, local ? "in-process" : "against " + target);
+        harness.run(1L);
+        harness.printReport(System.out);
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.Strategies;
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class pairs players who want the same board type and difficulty
+ * into GameSessions. Each (type, difficulty) pair has its own lock-free
+ * queue of Tickets, first come first served: a joining player goes to
+ * the back of the line and then pairs off the two players at the front,
+ * so players are matched on the joining thread with no lock anywhere.
+ * The older of the two plays "X".
+ * <P>
+ * A timer thread looks at the front of every line a few times per
+ * fallback period; a player who has waited that long is given a game
+ * against the computer at the difficulty they asked for instead (at most
+ * the Smart level on boards other than the classic one, where a deeper
+ * search costs too much). Queue depths and pairing counts are kept for
+ * monitoring.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class Lobby {
+    private static final int LEVELS = 101;
+
+    private final long fallbackNanos;
+    private final ConcurrentHashMap<Integer, Line> lines = new ConcurrentHashMap<Integer, Line>();
+    private final ScheduledExecutorService timer;
+    private final List<SessionListener> sessionListeners = new CopyOnWriteArrayList<SessionListener>();
+    private final AtomicLong sessionIds = new AtomicLong();
+    private final LongAdder pairings = new LongAdder();
+    private final LongAdder computerGames = new LongAdder();
+    private final LongAdder matchedPlayers = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /*
+     * The players waiting for one board type and difficulty. The depth
+     * counts players who are still waiting, including any that another
+     * thread is pairing at the moment.
+     */
+    private static final class Line {
+        final ConcurrentLinkedQueue<Ticket> tickets = new ConcurrentLinkedQueue<Ticket>();
+        final AtomicInteger depth = new AtomicInteger();
+    }
+
+    /**
+     * Opens a lobby.
+     *
+     * @param fallbackMillis - how long a player waits for another player
+     * before being given a computer opponent.
+     */
+    public Lobby(final long fallbackMillis) {
+        this.fallbackNanos = TimeUnit.MILLISECONDS.toNanos(fallbackMillis);
+        this.timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(final Runnable r) {
+                Thread thread = new Thread(r, "lobby-fallback");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long period = Math.max(1, fallbackMillis / 4);
+        timer.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                fallBack();
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the fallback timer. Players still waiting stay in line.
+     */
+    public final void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Adds a listener to every game the lobby makes from now on, before
+     * the players hear about the game.
+     *
+     * @param listener - hears every move of those games.
+     */
+    public final void addSessionListener(final SessionListener listener) {
+        sessionListeners.add(listener);
+    }
+
+    private Line lineFor(final BoardType type, final int smarts) {
+        Integer key = type.ordinal() * LEVELS + smarts;
+        Line line = lines.get(key);
+        if (line == null) {
+            Line created = new Line();
+            line = lines.putIfAbsent(key, created);
+            if (line == null) {
+                line = created;
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Puts a player in line for a game. The listener hears about the game
+     * once there is one, possibly before this method returns.
+     *
+     * @param player - the player's name.
+     * @param type - the board wanted.
+     * @param smarts - the difficulty wanted, 0 to 100.
+     * @param listener - told about the game.
+     * @return the player's ticket, for cancel()
+     * @throws IllegalArgumentException if smarts is out of range
+     */
+    public final Ticket join(final String player, final BoardType type,
+            final int smarts, final MatchListener listener) {
+        if (smarts < 0 || smarts >= LEVELS) {
+            throw new IllegalArgumentException("smarts must be 0 to 100: " + smarts);
+        }
+        Ticket ticket = new Ticket(player, type, smarts, listener);
+        Line line = lineFor(type, smarts);
+        line.depth.incrementAndGet();
+        line.tickets.offer(ticket);
+        pairUp(line);
+        return ticket;
+    }
+
+    /**
+     * Takes a player out of line.
+     *
+     * @param ticket - the player's ticket.
+     * @return true if the player left, false if they already had a game
+     */
+    public final boolean cancel(final Ticket ticket) {
+        while (true) {
+            if (ticket.state.compareAndSet(Ticket.WAITING, Ticket.CANCELLED)) {
+                lineFor(ticket.type, ticket.smarts).depth.decrementAndGet();
+                return true;
+            }
+            if (ticket.state.get() != Ticket.CLAIMED) {
+                return false;
+            }
+            Thread.yield(); // someone is pairing it right now
+        }
+    }
+
+    /*
+     * Pairs off the players at the front of a line. A lone player put
+     * back in line re-checks the depth, since a player who joined while
+     * it was out of the queue may have found no one to pair with.
+     */
+    private void pairUp(final Line line) {
+        while (true) {
+            Ticket first = claimNext(line);
+            if (first == null) {
+                return;
+            }
+            Ticket second = claimNext(line);
+            if (second == null) {
+                first.state.set(Ticket.WAITING);
+                line.tickets.offer(first);
+                if (line.depth.get() < 2) {
+                    return;
+                }
+                Thread.yield();
+                continue;
+            }
+            first.state.set(Ticket.MATCHED);
+            second.state.set(Ticket.MATCHED);
+            line.depth.addAndGet(-2);
+            pairings.increment();
+            GameSession session = newSession(first.type, first.smarts,
+                    first.player, second.player, null);
+            matched(first, session, Board.X);
+            matched(second, session, Board.O);
+        }
+    }
+
+    /*
+     * Takes the next waiting ticket off the front of a line, skipping
+     * tickets that have left it in the meantime.
+     */
+    private static Ticket claimNext(final Line line) {
+        Ticket ticket;
+        while ((ticket = line.tickets.poll()) != null) {
+            if (ticket.state.compareAndSet(Ticket.WAITING, Ticket.CLAIMED)) {
+                return ticket;
+            }
+        }
+        return null;
+    }
+
+    private GameSession newSession(final BoardType type, final int smarts,
+            final String xPlayer, final String oPlayer, final Strategy computer) {
+        GameSession session = new GameSession(sessionIds.incrementAndGet(),
+                type, smarts, xPlayer, oPlayer, computer);
+        for (SessionListener listener : sessionListeners) {
+            session.addSessionListener(listener);
+        }
+        return session;
+    }
+
+    private void matched(final Ticket ticket, final GameSession session, final int mark) {
+        long waited = System.nanoTime() - ticket.joinedNanos;
+        matchedPlayers.increment();
+        waitNanos.add(waited);
+        long max = maxWaitNanos.get();
+        while (waited > max && !maxWaitNanos.compareAndSet(max, waited)) {
+            max = maxWaitNanos.get();
+        }
+        ticket.listener.matched(session, mark);
+    }
+
+    /*
+     * Runs on the timer. Lines are in order of arrival, so each scan stops
+     * at the first player who has not waited long enough. Tickets that
+     * have left are removed on the way.
+     */
+    private void fallBack() {
+        long now = System.nanoTime();
+        for (Line line : lines.values()) {
+            Iterator<Ticket> it = line.tickets.iterator();
+            while (it.hasNext()) {
+                Ticket ticket = it.next();
+                int state = ticket.state.get();
+                if (state == Ticket.WAITING && now - ticket.joinedNanos < fallbackNanos) {
+                    break;
+                }
+                if (state == Ticket.WAITING
+                        && ticket.state.compareAndSet(Ticket.WAITING, Ticket.COMPUTER)) {
+                    line.depth.decrementAndGet();
+                    computerGames.increment();
+                    GameSession session = newSession(ticket.type, ticket.smarts,
+                            ticket.player, GameSession.COMPUTER,
+                            computerFor(ticket.type, ticket.smarts, new Random()));
+                    matched(ticket, session, Board.X);
+                }
+                if (ticket.state.get() != Ticket.WAITING) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the computer opponent for a board and difficulty. Searching
+     * deeper than Smart costs too much off the classic board, so there
+     * the cap is Smart.
+     */
+    static Strategy computerFor(final BoardType type, final int smarts, final Random rand) {
+        return computerFor(type, smarts, rand, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the computer opponent for a board and difficulty, searching
+     * no more than maxNodes positions per move.
+     */
+    static Strategy computerFor(final BoardType type, final int smarts, final Random rand,
+            final long maxNodes) {
+        if (type.getGeometry().isClassic()) {
+            return Strategies.forSmarts(smarts, rand, maxNodes);
+        }
+        return Strategies.forSmarts(Math.min(smarts, Strategies.SMART), rand, maxNodes);
+    }
+
+    /**
+     * Returns the number of players waiting for a board and difficulty.
+     */
+    public final int getQueueDepth(final BoardType type, final int smarts) {
+        Line line = lines.get(type.ordinal() * LEVELS + smarts);
+        return line == null ? 0 : line.depth.get();
+    }
+
+    /**
+     * Returns the number of players waiting in every line.
+     */
+    public final int getWaiting() {
+        int total = 0;
+        for (Line line : lines.values()) {
+            total += line.depth.get();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of games made between two players.
+     */
+    public final long getPairings() {
+        return pairings.sum();
+    }
+
+    /**
+     * Returns the number of players given a computer opponent.
+     */
+    public final long getComputerGames() {
+        return computerGames.sum();
+    }
+
+    /**
+     * Returns the mean time from joining to getting a game, in
+     * milliseconds.
+     */
+    public final double getMeanWaitMillis() {
+        long players = matchedPlayers.sum();
+        return players == 0 ? 0 : waitNanos.sum() / 1e6 / players;
+    }
+
+    public final double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1e6;
+    }
+
+    /**
+     * Measures pairing throughput: several threads join players for a few
+     * board types and difficulties as fast as they can.
+     *
+     * @param args - [threads] [playersPerThread]; defaults: 4 250000.
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        final int players = args.length > 1 ? Integer.parseInt(args[1]) : 250000;
+        final Lobby lobby = new Lobby(200);
+        final LongAdder games = new LongAdder();
+        final MatchListener listener = new MatchListener() {
+            public void matched(final GameSession session, final int mark) {
+                games.increment();
+            }
+        };
+        final CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < players; i++) {
+                        lobby.join("p" + thread + "-" + i, BoardType.values()[i & 1],
+                                (i >> 1) % 3 * 50, listener);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d players joined in %.2f s: %,d pairings (%,.0f pairings/s), "
+                + "%d still waiting%n", (long) threads * players, seconds,
+                lobby.getPairings(), lobby.getPairings() / seconds, lobby.getWaiting());
+        System.out.printf("wait mean %.3f ms, max %.3f ms%n",
+                lobby.getMeanWaitMillis(), lobby.getMaxWaitMillis());
+        lobby.shutdown();
+    }
+}
@@ -0,0 +1,19 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+/**
+ * Learns when the Lobby has found a player a game. The call is made on
+ * whichever thread made the match, a joining player's or the Lobby's
+ * timer, so it should return quickly.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public interface MatchListener {
+
+    /**
+     * @param session - the new game.
+     * @param mark - the player's side, Board.X (who moves first) or
+     * Board.O.
+     */
+    void matched(GameSession session, int mark);
+}
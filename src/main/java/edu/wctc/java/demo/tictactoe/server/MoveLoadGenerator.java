@@ -0,0 +1,225 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A load generator for the MoveService. Each client thread sends requests
+ * back to back over a kept-alive connection for a fixed time, asking for
+ * moves in random positions from random games at every difficulty, and
+ * the throughput and client-side latency percentiles are printed next to
+ * what the service itself reports on /stats.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class MoveLoadGenerator {
+    private static final int[] LEVELS = {0, 50, 100};
+
+    private final String baseUrl;
+    private final int batchSize;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder positions = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Creates a load generator.
+     *
+     * @param baseUrl - the service, e.g. "http://localhost:8080".
+     * @param batchSize - boards per request; 1 uses /move, more use /batch.
+     */
+    public MoveLoadGenerator(final String baseUrl, final int batchSize) {
+        this.baseUrl = baseUrl;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Runs several client threads for a while.
+     *
+     * @param threads - the number of clients.
+     * @param millis - how long to keep sending.
+     * @param seed - seeds the boards, one stream per client.
+     */
+    public final void run(final int threads, final long millis, final long seed)
+            throws InterruptedException {
+        final long end = System.nanoTime() + millis * 1000000L;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final Random rand = new Random(seed + t);
+            Thread client = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        while (System.nanoTime() < end) {
+                            send(rand);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }, "load-" + t);
+            client.setDaemon(true);
+            client.start();
+        }
+        done.await();
+    }
+
+    /*
+     * Sends one request and times it. A failed request is counted, not
+     * timed.
+     */
+    private void send(final Random rand) {
+        int smarts = LEVELS[rand.nextInt(LEVELS.length)];
+        long start = System.nanoTime();
+        try {
+            if (batchSize == 1) {
+                get(baseUrl + "/move?board=" + randomBoard(rand) + "&smarts=" + smarts);
+            } else {
+                StringBuilder body = new StringBuilder(batchSize * 10);
+                for (int i = 0; i < batchSize; i++) {
+                    body.append(randomBoard(rand)).append('\n');
+                }
+                post(baseUrl + "/batch?smarts=" + smarts, body.toString());
+            }
+            latency.record(System.nanoTime() - start);
+            requests.increment();
+            positions.add(batchSize);
+        } catch (IOException e) {
+            failures.increment();
+        }
+    }
+
+    /**
+     * Returns a classic board from a random game that is not over yet.
+     *
+     * @param rand - the source of randomness.
+     */
+    static String randomBoard(final Random rand) {
+        Board board = new Board();
+        int plies = rand.nextInt(9);
+        for (int i = 0; i < plies; i++) {
+            board.play(board.randomEmptyCell(rand), board.getSideToMove());
+            if (board.isGameOver()) {
+                board.undo();
+                break;
+            }
+        }
+        return board.toString();
+    }
+
+    /**
+     * Makes a GET request and returns the body of the answer.
+     *
+     * @param url - the URL.
+     * @throws IOException if the request fails or is not answered with 200
+     */
+    static String get(final String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        return readAnswer(connection);
+    }
+
+    /**
+     * Makes a POST request and returns the body of the answer.
+     *
+     * @param url - the URL.
+     * @param body - the text to send.
+     * @throws IOException if the request fails or is not answered with 200
+     */
+    static String post(final String url, final String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(bytes.length);
+        OutputStream out = connection.getOutputStream();
+        out.write(bytes);
+        out.close();
+        return readAnswer(connection);
+    }
+
+    /*
+     * Reads the whole answer so the connection can be reused.
+     */
+    private static String readAnswer(final HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        InputStream in = status == 200 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream answer = new ByteArrayOutputStream();
+        if (in != null) {
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                answer.write(buf, 0, n);
+            }
+            in.close();
+        }
+        String text = new String(answer.toByteArray(), StandardCharsets.US_ASCII);
+        if (status != 200) {
+            throw new IOException("HTTP " + status + ": " + text.trim());
+        }
+        return text;
+    }
+
+    public final long getRequests() {
+        return requests.sum();
+    }
+
+    public final long getPositions() {
+        return positions.sum();
+    }
+
+    public final long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Returns the time every successful request took, as seen by the
+     * clients.
+     */
+    public final LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Puts a MoveService under load and reports how it held up. Without a
+     * URL a service is started in this JVM.
+     *
+     * @param args - [clients] [seconds] [batchSize] [url]; defaults:
+     * 8 10 1 and a service of its own.
+     */
+    public static void main(final String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        MoveService service = null;
+        String url;
+        if (args.length > 3) {
+            url = args[3];
+        } else {
+            MoveService.useNoDelay();
+            service = new MoveService(0, 2 * Runtime.getRuntime().availableProcessors());
+            url = "http://localhost:" + service.getPort();
+        }
+        MoveLoadGenerator load = new MoveLoadGenerator(url, batchSize);
+        long start = System.nanoTime();
+        load.run(clients, seconds * 1000L, 1L);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d clients, %d boards per request, %.1f s%n", clients, batchSize, elapsed);
+        System.out.printf("%,d requests (%,.0f requests/s), %,d positions (%,.0f positions/s), "
+                + "%d failed%n", load.getRequests(), load.getRequests() / elapsed,
+                load.getPositions(), load.getPositions() / elapsed, load.getFailures());
+        System.out.println("client latency: " + load.getLatency());
+        System.out.print("service /stats:\n" + get(url + "/stats"));
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.Strategies;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class answers "what would the computer play here?" over HTTP, so
+ * other services can use the engine without Swing. It runs on the JDK's
+ * built-in HttpServer and understands three requests, all answered in
+ * plain text:
+ * <UL>
+ * <LI>GET /move?board=X-0------&amp;smarts=100 returns the chosen cell,
+ * or -1 if the game is already over.</LI>
+ * <LI>POST /batch?smarts=100 with one board per line returns one cell per
+ * line, in the same order. Thousands of boards per request are fine.</LI>
+ * <LI>GET /stats returns request counts, cache use and latency
+ * percentiles.</LI>
+ * </UL>
+ * Boards are written the way Board.toString() writes them: row by row
+ * with "X", "0" and "-" ("O" and "." are accepted too), 9 cells for the
+ * classic board or 16 for the 4x4 one. The side to move follows from the
+ * number of marks, "X" moving first. Difficulty picks the same opponents
+ * as the game window (see Strategies); the 4x4 board is capped at the
+ * Smart level like in the Lobby. Operators can cap the positions the
+ * levels look at per move with setMaxNodes().
+ * <P>
+ * Genius answers are the game window's, and since Genius plays with no
+ * randomness they depend only on the position and the node cap: on the
+ * classic board each position is searched once and its answer cached
+ * until the cap changes. Bad requests get status 400 with a message.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class MoveService {
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_ALLOWED = 405;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private volatile ConcurrentHashMap<Integer, Integer> geniusCache =
+            new ConcurrentHashMap<Integer, Integer>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder positions = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final long startNanos = System.nanoTime();
+    private volatile long maxNodes = Long.MAX_VALUE;
+
+    /*
+     * Times a request from the moment a handler thread picks it up until
+     * the answer is written, and turns bad input into a 400.
+     */
+    private abstract class Endpoint implements HttpHandler {
+        public final void handle(final HttpExchange exchange) throws IOException {
+            long start = System.nanoTime();
+            try {
+                String answer = answer(exchange);
+                reply(exchange, 200, answer);
+            } catch (IllegalArgumentException e) {
+                errors.increment();
+                reply(exchange, BAD_REQUEST, e.getMessage() + "\n");
+            } catch (UnsupportedOperationException e) {
+                errors.increment();
+                reply(exchange, NOT_ALLOWED, e.getMessage() + "\n");
+            } finally {
+                exchange.close();
+                requests.increment();
+                latency.record(System.nanoTime() - start);
+            }
+        }
+
+        abstract String answer(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * Starts a service.
+     *
+     * @param port - the port to listen on; 0 picks a free one.
+     * @param threads - the number of request handler threads.
+     * @throws IOException if the port can not be opened
+     */
+    public MoveService(final int port, final int threads) throws IOException {
+        final AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(final Runnable r) {
+                Thread thread = new Thread(r, "move-service-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(executor);
+        server.createContext("/move", new Endpoint() {
+            String answer(final HttpExchange exchange) {
+                requireMethod(exchange, "GET");
+                String query = exchange.getRequestURI().getRawQuery();
+                String board = parameter(query, "board");
+                if (board == null) {
+                    throw new IllegalArgumentException("board is missing");
+                }
+                positions.increment();
+                return selectMove(board, smarts(query), ThreadLocalRandom.current()) + "\n";
+            }
+        });
+        server.createContext("/batch", new Endpoint() {
+            String answer(final HttpExchange exchange) throws IOException {
+                requireMethod(exchange, "POST");
+                int smarts = smarts(exchange.getRequestURI().getRawQuery());
+                Random rand = ThreadLocalRandom.current();
+                BufferedReader in = new BufferedReader(new InputStreamReader(
+                        exchange.getRequestBody(), StandardCharsets.US_ASCII));
+                StringBuilder sb = new StringBuilder();
+                String line;
+                int lineNo = 0;
+                while ((line = in.readLine()) != null) {
+                    lineNo++;
+                    line = line.trim();
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        sb.append(selectMove(line, smarts, rand)).append('\n');
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("line " + lineNo + ": " + e.getMessage());
+                    }
+                    positions.increment();
+                }
+                return sb.toString();
+            }
+        });
+        server.createContext("/stats", new Endpoint() {
+            String answer(final HttpExchange exchange) {
+                return statistics();
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits up to a second for ones in progress
+     * and stops the handler threads.
+     */
+    public final void shutdown() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    public final int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Chooses the computer's move for a board written as text.
+     *
+     * @param text - the board, e.g. "X-0------".
+     * @param smarts - the difficulty level, 0 to 100.
+     * @param rand - the source of randomness for the levels below Smart.
+     * @return the chosen cell, or -1 if the game is over
+     * @throws IllegalArgumentException if the board or difficulty is bad
+     */
+    public final int selectMove(final String text, final int smarts, final Random rand) {
+        if (smarts < 0 || smarts > 100) {
+            throw new IllegalArgumentException("smarts must be 0 to 100: " + smarts);
+        }
+        Board board = parse(text);
+        if (board.isGameOver()) {
+            return -1;
+        }
+        int mark = board.getSideToMove();
+        if (smarts == Strategies.GENIUS && board.getGeometry().isClassic()) {
+            return geniusMove(board, mark);
+        }
+        return Lobby.computerFor(boardType(text.length()), smarts, rand, maxNodes)
+                .selectMove(board, mark);
+    }
+
+    /*
+     * Looks a Genius move up by position, searching and caching it on a
+     * miss. Two threads missing at once both search, which is harmless
+     * since they find the same cell. The cache is read before the cap, so
+     * a search under an old cap never lands in a new cache.
+     */
+    private int geniusMove(final Board board, final int mark) {
+        ConcurrentHashMap<Integer, Integer> cache = geniusCache;
+        long nodes = maxNodes;
+        Integer key = (int) (board.getMask(mark) << 9 | board.getMask(Board.opponent(mark)));
+        Integer cell = cache.get(key);
+        if (cell == null) {
+            cell = Lobby.computerFor(BoardType.CLASSIC, Strategies.GENIUS, null, nodes)
+                    .selectMove(board, mark);
+            cache.put(key, cell);
+        } else {
+            cacheHits.increment();
+        }
+        return cell;
+    }
+
+    /**
+     * Reads a board written by Board.toString(). The marks must be ones a
+     * real game could have: "X" has moved as often as "0" or once more.
+     *
+     * @param text - the board.
+     * @throws IllegalArgumentException if the text is not a board
+     */
+    static Board parse(final String text) {
+        Board board = new Board(boardType(text.length()).getGeometry());
+        int xs = 0;
+        int os = 0;
+        for (int cell = 0; cell < text.length(); cell++) {
+            char c = text.charAt(cell);
+            if (c == 'X' || c == 'x') {
+                board.play(cell, Board.X);
+                xs++;
+            } else if (c == '0' || c == 'O' || c == 'o') {
+                board.play(cell, Board.O);
+                os++;
+            } else if (c != '-' && c != '.') {
+                throw new IllegalArgumentException("not a mark: '" + c + "' in " + text);
+            }
+        }
+        if (xs != os && xs != os + 1) {
+            throw new IllegalArgumentException("impossible position: " + text);
+        }
+        return board;
+    }
+
+    private static BoardType boardType(final int cells) {
+        for (BoardType type : BoardType.values()) {
+            if (type.getGeometry().getCells() == cells) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("a board has 9 or 16 cells, not " + cells);
+    }
+
+    private static void requireMethod(final HttpExchange exchange, final String method) {
+        if (!method.equals(exchange.getRequestMethod())) {
+            throw new UnsupportedOperationException(exchange.getRequestURI().getPath()
+                    + " needs " + method);
+        }
+    }
+
+    private static int smarts(final String query) {
+        String value = parameter(query, "smarts");
+        if (value == null) {
+            return 100;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("smarts is not a number: " + value);
+        }
+    }
+
+    /*
+     * Finds a parameter in a raw query string. Boards and numbers never
+     * need escaping, so there is no decoding.
+     */
+    private static String parameter(final String query, final String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return pair.substring(eq + 1);
+            }
+        }
+        return null;
+    }
+
+    private static void reply(final HttpExchange exchange, final int status,
+            final String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+        exchange.sendResponseHeaders(status, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        out.close();
+    }
+
+    /**
+     * Returns what /stats reports, one "name value" pair per line.
+     */
+    public final String statistics() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return String.format("requests %d%npositions %d%nerrors %d%n"
+                + "requests_per_second %.1f%ncache_entries %d%ncache_hits %d%n"
+                + "latency_p50_ms %.3f%nlatency_p99_ms %.3f%nlatency_max_ms %.3f%n",
+                getRequests(), getPositions(), errors.sum(), getRequests() / seconds,
+                geniusCache.size(), getCacheHits(),
+                latency.getPercentileNanos(50) / 1e6, latency.getPercentileNanos(99) / 1e6,
+                latency.getMaxNanos() / 1e6);
+    }
+
+    public final long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * Returns the number of boards answered, counting every board of a
+     * batch.
+     */
+    public final long getPositions() {
+        return positions.sum();
+    }
+
+    public final long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public final int getCacheSize() {
+        return geniusCache.size();
+    }
+
+    /**
+     * Caps the positions searched per move by every level, bounding the
+     * CPU one request can take. The cached Genius answers are dropped.
+     *
+     * @param maxNodes - the most positions per move.
+     */
+    public final void setMaxNodes(final long maxNodes) {
+        if (maxNodes < 1) {
+            throw new IllegalArgumentException("maxNodes must be positive: " + maxNodes);
+        }
+        this.maxNodes = maxNodes;
+        geniusCache = new ConcurrentHashMap<Integer, Integer>();
+    }
+
+    public final long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Returns the handling time of every request so far.
+     */
+    public final LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Turns off Nagle's algorithm for every HttpServer in the JVM, unless
+     * the command line already set -Dsun.net.httpserver.nodelay. The JDK
+     * server writes headers and body separately, so with Nagle's algorithm
+     * on every small answer waits for a delayed ACK (~40 ms). It only
+     * works before the first HttpServer is created, which is why the
+     * mains call it first thing and the constructor leaves it alone.
+     */
+    static void useNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * Runs the service until the process is killed, with Nagle's
+     * algorithm off (see useNoDelay(); -Dsun.net.httpserver.nodelay=false
+     * keeps it on).
+     *
+     * @param args - [port] [threads] [maxNodes]; defaults: 8080, two per
+     * processor and no cap.
+     */
+    public static void main(final String[] args) throws IOException {
+        useNoDelay();
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                : 2 * Runtime.getRuntime().availableProcessors();
+        MoveService service = new MoveService(port, threads);
+        if (args.length > 2) {
+            service.setMaxNodes(Long.parseLong(args[2]));
+        }
+        System.out.println("Listening on http://localhost:" + service.getPort()
+                + "/move?board=---------&smarts=100");
+    }
+}
@@ -0,0 +1,162 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One player's record in the StatsStore: wins, losses and draws at each
+ * difficulty level, and winning streaks. The tallies are LongAdders, so
+ * results of the player's games on many threads at once never wait for
+ * each other; reads add up the stripes and may miss a result that is
+ * being recorded at that moment.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class PlayerStats {
+    /** The Easy level and the levels nearest it, smarts below 25. */
+    public static final int EASY = 0;
+    /** The Smart level and the levels nearest it, smarts 25 to 74. */
+    public static final int SMART = 1;
+    /** The Genius level and the levels nearest it, smarts 75 and up. */
+    public static final int GENIUS = 2;
+    /** The number of levels. */
+    public static final int LEVELS = 3;
+
+    static final int WIN = 0;
+    static final int LOSS = 1;
+    static final int DRAW = 2;
+
+    private final String player;
+    private final LongAdder[] tallies = new LongAdder[3 * LEVELS];
+    private final AtomicInteger streak = new AtomicInteger();
+    private final AtomicInteger bestStreak = new AtomicInteger();
+
+    // Guarded by this; only the StatsStore uses it
+    StatsStore.Standing standing;
+
+    PlayerStats(final String player) {
+        this.player = player;
+        for (int i = 0; i < tallies.length; i++) {
+            tallies[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Returns the level that a difficulty is counted under. The slider is
+     * continuous, so each level stands for the values nearest its stop.
+     *
+     * @param smarts - the difficulty level, 0 to 100.
+     */
+    public static int levelOf(final int smarts) {
+        if (smarts >= 75) {
+            return GENIUS;
+        }
+        return smarts >= 25 ? SMART : EASY;
+    }
+
+    /*
+     * Counts one game. A win extends the current streak, anything else
+     * ends it.
+     */
+    void record(final int level, final int outcome) {
+        tallies[outcome * LEVELS + level].increment();
+        if (outcome != WIN) {
+            streak.set(0);
+            return;
+        }
+        int now = streak.incrementAndGet();
+        int best = bestStreak.get();
+        while (now > best && !bestStreak.compareAndSet(best, now)) {
+            best = bestStreak.get();
+        }
+    }
+
+    /*
+     * Adds counts read back from a snapshot.
+     */
+    void restore(final long[] counts, final int current, final int best) {
+        for (int i = 0; i < tallies.length; i++) {
+            tallies[i].add(counts[i]);
+        }
+        streak.set(current);
+        bestStreak.set(best);
+    }
+
+    long tally(final int outcome, final int level) {
+        return tallies[outcome * LEVELS + level].sum();
+    }
+
+    private long total(final int outcome) {
+        long sum = 0;
+        for (int level = 0; level < LEVELS; level++) {
+            sum += tally(outcome, level);
+        }
+        return sum;
+    }
+
+    public final String getPlayer() {
+        return player;
+    }
+
+    /**
+     * @param level - EASY, SMART or GENIUS.
+     */
+    public final long getWins(final int level) {
+        return tally(WIN, level);
+    }
+
+    /**
+     * @param level - EASY, SMART or GENIUS.
+     */
+    public final long getLosses(final int level) {
+        return tally(LOSS, level);
+    }
+
+    /**
+     * @param level - EASY, SMART or GENIUS.
+     */
+    public final long getDraws(final int level) {
+        return tally(DRAW, level);
+    }
+
+    public final long getWins() {
+        return total(WIN);
+    }
+
+    public final long getLosses() {
+        return total(LOSS);
+    }
+
+    public final long getDraws() {
+        return total(DRAW);
+    }
+
+    public final long getGames() {
+        return getWins() + getLosses() + getDraws();
+    }
+
+    /**
+     * Returns the leaderboard score: two points per win, one per draw.
+     */
+    public final long getPoints() {
+        return 2 * getWins() + getDraws();
+    }
+
+    /**
+     * Returns the number of games won in a row up to the last one.
+     */
+    public final int getStreak() {
+        return streak.get();
+    }
+
+    public final int getBestStreak() {
+        return bestStreak.get();
+    }
+
+    @Override
+    public String toString() {
+        return player + ": " + getWins() + " won, " + getLosses() + " lost, "
+                + getDraws() + " drawn";
+    }
+}
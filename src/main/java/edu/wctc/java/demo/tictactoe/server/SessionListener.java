@@ -0,0 +1,22 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+/**
+ * Hears about every move played in a GameSession, including the
+ * computer's. Calls are made on the thread that played the move while it
+ * holds the session, so listeners must return quickly and must not play
+ * moves themselves.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public interface SessionListener {
+
+    /**
+     * @param session - the game.
+     * @param cell - the cell just marked.
+     * @param mark - Board.X or Board.O.
+     * @param result - the game's result after the move: GameSession.IN_PLAY,
+     * Board.X or Board.O for a win, or GameSession.DRAW.
+     */
+    void moved(GameSession session, int cell, int mark, int result);
+}
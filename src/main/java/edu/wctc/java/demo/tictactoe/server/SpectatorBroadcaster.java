@@ -0,0 +1,422 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class lets any number of spectators watch a GameSession. Each move
+ * becomes a 3-byte delta (cell, mark, result) appended to the game's feed;
+ * that is all the move path does, so a game with thousands of spectators
+ * plays as fast as one with none. A single writer thread then sends each
+ * spectator every delta it has not seen yet as one frame: a 13-byte header
+ * (game id as a long, number of the first move as an int, delta count as
+ * an unsigned byte) and the deltas, written together with one gathering
+ * write straight from the feed.
+ * <P>
+ * Channels should be non-blocking. A spectator whose channel takes only
+ * part of a frame keeps the rest and is skipped until it drains, and the
+ * moves made meanwhile are coalesced into its next frame, so a slow
+ * spectator simply gets fewer, larger frames. One that stays stuck for
+ * longer than the stall limit is dropped and its channel closed. The game
+ * never waits for a spectator. A spectator who joins mid-game gets all
+ * moves so far in its first frame.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class SpectatorBroadcaster implements SessionListener {
+    public static final int HEADER_BYTES = 13;
+    public static final int DELTA_BYTES = 3;
+
+    private static final long RETRY_MILLIS = 1;
+
+    private final long stallNanos;
+    private final ConcurrentHashMap<Long, Feed> feeds = new ConcurrentHashMap<Long, Feed>();
+    private final LinkedBlockingQueue<Feed> dirty = new LinkedBlockingQueue<Feed>();
+    private final List<Feed> backlog = new ArrayList<Feed>();
+    private final LongAdder deltas = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /*
+     * The deltas of one game. Only the session's moving thread appends,
+     * and the volatile count publishes each delta to the writer.
+     */
+    private static final class Feed {
+        final GameSession session;
+        final byte[] bytes;
+        final List<Spectator> spectators = new CopyOnWriteArrayList<Spectator>();
+        final AtomicBoolean queued = new AtomicBoolean();
+        volatile int published;
+
+        Feed(final GameSession session) {
+            this.session = session;
+            this.bytes = new byte[session.getType().getGeometry().getCells() * DELTA_BYTES];
+        }
+
+        void append(final int cell, final int mark, final int result) {
+            int n = published;
+            bytes[n * DELTA_BYTES] = (byte) cell;
+            bytes[n * DELTA_BYTES + 1] = (byte) mark;
+            bytes[n * DELTA_BYTES + 2] = (byte) result;
+            published = n + 1;
+        }
+    }
+
+    /**
+     * One spectator's channel and how far it has got. Only the writer
+     * thread touches its buffers.
+     */
+    public static final class Spectator {
+        private final GatheringByteChannel channel;
+        private final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        private final ByteBuffer body;
+        private final ByteBuffer[] frame;
+        private ByteBuffer rest;
+        private int sent;
+        private long stalledSince;
+        private volatile boolean droppedOut;
+
+        Spectator(final GatheringByteChannel channel, final Feed feed) {
+            this.channel = channel;
+            this.body = ByteBuffer.wrap(feed.bytes);
+            this.frame = new ByteBuffer[] {header, body};
+        }
+
+        /**
+         * Returns true once this spectator has been dropped for stalling
+         * or because its channel failed.
+         */
+        public final boolean isDropped() {
+            return droppedOut;
+        }
+
+        /*
+         * Finishes any earlier frame, then writes the deltas it has not
+         * had. Returns false while part of a frame is still unwritten.
+         */
+        boolean send(final long gameId, final byte[] bytes, final int published,
+                final long now, final LongAdder frames) throws IOException {
+            if (rest != null) {
+                channel.write(rest);
+                if (rest.hasRemaining()) {
+                    return false;
+                }
+                rest = null;
+                stalledSince = 0;
+            }
+            if (sent == published) {
+                return true;
+            }
+            int count = published - sent;
+            header.clear();
+            header.putLong(gameId).putInt(sent).put((byte) count).flip();
+            body.limit((sent + count) * DELTA_BYTES).position(sent * DELTA_BYTES);
+            channel.write(frame);
+            frames.increment();
+            sent = published;
+            int left = header.remaining() + body.remaining();
+            if (left == 0) {
+                return true;
+            }
+            rest = ByteBuffer.allocate(left);
+            rest.put(header).put(body).flip();
+            stalledSince = now;
+            return false;
+        }
+    }
+
+    /**
+     * Starts a broadcaster and its writer thread.
+     *
+     * @param stallMillis - how long a spectator may leave a frame unread
+     * before it is dropped.
+     */
+    public SpectatorBroadcaster(final long stallMillis) {
+        this.stallNanos = TimeUnit.MILLISECONDS.toNanos(stallMillis);
+        this.writer = new Thread(new Runnable() {
+            public void run() {
+                writeLoop();
+            }
+        }, "spectator-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops the writer thread. Channels are left open.
+     */
+    public final void shutdown() {
+        running = false;
+        writer.interrupt();
+    }
+
+    /**
+     * Starts sending a game's moves to a channel, beginning with every
+     * move played so far.
+     *
+     * @param session - the game to watch.
+     * @param channel - the spectator's channel, preferably non-blocking.
+     * @return the spectator, for unsubscribe()
+     */
+    public final Spectator subscribe(final GameSession session,
+            final GatheringByteChannel channel) {
+        Feed feed;
+        synchronized (session) {
+            // No move can slip in between catching up and listening
+            feed = feeds.get(session.getId());
+            if (feed == null) {
+                feed = new Feed(session);
+                int moves = session.getMovesPlayed();
+                for (int n = 0; n < moves; n++) {
+                    int cell = session.getMove(n);
+                    feed.append(cell, session.get(cell),
+                            n == moves - 1 ? session.getResult() : GameSession.IN_PLAY);
+                }
+                feeds.put(session.getId(), feed);
+                session.addSessionListener(this);
+            }
+        }
+        Spectator spectator = new Spectator(channel, feed);
+        feed.spectators.add(spectator);
+        schedule(feed);
+        return spectator;
+    }
+
+    /**
+     * Stops sending to a spectator. Its channel is left open.
+     */
+    public final void unsubscribe(final GameSession session, final Spectator spectator) {
+        Feed feed = feeds.get(session.getId());
+        if (feed != null) {
+            feed.spectators.remove(spectator);
+        }
+    }
+
+    /**
+     * Records the move; the writer thread sends it.
+     */
+    @Override
+    public void moved(final GameSession session, final int cell, final int mark,
+            final int result) {
+        Feed feed = feeds.get(session.getId());
+        if (feed != null) {
+            feed.append(cell, mark, result);
+            deltas.increment();
+            schedule(feed);
+        }
+    }
+
+    private void schedule(final Feed feed) {
+        if (feed.queued.compareAndSet(false, true)) {
+            dirty.offer(feed);
+        }
+    }
+
+    /*
+     * Sends queued feeds as they arrive, and retries backlogged ones (with
+     * a spectator part way through a frame) every millisecond.
+     */
+    private void writeLoop() {
+        while (running) {
+            try {
+                Feed feed = dirty.poll(RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                if (feed != null) {
+                    feed.queued.set(false);
+                    if (!flush(feed) && !backlog.contains(feed)) {
+                        backlog.add(feed);
+                    }
+                }
+                for (Iterator<Feed> it = backlog.iterator(); it.hasNext();) {
+                    if (flush(it.next())) {
+                        it.remove();
+                    }
+                }
+            } catch (InterruptedException ex) {
+                return;
+            }
+        }
+    }
+
+    /*
+     * Returns true if every spectator is up to date. A finished game whose
+     * spectators have seen it all is forgotten.
+     */
+    private boolean flush(final Feed feed) {
+        long now = System.nanoTime();
+        long gameId = feed.session.getId();
+        int published = feed.published;
+        boolean current = true;
+        for (Spectator spectator : feed.spectators) {
+            try {
+                if (!spectator.send(gameId, feed.bytes, published, now, frames)) {
+                    if (now - spectator.stalledSince > stallNanos) {
+                        drop(feed, spectator);
+                    } else {
+                        current = false;
+                    }
+                }
+            } catch (IOException ex) {
+                drop(feed, spectator);
+            }
+        }
+        if (current && published > 0
+                && feed.bytes[published * DELTA_BYTES - 1] != GameSession.IN_PLAY) {
+            feeds.remove(gameId, feed);
+            feed.session.removeSessionListener(this);
+        }
+        return current;
+    }
+
+    private void drop(final Feed feed, final Spectator spectator) {
+        feed.spectators.remove(spectator);
+        spectator.droppedOut = true;
+        dropped.increment();
+        try {
+            spectator.channel.close();
+        } catch (IOException ex) {
+            // it is being dropped anyway
+        }
+    }
+
+    /**
+     * Returns the number of spectators watching a game.
+     */
+    public final int getSpectators(final GameSession session) {
+        Feed feed = feeds.get(session.getId());
+        return feed == null ? 0 : feed.spectators.size();
+    }
+
+    /**
+     * Returns the number of moves published to feeds.
+     */
+    public final long getDeltas() {
+        return deltas.sum();
+    }
+
+    /**
+     * Returns the number of frames written to spectators.
+     */
+    public final long getFrames() {
+        return frames.sum();
+    }
+
+    /**
+     * Returns the number of spectators dropped.
+     */
+    public final long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Decodes the deltas of a frame into cells, marks and results, three
+     * ints per move, for clients and tests.
+     *
+     * @param frame - a whole frame, positioned at its start.
+     * @return the first move number followed by the deltas
+     */
+    public static int[] decode(final ByteBuffer frame) {
+        frame.getLong();
+        int first = frame.getInt();
+        int count = frame.get() & 0xFF;
+        int[] result = new int[1 + count * DELTA_BYTES];
+        result[0] = first;
+        for (int i = 1; i < result.length; i++) {
+            result[i] = frame.get();
+        }
+        return result;
+    }
+
+    /**
+     * Measures fan-out: one game with many spectators on in-memory
+     * channels, played by random moves.
+     *
+     * @param args - [spectators] [games]; defaults: 10000 100.
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        int spectators = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        SpectatorBroadcaster broadcaster = new SpectatorBroadcaster(1000);
+        final LongAdder bytes = new LongAdder();
+        GatheringByteChannel sink = new CountingChannel(bytes);
+        Random rand = new Random(40);
+        long moveNanos = 0;
+        long moves = 0;
+        long start = System.nanoTime();
+        for (int g = 0; g < games; g++) {
+            GameSession session = new GameSession(g, BoardType.CLASSIC, 50, "a", "b", null);
+            for (int s = 0; s < spectators; s++) {
+                broadcaster.subscribe(session, sink);
+            }
+            while (!session.isGameOver()) {
+                int cell;
+                do {
+                    cell = rand.nextInt(9);
+                } while (session.get(cell) != Board.EMPTY);
+                long t = System.nanoTime();
+                session.play(session.getPlayer(session.getSideToMove()), cell);
+                moveNanos += System.nanoTime() - t;
+                moves++;
+            }
+        }
+        while (broadcaster.feeds.size() > 0) {
+            Thread.sleep(1);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games x %,d spectators: %,d frames, %,d bytes in %.2f s "
+                + "(%,.0f frames/s); mean move %.1f us%n", games, spectators,
+                broadcaster.getFrames(), bytes.sum(), seconds,
+                broadcaster.getFrames() / seconds, moveNanos / 1e3 / moves);
+        broadcaster.shutdown();
+    }
+
+    /*
+     * A channel that counts and discards what it is given.
+     */
+    private static final class CountingChannel implements GatheringByteChannel {
+        private final LongAdder bytes;
+
+        CountingChannel(final LongAdder bytes) {
+            this.bytes = bytes;
+        }
+
+        public long write(final ByteBuffer[] srcs, final int offset, final int length) {
+            long n = 0;
+            for (int i = offset; i < offset + length; i++) {
+                n += srcs[i].remaining();
+                srcs[i].position(srcs[i].limit());
+            }
+            bytes.add(n);
+            return n;
+        }
+
+        public long write(final ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        public int write(final ByteBuffer src) {
+            return (int) write(new ByteBuffer[] {src});
+        }
+
+        public boolean isOpen() {
+            return true;
+        }
+
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.history.SnapshotFile;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class keeps every player's record (see PlayerStats) and a
+ * leaderboard of the players with the most points. Add it to the Lobby
+ * with addSessionListener() and it counts every finished game; players
+ * named GameSession.COMPUTER are left out.
+ * <P>
+ * Results of different players never wait for each other. The
+ * leaderboard is a concurrent sorted set holding only the top N
+ * standings and is updated as results come in: points only ever go up,
+ * so a player whose new score beats the last standing goes in and the
+ * last one drops out. Readers walk the set without taking any lock.
+ * <P>
+ * The store can be written to a snapshot file now and then and read back
+ * with load(). A snapshot taken while games finish may be a game or two
+ * behind for some players, but is never a torn file: it is written next
+ * to the old one and moved over it.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class StatsStore implements SessionListener {
+    private static final int MAGIC = 0x53545454; // "TTTS" little-endian
+    private static final int VERSION = 1;
+
+    private final int leaderboardSize;
+    private final ConcurrentHashMap<String, PlayerStats> players = new ConcurrentHashMap<String, PlayerStats>();
+    private final ConcurrentSkipListSet<Standing> leaderboard = new ConcurrentSkipListSet<Standing>();
+    private final LongAdder games = new LongAdder();
+    private ScheduledExecutorService snapshotter;
+
+    /**
+     * A player's place on the leaderboard. Standings are ordered best
+     * first: most points, then name.
+     */
+    public static final class Standing implements Comparable<Standing> {
+        private final String player;
+        private final long points;
+
+        Standing(final String player, final long points) {
+            this.player = player;
+            this.points = points;
+        }
+
+        public final String getPlayer() {
+            return player;
+        }
+
+        public final long getPoints() {
+            return points;
+        }
+
+        public int compareTo(final Standing other) {
+            if (points != other.points) {
+                return points > other.points ? -1 : 1;
+            }
+            return player.compareTo(other.player);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Standing)) {
+                return false;
+            }
+            Standing other = (Standing) obj;
+            return points == other.points && player.equals(other.player);
+        }
+
+        @Override
+        public int hashCode() {
+            return player.hashCode() * 31 + (int) (points ^ (points >>> 32));
+        }
+
+        @Override
+        public String toString() {
+            return player + " " + points;
+        }
+    }
+
+    /**
+     * Creates an empty store.
+     *
+     * @param leaderboardSize - the number of players on the leaderboard.
+     */
+    public StatsStore(final int leaderboardSize) {
+        if (leaderboardSize < 1) {
+            throw new IllegalArgumentException("leaderboard size must be positive: " + leaderboardSize);
+        }
+        this.leaderboardSize = leaderboardSize;
+    }
+
+    /**
+     * Counts a finished game for both of its players.
+     */
+    public void moved(final GameSession session, final int cell, final int mark, final int result) {
+        if (result == GameSession.IN_PLAY) {
+            return;
+        }
+        games.increment();
+        for (int seat = Board.X; seat <= Board.O; seat++) {
+            String player = session.getPlayer(seat);
+            if (GameSession.COMPUTER.equals(player)) {
+                continue;
+            }
+            int outcome = result == GameSession.DRAW ? PlayerStats.DRAW
+                    : result == seat ? PlayerStats.WIN : PlayerStats.LOSS;
+            record(player, session.getSmarts(), outcome);
+        }
+    }
+
+    /**
+     * Counts one game for one player.
+     *
+     * @param player - the player's name.
+     * @param smarts - the difficulty of the game, 0 to 100.
+     * @param outcome - PlayerStats.WIN, LOSS or DRAW.
+     */
+    final void record(final String player, final int smarts, final int outcome) {
+        PlayerStats stats = statsFor(player);
+        stats.record(PlayerStats.levelOf(smarts), outcome);
+        if (outcome != PlayerStats.LOSS) {
+            rank(stats);
+        }
+    }
+
+    private PlayerStats statsFor(final String player) {
+        PlayerStats stats = players.get(player);
+        if (stats == null) {
+            PlayerStats created = new PlayerStats(player);
+            stats = players.putIfAbsent(player, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        return stats;
+    }
+
+    /*
+     * Moves a player up the leaderboard, or onto it. Only the player's
+     * own results wait on its lock. The old standing leaves before the
+     * new one goes in, so the same player never shows up twice and never
+     * pushes anyone else off by its own old standing.
+     */
+    private void rank(final PlayerStats stats) {
+        synchronized (stats) {
+            Standing old = stats.standing;
+            long points = Math.max(stats.getPoints(), old == null ? 0 : old.getPoints());
+            Standing now = new Standing(stats.getPlayer(), points);
+            stats.standing = now;
+            boolean wasOn = old != null && leaderboard.remove(old);
+            if (!wasOn && !qualifies(now)) {
+                return;
+            }
+            leaderboard.add(now);
+        }
+        while (leaderboard.size() > leaderboardSize) {
+            leaderboard.pollLast();
+        }
+    }
+
+    private boolean qualifies(final Standing standing) {
+        if (leaderboard.size() < leaderboardSize) {
+            return true;
+        }
+        Standing last = leaderboard.isEmpty() ? null : leaderboard.last();
+        return last == null || standing.compareTo(last) < 0;
+    }
+
+    /**
+     * Returns a player's record, or null if they have not finished a game.
+     */
+    public final PlayerStats get(final String player) {
+        return players.get(player);
+    }
+
+    /**
+     * Returns the leaderboard, best first.
+     */
+    public final List<Standing> getLeaderboard() {
+        List<Standing> top = new ArrayList<Standing>(leaderboardSize);
+        for (Standing standing : leaderboard) {
+            if (top.size() == leaderboardSize) {
+                break;
+            }
+            top.add(standing);
+        }
+        return top;
+    }
+
+    public final int getPlayers() {
+        return players.size();
+    }
+
+    /**
+     * Returns the number of finished games counted.
+     */
+    public final long getGames() {
+        return games.sum();
+    }
+
+    /**
+     * Writes every player's record to a file.
+     *
+     * @param file - the snapshot file; replaced if it exists.
+     * @throws IOException if the file can not be written
+     */
+    public final void snapshot(final Path file) throws IOException {
+        final List<PlayerStats> all = new ArrayList<PlayerStats>(players.values());
+        SnapshotFile.write(file, MAGIC, VERSION, new SnapshotFile.Content() {
+            public void writeTo(final DataOutputStream out) throws IOException {
+                out.writeInt(all.size());
+                for (PlayerStats stats : all) {
+                    out.writeUTF(stats.getPlayer());
+                    for (int outcome = PlayerStats.WIN; outcome <= PlayerStats.DRAW; outcome++) {
+                        for (int level = 0; level < PlayerStats.LEVELS; level++) {
+                            out.writeLong(stats.tally(outcome, level));
+                        }
+                    }
+                    out.writeInt(stats.getStreak());
+                    out.writeInt(stats.getBestStreak());
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads a store back from a snapshot file.
+     *
+     * @param file - a file written by snapshot().
+     * @param leaderboardSize - the number of players on the leaderboard.
+     * @throws IOException if the file can not be read or is not a snapshot
+     */
+    public static StatsStore load(final Path file, final int leaderboardSize) throws IOException {
+        StatsStore store = new StatsStore(leaderboardSize);
+        DataInputStream in = SnapshotFile.open(file, MAGIC, VERSION, "a stats snapshot");
+        try {
+            int count = in.readInt();
+            long[] counts = new long[3 * PlayerStats.LEVELS];
+            for (int i = 0; i < count; i++) {
+                PlayerStats stats = store.statsFor(in.readUTF());
+                for (int c = 0; c < counts.length; c++) {
+                    counts[c] = in.readLong();
+                }
+                stats.restore(counts, in.readInt(), in.readInt());
+                store.rank(stats);
+            }
+        } finally {
+            in.close();
+        }
+        return store;
+    }
+
+    /**
+     * Writes a snapshot on a background thread every so often; see
+     * SnapshotFile.schedule().
+     *
+     * @param file - the snapshot file.
+     * @param periodMillis - the time between snapshots.
+     */
+    public final synchronized void startSnapshots(final Path file, final long periodMillis) {
+        if (snapshotter != null) {
+            throw new IllegalStateException("snapshots already started");
+        }
+        snapshotter = SnapshotFile.schedule("stats-snapshot", periodMillis,
+                new SnapshotFile.Snapshot() {
+                    public void take() throws IOException {
+                        snapshot(file);
+                    }
+                });
+    }
+
+    /**
+     * Stops taking snapshots.
+     */
+    public final synchronized void shutdown() {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+            snapshotter = null;
+        }
+    }
+
+    /**
+     * Measures recording throughput: several threads record results for
+     * many players while the leaderboard is read.
+     *
+     * @param args - [threads] [resultsPerThread] [players]; defaults:
+     * 4 2000000 100000.
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        final int results = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+        final int playerCount = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+        final StatsStore store = new StatsStore(10);
+        final String[] names = new String[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            names[i] = "player" + i;
+        }
+        final CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final Random rand = new Random(t);
+            new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < results; i++) {
+                        // A skewed pick, so a few players play (and win) a lot
+                        int p = (int) (playerCount * Math.pow(rand.nextDouble(), 3));
+                        store.record(names[p], rand.nextInt(101), rand.nextInt(3));
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        long reads = 0;
+        while (done.getCount() > 0) {
+            store.getLeaderboard();
+            reads++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d results for %,d players in %.2f s (%,.0f results/s), "
+                + "%,d leaderboard reads meanwhile%n", (long) threads * results,
+                store.getPlayers(), seconds, threads * results / seconds, reads);
+        for (Standing standing : store.getLeaderboard()) {
+            System.out.println("  " + standing);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A player's place in the Lobby. A ticket starts out WAITING and leaves
+ * that state exactly once, by compare-and-set, for MATCHED, COMPUTER or
+ * CANCELLED, so a player can never be given two games even when a
+ * joining player and the fallback timer reach it at the same moment.
+ * While a pairing is being made it is briefly CLAIMED and may go back to
+ * WAITING if no partner turns up.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class Ticket {
+    static final int WAITING = 0;
+    static final int CLAIMED = 1;
+    static final int MATCHED = 2;
+    static final int COMPUTER = 3;
+    static final int CANCELLED = 4;
+
+    final String player;
+    final BoardType type;
+    final int smarts;
+    final MatchListener listener;
+    final long joinedNanos;
+    final AtomicInteger state = new AtomicInteger(WAITING);
+
+    Ticket(final String player, final BoardType type, final int smarts,
+            final MatchListener listener) {
+        this.player = player;
+        this.type = type;
+        this.smarts = smarts;
+        this.listener = listener;
+        this.joinedNanos = System.nanoTime();
+    }
+
+    public final String getPlayer() {
+        return player;
+    }
+
+    public final BoardType getType() {
+        return type;
+    }
+
+    public final int getSmarts() {
+        return smarts;
+    }
+
+    /**
+     * Returns true until the player has a game or has left.
+     */
+    public final boolean isWaiting() {
+        int s = state.get();
+        return s == WAITING || s == CLAIMED;
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * Provides the building blocks of a game server: a matchmaking lobby
+ * that pairs players (or finds them a computer opponent) and the game
+ * sessions it creates around the domain model.
+ *
+ * @since 2.0
+ */
+package edu.wctc.java.demo.tictactoe.server;
@@ -0,0 +1,109 @@
+package edu.wctc.java.demo.tictactoe.tournament;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Fits Bradley-Terry strengths to pairwise results and reports them on the
+ * Elo scale (400 points per factor of ten in odds), averaging 1500.
+ * <P>
+ * Draws count as half a win for each side. Every pair also gets one
+ * virtual drawn game, which keeps the fit finite when an entrant never
+ * wins (a Genius opponent can not be beaten). Confidence margins come
+ * from the diagonal of the Fisher information, so they ignore the
+ * covariance between ratings and are slightly optimistic.
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class BradleyTerry {
+    private static final double ELO_PER_NATURAL_LOG = 400.0 / Math.log(10.0);
+    private static final double Z95 = 1.96;
+    private static final int MAX_ITERATIONS = 10000;
+    private static final double TOLERANCE = 1e-10;
+
+    private BradleyTerry() {}
+
+    /**
+     * Rates every entrant.
+     * 
+     * @param names - the entrant names.
+     * @param wins - wins[i][j] is the number of games i won against j.
+     * @param draws - draws[i][j] is the number of draws between i and j;
+     * only entries with i &lt; j are read.
+     * @return the ratings, best first
+     */
+    public static List<Rating> rate(final String[] names, final long[][] wins,
+            final long[][] draws) {
+        int n = names.length;
+        double[][] games = new double[n][n];
+        double[] score = new double[n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j) {
+                    long d = i < j ? draws[i][j] : draws[j][i];
+                    games[i][j] = wins[i][j] + wins[j][i] + d + 1;
+                    score[i] += wins[i][j] + 0.5 * (d + 1);
+                }
+            }
+        }
+
+        // Minorization-maximization (Hunter 2004) on strengths p
+        double[] p = new double[n];
+        Arrays.fill(p, 1.0);
+        for (int iter = 0; iter < MAX_ITERATIONS; iter++) {
+            double change = 0.0;
+            double logSum = 0.0;
+            for (int i = 0; i < n; i++) {
+                double denom = 0.0;
+                for (int j = 0; j < n; j++) {
+                    if (i != j) {
+                        denom += games[i][j] / (p[i] + p[j]);
+                    }
+                }
+                double next = denom > 0.0 ? score[i] / denom : p[i];
+                change = Math.max(change, Math.abs(Math.log(next / p[i])));
+                p[i] = next;
+                logSum += Math.log(next);
+            }
+            double scale = Math.exp(-logSum / n); // geometric mean of 1
+            for (int i = 0; i < n; i++) {
+                p[i] *= scale;
+            }
+            if (change < TOLERANCE) {
+                break;
+            }
+        }
+
+        List<Rating> result = new ArrayList<Rating>(n);
+        for (int i = 0; i < n; i++) {
+            double info = 0.0;
+            long w = 0;
+            long l = 0;
+            long d = 0;
+            for (int j = 0; j < n; j++) {
+                if (i != j) {
+                    double sum = p[i] + p[j];
+                    info += games[i][j] * p[i] * p[j] / (sum * sum);
+                    w += wins[i][j];
+                    l += wins[j][i];
+                    d += i < j ? draws[i][j] : draws[j][i];
+                }
+            }
+            double elo = 1500.0 + ELO_PER_NATURAL_LOG * Math.log(p[i]);
+            double margin = info > 0.0
+                    ? Z95 * ELO_PER_NATURAL_LOG / Math.sqrt(info)
+                    : Double.POSITIVE_INFINITY;
+            result.add(new Rating(names[i], w, l, d, elo, margin));
+        }
+        Collections.sort(result, new Comparator<Rating>() {
+            public int compare(Rating a, Rating b) {
+                return Double.compare(b.getElo(), a.getElo());
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,64 @@
+package edu.wctc.java.demo.tictactoe.tournament;
+
+/**
+ * One row of a tournament table: an entrant's results and its Elo rating
+ * with a 95% confidence margin. Rating objects are immutable.
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public final class Rating {
+    private final String name;
+    private final long wins;
+    private final long losses;
+    private final long draws;
+    private final double elo;
+    private final double margin;
+
+    public Rating(final String name, final long wins, final long losses,
+            final long draws, final double elo, final double margin) {
+        this.name = name;
+        this.wins = wins;
+        this.losses = losses;
+        this.draws = draws;
+        this.elo = elo;
+        this.margin = margin;
+    }
+
+    public final String getName() {
+        return name;
+    }
+
+    public final long getWins() {
+        return wins;
+    }
+
+    public final long getLosses() {
+        return losses;
+    }
+
+    public final long getDraws() {
+        return draws;
+    }
+
+    public final long getGames() {
+        return wins + losses + draws;
+    }
+
+    public final double getElo() {
+        return elo;
+    }
+
+    /**
+     * Returns the half-width of the 95% confidence interval of getElo().
+     */
+    public final double getMargin() {
+        return margin;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-12s %7.1f +/- %5.1f  W %d  L %d  D %d",
+                name, elo, margin, wins, losses, draws);
+    }
+}
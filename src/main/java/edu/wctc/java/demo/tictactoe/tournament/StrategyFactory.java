@@ -0,0 +1,20 @@
+package edu.wctc.java.demo.tictactoe.tournament;
+
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import java.util.Random;
+
+/**
+ * Creates Strategy objects. Strategies are not thread safe, so a
+ * Tournament asks the factory for a fresh instance on every worker thread.
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public interface StrategyFactory {
+
+    /**
+     * @param rand - a source of randomness owned by the calling thread.
+     * @return a new Strategy
+     */
+    Strategy create(Random rand);
+}
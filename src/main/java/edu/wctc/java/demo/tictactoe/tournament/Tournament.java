@@ -0,0 +1,245 @@
+package edu.wctc.java.demo.tictactoe.tournament;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.GameEngine;
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class runs a round-robin tournament between registered strategies.
+ * Every pair of entrants plays the same number of games, alternating who
+ * moves first. Games are split into batches that run on a pool of worker
+ * threads; each worker has its own Board, Random and Strategy instances,
+ * so the games share nothing but the PositionSolver table. Standings are
+ * re-rated and reported to a TournamentListener as each batch completes.
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class Tournament {
+    private static final int BATCH_SIZE = 20000;
+
+    private final List<String> names = new ArrayList<String>();
+    private final List<StrategyFactory> factories = new ArrayList<StrategyFactory>();
+
+    /**
+     * Adds an entrant to the tournament.
+     * 
+     * @param name - a unique display name.
+     * @param factory - creates the entrant's Strategy on each worker.
+     */
+    public final void register(final String name, final StrategyFactory factory) {
+        if (names.contains(name)) {
+            throw new IllegalArgumentException("Duplicate entrant: " + name);
+        }
+        names.add(name);
+        factories.add(factory);
+    }
+
+    /**
+     * Registers the Easy, Smart and Genius levels of the GameEngine.
+     */
+    public final void registerEngineLevels() {
+        registerEngineLevel("Easy", 0);
+        registerEngineLevel("Smart", 50);
+        registerEngineLevel("Genius", 100);
+    }
+
+    private void registerEngineLevel(final String name, final int smarts) {
+        register(name, new StrategyFactory() {
+            public Strategy create(Random rand) {
+                return GameEngine.strategyFor(smarts, rand);
+            }
+        });
+    }
+
+    /**
+     * Plays the whole tournament and returns the final standings.
+     * 
+     * @param gamesPerPair - games between each pair of entrants; even
+     * numbers give both sides the first move equally often.
+     * @param threads - the number of worker threads.
+     * @param listener - receives standings as batches finish, may be null.
+     * @return the final ratings, best first
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public final List<Rating> run(final int gamesPerPair, final int threads,
+            final TournamentListener listener) throws InterruptedException {
+        int n = names.size();
+        if (n < 2) {
+            throw new IllegalStateException("A tournament needs two entrants");
+        }
+        String[] entrants = names.toArray(new String[n]);
+        long[][] wins = new long[n][n];
+        long[][] draws = new long[n][n];
+        long gamesTotal = (long) gamesPerPair * n * (n - 1) / 2;
+        long gamesPlayed = 0;
+
+        final ThreadLocal<Worker> workers = new ThreadLocal<Worker>() {
+            @Override
+            protected Worker initialValue() {
+                return new Worker(factories);
+            }
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CompletionService<Batch> done = new ExecutorCompletionService<Batch>(pool);
+        int batches = 0;
+        try {
+            for (int a = 0; a < n; a++) {
+                for (int b = a + 1; b < n; b++) {
+                    for (int first = 0; first < gamesPerPair; first += BATCH_SIZE) {
+                        final Batch batch = new Batch(a, b, first,
+                                Math.min(BATCH_SIZE, gamesPerPair - first));
+                        done.submit(new Callable<Batch>() {
+                            public Batch call() {
+                                return workers.get().play(batch);
+                            }
+                        });
+                        batches++;
+                    }
+                }
+            }
+            for (int i = 0; i < batches; i++) {
+                Batch batch = done.take().get();
+                wins[batch.a][batch.b] += batch.aWins;
+                wins[batch.b][batch.a] += batch.bWins;
+                draws[batch.a][batch.b] += batch.draws;
+                gamesPlayed += batch.games;
+                if (listener != null) {
+                    listener.progress(BradleyTerry.rate(entrants, wins, draws),
+                            gamesPlayed, gamesTotal);
+                }
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("A tournament game failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return BradleyTerry.rate(entrants, wins, draws);
+    }
+
+    /**
+     * Plays one game on a reset Board and returns the winning mark, or
+     * Board.EMPTY for a draw. Player "X" moves first.
+     * 
+     * @param board - the board to play on; it is reset first.
+     * @param x - the Strategy playing "X".
+     * @param o - the Strategy playing "0".
+     */
+    public static int playGame(final Board board, final Strategy x, final Strategy o) {
+        board.reset();
+        int mark = Board.X;
+        while (true) {
+            board.play((mark == Board.X ? x : o).selectMove(board, mark), mark);
+            int winner = board.getWinner();
+            if (winner != Board.EMPTY) {
+                return winner;
+            }
+            if (board.isFull()) {
+                return Board.EMPTY;
+            }
+            mark = Board.opponent(mark);
+        }
+    }
+
+    /*
+     * A run of games between one pair of entrants, and its results once
+     * played. Game k of a pairing has entrant a moving first when k is even.
+     */
+    private static final class Batch {
+        final int a;
+        final int b;
+        final int firstGame;
+        final int games;
+        long aWins;
+        long bWins;
+        long draws;
+
+        Batch(final int a, final int b, final int firstGame, final int games) {
+            this.a = a;
+            this.b = b;
+            this.firstGame = firstGame;
+            this.games = games;
+        }
+    }
+
+    /*
+     * The per-thread state of a worker: its own strategies and board.
+     */
+    private static final class Worker {
+        private final Strategy[] strategies;
+        private final Board board = new Board();
+
+        Worker(final List<StrategyFactory> factories) {
+            Random rand = new Random(System.nanoTime() ^ Thread.currentThread().getId());
+            strategies = new Strategy[factories.size()];
+            for (int i = 0; i < strategies.length; i++) {
+                strategies[i] = factories.get(i).create(rand);
+            }
+        }
+
+        Batch play(final Batch batch) {
+            Strategy a = strategies[batch.a];
+            Strategy b = strategies[batch.b];
+            for (int k = batch.firstGame; k < batch.firstGame + batch.games; k++) {
+                boolean aFirst = (k & 1) == 0;
+                int winner = playGame(board, aFirst ? a : b, aFirst ? b : a);
+                if (winner == Board.EMPTY) {
+                    batch.draws++;
+                } else if ((winner == Board.X) == aFirst) {
+                    batch.aWins++;
+                } else {
+                    batch.bWins++;
+                }
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * Runs a tournament between the GameEngine levels from the command
+     * line and prints the standings as they change.
+     * 
+     * @param args - optional games per pair (default 333334, about one
+     * million games in all) and worker threads (default: all cores).
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        int gamesPerPair = args.length > 0 ? Integer.parseInt(args[0]) : 333334;
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        Tournament tournament = new Tournament();
+        tournament.registerEngineLevels();
+
+        final long start = System.nanoTime();
+        List<Rating> standings = tournament.run(gamesPerPair, threads,
+                new TournamentListener() {
+            private long lastReport;
+
+            public void progress(List<Rating> standings, long played, long total) {
+                long now = System.nanoTime();
+                if (now - lastReport > 1000000000L || played == total) {
+                    lastReport = now;
+                    System.out.printf("%,d / %,d games, leader %s%n",
+                            played, total, standings.get(0));
+                }
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long games = 0;
+        for (Rating rating : standings) {
+            System.out.println(rating);
+            games += rating.getGames();
+        }
+        games /= 2; // every game appears in two rows
+        System.out.printf("%,d games in %.2f s (%,.0f games/s on %d threads)%n",
+                games, seconds, games / seconds, threads);
+    }
+}
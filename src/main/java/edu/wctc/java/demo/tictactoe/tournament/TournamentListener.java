@@ -0,0 +1,21 @@
+package edu.wctc.java.demo.tictactoe.tournament;
+
+import java.util.List;
+
+/**
+ * Receives the standings of a running Tournament each time a batch of
+ * games finishes. Calls are made from the thread that called
+ * Tournament.run(), one at a time.
+ * 
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public interface TournamentListener {
+
+    /**
+     * @param standings - the ratings so far, best first.
+     * @param gamesPlayed - games finished so far.
+     * @param gamesTotal - games scheduled in the whole tournament.
+     */
+    void progress(List<Rating> standings, long gamesPlayed, long gamesTotal);
+}
@@ -0,0 +1,8 @@
+/**
+ * Provides a headless tournament runner that plays computer strategies
+ * against each other and rates them. Only the domain model is used, so
+ * tournaments run without any GUI.
+ *
+ * @since 2.0
+ */
+package edu.wctc.java.demo.tictactoe.tournament;
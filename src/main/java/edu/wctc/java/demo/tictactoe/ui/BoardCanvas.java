@@ -0,0 +1,251 @@
+package edu.wctc.java.demo.tictactoe.ui;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JComponent;
+
+/**
+ * This class is a single custom-painted component for a whole board. The
+ * classic game gives every square its own Tile button, which is fine for
+ * nine squares but not for the hundreds of a 15x15 or 4x4x4 board: each
+ * button is a full Swing component with its own layout, border and events.
+ * <P>
+ * A BoardCanvas instead keeps the marks in a byte array and paints them
+ * itself. The "X" and "0" glyphs are drawn once into images for the
+ * current cell size and then just copied, a changed cell repaints only its
+ * own rectangle, and a mouse click is turned into a cell index with a
+ * little arithmetic. Resizing the window only re-renders the two glyphs.
+ * Like every Swing component, a BoardCanvas must be used on the event
+ * dispatch thread.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class BoardCanvas extends JComponent {
+    private static final int PREFERRED_CELL = 40;
+    private static final Color GRID = new Color(120, 120, 120);
+    private static final Color X_COLOR = new Color(20, 60, 160);
+    private static final Color O_COLOR = new Color(180, 30, 30);
+    private static final Color HIGHLIGHT = Color.GREEN;
+
+    private final int rows;
+    private final int cols;
+    private final byte[] marks;
+    private final boolean[] highlighted;
+    private final List<CellListener> listeners = new ArrayList<CellListener>();
+    private BufferedImage xGlyph;
+    private BufferedImage oGlyph;
+    private int glyphSize = -1;
+
+    /**
+     * Creates an empty board.
+     *
+     * @param rows - the number of rows.
+     * @param cols - the number of columns.
+     */
+    public BoardCanvas(final int rows, final int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.marks = new byte[rows * cols];
+        this.highlighted = new boolean[rows * cols];
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseReleased(final MouseEvent evt) {
+                int cell = cellAt(evt.getX(), evt.getY());
+                if (cell >= 0 && isEnabled()) {
+                    for (CellListener listener : listeners) {
+                        listener.cellClicked(BoardCanvas.this, cell);
+                    }
+                }
+            }
+        });
+    }
+
+    public final void addCellListener(final CellListener listener) {
+        listeners.add(listener);
+    }
+
+    public final int getRows() {
+        return rows;
+    }
+
+    public final int getColumns() {
+        return cols;
+    }
+
+    /**
+     * Returns the mark shown in a cell: Board.X, Board.O or Board.EMPTY.
+     */
+    public final int getMark(final int cell) {
+        return marks[cell];
+    }
+
+    /**
+     * Shows a mark in a cell, repainting just that cell if it changed.
+     *
+     * @param cell - the cell index.
+     * @param mark - Board.X, Board.O or Board.EMPTY.
+     */
+    public final void setMark(final int cell, final int mark) {
+        if (marks[cell] != mark) {
+            marks[cell] = (byte) mark;
+            repaintCell(cell);
+        }
+    }
+
+    public final boolean isHighlighted(final int cell) {
+        return highlighted[cell];
+    }
+
+    /**
+     * Paints a cell's background green (or back to normal), e.g. to show
+     * a winning line.
+     */
+    public final void setHighlighted(final int cell, final boolean on) {
+        if (highlighted[cell] != on) {
+            highlighted[cell] = on;
+            repaintCell(cell);
+        }
+    }
+
+    /**
+     * Removes every mark and highlight.
+     */
+    public final void clear() {
+        java.util.Arrays.fill(marks, (byte) Board.EMPTY);
+        java.util.Arrays.fill(highlighted, false);
+        repaint();
+    }
+
+    /**
+     * Returns the cell under a point, or -1 if the point is off the board.
+     *
+     * @param x - in this component's coordinates.
+     * @param y - in this component's coordinates.
+     */
+    public final int cellAt(final int x, final int y) {
+        int size = getCellSize();
+        if (x < 0 || y < 0 || size == 0) {
+            return -1;
+        }
+        int col = x / size;
+        int row = y / size;
+        return row < rows && col < cols ? row * cols + col : -1;
+    }
+
+    /**
+     * Returns the area a cell is painted in.
+     */
+    public final Rectangle getCellBounds(final int cell) {
+        int size = getCellSize();
+        return new Rectangle((cell % cols) * size, (cell / cols) * size, size, size);
+    }
+
+    /*
+     * The grid line on the far edge belongs to the cell too, hence + 1.
+     */
+    private void repaintCell(final int cell) {
+        Rectangle bounds = getCellBounds(cell);
+        repaint(bounds.x, bounds.y, bounds.width + 1, bounds.height + 1);
+    }
+
+    /*
+     * Cells are square and as large as the component allows.
+     */
+    private int getCellSize() {
+        return Math.min(getWidth() / cols, getHeight() / rows);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+        return new Dimension(cols * PREFERRED_CELL + 1, rows * PREFERRED_CELL + 1);
+    }
+
+    /*
+     * Paints only the cells inside the clip, which after setMark() is
+     * the single cell that changed.
+     */
+    @Override
+    protected void paintComponent(final Graphics g) {
+        g.setColor(getBackground());
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        int size = getCellSize();
+        if (size < 4) {
+            return;
+        }
+        ensureGlyphs(size);
+        int firstCol = Math.max(0, clip.x / size);
+        int lastCol = Math.min(cols - 1, (clip.x + clip.width) / size);
+        int firstRow = Math.max(0, clip.y / size);
+        int lastRow = Math.min(rows - 1, (clip.y + clip.height) / size);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int cell = row * cols + col;
+                int x = col * size;
+                int y = row * size;
+                if (highlighted[cell]) {
+                    g.setColor(HIGHLIGHT);
+                    g.fillRect(x, y, size, size);
+                }
+                g.setColor(GRID);
+                g.drawRect(x, y, size, size);
+                if (marks[cell] == Board.X) {
+                    g.drawImage(xGlyph, x, y, null);
+                } else if (marks[cell] == Board.O) {
+                    g.drawImage(oGlyph, x, y, null);
+                }
+            }
+        }
+    }
+
+    /*
+     * Renders the two glyphs for a cell size, once per size.
+     */
+    private void ensureGlyphs(final int size) {
+        if (size == glyphSize) {
+            return;
+        }
+        glyphSize = size;
+        xGlyph = renderGlyph(size, Board.X);
+        oGlyph = renderGlyph(size, Board.O);
+    }
+
+    private static BufferedImage renderGlyph(final int size, final int mark) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        int pad = Math.max(2, size / 5);
+        g.setStroke(new BasicStroke(Math.max(1.5f, size / 10f),
+                BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        if (mark == Board.X) {
+            g.setColor(X_COLOR);
+            g.drawLine(pad, pad, size - pad, size - pad);
+            g.drawLine(size - pad, pad, pad, size - pad);
+        } else {
+            g.setColor(O_COLOR);
+            g.drawOval(pad, pad, size - 2 * pad, size - 2 * pad);
+        }
+        g.dispose();
+        return image;
+    }
+}
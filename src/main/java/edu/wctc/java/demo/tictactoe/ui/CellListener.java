@@ -0,0 +1,17 @@
+package edu.wctc.java.demo.tictactoe.ui;
+
+/**
+ * Receives the cell a player clicked on a BoardCanvas. Calls are made on
+ * the event dispatch thread.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public interface CellListener {
+
+    /**
+     * @param canvas - the board that was clicked.
+     * @param cell - the cell index, row * columns + column.
+     */
+    void cellClicked(BoardCanvas canvas, int cell);
+}
@@ -1,13 +1,27 @@
 package edu.wctc.java.demo.tictactoe.ui;
 
 import edu.wctc.java.demo.tictactoe.domain.GameEngine;
+import edu.wctc.java.demo.tictactoe.domain.GameEventPublisher;
+import edu.wctc.java.demo.tictactoe.domain.GameUpdate;
+import edu.wctc.java.demo.tictactoe.domain.MoveScore;
 import edu.wctc.java.demo.tictactoe.domain.Tile;
+import edu.wctc.java.demo.tictactoe.learning.LearnedStrategy;
 import java.awt.Color;
 import java.awt.event.ActionListener;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.util.concurrent.Flow;
 import javax.swing.ImageIcon;
-import javax.swing.JButton;
+import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JFileChooser;
+import javax.swing.JMenu;
+import javax.swing.JMenuBar;
+import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JSlider;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeListener;
 
 /**
@@ -29,6 +43,9 @@ import javax.swing.event.ChangeListener;
  * classes in a different application, a web app or a console app, for
  * example, without changing the code in the controller or model classes.
  * Only a new View would be needed.
+ * <P>
+ * The window learns of wins and totals by subscribing to the engine's
+ * GameEventPublisher, rather than by asking the engine after each move.
  * 
  * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
  * @version  1.09
@@ -41,46 +58,216 @@ public class GameWindow extends javax.swing.JFrame implements ActionListener, Ch
     private static final String NEW_GAME_MSG = " Want to play a new game?";
     private static final String ICON = "/images/question-icon.png";
     private GameEngine game;
+    private GameEventPublisher events;
+    private Tile[] tiles;
+    private long paintedCells;
+    private JCheckBoxMenuItem showHints;
+    private JMenuItem undoMove;
+    private JMenuItem redoMove;
+    private JMenuItem takeBack;
     
     /**
      * Creates new form GameWindow
      */
     public GameWindow() {
         initComponents();
+        initMenus();
         game = new GameEngine();
+        tiles = new Tile[] {
+            (Tile)r1c1,(Tile)r1c2,(Tile)r1c3,
+            (Tile)r2c1,(Tile)r2c2,(Tile)r2c3,
+            (Tile)r3c1,(Tile)r3c2,(Tile)r3c3
+        };
+        events = new GameEventPublisher(game);
+        events.subscribe(new ViewSubscriber());
         startNewGame();
     }
     
+    /*
+     * Takes the engine's updates one at a time, on a publisher thread,
+     * and shows each on the event thread.
+     */
+    private final class ViewSubscriber implements Flow.Subscriber<GameUpdate> {
+        private Flow.Subscription subscription;
+
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        public void onNext(final GameUpdate update) {
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    showUpdate(update);
+                }
+            });
+            subscription.request(1);
+        }
+
+        public void onError(final Throwable throwable) {
+            System.err.println("Game updates stopped: " + throwable);
+        }
+
+        public void onComplete() {
+        }
+    }
+    
+    /*
+     * Shows the totals and paints the winning line, if any, green. Tiles
+     * of a line no longer winning (a new game, a move taken back) turn
+     * white again.
+     */
+    private void showUpdate(final GameUpdate update) {
+        getCompWins().setText(""+ update.getoWins());
+        getYouWins().setText(""+ update.getxWins());
+        getDrawsTotal().setText(""+ update.getDraws());
+        long winning = update.getWinningCells();
+        for (int i = 0; i < tiles.length; i++) {
+            if ((winning & (1L << i)) != 0L) {
+                tiles[i].setBackground(Color.GREEN);
+            } else if ((paintedCells & (1L << i)) != 0L) {
+                tiles[i].setBackground(Color.WHITE);
+            }
+        }
+        paintedCells = winning;
+    }
+    
+    /*
+     * The menu bar is built by hand, outside the Form Editor's generated
+     * code, so the generated layout of the board stays untouched.
+     */
+    private void initMenus() {
+        showHints = new JCheckBoxMenuItem("Show Hints");
+        showHints.addActionListener(new ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                updateHints();
+            }
+        });
+        JMenuItem learned = new JMenuItem("Play Learned Opponent...");
+        learned.addActionListener(new ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                loadLearnedOpponent();
+            }
+        });
+        JMenu options = new JMenu("Options");
+        options.add(showHints);
+        options.add(learned);
+        undoMove = editItem("Undo Move", KeyEvent.VK_Z, new ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                game.undoMove();
+                afterEdit();
+            }
+        });
+        redoMove = editItem("Redo Move", KeyEvent.VK_Y, new ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                game.redoMove();
+                afterEdit();
+            }
+        });
+        takeBack = editItem("Take Back", KeyEvent.VK_T, new ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                game.takeBack();
+                afterEdit();
+            }
+        });
+        JMenu edit = new JMenu("Edit");
+        edit.add(undoMove);
+        edit.add(redoMove);
+        edit.addSeparator();
+        edit.add(takeBack);
+        JMenuBar menuBar = new JMenuBar();
+        menuBar.add(edit);
+        menuBar.add(options);
+        setJMenuBar(menuBar);
+        setSize(getWidth(), getHeight() + menuBar.getPreferredSize().height);
+    }
+    
+    /*
+     * Lets the player pick a value table saved by the SelfPlayTrainer and
+     * play against it. Moving the smarts slider brings back the usual
+     * opponents.
+     */
+    private void loadLearnedOpponent() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            game.setStrategy(new LearnedStrategy(chooser.getSelectedFile().toPath()));
+            statusMsg.setText("Playing the learned opponent");
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Can not load opponent",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    private JMenuItem editItem(final String text, final int key,
+            final ActionListener listener) {
+        JMenuItem item = new JMenuItem(text);
+        item.setAccelerator(KeyStroke.getKeyStroke(key, InputEvent.CTRL_DOWN_MASK));
+        item.addActionListener(listener);
+        return item;
+    }
+    
+    /*
+     * Refreshes the window after an undo, redo or take back. The moves
+     * come off the engine's move stack, so the game goes on without
+     * calling initNewGame.
+     */
+    private void afterEdit() {
+        updateHints();
+        updateEditMenu();
+        if (game.getPlayerToMove().equals("0")) {
+            statusMsg.setText("Computer's turn: click any tile to let it move");
+        } else {
+            statusMsg.setText("Your move");
+        }
+    }
+    
+    private void updateEditMenu() {
+        undoMove.setEnabled(game.canUndo());
+        redoMove.setEnabled(game.canRedo());
+        takeBack.setEnabled(game.canUndo());
+    }
+    
+    /*
+     * Shows (or clears) the perfect-play score of every open tile for the
+     * human player. The analysis comes from the engine's shared solver
+     * table, so it is cheap enough to run on the event thread every move.
+     */
+    private void updateHints() {
+        if (!showHints.isSelected()) {
+            for (Tile tile : tiles) {
+                tile.setHint(null);
+            }
+            return;
+        }
+        MoveScore[] scores = game.analyzeMoves("X");
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i].setHint(scores[i]);
+        }
+    }
+    
+    /*
+     * Clears the Tiles and starts the next game on the same ones, so the
+     * engine resets in place instead of rebuilding its Rails.
+     */
     private void startNewGame() {
-        Tile[] tiles = {
-            (Tile)r1c1,(Tile)r1c2,(Tile)r1c3,
-            (Tile)r2c1,(Tile)r2c2,(Tile)r2c3,
-            (Tile)r3c1,(Tile)r3c2,(Tile)r3c3
-        };  
         for (Tile tile : tiles) {
             tile.setText("");
         }
         game.initNewGame(tiles);
+        updateHints();
+        updateEditMenu();
     }
     
-    private void updateStats() {
-        getCompWins().setText(""+ game.getoWins());
-        getYouWins().setText(""+ game.getxWins());
-        getDrawsTotal().setText(""+ game.getDraws());
-    }    
- 
    private void askStartNewGame(final String playerMsg) {
-        updateStats();
         ImageIcon icon = createImageIcon(ICON);
         int result = JOptionPane.showConfirmDialog(getStatusMsg(), 
                 playerMsg + NEW_GAME_MSG, "Game Over", 
                 JOptionPane.OK_CANCEL_OPTION, 
                 JOptionPane.QUESTION_MESSAGE, icon);
         if (result == JOptionPane.OK_OPTION) {
-            for(JButton tile : game.getTiles()) {
-                tile.setBackground(Color.WHITE);
-                tile.setText("");
-            }
             startNewGame();
         } else {
             System.exit(0);
@@ -108,10 +295,14 @@ public class GameWindow extends javax.swing.JFrame implements ActionListener, Ch
     * UI with relevant information.
     */
     private void processMove(final Tile tile) {
+        if (game.getPlayerToMove().equals("0")) {
+            // An undo or redo left the computer to move; let it move now
+            computerMove();
+            return;
+        }
         if (tile.getText().equals(EMPTY_TILE)) {
             statusMsg.setText("Good move!");
-            tile.setText("X");
-            game.incrementTilesPlayed();
+            game.markTile(tile, "X");
             
             if (game.checkForDraw()) {
                 statusMsg.setText(DRAW_MSG);
@@ -129,28 +320,34 @@ public class GameWindow extends javax.swing.JFrame implements ActionListener, Ch
                 return;
             }
 
-            Tile tile0 = game.selectComputerMove();
-            if (tile0 == null || tile0.isSelected()) {
-                // No valid move available (should not happen mid-game)
-                return;
-            }
-            tile0.setText("0");
-            game.incrementTilesPlayed();
-            
-            if (game.checkForWin()) {
-                if (game.getWinningPlayer().equals("X")) {
-                    statusMsg.setText(YOU_WIN_MSG);
-                } else {
-                    statusMsg.setText(COMP_WIN_MSG);
-                }
-                askStartNewGame(COMP_WIN_MSG);
-                return;
-            }
-            
+            computerMove();
         } else {
             statusMsg.setText("Sorry, that tile is taken!");
         }
     }
+
+    /*
+     * Lets the GameEngine choose and mark the computer's "0" move.
+     */
+    private void computerMove() {
+        Tile tile0 = game.selectComputerMove();
+        if (tile0 == null || tile0.isSelected()) {
+            // No valid move available (should not happen mid-game)
+            return;
+        }
+        game.markTile(tile0, "0");
+        
+        updateHints();
+        updateEditMenu();
+        if (game.checkForWin()) {
+            if (game.getWinningPlayer().equals("X")) {
+                statusMsg.setText(YOU_WIN_MSG);
+            } else {
+                statusMsg.setText(COMP_WIN_MSG);
+            }
+            askStartNewGame(COMP_WIN_MSG);
+        }
+    }
     
     /**
      * This method is called from within the constructor to initialize the form.
@@ -293,11 +490,10 @@ public class GameWindow extends javax.swing.JFrame implements ActionListener, Ch
         statusMsg.setText("Click a button to start new game");
         statusMsg.setBorder(javax.swing.BorderFactory.createEtchedBorder());
 
-        smartSlider.setMinorTickSpacing(50);
+        smartSlider.setMinorTickSpacing(10);
         smartSlider.setOrientation(javax.swing.JSlider.VERTICAL);
         smartSlider.setPaintLabels(true);
         smartSlider.setPaintTicks(true);
-        smartSlider.setSnapToTicks(true);
         smartSlider.setToolTipText("Computer Smarts");
         smartSlider.setValue(100);
         smartSlider.addChangeListener(this);
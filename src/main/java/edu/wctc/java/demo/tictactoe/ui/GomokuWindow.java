@@ -0,0 +1,162 @@
+package edu.wctc.java.demo.tictactoe.ui;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.GomokuBoard;
+import edu.wctc.java.demo.tictactoe.domain.GomokuEngine;
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.util.concurrent.ExecutionException;
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
+
+/**
+ * This class is the GUI for Gomoku, five in a row on a 15x15 board. The
+ * whole board is one BoardCanvas, so the 225 cells cost no more than a
+ * single component. The human plays "X" against the GomokuEngine, whose
+ * search runs on a background thread so the window stays responsive.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class GomokuWindow extends javax.swing.JFrame implements CellListener {
+    private static final int[] DROW = {0, 1, 1, 1};
+    private static final int[] DCOL = {1, 0, 1, -1};
+
+    private final BoardCanvas canvas = new BoardCanvas(GomokuBoard.SIZE, GomokuBoard.SIZE);
+    private final JLabel statusMsg = new JLabel("Your move", SwingConstants.CENTER);
+    private final GomokuEngine engine = new GomokuEngine();
+    private GomokuBoard board = new GomokuBoard();
+    private boolean thinking;
+
+    /**
+     * Creates the Gomoku window with an empty board.
+     */
+    public GomokuWindow() {
+        super("Gomoku 15x15");
+        setDefaultCloseOperation(javax.swing.WindowConstants.DISPOSE_ON_CLOSE);
+        canvas.addCellListener(this);
+        JPanel margin = new JPanel(new BorderLayout());
+        margin.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        margin.add(canvas, BorderLayout.CENTER);
+        statusMsg.setFont(new Font("Tahoma", Font.PLAIN, 14));
+        statusMsg.setBorder(BorderFactory.createEtchedBorder());
+        getContentPane().add(margin, BorderLayout.CENTER);
+        getContentPane().add(statusMsg, BorderLayout.SOUTH);
+        pack();
+        setLocationRelativeTo(null);
+    }
+
+    public void cellClicked(final BoardCanvas source, final int cell) {
+        if (thinking || board.isGameOver()) {
+            return;
+        }
+        if (board.get(cell) != Board.EMPTY) {
+            statusMsg.setText("Sorry, that cell is taken!");
+            return;
+        }
+        mark(cell);
+        if (!checkGameOver()) {
+            computerMove();
+        }
+    }
+
+    private void mark(final int cell) {
+        canvas.setMark(cell, board.getSideToMove());
+        board.play(cell);
+    }
+
+    /*
+     * Runs the engine search on a background thread. Clicks are ignored
+     * while it thinks, so the event thread leaves the board alone until
+     * the search is done.
+     */
+    private void computerMove() {
+        thinking = true;
+        statusMsg.setText("Thinking...");
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return engine.selectMove(board);
+            }
+
+            @Override
+            protected void done() {
+                thinking = false;
+                try {
+                    mark(get());
+                    if (!checkGameOver()) {
+                        statusMsg.setText("Your move");
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    statusMsg.setText("The computer could not move: " + ex.getCause());
+                }
+            }
+        }.execute();
+    }
+
+    private boolean checkGameOver() {
+        if (!board.isGameOver()) {
+            return false;
+        }
+        int winner = board.getWinner();
+        String msg;
+        if (winner == Board.EMPTY) {
+            msg = "This game is a draw. No winner!";
+        } else {
+            msg = winner == Board.X ? "You Won, Game Over!" : "Computer Wins, Game Over!";
+            highlightWin(board.getMove(board.getMovesPlayed() - 1), winner);
+        }
+        statusMsg.setText(msg);
+        int result = JOptionPane.showConfirmDialog(this,
+                msg + " Want to play a new game?", "Game Over",
+                JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            startNewGame();
+        } else {
+            dispose();
+        }
+        return true;
+    }
+
+    /*
+     * The winning move is part of the line, so walk out from it in each
+     * direction and highlight the first run of five or more.
+     */
+    private void highlightWin(final int last, final int winner) {
+        int row = last / GomokuBoard.SIZE;
+        int col = last % GomokuBoard.SIZE;
+        for (int d = 0; d < DROW.length; d++) {
+            int back = 0;
+            while (owns(row - (back + 1) * DROW[d], col - (back + 1) * DCOL[d], winner)) {
+                back++;
+            }
+            int ahead = 0;
+            while (owns(row + (ahead + 1) * DROW[d], col + (ahead + 1) * DCOL[d], winner)) {
+                ahead++;
+            }
+            if (back + ahead + 1 >= 5) {
+                for (int i = -back; i <= ahead; i++) {
+                    canvas.setHighlighted(GomokuBoard.cell(row + i * DROW[d], col + i * DCOL[d]), true);
+                }
+                return;
+            }
+        }
+    }
+
+    private boolean owns(final int row, final int col, final int mark) {
+        return row >= 0 && row < GomokuBoard.SIZE && col >= 0 && col < GomokuBoard.SIZE
+                && board.get(GomokuBoard.cell(row, col)) == mark;
+    }
+
+    private void startNewGame() {
+        board = new GomokuBoard();
+        canvas.clear();
+        statusMsg.setText("Your move");
+    }
+}
@@ -0,0 +1,155 @@
+package edu.wctc.java.demo.tictactoe.ui;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.QubicBoard;
+import edu.wctc.java.demo.tictactoe.domain.QubicEngine;
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.GridLayout;
+import java.util.concurrent.ExecutionException;
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
+
+/**
+ * This class is the GUI for Qubic, 4x4x4 tic-tac-toe. The cube is shown as
+ * four 4x4 layers side by side, each painted by one BoardCanvas. The human
+ * plays "X" against the QubicEngine, whose search runs on a background
+ * thread so the window stays responsive while the computer thinks.
+ *
+ * @author   Jim Lombardo, Lead Java Instructor, jlombardo@wctc.edu
+ * @version  1.1.0
+ */
+public class QubicWindow extends javax.swing.JFrame implements CellListener {
+    private static final long THINK_MILLIS = 2000;
+
+    private final BoardCanvas[] layers = new BoardCanvas[4];
+    private final JLabel statusMsg = new JLabel("Your move", SwingConstants.CENTER);
+    private final QubicEngine engine = new QubicEngine();
+    private QubicBoard board = new QubicBoard();
+    private boolean thinking;
+
+    /**
+     * Creates the Qubic window with an empty cube.
+     */
+    public QubicWindow() {
+        super("Qubic 4x4x4");
+        setDefaultCloseOperation(javax.swing.WindowConstants.DISPOSE_ON_CLOSE);
+        JPanel cube = new JPanel(new GridLayout(1, 4, 12, 0));
+        cube.setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
+        for (int z = 0; z < 4; z++) {
+            layers[z] = new BoardCanvas(4, 4);
+            layers[z].addCellListener(this);
+            JPanel layer = new JPanel(new BorderLayout());
+            layer.setBorder(BorderFactory.createTitledBorder("Layer " + (z + 1)));
+            layer.add(layers[z], BorderLayout.CENTER);
+            cube.add(layer);
+        }
+        statusMsg.setFont(new Font("Tahoma", Font.PLAIN, 14));
+        statusMsg.setBorder(BorderFactory.createEtchedBorder());
+        getContentPane().add(cube, BorderLayout.CENTER);
+        getContentPane().add(statusMsg, BorderLayout.SOUTH);
+        setSize(900, 300);
+        setLocationRelativeTo(null);
+    }
+
+    public void cellClicked(final BoardCanvas source, final int square) {
+        int z = java.util.Arrays.asList(layers).indexOf(source);
+        int cell = z * 16 + square;
+        if (thinking || board.isGameOver()) {
+            return;
+        }
+        if (board.get(cell) != Board.EMPTY) {
+            statusMsg.setText("Sorry, that cell is taken!");
+            return;
+        }
+        mark(cell);
+        if (!checkGameOver()) {
+            computerMove();
+        }
+    }
+
+    private void mark(final int cell) {
+        layers[cell / 16].setMark(cell % 16, board.getSideToMove());
+        board.play(cell);
+    }
+
+    /*
+     * Runs the engine search on a background thread. Clicks are ignored
+     * while it thinks, so the event thread leaves the board alone until
+     * the search is done.
+     */
+    private void computerMove() {
+        thinking = true;
+        statusMsg.setText("Thinking...");
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return engine.selectMove(board, THINK_MILLIS);
+            }
+
+            @Override
+            protected void done() {
+                thinking = false;
+                try {
+                    mark(get());
+                    if (!checkGameOver()) {
+                        statusMsg.setText("Your move");
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    statusMsg.setText("The computer could not move: " + ex.getCause());
+                }
+            }
+        }.execute();
+    }
+
+    private boolean checkGameOver() {
+        if (!board.isGameOver()) {
+            return false;
+        }
+        int winner = board.getWinner();
+        String msg;
+        if (winner == Board.EMPTY) {
+            msg = "This game is a draw. No winner!";
+        } else {
+            msg = winner == Board.X ? "You Won, Game Over!" : "Computer Wins, Game Over!";
+            highlightWin(winner);
+        }
+        statusMsg.setText(msg);
+        int result = JOptionPane.showConfirmDialog(this,
+                msg + " Want to play a new game?", "Game Over",
+                JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            startNewGame();
+        } else {
+            dispose();
+        }
+        return true;
+    }
+
+    private void highlightWin(final int winner) {
+        long own = board.getMask(winner);
+        for (int line = 0; line < QubicBoard.LINES; line++) {
+            long mask = QubicBoard.getLineMask(line);
+            if ((own & mask) == mask) {
+                for (long rest = mask; rest != 0L; rest &= rest - 1) {
+                    int cell = Long.numberOfTrailingZeros(rest);
+                    layers[cell / 16].setHighlighted(cell % 16, true);
+                }
+            }
+        }
+    }
+
+    private void startNewGame() {
+        board = new QubicBoard();
+        for (BoardCanvas layer : layers) {
+            layer.clear();
+        }
+        statusMsg.setText("Your move");
+    }
+}
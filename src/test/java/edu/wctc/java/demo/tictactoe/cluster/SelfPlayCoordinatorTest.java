@@ -0,0 +1,81 @@
+package edu.wctc.java.demo.tictactoe.cluster;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import java.io.IOException;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for SelfPlayCoordinator with real worker processes, including a
+ * worker that dies part way through.
+ */
+public class SelfPlayCoordinatorTest {
+
+    private static void assertSameResults(SelfPlayStats expected, SelfPlayStats actual) {
+        assertEquals(expected.getOpeningCount(), actual.getOpeningCount());
+        for (int i = 0; i < expected.getOpeningCount(); i++) {
+            assertEquals(expected.getWins(i, Board.X), actual.getWins(i, Board.X));
+            assertEquals(expected.getWins(i, Board.O), actual.getWins(i, Board.O));
+            assertEquals(expected.getDraws(i), actual.getDraws(i));
+        }
+    }
+
+    @Test
+    public void openingsCoverEveryPrefix() {
+        assertEquals(1, new SelfPlayCoordinator(0, 0, 0, 1, 1L).runInProcess().getOpeningCount());
+        assertEquals(9, new SelfPlayCoordinator(0, 0, 1, 1, 1L).runInProcess().getOpeningCount());
+        SelfPlayStats stats = new SelfPlayCoordinator(0, 0, 2, 1, 1L).runInProcess();
+        assertEquals(72, stats.getOpeningCount());
+        assertArrayEquals(new int[] {0, 1}, stats.getOpening(0));
+        assertEquals(72, stats.getGames());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefixMustBeShort() {
+        new SelfPlayCoordinator(0, 0, 5, 1, 1L);
+    }
+
+    @Test
+    public void geniusPlayDrawsFromACornerOpening() {
+        SelfPlayStats stats = new SelfPlayCoordinator(100, 100, 1, 3, 1L).runInProcess();
+        assertEquals(3, stats.getDraws(0));
+        assertEquals(27, stats.getGames());
+    }
+
+    @Test
+    public void workersMatchInProcessPlay() throws Exception {
+        SelfPlayCoordinator coordinator = new SelfPlayCoordinator(50, 0, 1, 600, 77L);
+        SelfPlayStats local = coordinator.runInProcess();
+        SelfPlayStats distributed = coordinator.run(2);
+        assertEquals(5400, distributed.getGames());
+        assertEquals(0, distributed.getReassigned());
+        assertSameResults(local, distributed);
+    }
+
+    @Test
+    public void unitsOfADeadWorkerAreReassigned() throws Exception {
+        SelfPlayCoordinator coordinator = new SelfPlayCoordinator(50, 0, 1, 600, 78L);
+        coordinator.setExitAfter(2);
+        SelfPlayStats distributed = coordinator.run(2);
+        assertTrue(distributed.getReassigned() > 0);
+        assertEquals(5400, distributed.getGames());
+        assertSameResults(coordinator.runInProcess(), distributed);
+    }
+
+    @Test(timeout = 120000)
+    public void unitsOfAWorkerDyingMidResultAreReassigned() throws Exception {
+        SelfPlayCoordinator coordinator = new SelfPlayCoordinator(50, 0, 1, 600, 80L);
+        coordinator.setExitMidResult(2);
+        SelfPlayStats distributed = coordinator.run(2);
+        assertTrue(distributed.getReassigned() > 0);
+        assertEquals(5400, distributed.getGames());
+        assertSameResults(coordinator.runInProcess(), distributed);
+    }
+
+    @Test(expected = IOException.class)
+    public void runFailsWhenEveryWorkerDies() throws Exception {
+        SelfPlayCoordinator coordinator = new SelfPlayCoordinator(50, 0, 1, 600, 79L);
+        coordinator.setExitAfter(1);
+        coordinator.run(1);
+    }
+}
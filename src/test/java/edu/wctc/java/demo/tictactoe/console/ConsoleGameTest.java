@@ -0,0 +1,72 @@
+package edu.wctc.java.demo.tictactoe.console;
+
+import edu.wctc.java.demo.tictactoe.domain.GeniusStrategy;
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Scanner;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for ConsoleGame covering scripted play, bad input, and a real JVM
+ * run confirming the console mode never loads AWT or Swing.
+ */
+public class ConsoleGameTest {
+
+    private String play(String input, Strategy strategy, ConsoleGame[] game) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, "UTF-8");
+        game[0] = new ConsoleGame(new BufferedReader(new StringReader(input)), out, strategy);
+        game[0].play();
+        return bytes.toString("UTF-8");
+    }
+
+    @Test
+    public void geniusNeverLosesAScriptedGame() throws Exception {
+        // Moves on taken tiles are refused and the next line is read
+        ConsoleGame[] game = new ConsoleGame[1];
+        String output = play("1\n2\n9\n7\n8\nn\n", new GeniusStrategy(), game);
+        assertTrue(output.contains("Computer Wins, Game Over!")
+                || output.contains("This game is a draw. No winner!"));
+        assertEquals(0, game[0].getxWins());
+        assertTrue(output.endsWith("Goodbye!" + System.lineSeparator()));
+    }
+
+    @Test
+    public void badInputIsRejectedAndEndOfInputQuits() throws Exception {
+        ConsoleGame[] game = new ConsoleGame[1];
+        String output = play("hello\n10\n5\n5\n", new GeniusStrategy(), game);
+        assertTrue(output.contains("Please type a number from 1 to 9."));
+        assertTrue(output.contains("Sorry, that tile is taken!"));
+        assertTrue(output.contains(" 1 | 2 | 3"));
+        assertTrue(output.contains("Goodbye!"));
+        assertEquals(0, game[0].getxWins() + game[0].getoWins() + game[0].getDraws());
+    }
+
+    @Test
+    public void consoleModeNeverLoadsAwt() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder pb = new ProcessBuilder(Arrays.asList(java, "-verbose:class",
+                "-cp", System.getProperty("java.class.path"),
+                "edu.wctc.java.demo.tictactoe.app.TicTacToe", "--console"));
+        pb.redirectErrorStream(true);
+        Process process = pb.start();
+        OutputStream stdin = process.getOutputStream();
+        stdin.write("5\nq\n".getBytes("UTF-8"));
+        stdin.close();
+        InputStream stdout = process.getInputStream();
+        String output = new Scanner(stdout, "UTF-8").useDelimiter("\\A").next();
+        assertEquals(0, process.waitFor());
+        assertTrue(output.contains("Goodbye!"));
+        assertTrue(output.contains("ConsoleGame"));
+        assertFalse(output.contains("java.awt."));
+        assertFalse(output.contains("javax.swing."));
+    }
+}
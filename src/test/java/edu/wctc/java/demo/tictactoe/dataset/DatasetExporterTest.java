@@ -0,0 +1,92 @@
+package edu.wctc.java.demo.tictactoe.dataset;
+
+import edu.wctc.java.demo.tictactoe.domain.Geometry;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for DatasetExporter checking the 3x3 position counts against
+ * known totals, the solved values and both file formats.
+ */
+public class DatasetExporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private List<String> exportCsv(Geometry geometry, int maxPly, int horizon)
+            throws IOException, InterruptedException {
+        File file = folder.newFile();
+        new DatasetExporter(geometry, maxPly, horizon, DatasetFormat.CSV)
+                .export(file.toPath(), 2);
+        return Files.readAllLines(file.toPath(), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void classicBoardHasKnownPositionCounts() throws Exception {
+        List<String> lines = exportCsv(Geometry.CLASSIC, 9, 9);
+        assertEquals("board,ply,outcome,plies,best_moves,symmetry_class", lines.get(0));
+        Set<String> boards = new HashSet<String>();
+        Set<String> classes = new HashSet<String>();
+        int finished = 0;
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",", -1);
+            boards.add(fields[0]);
+            classes.add(fields[5]);
+            if (fields[4].isEmpty()) {
+                finished++;
+            }
+        }
+        assertEquals(5478, lines.size() - 1);
+        assertEquals(5478, boards.size());
+        assertEquals(765, classes.size());
+        assertEquals(958, finished);
+    }
+
+    @Test
+    public void emptyBoardIsSolvedAsDraw() throws Exception {
+        for (String line : exportCsv(Geometry.CLASSIC, 1, 9)) {
+            if (line.startsWith("---------,")) {
+                assertEquals("---------,0,D,9,0 1 2 3 4 5 6 7 8,---------", line);
+                return;
+            }
+        }
+        fail("empty board not exported");
+    }
+
+    @Test
+    public void shallowHorizonReportsUnknownValues() throws Exception {
+        List<String> lines = exportCsv(Geometry.of(4, 4), 2, 2);
+        // 1 + 16 + 16 * 15 positions
+        assertEquals(1 + 1 + 16 + 240, lines.size());
+        assertTrue(lines.get(1).contains(",?,"));
+    }
+
+    @Test
+    public void columnarFileHoldsEveryRow() throws Exception {
+        File file = folder.newFile();
+        long written = new DatasetExporter(Geometry.CLASSIC, 9, 9,
+                DatasetFormat.COLUMNAR).export(file.toPath(), 2);
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file.toPath()))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals('T', in.get());
+        in.position(7);
+        long rows = 0;
+        while (in.hasRemaining()) {
+            int count = in.getInt();
+            rows += count;
+            in.position(in.position() + count * (8 * 5 + 3));
+        }
+        assertEquals(5478, written);
+        assertEquals(5478, rows);
+    }
+}
@@ -0,0 +1,99 @@
+package edu.wctc.java.demo.tictactoe.dataset;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.Geometry;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for GameTreeEnumerator checking the 3x3 game counts against known
+ * totals and the depth-bounded walk of larger boards.
+ */
+public class GameTreeEnumeratorTest {
+    private static final long[] CLASSIC_NODES =
+            {1, 9, 72, 504, 3024, 15120, 54720, 148176, 200448, 127872};
+    private static final long[] CLASSIC_POSITIONS =
+            {1, 9, 72, 252, 756, 1260, 1520, 1140, 390, 78};
+
+    @Test
+    public void classicBoardHasKnownGameCounts() {
+        TreeStatistics stats = new GameTreeEnumerator(Geometry.CLASSIC, 9).enumerate(2);
+        assertEquals(255168, stats.getGames());
+        assertEquals(131184, stats.getWins(Board.X));
+        assertEquals(77904, stats.getWins(Board.O));
+        assertEquals(46080, stats.getDraws());
+        assertEquals(0, stats.getCutoffs());
+
+        assertEquals(1440, stats.getWins(Board.X, 5));
+        assertEquals(47952, stats.getWins(Board.X, 7));
+        assertEquals(81792, stats.getWins(Board.X, 9));
+        assertEquals(5328, stats.getWins(Board.O, 6));
+        assertEquals(72576, stats.getWins(Board.O, 8));
+        assertEquals(46080, stats.getDraws(9));
+        for (int ply = 0; ply <= 9; ply++) {
+            assertEquals(CLASSIC_NODES[ply], stats.getNodes(ply));
+            assertEquals(CLASSIC_POSITIONS[ply], stats.getPositions(ply));
+        }
+        assertEquals(549946, stats.getTotalNodes());
+        assertEquals(5478, stats.getTotalPositions());
+    }
+
+    @Test
+    public void classicFirstMovesHaveKnownOutcomes() {
+        TreeStatistics stats = new GameTreeEnumerator(Geometry.CLASSIC, 9).enumerate(1);
+        for (int corner : new int[] {0, 2, 6, 8}) {
+            assertEquals(14652, stats.getFirstMoveWins(corner, Board.X));
+            assertEquals(7896, stats.getFirstMoveWins(corner, Board.O));
+            assertEquals(5184, stats.getFirstMoveDraws(corner));
+        }
+        for (int edge : new int[] {1, 3, 5, 7}) {
+            assertEquals(14232, stats.getFirstMoveWins(edge, Board.X));
+            assertEquals(10176, stats.getFirstMoveWins(edge, Board.O));
+            assertEquals(5184, stats.getFirstMoveDraws(edge));
+        }
+        assertEquals(15648, stats.getFirstMoveWins(4, Board.X));
+        assertEquals(5616, stats.getFirstMoveWins(4, Board.O));
+        assertEquals(4608, stats.getFirstMoveDraws(4));
+    }
+
+    @Test
+    public void boundedWalkStopsAtThePlyLimit() {
+        // No one can make four in a row before ply 7
+        TreeStatistics stats = new GameTreeEnumerator(Geometry.of(4, 4), 4).enumerate(2);
+        assertEquals(16, stats.getMaxPly());
+        long expected = 1;
+        for (int ply = 0; ply <= 4; ply++) {
+            assertEquals(expected, stats.getNodes(ply));
+            expected *= 16 - ply;
+        }
+        assertEquals(0, stats.getNodes(5));
+        assertEquals(0, stats.getGames());
+        assertEquals(16L * 15 * 14 * 13, stats.getCutoffs());
+        assertEquals(16 * 15 / 2 * 14 * 13 / 2, stats.getPositions(4));
+    }
+
+    @Test
+    public void threadCountDoesNotChangeTheCounts() {
+        GameTreeEnumerator enumerator = new GameTreeEnumerator(Geometry.of(4, 3), 7);
+        TreeStatistics one = enumerator.enumerate(1);
+        TreeStatistics three = enumerator.enumerate(3);
+        assertTrue(one.getWins(Board.X, 5) > 0);
+        for (int ply = 0; ply <= 7; ply++) {
+            assertEquals(one.getNodes(ply), three.getNodes(ply));
+            assertEquals(one.getPositions(ply), three.getPositions(ply));
+            assertEquals(one.getWins(Board.X, ply), three.getWins(Board.X, ply));
+            assertEquals(one.getWins(Board.O, ply), three.getWins(Board.O, ply));
+        }
+        assertEquals(one.getCutoffs(), three.getCutoffs());
+        // At the limit every node is a finished game or cut off
+        assertEquals(one.getNodes(7), one.getCutoffs() + one.getWins(Board.X, 7));
+    }
+
+    @Test
+    public void largeBoardsDoNotTrackPositions() {
+        TreeStatistics stats = new GameTreeEnumerator(Geometry.of(5, 4), 2).enumerate(1);
+        assertEquals(25 * 24, stats.getNodes(2));
+        assertEquals(-1, stats.getPositions(2));
+        assertEquals(-1, stats.getTotalPositions());
+    }
+}
@@ -0,0 +1,127 @@
+package edu.wctc.java.demo.tictactoe.dataset;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.EasyStrategy;
+import edu.wctc.java.demo.tictactoe.domain.GeniusStrategy;
+import edu.wctc.java.demo.tictactoe.domain.Geometry;
+import edu.wctc.java.demo.tictactoe.domain.PositionSolver;
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for RetrogradeSolver, Tablebase and TablebaseStrategy on the
+ * classic board, where every value can be checked against the
+ * PositionSolver.
+ */
+public class RetrogradeSolverTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static int expected(int score) {
+        return score > 0 ? Tablebase.WIN : score < 0 ? Tablebase.LOSS : Tablebase.DRAW;
+    }
+
+    /*
+     * Compares every position reachable in play with the PositionSolver.
+     */
+    private static int check(Tablebase tablebase, long x, long o, boolean xToMove) {
+        long mover = xToMove ? x : o;
+        long other = xToMove ? o : x;
+        assertEquals(expected(PositionSolver.solve((int) mover, (int) other)),
+                tablebase.valueOf(x, o));
+        if (Geometry.CLASSIC.hasLine(other)) {
+            return 1;
+        }
+        int count = 1;
+        for (long empty = ~(x | o) & 0x1FF; empty != 0L; empty &= empty - 1) {
+            long bit = empty & -empty;
+            count += xToMove ? check(tablebase, x | bit, o, false)
+                    : check(tablebase, x, o | bit, true);
+        }
+        return count;
+    }
+
+    @Test
+    public void classicValuesMatchThePositionSolver() throws Exception {
+        RetrogradeSolver solver = new RetrogradeSolver(Geometry.CLASSIC);
+        Tablebase tablebase = solver.solve(2);
+        assertEquals(19683, tablebase.getStates());
+        assertEquals(Tablebase.DRAW, tablebase.valueOf(0L, 0L));
+        assertEquals(549946, check(tablebase, 0L, 0L, true));
+        assertTrue(solver.getSolvedStates() >= 5478);
+        // "X" on 0 and 1, "0" on 3 and 4: "X" to move wins on 2
+        assertEquals(Tablebase.WIN, tablebase.valueOf(0x003, 0x018));
+        // Two "X"s and no "0" can not come up in play
+        assertEquals(Tablebase.UNKNOWN, tablebase.valueOf(0x003, 0L));
+    }
+
+    @Test
+    public void threadCountDoesNotChangeTheValues() throws Exception {
+        Tablebase one = new RetrogradeSolver(Geometry.CLASSIC).solve(1);
+        Tablebase three = new RetrogradeSolver(Geometry.CLASSIC).solve(3);
+        File a = folder.newFile();
+        File b = folder.newFile();
+        one.save(a.toPath());
+        three.save(b.toPath());
+        assertArrayEquals(Files.readAllBytes(a.toPath()), Files.readAllBytes(b.toPath()));
+    }
+
+    @Test
+    public void savedTablebaseLoadsWithTheSameValues() throws Exception {
+        Tablebase solved = new RetrogradeSolver(Geometry.CLASSIC).solve(2);
+        File file = folder.newFile();
+        solved.save(file.toPath());
+        assertEquals(16 + (19683 + 3) / 4, file.length());
+        Tablebase loaded = Tablebase.load(file.toPath());
+        assertEquals(3, loaded.getGeometry().getSize());
+        assertEquals(3, loaded.getGeometry().getWinLength());
+        assertEquals(549946, check(loaded, 0L, 0L, true));
+    }
+
+    @Test(expected = IOException.class)
+    public void loadRejectsOtherFiles() throws Exception {
+        File file = folder.newFile();
+        Files.write(file.toPath(), "board,ply,outcome".getBytes("US-ASCII"));
+        Tablebase.load(file.toPath());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void solverRejectsLargeBoards() {
+        new RetrogradeSolver(Geometry.of(5, 4));
+    }
+
+    private static int play(Strategy x, Strategy o, Board board) {
+        board.reset();
+        while (!board.isGameOver()) {
+            int mark = board.getSideToMove();
+            board.play((mark == Board.X ? x : o).selectMove(board, mark), mark);
+        }
+        return board.getWinner();
+    }
+
+    @Test
+    public void tablebaseStrategyPlaysPerfectly() throws Exception {
+        File file = folder.newFile();
+        new RetrogradeSolver(Geometry.CLASSIC).solve(1).save(file.toPath());
+        Strategy perfect = new TablebaseStrategy(file.toPath());
+        Strategy easy = new EasyStrategy(new Random(37));
+        Board board = new Board();
+        int wins = 0;
+        for (int game = 0; game < 100; game++) {
+            int asX = play(perfect, easy, board);
+            int asO = play(easy, perfect, board);
+            assertTrue(asX != Board.O && asO != Board.X);
+            wins += (asX == Board.X ? 1 : 0) + (asO == Board.O ? 1 : 0);
+        }
+        assertTrue(wins > 100);
+        assertEquals(Board.EMPTY, play(perfect, new GeniusStrategy(), board));
+        assertEquals(Board.EMPTY, play(new GeniusStrategy(), perfect, board));
+    }
+}
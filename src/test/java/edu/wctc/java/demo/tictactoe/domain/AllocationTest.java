@@ -0,0 +1,110 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.lang.management.ManagementFactory;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that choosing a computer move allocates nothing once warmed up,
+ * at every difficulty level. Allocation is read from the JVM's per-thread
+ * allocation counter, which only HotSpot-style JVMs provide; elsewhere
+ * these tests are skipped.
+ */
+public class AllocationTest {
+    private static final int CALLS = 10000;
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    private GameEngine engine;
+    private Tile[] tiles;
+
+    @BeforeClass
+    public static void findAllocationCounter() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Before
+    public void setUp() {
+        engine = new GameEngine();
+        tiles = new Tile[9];
+        for (int i = 0; i < 9; i++) {
+            tiles[i] = new Tile();
+        }
+        engine.initNewGame(tiles);
+    }
+
+    private static long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /*
+     * Asks for the computer's move in a few positions over and over, and
+     * returns the bytes allocated by the last round of calls. The Tiles
+     * are set up outside the measurement, since Swing allocates an event
+     * for every setText().
+     */
+    private long bytesPerRound(int smarts) {
+        engine.setSmarts(smarts);
+        String[][] positions = {
+            {"", "", "", "", "", "", "", "", ""},
+            {"X", "", "", "", "", "", "", "", ""},
+            {"X", "0", "", "", "X", "", "", "", ""},
+            {"X", "X", "", "0", "", "", "", "", ""},
+            {"X", "0", "X", "", "0", "", "", "", "X"},
+        };
+        long bytes = 0;
+        for (int round = 0; round < 5; round++) {
+            bytes = 0;
+            for (String[] position : positions) {
+                for (int cell = 0; cell < 9; cell++) {
+                    tiles[cell].setText(position[cell]);
+                }
+                long before = allocatedBytes();
+                for (int i = 0; i < CALLS / positions.length; i++) {
+                    if (engine.selectComputerMove() == null) {
+                        fail("no move");
+                    }
+                }
+                bytes += allocatedBytes() - before;
+            }
+        }
+        return bytes;
+    }
+
+    @Test
+    public void easyMovesAllocateNothing() {
+        assertEquals(0, bytesPerRound(0));
+    }
+
+    @Test
+    public void searchingMovesAllocateNothing() {
+        assertEquals(0, bytesPerRound(25));
+        assertEquals(0, bytesPerRound(75));
+    }
+
+    @Test
+    public void smartMovesAllocateNothing() {
+        assertEquals(0, bytesPerRound(50));
+    }
+
+    @Test
+    public void geniusMovesAllocateNothing() {
+        assertEquals(0, bytesPerRound(100));
+    }
+
+    @Test
+    public void newGameOnTheSameTilesAllocatesNothing() {
+        for (int i = 0; i < CALLS; i++) {
+            engine.initNewGame(tiles);
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < CALLS; i++) {
+            engine.initNewGame(tiles);
+        }
+        assertEquals(0, allocatedBytes() - before);
+    }
+}
@@ -0,0 +1,123 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.util.Random;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for Board and Geometry covering marks, winners and line layout.
+ */
+public class BoardTest {
+    private Board board;
+
+    @Before
+    public void setUp() {
+        board = new Board();
+    }
+
+    @Test
+    public void newBoardIsEmpty() {
+        assertEquals(0, board.getTilesPlayed());
+        assertEquals(0x1FFL, board.getEmptyMask());
+        assertEquals(Board.X, board.getSideToMove());
+        assertEquals("---------", board.toString());
+    }
+
+    @Test
+    public void playAndClearTrackMarks() {
+        board.play(4, Board.X);
+        board.play(0, Board.O);
+        assertEquals(Board.X, board.get(4));
+        assertEquals(Board.O, board.get(0));
+        assertEquals(2, board.getTilesPlayed());
+        assertEquals("0---X----", board.toString());
+        board.clear(4);
+        assertEquals(Board.EMPTY, board.get(4));
+        assertEquals(1, board.getTilesPlayed());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void playOnTakenCellFails() {
+        board.play(4, Board.X);
+        board.play(4, Board.O);
+    }
+
+    @Test
+    public void winnerIsFoundOnDiagonal() {
+        board.play(2, Board.O);
+        board.play(4, Board.O);
+        assertEquals(Board.EMPTY, board.getWinner());
+        board.play(6, Board.O);
+        assertEquals(Board.O, board.getWinner());
+        assertTrue(board.isGameOver());
+    }
+
+    @Test
+    public void randomEmptyCellAvoidsMarks() {
+        Random rand = new Random(1);
+        for (int i = 0; i < 8; i++) {
+            board.play(i, i % 2 == 0 ? Board.X : Board.O);
+        }
+        assertEquals(8, board.randomEmptyCell(rand));
+        board.play(8, Board.X);
+        assertEquals(-1, board.randomEmptyCell(rand));
+    }
+
+    @Test
+    public void classicGeometryHasEightLines() {
+        assertEquals(8, Geometry.CLASSIC.getLineCount());
+        assertEquals(0x007L, Geometry.CLASSIC.getLine(0));
+        assertEquals(0x054L, Geometry.CLASSIC.getLine(7));
+    }
+
+    @Test
+    public void largerGeometryCountsEveryWindow() {
+        // 4x4 four-in-a-row: 4 rows, 4 columns, 2 diagonals
+        assertEquals(10, Geometry.of(4, 4).getLineCount());
+        // 4x4 three-in-a-row: 8 rows, 8 columns, 4 + 4 diagonals
+        assertEquals(24, Geometry.of(4, 3).getLineCount());
+        assertSame(Geometry.CLASSIC, Geometry.of(3, 3));
+    }
+
+    @Test
+    public void undoAndRedoWalkTheMoveStack() {
+        board.make(4);
+        board.make(0);
+        board.make(8);
+        long hash = board.getHash();
+        assertEquals(8, board.undo());
+        assertEquals(0, board.undo());
+        assertEquals("----X----", board.toString());
+        assertEquals(Board.O, board.getSideToMove());
+        assertTrue(board.canRedo());
+        assertEquals(0, board.redo());
+        assertEquals(8, board.redo());
+        assertEquals(hash, board.getHash());
+        assertEquals(3, board.getTilesPlayed());
+        assertFalse(board.canRedo());
+    }
+
+    @Test
+    public void playingAfterUndoForgetsTheRedoMoves() {
+        board.make(4);
+        board.make(0);
+        board.undo();
+        board.make(2);
+        assertFalse(board.canRedo());
+        assertEquals(2, board.getMove(1));
+        board.clear(4);
+        assertEquals(2, board.getMove(0));
+        assertEquals(2, board.undo());
+        assertFalse(board.canUndo());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void undoOnEmptyBoardFails() {
+        board.undo();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void geometryRejectsOversizedBoards() {
+        Geometry.of(9, 5);
+    }
+}
@@ -0,0 +1,79 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for EnginePool: engines are reset in place for the next game and
+ * reused, and the pool never keeps more than its capacity.
+ */
+public class EnginePoolTest {
+
+    private EnginePool pool;
+
+    @Before
+    public void setUp() {
+        pool = new EnginePool(2);
+    }
+
+    @Test
+    public void releasedEngineIsReusedForTheNextGame() {
+        GameEngine engine = pool.acquire(100);
+        Tile[] tiles = engine.getTiles();
+        engine.markTile(tiles[0], "X");
+        engine.markTile(engine.selectComputerMove(), "0");
+        assertTrue(pool.release(engine));
+
+        GameEngine again = pool.acquire(100);
+        assertSame(engine, again);
+        assertSame(tiles, again.getTiles());
+        assertEquals(1, pool.getCreated());
+        assertEquals(0, again.getTilesPlayed());
+        assertFalse(again.canUndo());
+        for (Tile tile : tiles) {
+            assertFalse(tile.isSelected());
+        }
+    }
+
+    @Test
+    public void resetEngineStillDetectsWins() {
+        GameEngine engine = pool.acquire(0);
+        Tile[] tiles = engine.getTiles();
+        engine.markTile(tiles[0], "X");
+        engine.markTile(tiles[3], "0");
+        engine.markTile(tiles[1], "X");
+        engine.markTile(tiles[4], "0");
+        engine.markTile(tiles[2], "X");
+        assertTrue(engine.checkForWin());
+        pool.release(engine);
+
+        engine = pool.acquire(0);
+        assertFalse(engine.checkForWin());
+        engine.markTile(tiles[6], "X");
+        engine.markTile(tiles[0], "0");
+        engine.markTile(tiles[7], "X");
+        engine.markTile(tiles[1], "0");
+        engine.markTile(tiles[8], "X");
+        assertTrue(engine.checkForWin());
+        assertEquals(2, engine.getxWins());
+    }
+
+    @Test
+    public void acquireSetsTheDifficulty() {
+        GameEngine engine = pool.acquire(100);
+        pool.release(engine);
+        assertEquals(50, pool.acquire(50).getSmarts());
+    }
+
+    @Test
+    public void fullPoolDropsExtraEngines() {
+        GameEngine a = pool.acquire(0);
+        GameEngine b = pool.acquire(0);
+        GameEngine c = pool.acquire(0);
+        assertTrue(pool.release(a));
+        assertTrue(pool.release(b));
+        assertFalse(pool.release(c));
+        assertEquals(2, pool.getIdle());
+        assertEquals(3, pool.getCreated());
+    }
+}
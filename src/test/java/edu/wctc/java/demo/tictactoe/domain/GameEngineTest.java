@@ -63,6 +63,20 @@ public class GameEngineTest {
         assertEquals(50, engine.getSmarts());
     }
 
+    @Test
+    public void givenStrategyPlaysUntilSmartsChange() {
+        Strategy lastCell = new Strategy() {
+            public int selectMove(Board board, int mark) {
+                return 63 - Long.numberOfLeadingZeros(board.getEmptyMask());
+            }
+        };
+        engine.setStrategy(lastCell);
+        assertSame(tiles[8], engine.selectComputerMove());
+        engine.setSmarts(100);
+        assertNotSame(lastCell, engine.getStrategy());
+        assertTrue(engine.getStrategy() instanceof SearchStrategy);
+    }
+
     // -----------------------------------------------------------------------
     // incrementTilesPlayed
     // -----------------------------------------------------------------------
@@ -330,4 +344,166 @@ public class GameEngineTest {
         assertNotNull(move);
         assertSame(tiles[8], move);
     }
+
+    // -----------------------------------------------------------------------
+    // analyzeMoves
+    // -----------------------------------------------------------------------
+
+    @Test
+    public void analyzeMovesScoresOnlyEmptyTiles() {
+        mark(4, "X");
+        MoveScore[] scores = engine.analyzeMoves("0");
+        assertEquals(9, scores.length);
+        assertNull(scores[4]);
+        for (int i = 0; i < 9; i++) {
+            if (i != 4) {
+                assertNotNull(scores[i]);
+            }
+        }
+    }
+
+    @Test
+    public void analyzeMovesFindsWinForHuman() {
+        mark(0, "X"); mark(1, "X");
+        mark(3, "0"); mark(4, "0");
+        MoveScore[] scores = engine.analyzeMoves("X");
+        assertEquals(Outcome.WIN, scores[2].getOutcome());
+        assertEquals(1, scores[2].getPlies());
+    }
+
+    @Test
+    public void analyzeMovesAgreesWithGeniusMove() {
+        engine.setSmarts(100);
+        mark(0, "X");
+        Outcome chosen = engine.analyzeMoves("0")[indexOf(engine.selectComputerMove())].getOutcome();
+        for (MoveScore score : engine.analyzeMoves("0")) {
+            // Outcome is ordered WIN, DRAW, LOSS: nothing may beat the choice
+            if (score != null) {
+                assertTrue(score.getOutcome().compareTo(chosen) >= 0);
+            }
+        }
+    }
+
+    // -----------------------------------------------------------------------
+    // markTile / undoMove / redoMove / takeBack
+    // -----------------------------------------------------------------------
+
+    @Test
+    public void markingATakenTileLeavesItAlone() {
+        engine.markTile(tiles[4], "X");
+        try {
+            engine.markTile(tiles[4], "0");
+            fail("marked a taken tile");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals("X", tiles[4].getText());
+        assertEquals(1, engine.getTilesPlayed());
+    }
+
+    @Test
+    public void markingAnotherGamesTileLeavesItAlone() {
+        Tile stranger = new Tile();
+        try {
+            engine.markTile(stranger, "X");
+            fail("marked a tile of another game");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals("", stranger.getText());
+        assertEquals(0, engine.getTilesPlayed());
+    }
+
+    @Test
+    public void undoMoveClearsTheLastTile() {
+        engine.markTile(tiles[4], "X");
+        engine.markTile(tiles[0], "0");
+        assertSame(tiles[0], engine.undoMove());
+        assertEquals("", tiles[0].getText());
+        assertEquals(1, engine.getTilesPlayed());
+        assertEquals("0", engine.getPlayerToMove());
+    }
+
+    @Test
+    public void redoMoveRestoresTheTile() {
+        engine.markTile(tiles[4], "X");
+        engine.markTile(tiles[0], "0");
+        engine.undoMove();
+        assertTrue(engine.canRedo());
+        assertSame(tiles[0], engine.redoMove());
+        assertEquals("0", tiles[0].getText());
+        assertEquals(2, engine.getTilesPlayed());
+        assertNull(engine.redoMove());
+    }
+
+    @Test
+    public void takeBackReturnsTheTurnToTheHuman() {
+        engine.markTile(tiles[4], "X");
+        engine.markTile(tiles[0], "0");
+        engine.markTile(tiles[8], "X");
+        engine.markTile(tiles[2], "0");
+        assertEquals(2, engine.takeBack());
+        assertEquals("", tiles[8].getText());
+        assertEquals("X", tiles[4].getText());
+        assertEquals("X", engine.getPlayerToMove());
+        assertEquals(2, engine.getTilesPlayed());
+    }
+
+    @Test
+    public void undoMoveOnNewGameReturnsNull() {
+        assertNull(engine.undoMove());
+        assertFalse(engine.canUndo());
+    }
+
+    @Test
+    public void listenersHearEveryChange() {
+        final java.util.List<GameEvent> events = new java.util.ArrayList<GameEvent>();
+        engine.addGameEventListener(new GameEventListener() {
+            public void gameEvent(GameEngine source, GameEvent event) {
+                assertSame(engine, source);
+                events.add(event);
+            }
+        });
+        engine.setSmarts(50);
+        engine.initNewGame(tiles);
+        engine.markTile(tiles[0], "X");
+        engine.markTile(tiles[3], "0");
+        engine.undoMove();
+        engine.redoMove();
+        engine.markTile(tiles[1], "X");
+        engine.markTile(tiles[4], "0");
+        engine.markTile(tiles[2], "X");
+        assertFalse(engine.checkForDraw());
+        assertTrue(engine.checkForWin());
+        assertEquals(java.util.Arrays.asList(
+                new GameEvent(GameEvent.Type.SMARTS, 50, Board.EMPTY),
+                new GameEvent(GameEvent.Type.NEW_GAME, 0, Board.EMPTY),
+                new GameEvent(GameEvent.Type.MOVE, 0, Board.X),
+                new GameEvent(GameEvent.Type.MOVE, 3, Board.O),
+                new GameEvent(GameEvent.Type.UNDO, 3, Board.EMPTY),
+                new GameEvent(GameEvent.Type.REDO, 3, Board.O),
+                new GameEvent(GameEvent.Type.MOVE, 1, Board.X),
+                new GameEvent(GameEvent.Type.MOVE, 4, Board.O),
+                new GameEvent(GameEvent.Type.MOVE, 2, Board.X),
+                new GameEvent(GameEvent.Type.WIN, 0, Board.X)), events);
+    }
+
+    @Test
+    public void winningCellsAreKeptUntilTheWinIsTakenBack() {
+        engine.markTile(tiles[6], "X");
+        engine.markTile(tiles[0], "0");
+        engine.markTile(tiles[4], "X");
+        engine.markTile(tiles[1], "0");
+        engine.markTile(tiles[2], "X");
+        assertTrue(engine.checkForWin());
+        assertEquals(1L << 2 | 1L << 4 | 1L << 6, engine.getWinningCells());
+        assertNotEquals(java.awt.Color.GREEN, tiles[2].getBackground());
+        engine.undoMove();
+        assertEquals(0L, engine.getWinningCells());
+    }
+
+    private int indexOf(Tile tile) {
+        for (int i = 0; i < tiles.length; i++) {
+            if (tiles[i] == tile) return i;
+        }
+        return -1;
+    }
 }
@@ -0,0 +1,140 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for GameEventPublisher: updates arrive in order with the totals
+ * of the moment, and a subscriber that falls behind loses updates
+ * instead of holding up the engine.
+ */
+public class GameEventPublisherTest {
+    private GameEngine engine;
+    private Tile[] tiles;
+    private GameEventPublisher publisher;
+
+    /*
+     * Keeps every update; an eager one asks for all of them, otherwise
+     * only the first is asked for.
+     */
+    private static final class Collector implements Flow.Subscriber<GameUpdate> {
+        final BlockingQueue<GameUpdate> updates = new LinkedBlockingQueue<GameUpdate>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        final boolean eager;
+        Flow.Subscription subscription;
+
+        Collector(boolean eager) {
+            this.eager = eager;
+        }
+
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(eager ? Long.MAX_VALUE : 1);
+        }
+
+        public void onNext(GameUpdate update) {
+            updates.add(update);
+        }
+
+        public void onError(Throwable throwable) {
+        }
+
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        GameUpdate next() throws InterruptedException {
+            GameUpdate update = updates.poll(5, TimeUnit.SECONDS);
+            assertNotNull("no update", update);
+            return update;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        engine = new GameEngine();
+        tiles = new Tile[9];
+        for (int i = 0; i < 9; i++) {
+            tiles[i] = new Tile();
+        }
+        engine.initNewGame(tiles);
+        publisher = new GameEventPublisher(engine);
+    }
+
+    @After
+    public void tearDown() {
+        publisher.close();
+    }
+
+    private void win() {
+        engine.markTile(tiles[0], "X");
+        engine.markTile(tiles[3], "0");
+        engine.markTile(tiles[1], "X");
+        engine.markTile(tiles[4], "0");
+        engine.markTile(tiles[2], "X");
+        assertFalse(engine.checkForDraw());
+        assertTrue(engine.checkForWin());
+    }
+
+    @Test
+    public void updatesArriveInOrderWithTheTotals() throws InterruptedException {
+        Collector collector = new Collector(true);
+        publisher.subscribe(collector);
+        win();
+        for (int i = 0; i < 5; i++) {
+            GameUpdate move = collector.next();
+            assertEquals(GameEvent.Type.MOVE, move.getType());
+            assertEquals(0, move.getxWins());
+        }
+        GameUpdate won = collector.next();
+        assertEquals(new GameEvent(GameEvent.Type.WIN, 0, Board.X), won.getEvent());
+        assertEquals(1, won.getxWins());
+        assertEquals(0, won.getoWins());
+        assertEquals(0x7L, won.getWinningCells());
+        engine.initNewGame(tiles);
+        GameUpdate next = collector.next();
+        assertEquals(GameEvent.Type.NEW_GAME, next.getType());
+        assertEquals(1, next.getxWins());
+        assertEquals(0L, next.getWinningCells());
+        assertEquals(0, publisher.getDropped());
+    }
+
+    @Test
+    public void aSlowSubscriberLosesUpdatesWithoutBlockingTheEngine()
+            throws InterruptedException {
+        publisher.close();
+        publisher = new GameEventPublisher(engine, 4);
+        Collector slow = new Collector(false);
+        publisher.subscribe(slow);
+        for (int game = 0; game < 10; game++) {
+            for (Tile tile : tiles) {
+                tile.setText("");
+            }
+            engine.initNewGame(tiles);
+            win();
+        }
+        assertEquals(10, engine.getxWins());
+        assertEquals(70, publisher.getPublished());
+        assertEquals(GameEvent.Type.NEW_GAME, slow.next().getType());
+        // the first went out, a buffer's worth waits and the rest are gone
+        assertTrue(publisher.getDropped() >= 70 - 1 - 4);
+        assertNull(slow.updates.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void closingCompletesSubscribersAndStopsListening()
+            throws InterruptedException {
+        Collector collector = new Collector(true);
+        publisher.subscribe(collector);
+        assertEquals(1, publisher.getSubscribers());
+        publisher.close();
+        assertTrue(collector.completed.await(5, TimeUnit.SECONDS));
+        engine.markTile(tiles[4], "X");
+        assertEquals(0, publisher.getPublished());
+    }
+}
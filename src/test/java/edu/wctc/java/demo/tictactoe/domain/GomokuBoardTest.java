@@ -0,0 +1,153 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.util.Random;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for GomokuBoard and GomokuEngine covering the pattern tables,
+ * incremental updates, undo, candidate pruning and the threat search.
+ */
+public class GomokuBoardTest {
+    private GomokuBoard board;
+
+    @Before
+    public void setUp() {
+        board = new GomokuBoard();
+    }
+
+    /** Plays (row, column) pairs alternately, "X" first. */
+    private void play(int... rowCols) {
+        for (int i = 0; i < rowCols.length; i += 2) {
+            board.play(GomokuBoard.cell(rowCols[i], rowCols[i + 1]));
+        }
+    }
+
+    private int pattern(int row, int col, int dir, int mark) {
+        return board.getPattern(GomokuBoard.cell(row, col), dir, mark);
+    }
+
+    @Test
+    public void openLinesAreClassified() {
+        play(7, 6, 0, 0, 7, 7, 0, 14);
+        assertEquals(GomokuBoard.OPEN_THREE, pattern(7, 8, 0, Board.X));
+        assertEquals(GomokuBoard.OPEN_THREE, pattern(7, 5, 0, Board.X));
+        assertEquals(GomokuBoard.OPEN_TWO, pattern(8, 7, 1, Board.X));
+        play(7, 8, 14, 0);
+        assertEquals(GomokuBoard.OPEN_FOUR, pattern(7, 9, 0, Board.X));
+        assertEquals(GomokuBoard.OPEN_FOUR, pattern(7, 5, 0, Board.X));
+        assertEquals(GomokuBoard.NONE, pattern(7, 9, 0, Board.O));
+    }
+
+    @Test
+    public void blockedLinesAreClassified() {
+        play(0, 1, 7, 7, 0, 2, 7, 8, 0, 3);
+        // The board edge closes one end of X's three on the top row
+        assertEquals(GomokuBoard.FOUR, pattern(0, 0, 0, Board.X));
+        assertEquals(GomokuBoard.OPEN_FOUR, pattern(0, 4, 0, Board.X));
+        play(0, 4);
+        // With "0" on the other end no five fits any more
+        assertEquals(GomokuBoard.NONE, pattern(0, 0, 0, Board.X));
+    }
+
+    @Test
+    public void fiveInARowWinsAndUndoReopensTheGame() {
+        play(7, 3, 8, 3, 7, 4, 8, 4, 7, 5, 8, 5, 7, 6, 8, 6);
+        assertEquals(GomokuBoard.FIVE, pattern(7, 7, 0, Board.X));
+        play(7, 7);
+        assertEquals(Board.X, board.getWinner());
+        assertTrue(board.isGameOver());
+        board.undo();
+        assertEquals(Board.EMPTY, board.getWinner());
+        assertEquals(Board.X, board.getSideToMove());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void playingATakenCellThrows() {
+        play(7, 7, 7, 7);
+    }
+
+    @Test
+    public void candidatesAreCellsNearStones() {
+        int[] moves = new int[GomokuBoard.CELLS];
+        assertEquals(1, board.candidates(moves));
+        assertEquals(GomokuBoard.cell(7, 7), moves[0]);
+        play(7, 7);
+        assertEquals(24, board.candidates(moves));
+        play(0, 0);
+        assertEquals(24 + 8, board.candidates(moves));
+    }
+
+    @Test
+    public void undoRestoresThePatternsOfAReplayedBoard() {
+        Random rand = new Random(31);
+        int[] moves = new int[GomokuBoard.CELLS];
+        for (int game = 0; game < 20; game++) {
+            board = new GomokuBoard();
+            while (!board.isGameOver() && board.getMovesPlayed() < 60) {
+                int count = board.candidates(moves);
+                board.play(moves[rand.nextInt(count)]);
+            }
+            int keep = rand.nextInt(board.getMovesPlayed());
+            GomokuBoard replay = new GomokuBoard();
+            for (int i = 0; i < keep; i++) {
+                replay.play(board.getMove(i));
+            }
+            while (board.getMovesPlayed() > keep) {
+                board.undo();
+            }
+            for (int cell = 0; cell < GomokuBoard.CELLS; cell++) {
+                assertEquals(replay.get(cell), board.get(cell));
+                assertEquals(replay.isCandidate(cell), board.isCandidate(cell));
+                for (int d = 0; d < GomokuBoard.DIRECTIONS; d++) {
+                    assertEquals(replay.getPattern(cell, d, Board.X), board.getPattern(cell, d, Board.X));
+                    assertEquals(replay.getPattern(cell, d, Board.O), board.getPattern(cell, d, Board.O));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void engineCompletesFiveAndBlocksFours() {
+        play(7, 3, 8, 3, 7, 4, 8, 4, 7, 5, 8, 5, 7, 6, 8, 6);
+        // X completes five rather than blocking O's four
+        int move = new GomokuEngine().selectMove(board, 100);
+        assertTrue(move == GomokuBoard.cell(7, 7) || move == GomokuBoard.cell(7, 2));
+
+        board = new GomokuBoard();
+        play(7, 3, 7, 2, 7, 4, 0, 0, 7, 5, 0, 14, 7, 6);
+        move = new GomokuEngine().selectMove(board, 100);
+        assertEquals(GomokuBoard.cell(7, 7), move);
+    }
+
+    @Test
+    public void threatSearchFindsFourThreeWin() {
+        // X: a four-to-be on row 7 closed by O at (7,3), and two stones
+        // on column 7 that (7,7) turns into an open three
+        play(7, 4, 7, 3, 7, 5, 0, 0, 7, 6, 0, 14, 8, 7, 14, 0, 9, 7, 14, 14);
+        GomokuEngine engine = new GomokuEngine();
+        assertEquals(GomokuBoard.cell(7, 7), engine.findForcedWin(board, 1000));
+        assertEquals(GomokuBoard.cell(7, 7), engine.selectMove(board, 300));
+    }
+
+    @Test
+    public void engineDefendsAgainstOpenThree() {
+        play(7, 6, 0, 0, 7, 7, 0, 14, 7, 8);
+        int move = new GomokuEngine().selectMove(board, 300);
+        board.play(move);
+        assertEquals(-1, new GomokuEngine().findForcedWin(board, 1000));
+    }
+
+    @Test
+    public void selfPlayStaysWithinTheTimeBudget() {
+        GomokuEngine engine = new GomokuEngine();
+        long worst = 0;
+        while (!board.isGameOver() && board.getMovesPlayed() < 60) {
+            long start = System.nanoTime();
+            int move = engine.selectMove(board, 50);
+            worst = Math.max(worst, System.nanoTime() - start);
+            board.play(move);
+        }
+        assertTrue("slowest move took " + worst / 1000000 + " ms", worst < 500000000L);
+    }
+}
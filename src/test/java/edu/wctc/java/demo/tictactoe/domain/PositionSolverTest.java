@@ -0,0 +1,84 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for PositionSolver covering known perfect-play results, move
+ * analysis and distance-to-mate scoring.
+ */
+public class PositionSolverTest {
+
+    /** Builds a mask from cell indexes. */
+    private static int cells(int... idx) {
+        int mask = 0;
+        for (int i : idx) {
+            mask |= 1 << i;
+        }
+        return mask;
+    }
+
+    @Test
+    public void emptyBoardIsADraw() {
+        assertEquals(0, PositionSolver.solve(0, 0));
+    }
+
+    @Test
+    public void everyOpeningMoveIsADraw() {
+        MoveScore[] scores = PositionSolver.analyze(0, 0);
+        for (int i = 0; i < 9; i++) {
+            assertEquals(Outcome.DRAW, scores[i].getOutcome());
+            assertEquals(9, scores[i].getPlies());
+        }
+    }
+
+    @Test
+    public void edgeReplyToCornerOpeningLoses() {
+        // X in a corner; the adjacent edge reply loses for 0
+        MoveScore[] scores = PositionSolver.analyze(0, cells(0));
+        assertEquals(Outcome.LOSS, scores[1].getOutcome());
+        assertEquals(Outcome.DRAW, scores[4].getOutcome());
+    }
+
+    @Test
+    public void analysisSkipsOccupiedCells() {
+        MoveScore[] scores = PositionSolver.analyze(cells(4), cells(0));
+        assertNull(scores[0]);
+        assertNull(scores[4]);
+        assertNotNull(scores[8]);
+        assertEquals(8, scores[8].getCell());
+    }
+
+    @Test
+    public void immediateWinIsScoredAsWinInOne() {
+        MoveScore[] scores = PositionSolver.analyze(cells(0, 1), cells(3, 4));
+        assertEquals(Outcome.WIN, scores[2].getOutcome());
+        assertEquals(1, scores[2].getPlies());
+    }
+
+    @Test
+    public void ignoringAThreatIsScoredAsLossInTwo() {
+        MoveScore[] scores = PositionSolver.analyze(cells(8), cells(0, 1));
+        assertEquals(Outcome.LOSS, scores[6].getOutcome());
+        assertEquals(2, scores[6].getPlies());
+    }
+
+    @Test
+    public void finishedGameHasNoScores() {
+        MoveScore[] scores = PositionSolver.analyze(cells(3, 4), cells(0, 1, 2));
+        for (MoveScore score : scores) {
+            assertNull(score);
+        }
+    }
+
+    @Test
+    public void bestMovePrefersFasterWin() {
+        // 0 can win now at 2 or set up a fork; the immediate win must win out
+        assertEquals(2, PositionSolver.bestMove(cells(0, 1), cells(3, 5)));
+    }
+
+    @Test
+    public void bestMoveOnFullBoardIsNone() {
+        assertEquals(-1, PositionSolver.bestMove(cells(1, 3, 5, 6), cells(0, 2, 4, 7, 8)));
+    }
+}
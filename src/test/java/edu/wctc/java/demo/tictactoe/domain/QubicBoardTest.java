@@ -0,0 +1,118 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.util.Random;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for QubicBoard and QubicEngine covering the 76-line index,
+ * incremental threat counts, undo and forced-win detection.
+ */
+public class QubicBoardTest {
+    private QubicBoard board;
+
+    @Before
+    public void setUp() {
+        board = new QubicBoard();
+    }
+
+    /** Plays cells alternately, "X" first. */
+    private void play(int... cells) {
+        for (int cell : cells) {
+            board.play(cell);
+        }
+    }
+
+    @Test
+    public void cubeHasSeventySixDistinctLines() {
+        java.util.Set<Long> lines = new java.util.HashSet<Long>();
+        for (int i = 0; i < QubicBoard.LINES; i++) {
+            assertEquals(4, Long.bitCount(QubicBoard.getLineMask(i)));
+            lines.add(QubicBoard.getLineMask(i));
+        }
+        assertEquals(76, lines.size());
+    }
+
+    @Test
+    public void cornersAndCenterCellsLieOnSevenLines() {
+        assertEquals(7, QubicBoard.getLineCount(0));   // corner
+        assertEquals(7, QubicBoard.getLineCount(21));  // inner cell 1,1,1
+        assertEquals(4, QubicBoard.getLineCount(1));   // edge cell
+    }
+
+    @Test
+    public void threatsAreCountedIncrementally() {
+        play(0, 16, 1, 17, 2);
+        assertEquals(1, board.getThreatCount(Board.X));
+        assertEquals(1L << 3, board.getThreatCells(Board.X));
+        play(3); // 0 blocks
+        assertEquals(0, board.getThreatCount(Board.X));
+        board.undo();
+        assertEquals(1, board.getThreatCount(Board.X));
+    }
+
+    @Test
+    public void completingALineWins() {
+        play(0, 16, 1, 17, 2, 18, 3);
+        assertEquals(Board.X, board.getWinner());
+        assertTrue(board.isGameOver());
+        board.undo();
+        assertEquals(Board.EMPTY, board.getWinner());
+    }
+
+    @Test
+    public void undoRestoresEveryCountAfterRandomGames() {
+        Random rand = new Random(5);
+        for (int game = 0; game < 50; game++) {
+            QubicBoard b = new QubicBoard();
+            int played = 0;
+            while (!b.isGameOver()) {
+                long empty = b.getEmptyMask();
+                int cell;
+                do {
+                    cell = rand.nextInt(64);
+                } while ((empty & (1L << cell)) == 0L);
+                b.play(cell);
+                played++;
+            }
+            while (played-- > 0) {
+                b.undo();
+            }
+            assertEquals(0, b.getThreatCount(Board.X));
+            assertEquals(0, b.getThreatCount(Board.O));
+            for (int line = 0; line < QubicBoard.LINES; line++) {
+                assertEquals(0, b.getMarks(line, Board.X));
+                assertEquals(0, b.getMarks(line, Board.O));
+            }
+        }
+    }
+
+    @Test
+    public void engineFindsForcedWinWithDoubleThreat() {
+        // X: 1, 2 (row 0) and 4, 8 (column 0); 0 scattered. Cell 0 forks.
+        play(1, 63, 2, 42, 4, 29, 8, 54);
+        assertEquals(0, board.getThreatCount(Board.O));
+        QubicEngine engine = new QubicEngine();
+        assertEquals(0, engine.findForcedWin(board, 2000));
+        board.play(0);
+        assertEquals(2, board.getThreatCount(Board.X));
+    }
+
+    @Test
+    public void engineBlocksImmediateThreat() {
+        play(21, 0, 42, 1, 63, 2); // 0 threatens cell 3
+        QubicEngine engine = new QubicEngine();
+        assertEquals(3, engine.selectMove(board, 200));
+    }
+
+    @Test
+    public void engineLeavesBoardUnchanged() {
+        play(0, 21, 5);
+        long x = board.getMask(Board.X);
+        long o = board.getMask(Board.O);
+        new QubicEngine().selectMove(board, 200);
+        assertEquals(x, board.getMask(Board.X));
+        assertEquals(o, board.getMask(Board.O));
+        assertEquals(3, board.getMovesPlayed());
+    }
+}
@@ -0,0 +1,147 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.util.Random;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for SearchStrategy and the continuous difficulty mapping in
+ * Strategies: wins and blocks are found, the node budget is respected,
+ * temperature adds randomness, and the budget grows with smarts.
+ */
+public class SearchStrategyTest {
+
+    /** Builds a Board from a string like "XX-00----", "X" moving first. */
+    private static Board board(String cells) {
+        Board board = new Board();
+        for (int i = 0; i < cells.length(); i++) {
+            if (cells.charAt(i) == 'X') {
+                board.play(i, Board.X);
+            } else if (cells.charAt(i) == '0') {
+                board.play(i, Board.O);
+            }
+        }
+        return board;
+    }
+
+    @Test
+    public void takesAnImmediateWin() {
+        Strategy strategy = new SearchStrategy(1, 1000, 0, new Random(1));
+        assertEquals(2, strategy.selectMove(board("XX-00----"), Board.X));
+    }
+
+    @Test
+    public void blocksWhenLookingTwoMovesAhead() {
+        Strategy strategy = new SearchStrategy(2, 1000, 0, new Random(1));
+        assertEquals(2, strategy.selectMove(board("XX-0-----"), Board.O));
+    }
+
+    @Test
+    public void fullDepthFindsTheOnlyDrawingReply() {
+        // X in a corner: only the center holds the draw for 0
+        Strategy strategy = new SearchStrategy(9, Long.MAX_VALUE, 0, new Random(1));
+        assertEquals(4, strategy.selectMove(board("X--------"), Board.O));
+    }
+
+    @Test
+    public void leavesTheBoardAsItWas() {
+        Board board = board("X---0----");
+        board.play(8, Board.X);
+        board.undo();
+        Strategy strategy = new SearchStrategy(9, Long.MAX_VALUE, 1.0, new Random(1));
+        strategy.selectMove(board, Board.X);
+        assertEquals("X---0----", board.toString());
+        assertTrue(board.canRedo());
+    }
+
+    @Test
+    public void staysWithinItsNodeBudget() {
+        SearchStrategy strategy = new SearchStrategy(9, 900, 0, new Random(1));
+        strategy.selectMove(new Board(), Board.X);
+        assertTrue(strategy.getNodesSearched() <= 900);
+        assertTrue(strategy.getNodesSearched() > 0);
+    }
+
+    @Test
+    public void highTemperaturePlaysManyMoves() {
+        Strategy strategy = new SearchStrategy(2, 1000, 20, new Random(1));
+        Board board = new Board();
+        int seen = 0;
+        for (int i = 0; i < 200; i++) {
+            seen |= 1 << strategy.selectMove(board, Board.X);
+        }
+        assertEquals(9, Integer.bitCount(seen));
+    }
+
+    @Test
+    public void returnsMinusOneOnAFullBoard() {
+        Strategy strategy = new SearchStrategy(3, 1000, 0, new Random(1));
+        assertEquals(-1, strategy.selectMove(board("X0XX0X0X0"), Board.X));
+    }
+
+    @Test
+    public void budgetGrowsWithSmarts() {
+        for (int smarts = 1; smarts < 100; smarts++) {
+            assertTrue(Strategies.depthFor(smarts) >= Strategies.depthFor(smarts - 1));
+            assertTrue(Strategies.nodesFor(smarts) >= Strategies.nodesFor(smarts - 1));
+            assertTrue(Strategies.temperatureFor(smarts) <= Strategies.temperatureFor(smarts - 1));
+        }
+        assertEquals(0.0, Strategies.temperatureFor(Strategies.SMART), 0.0);
+    }
+
+    @Test
+    public void slidersStopsAreOnTheCurve() {
+        Random rand = new Random(1);
+        SearchStrategy easy = (SearchStrategy) Strategies.forSmarts(0, rand);
+        SearchStrategy smart = (SearchStrategy) Strategies.forSmarts(50, rand);
+        SearchStrategy genius = (SearchStrategy) Strategies.forSmarts(100, rand);
+        assertEquals(1, easy.getDepth());
+        assertTrue(smart.getDepth() > easy.getDepth());
+        assertTrue(genius.getDepth() > smart.getDepth());
+        assertEquals(9, genius.getDepth());
+        assertEquals(0.0, genius.getTemperature(), 0.0);
+    }
+
+    @Test
+    public void costGrowsWithSmarts() {
+        Random rand = new Random(1);
+        long last = 0;
+        for (int smarts = 0; smarts <= 100; smarts += 10) {
+            SearchStrategy strategy = (SearchStrategy) Strategies.forSmarts(smarts, rand);
+            for (int cell = 0; cell < 9; cell++) {
+                Board board = new Board();
+                board.play(cell, Board.X);
+                strategy.selectMove(board, Board.O);
+            }
+            assertTrue("smarts " + smarts, strategy.getNodesSearched() >= last);
+            last = strategy.getNodesSearched();
+        }
+        assertTrue(last > 0);
+    }
+
+    @Test
+    public void nodeCapLimitsTheBudget() {
+        SearchStrategy capped = (SearchStrategy) Strategies.forSmarts(90, new Random(1), 100);
+        assertEquals(100, capped.getMaxNodes());
+        assertEquals(Strategies.depthFor(90), capped.getDepth());
+    }
+
+    @Test
+    public void smartAndAboveNeverLoseToGenius() {
+        Random rand = new Random(1);
+        Strategy genius = new GeniusStrategy();
+        Board board = new Board();
+        for (int smarts = 50; smarts <= 100; smarts += 10) {
+            Strategy computer = Strategies.forSmarts(smarts, rand);
+            for (int opening = 0; opening < 9; opening++) {
+                board.reset();
+                board.play(opening, Board.X);
+                while (!board.isGameOver()) {
+                    int mark = board.getSideToMove();
+                    board.play((mark == Board.X ? genius : computer).selectMove(board, mark), mark);
+                }
+                assertEquals("smarts " + smarts, Board.EMPTY, board.getWinner());
+            }
+        }
+    }
+}
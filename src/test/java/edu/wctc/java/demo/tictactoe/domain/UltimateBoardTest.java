@@ -0,0 +1,162 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.util.Random;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for UltimateBoard and UltimateEngine covering the forced-board
+ * rule, sub-board and meta-board wins, and engine move choice.
+ */
+public class UltimateBoardTest {
+    private UltimateBoard board;
+    private int[] moves;
+
+    @Before
+    public void setUp() {
+        board = new UltimateBoard();
+        moves = new int[UltimateBoard.MOVES];
+    }
+
+    /** Plays moves given as (board, cell) pairs. */
+    private void play(int... pairs) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            board.play(pairs[i] * 9 + pairs[i + 1]);
+        }
+    }
+
+    @Test
+    public void firstMoveMayGoAnywhere() {
+        assertEquals(81, board.legalMoves(moves));
+        assertEquals(UltimateBoard.ANY_BOARD, board.getForcedBoard());
+    }
+
+    @Test
+    public void cellChoiceForcesNextBoard() {
+        play(4, 2);
+        assertEquals(2, board.getForcedBoard());
+        assertEquals(Board.O, board.getSideToMove());
+        assertEquals(9, board.legalMoves(moves));
+        for (int i = 0; i < 9; i++) {
+            assertEquals(2, moves[i] / 9);
+        }
+        assertFalse(board.isLegal(4 * 9 + 0));
+    }
+
+    @Test
+    public void winningSubBoardClaimsMetaSquare() {
+        // X takes the top row of board 0; each 0 reply sends X back there
+        play(0, 1, 1, 0, 0, 2, 2, 0, 0, 0);
+        assertEquals(Board.X, board.getBoardWinner(0));
+        assertTrue(board.isDecided(0));
+        // 0 is sent to the decided board 0, so any open board will do
+        assertEquals(UltimateBoard.ANY_BOARD, board.getForcedBoard());
+        assertEquals(81 - 9 - 2, board.legalMoves(moves));
+        play(3, 0);
+        assertEquals(UltimateBoard.ANY_BOARD, board.getForcedBoard());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void playingOutsideForcedBoardFails() {
+        play(4, 2);
+        play(3, 3);
+    }
+
+    @Test
+    public void randomGamesEndConsistently() {
+        Random rand = new Random(11);
+        for (int game = 0; game < 200; game++) {
+            board.reset();
+            while (!board.isGameOver()) {
+                int n = board.legalMoves(moves);
+                assertTrue(n > 0);
+                board.play(moves[rand.nextInt(n)]);
+            }
+            assertEquals(0, board.legalMoves(moves));
+            assertTrue(board.getMovesPlayed() <= 81);
+        }
+    }
+
+    @Test
+    public void engineTakesGameWinningMove() {
+        // Play random games until "X" has a move that wins outright
+        Random rand = new Random(7);
+        UltimateBoard probe = new UltimateBoard();
+        while (true) {
+            board.reset();
+            while (!board.isGameOver()) {
+                int n = board.legalMoves(moves);
+                if (board.getSideToMove() == Board.X) {
+                    for (int i = 0; i < n; i++) {
+                        probe.copyFrom(board);
+                        probe.play(moves[i]);
+                        if (probe.getWinner() == Board.X) {
+                            int choice = new UltimateEngine(new Random(7), 1 << 16)
+                                    .selectMove(board, 50);
+                            probe.copyFrom(board);
+                            probe.play(choice);
+                            assertEquals(Board.X, probe.getWinner());
+                            return;
+                        }
+                    }
+                }
+                board.play(moves[rand.nextInt(n)]);
+            }
+        }
+    }
+
+    @Test
+    public void engineReturnsLegalMoveWithinBudget() {
+        UltimateEngine engine = new UltimateEngine(new Random(1), 1 << 18);
+        long start = System.nanoTime();
+        int choice = engine.selectMove(board, 200);
+        long elapsed = (System.nanoTime() - start) / 1000000L;
+        assertTrue(board.isLegal(choice));
+        assertTrue(engine.getLastIterations() > 100);
+        assertTrue(elapsed < 1000);
+    }
+
+    @Test
+    public void engineMovesWithNoTimeToSearch() {
+        UltimateEngine engine = new UltimateEngine(new Random(1), 1 << 10);
+        assertTrue(board.isLegal(engine.selectMove(board, 0)));
+        assertEquals(0, engine.getLastIterations());
+    }
+
+    @Test
+    public void engineMovesAfterASinglePlayout() {
+        UltimateEngine engine = new UltimateEngine(new Random(1), 1 << 10);
+        assertTrue(board.isLegal(engine.selectMove(board, 1000, 1)));
+        assertEquals(1, engine.getLastIterations());
+    }
+
+    @Test
+    public void engineMovesWhenTheTreeCanNotHoldTheRootsMoves() {
+        UltimateEngine engine = new UltimateEngine(new Random(1), 8);
+        assertTrue(board.isLegal(engine.selectMove(board, 1000, 100)));
+        assertEquals(100, engine.getLastIterations());
+    }
+
+    @Test
+    public void engineBeatsRandomPlayer() {
+        Random rand = new Random(3);
+        UltimateEngine engine = new UltimateEngine(new Random(5), 1 << 18);
+        int engineWins = 0;
+        for (int game = 0; game < 4; game++) {
+            UltimateBoard b = new UltimateBoard();
+            int engineSide = game % 2 == 0 ? Board.X : Board.O;
+            while (!b.isGameOver()) {
+                if (b.getSideToMove() == engineSide) {
+                    b.play(engine.selectMove(b, 1000, 2000));
+                } else {
+                    int n = b.legalMoves(moves);
+                    b.play(moves[rand.nextInt(n)]);
+                }
+            }
+            if (b.getWinner() == engineSide) {
+                engineWins++;
+            }
+        }
+        assertTrue(engineWins >= 3);
+    }
+}
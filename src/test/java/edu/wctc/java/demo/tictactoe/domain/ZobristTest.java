@@ -0,0 +1,161 @@
+package edu.wctc.java.demo.tictactoe.domain;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for Zobrist keys on every board type and for TranspositionTable,
+ * including a collision count over many random Gomoku positions.
+ */
+public class ZobristTest {
+
+    @Test
+    public void boardKeyMatchesKeyComputedFromScratch() {
+        Random rand = new Random(32);
+        Board board = new Board(Geometry.of(4, 3));
+        for (int game = 0; game < 100; game++) {
+            board.reset();
+            assertEquals(0L, board.getHash());
+            while (!board.isFull()) {
+                board.play(board.randomEmptyCell(rand), board.getSideToMove());
+                assertEquals(Zobrist.hash(board.getMask(Board.X), board.getMask(Board.O),
+                        board.getSideToMove()), board.getHash());
+            }
+            for (int cell = 0; cell < 16; cell++) {
+                board.clear(cell);
+            }
+            assertEquals(0L, board.getHash());
+        }
+    }
+
+    @Test
+    public void qubicKeyFollowsPlayAndUndo() {
+        Random rand = new Random(64);
+        QubicBoard board = new QubicBoard();
+        for (int game = 0; game < 100; game++) {
+            while (!board.isGameOver()) {
+                long empty = board.getEmptyMask();
+                int cell;
+                do {
+                    cell = rand.nextInt(QubicBoard.CELLS);
+                } while ((empty & (1L << cell)) == 0L);
+                board.play(cell);
+                assertEquals(Zobrist.hash(board.getMask(Board.X), board.getMask(Board.O),
+                        board.getSideToMove()), board.getHash());
+            }
+            while (board.getMovesPlayed() > 0) {
+                board.undo();
+            }
+            assertEquals(0L, board.getHash());
+        }
+    }
+
+    @Test
+    public void gomokuTranspositionsShareAKey() {
+        GomokuBoard a = new GomokuBoard();
+        GomokuBoard b = new GomokuBoard();
+        int[] first = {112, 113, 127, 98, 142};
+        int[] second = {142, 98, 112, 113, 127};
+        for (int cell : first) {
+            a.play(cell);
+        }
+        for (int cell : second) {
+            b.play(cell);
+        }
+        assertEquals(a.getHash(), b.getHash());
+        a.undo();
+        b.undo();
+        assertFalse(a.getHash() == b.getHash());
+    }
+
+    @Test
+    public void ultimateKeyDependsOnTheForcedBoard() {
+        UltimateBoard board = new UltimateBoard();
+        board.play(4 * 9 + 0);          // sends "0" to board 0
+        long sentToZero = board.getHash();
+        UltimateBoard copy = new UltimateBoard();
+        copy.copyFrom(board);
+        assertEquals(sentToZero, copy.getHash());
+        board.reset();
+        board.play(4 * 9 + 1);          // same count, different cell and board
+        assertFalse(sentToZero == board.getHash());
+        assertEquals(Zobrist.key(37, Board.X) ^ Zobrist.SIDE ^ Zobrist.extra(1),
+                board.getHash());
+    }
+
+    @Test
+    public void randomGomokuPositionsHaveNoKeyCollisions() {
+        Random rand = new Random(225);
+        Map<Long, String> seen = new HashMap<Long, String>();
+        int[] moves = new int[GomokuBoard.CELLS];
+        int[] slots = new int[1 << 8];
+        int positions = 0;
+        while (positions < 100000) {
+            GomokuBoard board = new GomokuBoard();
+            while (!board.isGameOver() && board.getMovesPlayed() < 120) {
+                int count = board.candidates(moves);
+                board.play(moves[rand.nextInt(count)]);
+                String position = positionOf(board);
+                String previous = seen.put(board.getHash(), position);
+                if (previous == null) {
+                    positions++;
+                    slots[(int) board.getHash() & (slots.length - 1)]++;
+                } else {
+                    assertEquals("key collision", previous, position);
+                }
+            }
+        }
+        // Low bits index the transposition table, so they must spread evenly
+        int mean = positions / slots.length;
+        for (int count : slots) {
+            assertTrue(count > mean / 2 && count < mean * 2);
+        }
+    }
+
+    private static String positionOf(GomokuBoard board) {
+        char[] chars = new char[GomokuBoard.CELLS];
+        for (int cell = 0; cell < chars.length; cell++) {
+            chars[cell] = (char) ('0' + board.get(cell));
+        }
+        return new String(chars);
+    }
+
+    @Test
+    public void tableStoresProbesAndReplaces() {
+        TranspositionTable table = new TranspositionTable(4);
+        assertEquals(16, table.getCapacity());
+        assertEquals(TranspositionTable.MISS, table.probe(0L));
+        table.store(0L, 7);
+        assertEquals(7, table.probe(0L));
+        table.store(16L, 9);    // same slot, different key
+        assertEquals(TranspositionTable.MISS, table.probe(0L));
+        assertEquals(9, table.probe(16L));
+        assertEquals(4, table.getProbes());
+        assertEquals(2, table.getHits());
+        table.clear();
+        assertEquals(TranspositionTable.MISS, table.probe(16L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tableRejectsBadSize() {
+        new TranspositionTable(0);
+    }
+
+    @Test
+    public void keysAreDistinct() {
+        long[] keys = new long[2 * Zobrist.MAX_CELLS + 1];
+        for (int cell = 0; cell < Zobrist.MAX_CELLS; cell++) {
+            keys[2 * cell] = Zobrist.key(cell, Board.X);
+            keys[2 * cell + 1] = Zobrist.key(cell, Board.O);
+        }
+        keys[keys.length - 1] = Zobrist.SIDE;
+        Arrays.sort(keys);
+        for (int i = 1; i < keys.length; i++) {
+            assertFalse(keys[i] == keys[i - 1]);
+        }
+    }
+}
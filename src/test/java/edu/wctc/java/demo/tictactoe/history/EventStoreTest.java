@@ -0,0 +1,240 @@
+package edu.wctc.java.demo.tictactoe.history;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.GameEngine;
+import edu.wctc.java.demo.tictactoe.domain.GameEvent;
+import edu.wctc.java.demo.tictactoe.domain.Tile;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for EventStore, SessionState and EngineRecorder, using small
+ * segments and batches so rolling and batching happen often.
+ */
+public class EventStoreTest {
+    private Path dir;
+    private EventStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("events");
+        store = new EventStore(dir, 10, 4, false);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        store.close();
+        for (File file : dir.toFile().listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(dir);
+    }
+
+    /*
+     * Keeps the events of a replay as longs: sequence, session, type,
+     * value and mark.
+     */
+    private static final class Collector implements EventVisitor {
+        final List<long[]> events = new ArrayList<long[]>();
+
+        public void event(long sequence, long session, GameEvent.Type type, int value, int mark) {
+            events.add(new long[] {sequence, session, type.ordinal(), value, mark});
+        }
+    }
+
+    private List<long[]> replayAll() throws IOException {
+        Collector collector = new Collector();
+        store.replay(0, collector);
+        return collector.events;
+    }
+
+    private void appendGames(long sessions, int games, Random rand) {
+        Board board = new Board();
+        for (int g = 0; g < games; g++) {
+            long session = rand.nextInt((int) sessions);
+            board.reset();
+            store.append(session, GameEvent.Type.NEW_GAME, 0, Board.EMPTY);
+            store.append(session, GameEvent.Type.SMARTS, rand.nextInt(101), Board.EMPTY);
+            while (!board.isGameOver()) {
+                int cell = board.randomEmptyCell(rand);
+                int mark = board.getSideToMove();
+                board.play(cell, mark);
+                store.append(session, GameEvent.Type.MOVE, cell, mark);
+            }
+            if (board.getWinner() == Board.EMPTY) {
+                store.append(session, GameEvent.Type.DRAW, 0, Board.EMPTY);
+            } else {
+                store.append(session, GameEvent.Type.WIN, 0, board.getWinner());
+            }
+        }
+    }
+
+    private static String describe(Map<Long, SessionState> states) {
+        StringBuilder sb = new StringBuilder();
+        for (long session = 0; session < 100; session++) {
+            SessionState state = states.get(session);
+            if (state != null) {
+                sb.append(state).append(' ').append(state.getResult()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void engineGamesAreRecordedAndRebuilt() throws IOException {
+        Tile[] tiles = new Tile[9];
+        for (int i = 0; i < 9; i++) {
+            tiles[i] = new Tile();
+        }
+        GameEngine engine = new GameEngine();
+        engine.addGameEventListener(new EngineRecorder(store, 42));
+        engine.initNewGame(tiles);
+        engine.setSmarts(0);
+        int[] cells = {4, 0, 8, 2, 1, 7, 6, 3, 5};
+        for (int i = 0; i < cells.length; i++) {
+            engine.markTile(tiles[cells[i]], i % 2 == 0 ? "X" : "0");
+        }
+        assertTrue(engine.checkForDraw());
+        for (Tile tile : tiles) {
+            tile.setText(""); // as the game window does
+        }
+        engine.initNewGame(tiles);
+        engine.markTile(tiles[4], "X");
+        engine.markTile(tiles[0], "0");
+        engine.markTile(tiles[8], "X");
+        engine.undoMove();
+        store.flush();
+
+        SessionState state = store.rebuild(42);
+        assertEquals(2, state.getGames());
+        assertEquals(1, state.getDraws());
+        assertEquals(0, state.getSmarts());
+        assertEquals(SessionState.IN_PLAY, state.getResult());
+        Board board = state.getBoard();
+        assertEquals("0---X----", board.toString());
+        assertTrue(board.canRedo());
+        assertEquals(8, board.redo());
+        assertNull(store.rebuild(7));
+    }
+
+    @Test
+    public void concurrentWritersKeepEachSessionInOrder() throws Exception {
+        final int threads = 4;
+        final int perThread = 5000;
+        List<Thread> writers = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            final long session = t;
+            writers.add(new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < perThread; i++) {
+                        store.append(session, GameEvent.Type.SMARTS, i % 256, Board.EMPTY);
+                    }
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        store.flush();
+        List<long[]> events = replayAll();
+        assertEquals(threads * perThread, events.size());
+        int[] next = new int[threads];
+        for (int i = 0; i < events.size(); i++) {
+            long[] event = events.get(i);
+            assertEquals(i, event[0]);
+            int session = (int) event[1];
+            assertEquals(next[session]++ % 256, event[3]);
+        }
+        assertTrue(store.getBatches() >= threads * perThread / 4);
+    }
+
+    @Test
+    public void reopenedStoreCarriesOn() throws IOException {
+        appendGames(5, 20, new Random(1));
+        store.close();
+        long before = store.getAppended();
+        Path last = null;
+        for (File file : dir.toFile().listFiles()) {
+            if (last == null || file.getName().compareTo(last.getFileName().toString()) > 0) {
+                last = file.toPath();
+            }
+        }
+        FileChannel channel = FileChannel.open(last, StandardOpenOption.APPEND);
+        channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3})); // a torn record
+        channel.close();
+
+        store = new EventStore(dir, 10, 4, false);
+        assertEquals(before, store.getAppended());
+        appendGames(5, 20, new Random(2));
+        store.flush();
+        List<long[]> events = replayAll();
+        assertEquals(store.getAppended(), events.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(i, events.get(i)[0]);
+        }
+    }
+
+    @Test
+    public void compactionKeepsEverySession() throws IOException {
+        appendGames(20, 200, new Random(3));
+        store.flush();
+        String before = describe(store.rebuild());
+        long total = store.getAppended();
+
+        assertEquals(total, store.compact());
+        assertEquals(total, store.getFirstSequence());
+        assertEquals(0, replayAll().size());
+        assertEquals(before, describe(store.rebuild()));
+        int logs = 0;
+        for (File file : dir.toFile().listFiles()) {
+            logs += file.getName().endsWith(".log") ? 1 : 0;
+        }
+        assertEquals(1, logs);
+
+        Random rand = new Random(4);
+        appendGames(20, 100, rand);
+        store.flush();
+        String after = describe(store.rebuild());
+        store.compact();
+        appendGames(20, 10, rand);
+        store.close();
+        store = new EventStore(dir, 10, 4, false);
+        Map<Long, SessionState> reopened = store.rebuild();
+        assertFalse(after.equals(describe(reopened)));
+        long games = 0;
+        for (SessionState state : reopened.values()) {
+            games += state.getGames();
+            assertEquals(state.getGames(), state.getxWins() + state.getoWins() + state.getDraws());
+        }
+        assertEquals(310, games);
+    }
+
+    @Test
+    public void closedStoreRefusesEvents() throws IOException {
+        store.close();
+        try {
+            store.append(1, GameEvent.Type.NEW_GAME, 0, Board.EMPTY);
+            fail("appended to a closed store");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sessionNumbersAreLimitedToFortyBits() {
+        store.append(1L << 40, GameEvent.Type.NEW_GAME, 0, Board.EMPTY);
+    }
+}
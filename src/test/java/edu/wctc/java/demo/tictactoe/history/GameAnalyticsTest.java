@@ -0,0 +1,164 @@
+package edu.wctc.java.demo.tictactoe.history;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.GameEvent;
+import java.util.Random;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for GameAnalytics, CountMinSketch and TopK, feeding events
+ * straight to the visitor.
+ */
+public class GameAnalyticsTest {
+    private GameAnalytics analytics;
+    private long sequence;
+
+    @Before
+    public void setUp() {
+        analytics = new GameAnalytics(16, 1 << 10, 5);
+    }
+
+    private void send(long session, GameEvent.Type type, int value, int mark) {
+        analytics.event(sequence++, session, type, value, mark);
+    }
+
+    /*
+     * Plays a whole game in one session, "X" first, ending with the
+     * result the moves give.
+     */
+    private void game(long session, int... cells) {
+        Board board = new Board();
+        send(session, GameEvent.Type.NEW_GAME, 0, Board.EMPTY);
+        for (int cell : cells) {
+            int mark = board.getSideToMove();
+            board.play(cell, mark);
+            send(session, GameEvent.Type.MOVE, cell, mark);
+        }
+        if (board.getWinner() != Board.EMPTY) {
+            send(session, GameEvent.Type.WIN, 0, board.getWinner());
+        } else {
+            send(session, GameEvent.Type.DRAW, 0, Board.EMPTY);
+        }
+    }
+
+    @Test
+    public void sketchNeverUndercounts() {
+        CountMinSketch sketch = new CountMinSketch(3, 64);
+        Random rand = new Random(1);
+        long[] truth = new long[1000];
+        for (int i = 0; i < 20000; i++) {
+            int key = rand.nextInt(truth.length) * rand.nextInt(2);
+            truth[key]++;
+            sketch.add(key, 1);
+        }
+        for (int key = 0; key < truth.length; key++) {
+            assertTrue(sketch.estimate(key) >= truth[key]);
+        }
+        assertEquals(20000, sketch.getTotal());
+        assertTrue(sketch.addAndEstimate(0) > truth[0]);
+    }
+
+    @Test
+    public void topKKeepsTheHighestCountsInOrder() {
+        TopK top = new TopK(3);
+        for (int key = 0; key < 10; key++) {
+            top.offer(key, key * 10);
+        }
+        top.offer(2, 1000);
+        assertArrayEquals(new long[] {2, 9, 8}, top.getKeys());
+        assertEquals(3, top.size());
+    }
+
+    @Test
+    public void mistakesAreCountedPerCanonicalPosition() {
+        // "0" answers the corner with an edge, a lost game, and the
+        // far corner throws the win away; the second game is the first
+        // mirrored
+        game(1, 0, 1, 2, 4, 7, 3, 5, 8, 6);
+        game(2, 0, 3, 6, 4, 5, 1, 7, 8, 2);
+        long position = GameAnalytics.positionKey(1 << 0, 1 << 1);
+        assertEquals(position, GameAnalytics.positionKey(1 << 0, 1 << 3));
+        assertEquals(2, analytics.getVisits(position));
+        assertEquals(2, analytics.getMistakes(position));
+        boolean found = false;
+        for (long key : analytics.getTopMistakes()) {
+            found |= key == position;
+        }
+        assertTrue(found);
+        assertEquals("X-------0",
+                GameAnalytics.positionOf(GameAnalytics.positionKey(1 << 8, 1 << 0)));
+    }
+
+    @Test
+    public void goodMovesAreNotMistakes() {
+        game(1, 4, 0, 2, 6, 3, 5, 8, 7, 1);
+        assertEquals(5, analytics.getHumanMoves());
+        assertEquals(0, analytics.getMistakes());
+        assertEquals(1, analytics.getOutcomes(100, GameAnalytics.DRAWN));
+    }
+
+    @Test
+    public void lostLinesAreCountedUpToSymmetry() {
+        game(1, 1, 4, 2, 0, 3, 8);
+        game(2, 1, 4, 0, 2, 5, 6);
+        long[] lines = analytics.getTopLosingLines();
+        assertEquals(1, lines.length);
+        assertEquals(2, analytics.getLosses(lines[0]));
+        assertEquals(6, GameAnalytics.lineOf(lines[0]).split(" ").length);
+        assertEquals(2, analytics.getOutcomes(100, GameAnalytics.LOST));
+    }
+
+    @Test
+    public void outcomesFollowEachSessionsSmarts() {
+        send(1, GameEvent.Type.SMARTS, 0, Board.EMPTY);
+        send(2, GameEvent.Type.SMARTS, 50, Board.EMPTY);
+        game(1, 0, 3, 1, 4, 2);
+        game(2, 0, 4, 1, 2, 6, 3, 5, 7, 8);
+        assertEquals(1, analytics.getOutcomes(0, GameAnalytics.WON));
+        assertEquals(1, analytics.getOutcomes(50, GameAnalytics.DRAWN));
+        assertEquals(0, analytics.getOutcomes(100, GameAnalytics.DRAWN));
+        assertEquals(2, analytics.getGames());
+    }
+
+    @Test
+    public void undoAndRedoFollowTheBoard() {
+        send(1, GameEvent.Type.NEW_GAME, 0, Board.EMPTY);
+        send(1, GameEvent.Type.MOVE, 0, Board.X);
+        send(1, GameEvent.Type.MOVE, 4, Board.O);
+        send(1, GameEvent.Type.UNDO, 4, Board.EMPTY);
+        send(1, GameEvent.Type.REDO, 4, Board.O);
+        send(1, GameEvent.Type.UNDO, 4, Board.EMPTY);
+        send(1, GameEvent.Type.UNDO, 0, Board.EMPTY);
+        send(1, GameEvent.Type.MOVE, 4, Board.X);
+        send(1, GameEvent.Type.MOVE, 0, Board.O);
+        send(1, GameEvent.Type.MOVE, 8, Board.X);
+        assertEquals(3, analytics.getHumanMoves());
+        assertEquals(0, analytics.getMistakes());
+        assertEquals(0, analytics.getSkipped());
+        assertEquals(1, analytics.getVisits(GameAnalytics.positionKey(1 << 4, 1 << 0)));
+    }
+
+    @Test
+    public void gamesStartedOutOfSightAreSkipped() {
+        send(1, GameEvent.Type.MOVE, 2, Board.O);
+        send(1, GameEvent.Type.MOVE, 5, Board.X);
+        send(1, GameEvent.Type.WIN, 0, Board.X);
+        game(1, 0, 3, 1, 4, 2);
+        assertEquals(3, analytics.getSkipped());
+        assertEquals(1, analytics.getGames());
+        assertEquals(3, analytics.getHumanMoves());
+    }
+
+    @Test
+    public void sessionsSharingASlotEvictEachOther() {
+        GameAnalytics tiny = new GameAnalytics(1, 1 << 10, 5);
+        tiny.event(0, 1, GameEvent.Type.NEW_GAME, 0, Board.EMPTY);
+        tiny.event(1, 1, GameEvent.Type.MOVE, 4, Board.X);
+        tiny.event(2, 2, GameEvent.Type.NEW_GAME, 0, Board.EMPTY);
+        tiny.event(3, 1, GameEvent.Type.MOVE, 0, Board.O);
+        // and session 2 goes on the way back out
+        assertEquals(2, tiny.getEvicted());
+        assertEquals(1, tiny.getSkipped());
+    }
+}
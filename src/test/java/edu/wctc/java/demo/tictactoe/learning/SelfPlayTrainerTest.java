@@ -0,0 +1,80 @@
+package edu.wctc.java.demo.tictactoe.learning;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.EasyStrategy;
+import edu.wctc.java.demo.tictactoe.domain.GeniusStrategy;
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import edu.wctc.java.demo.tictactoe.tournament.Tournament;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for SelfPlayTrainer: several threads sharing one table learn to
+ * play like the Genius level, and snapshots can be played from.
+ */
+public class SelfPlayTrainerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static SelfPlayTrainer trainer;
+
+    @BeforeClass
+    public static void train() throws InterruptedException {
+        trainer = new SelfPlayTrainer(new ValueTable(), 0.2, 0.2);
+        trainer.train(4, 25000, 1);
+    }
+
+    @Test
+    public void countsEveryGame() {
+        assertEquals(100000, trainer.getGames());
+    }
+
+    @Test
+    public void learnsNearlyPerfectPlay() {
+        assertTrue(SelfPlayTrainer.optimalMoveRate(trainer.getTable()) > 0.99);
+    }
+
+    @Test
+    public void drawsWithGeniusEitherWayRound() {
+        Strategy learned = new LearnedStrategy(trainer.getTable());
+        Board board = new Board();
+        assertEquals(Board.EMPTY, Tournament.playGame(board, learned, new GeniusStrategy()));
+        assertEquals(Board.EMPTY, Tournament.playGame(board, new GeniusStrategy(), learned));
+    }
+
+    @Test
+    public void neverLosesToEasyPlay() {
+        Strategy learned = new LearnedStrategy(trainer.getTable());
+        Strategy easy = new EasyStrategy(new Random(7));
+        Board board = new Board();
+        for (int i = 0; i < 200; i++) {
+            assertNotEquals(Board.O, Tournament.playGame(board, learned, easy));
+            assertNotEquals(Board.X, Tournament.playGame(board, easy, learned));
+        }
+    }
+
+    @Test
+    public void snapshotsCanBePlayed() throws Exception {
+        Path file = new File(folder.getRoot(), "learned.ttt").toPath();
+        trainer.startSnapshots(file, 10);
+        try {
+            for (int i = 0; i < 500 && !file.toFile().exists(); i++) {
+                Thread.sleep(10);
+            }
+        } finally {
+            trainer.shutdown();
+        }
+        Strategy loaded = new LearnedStrategy(file);
+        assertEquals(Board.EMPTY, Tournament.playGame(new Board(), loaded, new GeniusStrategy()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBadRates() {
+        new SelfPlayTrainer(new ValueTable(), 0, 0.1);
+    }
+}
@@ -0,0 +1,80 @@
+package edu.wctc.java.demo.tictactoe.learning;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for ValueTable: symmetric positions share an entry, finished
+ * positions are valued by the rules, and tables survive a save and load.
+ */
+public class ValueTableTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void emptyBoardIsEntryZero() {
+        assertEquals(0, ValueTable.index(0L, 0L));
+    }
+
+    @Test
+    public void rotationsAndReflectionsShareAnEntry() {
+        // X in each corner, 0 beside it clockwise and anticlockwise
+        int entry = ValueTable.index(1L << 0, 1L << 1);
+        assertEquals(entry, ValueTable.index(1L << 2, 1L << 5));
+        assertEquals(entry, ValueTable.index(1L << 8, 1L << 7));
+        assertEquals(entry, ValueTable.index(1L << 0, 1L << 3));
+        assertFalse(entry == ValueTable.index(1L << 0, 1L << 4));
+    }
+
+    @Test
+    public void finishedPositionsAreValuedByTheRules() {
+        ValueTable table = new ValueTable();
+        assertEquals(1f, table.valueAfter(0x7L, 0x18L, true), 0f);
+        assertEquals(0f, table.valueAfter(0x18DL, 0x072L, true), 0f);
+    }
+
+    @Test
+    public void untrainedTableStillTakesAWin() {
+        Board board = new Board();
+        board.play(0, Board.X);
+        board.play(3, Board.O);
+        board.play(1, Board.X);
+        board.play(4, Board.O);
+        assertEquals(2, new ValueTable().bestMove(board, Board.X));
+    }
+
+    @Test
+    public void updatesMoveValuesTowardsTheTarget() {
+        ValueTable table = new ValueTable();
+        table.update(1L << 4, 0L, true, 1f, 0.5f);
+        assertEquals(0.5f, table.valueAfter(1L << 4, 0L, true), 1e-6f);
+        table.update(1L << 4, 0L, true, 1f, 0.5f);
+        assertEquals(0.75f, table.valueAfter(1L << 4, 0L, true), 1e-6f);
+    }
+
+    @Test
+    public void saveAndLoadKeepEveryValue() throws IOException {
+        ValueTable table = new ValueTable();
+        table.update(1L << 4, 0L, true, -1f, 0.25f);
+        table.update(1L << 0, 1L << 4, false, 1f, 1f);
+        Path file = new File(folder.getRoot(), "table.ttt").toPath();
+        table.save(file);
+        ValueTable loaded = ValueTable.load(file);
+        assertEquals(-0.25f, loaded.valueAfter(1L << 4, 0L, true), 0f);
+        assertEquals(1f, loaded.valueAfter(1L << 0, 1L << 4, false), 0f);
+    }
+
+    @Test(expected = IOException.class)
+    public void loadRejectsOtherFiles() throws IOException {
+        Path file = new File(folder.getRoot(), "junk.ttt").toPath();
+        Files.write(file, new byte[64]);
+        ValueTable.load(file);
+    }
+}
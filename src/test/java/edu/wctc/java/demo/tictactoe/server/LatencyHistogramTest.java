@@ -0,0 +1,84 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for LatencyHistogram.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverEveryValueInOrder() {
+        long[] values = {0, 1, 63, 64, 65, 127, 128, 1000, 123456789L, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(value + " above its bucket", value <= LatencyHistogram.highestIn(bucket));
+            if (bucket > 0) {
+                assertTrue(value + " below its bucket",
+                        value > LatencyHistogram.highestIn(bucket - 1));
+            }
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestIn(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void percentilesAreCloseToTheTruth() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(100000, histogram.getCount());
+        assertEquals(100000000L, histogram.getMaxNanos());
+        long p99 = histogram.getPercentileNanos(99);
+        assertTrue("p99 " + p99, p99 >= 99000000L && p99 <= 99000000L * 1.04);
+        long p50 = histogram.getPercentileNanos(50);
+        assertTrue("p50 " + p50, p50 >= 50000000L && p50 <= 50000000L * 1.04);
+        assertEquals(histogram.getMaxNanos(), histogram.getPercentileNanos(100));
+        histogram.reset();
+        assertEquals(0, histogram.getPercentileNanos(99));
+    }
+
+    @Test
+    public void concurrentRecordsAreAllCounted() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final Random rand = new Random(t);
+            threads.add(new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < 50000; i++) {
+                        histogram.record(rand.nextInt(1000000));
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(200000, histogram.getCount());
+        LatencyHistogram sum = new LatencyHistogram();
+        sum.add(histogram);
+        sum.add(histogram);
+        assertEquals(400000, sum.getCount());
+        assertEquals(histogram.getPercentileNanos(99), sum.getPercentileNanos(99));
+    }
+
+    @Test
+    public void stallsAreBackFilled() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordCorrected(100, 10);
+        assertEquals(10, histogram.getCount());
+        assertEquals(10, histogram.getPercentileNanos(1));
+        assertEquals(50, histogram.getPercentileNanos(50));
+        histogram.recordCorrected(5, 10);
+        histogram.recordCorrected(500, 0);
+        assertEquals(12, histogram.getCount());
+    }
+}
@@ -0,0 +1,81 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import java.util.Random;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for LoadHarness with short runs, in-process and over loopback.
+ */
+public class LoadHarnessTest {
+
+    private static void checkTotals(LoadHarness harness) {
+        long moves = 0;
+        long games = 0;
+        for (int i = 0; i < harness.getIntervals(); i++) {
+            moves += harness.getIntervalMoves(i);
+            games += harness.getIntervalGames(i);
+        }
+        assertEquals(harness.getMoves(), moves);
+        assertEquals(harness.getGames(), games);
+        assertEquals(harness.getMoves(), harness.getServiceTime().getCount());
+        assertTrue(harness.getLatency().getCount() >= harness.getMoves());
+        assertTrue(harness.getLatency().getPercentileNanos(99)
+                >= harness.getServiceTime().getPercentileNanos(99));
+    }
+
+    @Test
+    public void manyPlayersFinishGamesInProcess() throws Exception {
+        LoadHarness harness = new LoadHarness(500, 2, 400, 100);
+        harness.setThinkMillis(2);
+        harness.setMix("0:1,50:1,100:2");
+        harness.run(1L);
+        assertEquals(0, harness.getFailures());
+        assertTrue(harness.getGames() > 500);
+        // Games take three to five moves of "X"
+        assertTrue(harness.getMoves() >= 3 * harness.getGames());
+        assertTrue(harness.getMoves() <= 5 * harness.getGames() + 500);
+        checkTotals(harness);
+    }
+
+    @Test
+    public void playersCanUseTheMoveService() throws Exception {
+        MoveService service = new MoveService(0, 2);
+        try {
+            LoadHarness harness = new LoadHarness(20, 4, 300, 100);
+            harness.setThinkMillis(1);
+            harness.setServer("http://localhost:" + service.getPort());
+            harness.run(2L);
+            assertEquals(0, harness.getFailures());
+            assertTrue(harness.getMoves() > 0);
+            // Every move asks the service, unless "X" just ended the game
+            assertTrue(service.getPositions() <= harness.getMoves());
+            assertTrue(service.getPositions() >= harness.getMoves() - harness.getGames());
+            checkTotals(harness);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void levelsFollowTheMix() {
+        LoadHarness harness = new LoadHarness(1, 1, 1, 1);
+        harness.setMix("0:1, 100:3");
+        Random rand = new Random(1);
+        int genius = 0;
+        for (int i = 0; i < 4000; i++) {
+            int level = harness.pickLevel(rand);
+            assertTrue(level == 0 || level == 100);
+            genius += level == 100 ? 1 : 0;
+        }
+        assertEquals(3000, genius, 150);
+        String[] bad = {"", "fifty", "0:1:2", "101:1", "50:-1"};
+        for (String mix : bad) {
+            try {
+                harness.setMix(mix);
+                fail("accepted " + mix);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for Lobby and GameSession: pairing, the computer fallback,
+ * cancelling and many players joining at once.
+ */
+public class LobbyTest {
+    private Lobby lobby;
+
+    /*
+     * Remembers every player's game and side.
+     */
+    private static final class Recorder implements MatchListener {
+        final Map<String, GameSession> sessions = new ConcurrentHashMap<String, GameSession>();
+        final Map<String, Integer> marks = new ConcurrentHashMap<String, Integer>();
+        final CountDownLatch latch;
+
+        Recorder(int expected) {
+            latch = new CountDownLatch(expected);
+        }
+
+        public void matched(GameSession session, int mark) {
+            String player = session.getPlayer(mark);
+            assertNull("matched twice: " + player, sessions.put(player, session));
+            marks.put(player, mark);
+            latch.countDown();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        lobby.shutdown();
+    }
+
+    @Test
+    public void playersWantingTheSameGameArePaired() {
+        lobby = new Lobby(60000);
+        Recorder recorder = new Recorder(2);
+        Ticket ann = lobby.join("ann", BoardType.CLASSIC, 50, recorder);
+        assertTrue(ann.isWaiting());
+        assertEquals(1, lobby.getQueueDepth(BoardType.CLASSIC, 50));
+        lobby.join("bob", BoardType.CLASSIC, 50, recorder);
+        assertFalse(ann.isWaiting());
+        assertEquals(0, lobby.getWaiting());
+        assertEquals(1, lobby.getPairings());
+
+        GameSession session = recorder.sessions.get("ann");
+        assertSame(session, recorder.sessions.get("bob"));
+        assertEquals(Board.X, (int) recorder.marks.get("ann"));
+        assertFalse(session.isAgainstComputer());
+        assertEquals(-1, session.play("ann", 4));
+        try {
+            session.play("ann", 0);
+            fail("ann moved twice");
+        } catch (IllegalStateException expected) {
+        }
+        session.play("bob", 0);
+        assertEquals(Board.X, session.get(4));
+        assertEquals(Board.O, session.get(0));
+    }
+
+    @Test
+    public void differentRequestsAreNotPaired() {
+        lobby = new Lobby(60000);
+        Recorder recorder = new Recorder(0);
+        lobby.join("ann", BoardType.CLASSIC, 50, recorder);
+        lobby.join("bob", BoardType.CLASSIC, 100, recorder);
+        lobby.join("cy", BoardType.FOUR_BY_FOUR, 50, recorder);
+        assertEquals(3, lobby.getWaiting());
+        assertEquals(0, lobby.getPairings());
+        assertTrue(recorder.sessions.isEmpty());
+    }
+
+    @Test
+    public void lonePlayerGetsTheComputerAfterTheWait() throws Exception {
+        lobby = new Lobby(50);
+        Recorder recorder = new Recorder(1);
+        lobby.join("ann", BoardType.FOUR_BY_FOUR, 100, recorder);
+        assertTrue(recorder.latch.await(5, TimeUnit.SECONDS));
+        GameSession session = recorder.sessions.get("ann");
+        assertTrue(session.isAgainstComputer());
+        assertEquals(GameSession.COMPUTER, session.getPlayer(Board.O));
+        assertEquals(0, lobby.getWaiting());
+        assertEquals(1, lobby.getComputerGames());
+        assertTrue(lobby.getMaxWaitMillis() >= 50);
+
+        int reply = session.play("ann", 5);
+        assertEquals(Board.O, session.get(reply));
+        assertEquals(Board.X, session.getSideToMove());
+    }
+
+    @Test
+    public void cancelledPlayerIsNeitherPairedNorFallenBack() throws Exception {
+        lobby = new Lobby(20);
+        Recorder recorder = new Recorder(2);
+        Ticket ann = lobby.join("ann", BoardType.CLASSIC, 0, recorder);
+        assertTrue(lobby.cancel(ann));
+        assertFalse(lobby.cancel(ann));
+        assertEquals(0, lobby.getWaiting());
+        lobby.join("bob", BoardType.CLASSIC, 0, recorder);
+        lobby.join("cy", BoardType.CLASSIC, 0, recorder);
+        assertTrue(recorder.latch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertNull(recorder.sessions.get("ann"));
+        assertEquals(0, lobby.getComputerGames());
+    }
+
+    @Test
+    public void concurrentJoinsPairEveryone() throws Exception {
+        lobby = new Lobby(60000);
+        final int threads = 4;
+        final int perThread = 5000;
+        final Recorder recorder = new Recorder(threads * perThread);
+        List<Thread> joiners = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            joiners.add(new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < perThread; i++) {
+                        lobby.join(thread + "-" + i, BoardType.CLASSIC, 50, recorder);
+                    }
+                }
+            }));
+        }
+        for (Thread joiner : joiners) {
+            joiner.start();
+        }
+        for (Thread joiner : joiners) {
+            joiner.join();
+        }
+        assertTrue(recorder.latch.await(5, TimeUnit.SECONDS));
+        assertEquals(threads * perThread / 2, lobby.getPairings());
+        assertEquals(0, lobby.getWaiting());
+        Map<Long, Integer> seats = new HashMap<Long, Integer>();
+        for (GameSession session : recorder.sessions.values()) {
+            Integer seen = seats.get(session.getId());
+            seats.put(session.getId(), seen == null ? 1 : seen + 1);
+        }
+        assertEquals(Collections.singleton(2), new HashSet<Integer>(seats.values()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void smartsMustBeInRange() {
+        lobby = new Lobby(1000);
+        lobby.join("ann", BoardType.CLASSIC, 101, new Recorder(0));
+    }
+}
@@ -0,0 +1,175 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.MoveScore;
+import edu.wctc.java.demo.tictactoe.domain.PositionSolver;
+import edu.wctc.java.demo.tictactoe.domain.Strategies;
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for MoveService, called directly and over HTTP, and for the
+ * MoveLoadGenerator.
+ */
+public class MoveServiceTest {
+    private MoveService service;
+    private String url;
+
+    @Before
+    public void setUp() throws IOException {
+        service = new MoveService(0, 2);
+        url = "http://localhost:" + service.getPort();
+    }
+
+    @After
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    /*
+     * Checks the Genius answer in every position reachable from this one.
+     * Returns the number of unfinished positions visited.
+     */
+    private int checkGenius(Board board) {
+        if (board.isGameOver()) {
+            assertEquals(-1, service.selectMove(board.toString(), 100, null));
+            return 0;
+        }
+        int mark = board.getSideToMove();
+        int mover = (int) board.getMask(mark);
+        int other = (int) board.getMask(Board.opponent(mark));
+        int cell = service.selectMove(board.toString(), 100, null);
+        assertEquals(Board.EMPTY, board.get(cell));
+        MoveScore[] scores = PositionSolver.analyze(mover, other);
+        MoveScore best = scores[PositionSolver.bestMove(mover, other)];
+        assertEquals(board.toString(), best.getOutcome(), scores[cell].getOutcome());
+        assertEquals(board.toString(), best.getPlies(), scores[cell].getPlies());
+        int visited = 1;
+        for (int c = 0; c < 9; c++) {
+            if (board.get(c) == Board.EMPTY) {
+                board.play(c, mark);
+                visited += checkGenius(board);
+                board.undo();
+            }
+        }
+        return visited;
+    }
+
+    @Test
+    public void cachedGeniusMovesArePerfectEverywhere() {
+        int visited = checkGenius(new Board());
+        assertTrue(service.getCacheSize() < visited / 8);
+        assertEquals(visited - service.getCacheSize(), service.getCacheHits());
+    }
+
+    /*
+     * Checks that the service and the game window's Genius agree in every
+     * position reachable from this one, visiting each position once.
+     */
+    private void checkAgreement(Board board, Strategy genius, Set<String> seen) {
+        if (board.isGameOver() || !seen.add(board.toString())) {
+            return;
+        }
+        int mark = board.getSideToMove();
+        assertEquals(board.toString(), genius.selectMove(board, mark),
+                service.selectMove(board.toString(), 100, null));
+        for (int c = 0; c < 9; c++) {
+            if (board.get(c) == Board.EMPTY) {
+                board.play(c, mark);
+                checkAgreement(board, genius, seen);
+                board.undo();
+            }
+        }
+    }
+
+    @Test
+    public void geniusAgreesWithTheGameWindow() {
+        checkAgreement(new Board(), Strategies.forSmarts(100, new Random(1)),
+                new HashSet<String>());
+        service.setMaxNodes(50);
+        assertEquals(0, service.getCacheSize());
+        checkAgreement(new Board(), Strategies.forSmarts(100, new Random(1), 50),
+                new HashSet<String>());
+    }
+
+    @Test
+    public void everyLevelAnswersBothBoards() {
+        Random rand = new Random(3);
+        for (int smarts = 0; smarts <= 100; smarts += 25) {
+            assertEquals(Board.EMPTY, MoveService.parse("X-0------").get(
+                    service.selectMove("X-0------", smarts, rand)));
+            int cell = service.selectMove("X---------------", smarts, rand);
+            assertTrue(cell > 0 && cell < 16);
+        }
+        assertEquals(2, service.selectMove("XX-00----", 50, rand));
+        assertEquals(-1, service.selectMove("XXX00----", 0, rand));
+    }
+
+    @Test
+    public void badBoardsAreRejected() {
+        String[] bad = {"", "X--------X", "XX-------", "0--------", "X?-------"};
+        for (String board : bad) {
+            try {
+                service.selectMove(board, 100, null);
+                fail("accepted " + board);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void answersOverHttp() throws IOException {
+        assertEquals(Strategies.forSmarts(100, null).selectMove(new Board(), Board.X) + "\n",
+                MoveLoadGenerator.get(url + "/move?board=---------&smarts=100"));
+        StringBuilder batch = new StringBuilder();
+        Random rand = new Random(7);
+        String[] boards = new String[3000];
+        for (int i = 0; i < boards.length; i++) {
+            boards[i] = MoveLoadGenerator.randomBoard(rand);
+            batch.append(boards[i]).append('\n');
+        }
+        String[] cells = MoveLoadGenerator.post(url + "/batch?smarts=100", batch.toString()).split("\n");
+        assertEquals(boards.length, cells.length);
+        for (int i = 0; i < boards.length; i++) {
+            assertEquals(service.selectMove(boards[i], 100, null), Integer.parseInt(cells[i]));
+        }
+        assertEquals(boards.length + 1, service.getPositions());
+        assertTrue(MoveLoadGenerator.get(url + "/stats").contains("latency_p99_ms"));
+    }
+
+    @Test
+    public void badRequestsGetAnErrorStatus() {
+        String[] requests = {"/move?board=XX-------", "/move?smarts=100",
+                "/move?board=---------&smarts=hard", "/batch"};
+        for (String request : requests) {
+            try {
+                MoveLoadGenerator.get(url + request);
+                fail("answered " + request);
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().startsWith("HTTP 40"));
+            }
+        }
+        try {
+            MoveLoadGenerator.post(url + "/batch", "---------\nX-X\n");
+            fail("answered a bad batch");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("line 2"));
+        }
+    }
+
+    @Test
+    public void loadGeneratorKeepsTheServiceBusy() throws Exception {
+        MoveLoadGenerator load = new MoveLoadGenerator(url, 20);
+        load.run(2, 300, 1L);
+        assertTrue(load.getRequests() > 0);
+        assertEquals(0, load.getFailures());
+        assertEquals(20 * load.getRequests(), load.getPositions());
+        assertEquals(load.getRequests(), load.getLatency().getCount());
+        assertEquals(load.getPositions(), service.getPositions());
+    }
+}
@@ -0,0 +1,203 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for SpectatorBroadcaster using in-memory channels that can be
+ * made slow or stuck.
+ */
+public class SpectatorBroadcasterTest {
+    private SpectatorBroadcaster broadcaster;
+
+    /*
+     * Keeps everything written to it. It takes nothing while stuck and at
+     * most "budget" bytes per write.
+     */
+    private static final class MemoryChannel implements GatheringByteChannel {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        volatile boolean stuck;
+        volatile int budget = Integer.MAX_VALUE;
+        volatile boolean open = true;
+
+        public synchronized long write(ByteBuffer[] srcs, int offset, int length) {
+            if (stuck) {
+                return 0;
+            }
+            long n = 0;
+            for (int i = offset; i < offset + length && n < budget; i++) {
+                while (srcs[i].hasRemaining() && n < budget) {
+                    out.write(srcs[i].get());
+                    n++;
+                }
+            }
+            return n;
+        }
+
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        public int write(ByteBuffer src) {
+            return (int) write(new ByteBuffer[] {src});
+        }
+
+        public boolean isOpen() {
+            return open;
+        }
+
+        public void close() {
+            open = false;
+        }
+
+        synchronized byte[] bytes() {
+            return out.toByteArray();
+        }
+    }
+
+    /*
+     * Decodes every whole frame a channel received into cell, mark, result
+     * triples, checking that they follow on from each other.
+     */
+    private static List<int[]> moves(MemoryChannel channel) {
+        ByteBuffer in = ByteBuffer.wrap(channel.bytes());
+        List<int[]> moves = new ArrayList<int[]>();
+        while (in.remaining() >= SpectatorBroadcaster.HEADER_BYTES) {
+            int count = in.get(in.position() + SpectatorBroadcaster.HEADER_BYTES - 1) & 0xFF;
+            if (in.remaining() < SpectatorBroadcaster.HEADER_BYTES
+                    + count * SpectatorBroadcaster.DELTA_BYTES) {
+                break; // the rest of this frame is still on its way
+            }
+            int[] frame = SpectatorBroadcaster.decode(in);
+            assertEquals(moves.size(), frame[0]);
+            for (int i = 1; i < frame.length; i += 3) {
+                moves.add(new int[] {frame[i], frame[i + 1], frame[i + 2]});
+            }
+        }
+        return moves;
+    }
+
+    private static List<int[]> waitForMoves(MemoryChannel channel, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        List<int[]> moves = moves(channel);
+        while (moves.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(2);
+            moves = moves(channel);
+        }
+        return moves;
+    }
+
+    private static GameSession newGame(long id) {
+        return new GameSession(id, BoardType.CLASSIC, 50, "ann", "bob", null);
+    }
+
+    @Before
+    public void setUp() {
+        broadcaster = new SpectatorBroadcaster(100);
+    }
+
+    @After
+    public void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    public void spectatorSeesEveryMoveWithTheResult() throws Exception {
+        GameSession session = newGame(1);
+        MemoryChannel channel = new MemoryChannel();
+        broadcaster.subscribe(session, channel);
+        int[] cells = {0, 3, 1, 4, 2};
+        for (int i = 0; i < cells.length; i++) {
+            session.play(i % 2 == 0 ? "ann" : "bob", cells[i]);
+        }
+        List<int[]> moves = waitForMoves(channel, 5);
+        assertEquals(5, moves.size());
+        for (int i = 0; i < cells.length; i++) {
+            assertEquals(cells[i], moves.get(i)[0]);
+            assertEquals(i % 2 == 0 ? Board.X : Board.O, moves.get(i)[1]);
+        }
+        assertEquals(GameSession.IN_PLAY, moves.get(3)[2]);
+        assertEquals(Board.X, moves.get(4)[2]);
+        assertEquals(5, broadcaster.getDeltas());
+    }
+
+    @Test
+    public void lateSpectatorCatchesUp() throws Exception {
+        GameSession session = newGame(2);
+        session.play("ann", 4);
+        session.play("bob", 0);
+        MemoryChannel channel = new MemoryChannel();
+        broadcaster.subscribe(session, channel);
+        session.play("ann", 8);
+        List<int[]> moves = waitForMoves(channel, 3);
+        assertEquals(3, moves.size());
+        assertEquals(4, moves.get(0)[0]);
+        assertEquals(8, moves.get(2)[0]);
+    }
+
+    @Test
+    public void slowSpectatorGetsCoalescedFrames() throws Exception {
+        GameSession session = newGame(3);
+        MemoryChannel slow = new MemoryChannel();
+        slow.budget = 5;
+        broadcaster.subscribe(session, slow);
+        int[] cells = {4, 0, 8, 2, 1, 7, 6, 3, 5};
+        for (int i = 0; i < cells.length; i++) {
+            session.play(i % 2 == 0 ? "ann" : "bob", cells[i]);
+        }
+        List<int[]> moves = waitForMoves(slow, 9);
+        assertEquals(9, moves.size());
+        assertEquals(GameSession.DRAW, moves.get(8)[2]);
+        assertTrue(broadcaster.getFrames() <= 9);
+    }
+
+    @Test
+    public void stuckSpectatorIsDroppedWithoutStallingTheGame() throws Exception {
+        GameSession session = newGame(4);
+        MemoryChannel stuck = new MemoryChannel();
+        MemoryChannel fine = new MemoryChannel();
+        SpectatorBroadcaster.Spectator dropped = broadcaster.subscribe(session, stuck);
+        broadcaster.subscribe(session, fine);
+        session.play("ann", 4);
+        waitForMoves(fine, 1);
+        stuck.stuck = true;
+        session.play("bob", 0);
+        waitForMoves(fine, 2);
+        Thread.sleep(300);
+        session.play("ann", 8);
+        assertEquals(3, waitForMoves(fine, 3).size());
+        assertTrue(dropped.isDropped());
+        assertFalse(stuck.isOpen());
+        assertEquals(1, broadcaster.getDropped());
+        assertEquals(1, broadcaster.getSpectators(session));
+    }
+
+    @Test
+    public void manySpectatorsOfOneGame() throws Exception {
+        GameSession session = newGame(5);
+        List<MemoryChannel> channels = new ArrayList<MemoryChannel>();
+        for (int i = 0; i < 10000; i++) {
+            MemoryChannel channel = new MemoryChannel();
+            channels.add(channel);
+            broadcaster.subscribe(session, channel);
+        }
+        int[] cells = {0, 3, 1, 4, 2};
+        long start = System.nanoTime();
+        for (int i = 0; i < cells.length; i++) {
+            session.play(i % 2 == 0 ? "ann" : "bob", cells[i]);
+        }
+        long moveMillis = (System.nanoTime() - start) / 1000000;
+        assertTrue("moves took " + moveMillis + " ms", moveMillis < 100);
+        assertEquals(5, waitForMoves(channels.get(9999), 5).size());
+        for (MemoryChannel channel : channels) {
+            assertEquals(5, waitForMoves(channel, 5).size());
+        }
+        assertEquals(0, broadcaster.getDropped());
+    }
+}
@@ -0,0 +1,222 @@
+package edu.wctc.java.demo.tictactoe.server;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.Strategies;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for StatsStore and PlayerStats.
+ */
+public class StatsStoreTest {
+
+    /*
+     * Works out the leaderboard the slow way, from every player's record.
+     */
+    private static List<String> expectedTop(StatsStore store, List<String> names, int n) {
+        List<StatsStore.Standing> all = new ArrayList<StatsStore.Standing>();
+        for (String name : names) {
+            PlayerStats stats = store.get(name);
+            if (stats != null && stats.getPoints() > 0) {
+                all.add(new StatsStore.Standing(name, stats.getPoints()));
+            }
+        }
+        Collections.sort(all);
+        List<String> top = new ArrayList<String>();
+        for (StatsStore.Standing standing : all.subList(0, Math.min(n, all.size()))) {
+            top.add(standing.toString());
+        }
+        return top;
+    }
+
+    private static int firstEmpty(GameSession session) {
+        int cell = 0;
+        while (session.get(cell) != Board.EMPTY) {
+            cell++;
+        }
+        return cell;
+    }
+
+    private static List<String> names(List<StatsStore.Standing> standings) {
+        List<String> names = new ArrayList<String>();
+        for (StatsStore.Standing standing : standings) {
+            names.add(standing.toString());
+        }
+        return names;
+    }
+
+    @Test
+    public void finishedGamesAreCountedForBothPlayers() {
+        StatsStore store = new StatsStore(5);
+        GameSession won = new GameSession(1, BoardType.CLASSIC, 100, "ann", "bob", null);
+        won.addSessionListener(store);
+        int[] cells = {0, 3, 1, 4, 2};
+        for (int i = 0; i < cells.length; i++) {
+            won.play(i % 2 == 0 ? "ann" : "bob", cells[i]);
+        }
+        GameSession drawn = new GameSession(2, BoardType.CLASSIC, 0, "bob", "ann", null);
+        drawn.addSessionListener(store);
+        int[] draw = {4, 0, 8, 2, 1, 7, 6, 3, 5};
+        for (int i = 0; i < draw.length; i++) {
+            drawn.play(i % 2 == 0 ? "bob" : "ann", draw[i]);
+        }
+        assertEquals(2, store.getGames());
+        PlayerStats ann = store.get("ann");
+        assertEquals(1, ann.getWins(PlayerStats.GENIUS));
+        assertEquals(1, ann.getDraws(PlayerStats.EASY));
+        assertEquals(0, ann.getLosses());
+        assertEquals(3, ann.getPoints());
+        assertEquals(1, store.get("bob").getLosses(PlayerStats.GENIUS));
+        assertEquals("[ann 3, bob 1]", store.getLeaderboard().toString());
+    }
+
+    @Test
+    public void theComputerHasNoRecord() {
+        StatsStore store = new StatsStore(5);
+        GameSession session = new GameSession(1, BoardType.CLASSIC, 100, "ann",
+                GameSession.COMPUTER, Strategies.forSmarts(100, new Random()));
+        session.addSessionListener(store);
+        while (!session.isGameOver()) {
+            session.play("ann", firstEmpty(session));
+        }
+        assertEquals(1, store.getPlayers());
+        assertEquals(1, store.get("ann").getGames());
+        assertNull(store.get(GameSession.COMPUTER));
+    }
+
+    @Test
+    public void streaksEndOnALossOrDraw() {
+        StatsStore store = new StatsStore(5);
+        int[] outcomes = {PlayerStats.WIN, PlayerStats.WIN, PlayerStats.WIN, PlayerStats.DRAW,
+            PlayerStats.WIN, PlayerStats.LOSS, PlayerStats.WIN, PlayerStats.WIN};
+        for (int outcome : outcomes) {
+            store.record("ann", 50, outcome);
+        }
+        PlayerStats ann = store.get("ann");
+        assertEquals(2, ann.getStreak());
+        assertEquals(3, ann.getBestStreak());
+        assertEquals(6, ann.getWins(PlayerStats.SMART));
+    }
+
+    @Test
+    public void difficultiesCountUnderTheNearestLevel() {
+        assertEquals(PlayerStats.EASY, PlayerStats.levelOf(0));
+        assertEquals(PlayerStats.EASY, PlayerStats.levelOf(24));
+        assertEquals(PlayerStats.SMART, PlayerStats.levelOf(25));
+        assertEquals(PlayerStats.SMART, PlayerStats.levelOf(74));
+        assertEquals(PlayerStats.GENIUS, PlayerStats.levelOf(75));
+        assertEquals(PlayerStats.GENIUS, PlayerStats.levelOf(100));
+    }
+
+    @Test
+    public void leaderboardMatchesTheFullRanking() {
+        StatsStore store = new StatsStore(10);
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < 200; i++) {
+            names.add("p" + i);
+        }
+        Random rand = new Random(5);
+        for (int i = 0; i < 20000; i++) {
+            store.record(names.get(rand.nextInt(names.size())), 50, rand.nextInt(3));
+            if (i % 1000 == 0) {
+                assertEquals(expectedTop(store, names, 10), names(store.getLeaderboard()));
+            }
+        }
+        assertEquals(expectedTop(store, names, 10), names(store.getLeaderboard()));
+    }
+
+    @Test
+    public void concurrentResultsAreAllCounted() throws Exception {
+        final StatsStore store = new StatsStore(20);
+        final List<String> names = new ArrayList<String>();
+        for (int i = 0; i < 500; i++) {
+            names.add("p" + i);
+        }
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final Random rand = new Random(t);
+            threads.add(new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < 50000; i++) {
+                        store.record(names.get(rand.nextInt(names.size())), 100, rand.nextInt(3));
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long games = 0;
+        for (String name : names) {
+            games += store.get(name).getGames();
+        }
+        assertEquals(200000, games);
+        assertEquals(expectedTop(store, names, 20), names(store.getLeaderboard()));
+    }
+
+    @Test
+    public void snapshotsRoundTrip() throws Exception {
+        StatsStore store = new StatsStore(3);
+        Random rand = new Random(9);
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < 50; i++) {
+            names.add("player " + i);
+        }
+        for (int i = 0; i < 2000; i++) {
+            store.record(names.get(rand.nextInt(names.size())), rand.nextInt(101), rand.nextInt(3));
+        }
+        Path file = Files.createTempFile("stats", ".bin");
+        try {
+            store.startSnapshots(file, 10);
+            Thread.sleep(100);
+            store.shutdown();
+            StatsStore loaded = StatsStore.load(file, 3);
+            assertEquals(store.getPlayers(), loaded.getPlayers());
+            for (String name : names) {
+                PlayerStats a = store.get(name);
+                PlayerStats b = loaded.get(name);
+                for (int level = 0; level < PlayerStats.LEVELS; level++) {
+                    assertEquals(a.getWins(level), b.getWins(level));
+                    assertEquals(a.getLosses(level), b.getLosses(level));
+                    assertEquals(a.getDraws(level), b.getDraws(level));
+                }
+                assertEquals(a.getStreak(), b.getStreak());
+                assertEquals(a.getBestStreak(), b.getBestStreak());
+            }
+            assertEquals(store.getLeaderboard(), loaded.getLeaderboard());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void lobbyGamesReachTheStore() throws Exception {
+        Lobby lobby = new Lobby(60000);
+        StatsStore store = new StatsStore(5);
+        lobby.addSessionListener(store);
+        final GameSession[] game = new GameSession[1];
+        MatchListener listener = new MatchListener() {
+            public void matched(GameSession session, int mark) {
+                game[0] = session;
+            }
+        };
+        lobby.join("ann", BoardType.CLASSIC, 100, listener);
+        lobby.join("bob", BoardType.CLASSIC, 100, listener);
+        lobby.shutdown();
+        assertEquals(100, game[0].getSmarts());
+        int[] cells = {0, 3, 1, 4, 2};
+        for (int i = 0; i < cells.length; i++) {
+            game[0].play(i % 2 == 0 ? "ann" : "bob", cells[i]);
+        }
+        assertEquals(1, store.get("ann").getWins(PlayerStats.GENIUS));
+    }
+}
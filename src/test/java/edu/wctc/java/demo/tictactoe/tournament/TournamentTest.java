@@ -0,0 +1,93 @@
+package edu.wctc.java.demo.tictactoe.tournament;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import edu.wctc.java.demo.tictactoe.domain.GeniusStrategy;
+import edu.wctc.java.demo.tictactoe.domain.Strategies;
+import edu.wctc.java.demo.tictactoe.domain.Strategy;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for Tournament and BradleyTerry covering scheduling, streamed
+ * progress and the ordering of the engine levels.
+ */
+public class TournamentTest {
+
+    @Test
+    public void geniusAgainstGeniusAlwaysDraws() {
+        Board board = new Board();
+        GeniusStrategy genius = new GeniusStrategy();
+        assertEquals(Board.EMPTY, Tournament.playGame(board, genius, genius));
+    }
+
+    /*
+     * Registers an engine level whose randomness is seeded, so every
+     * worker's copy plays the same way on every run.
+     */
+    private static void registerSeeded(Tournament tournament, String name,
+            final int smarts, final long seed) {
+        tournament.register(name, new StrategyFactory() {
+            public Strategy create(Random rand) {
+                return Strategies.forSmarts(smarts, new Random(seed));
+            }
+        });
+    }
+
+    @Test
+    public void geniusIsNeverBeatenAndEasyIsRatedLast() throws InterruptedException {
+        Tournament tournament = new Tournament();
+        registerSeeded(tournament, "Easy", 0, 1);
+        registerSeeded(tournament, "Smart", 50, 2);
+        registerSeeded(tournament, "Genius", 100, 3);
+        final AtomicLong lastPlayed = new AtomicLong();
+        List<Rating> standings = tournament.run(2000, 2, new TournamentListener() {
+            public void progress(List<Rating> standings, long played, long total) {
+                assertTrue(played > lastPlayed.get());
+                assertEquals(6000, total);
+                lastPlayed.set(played);
+            }
+        });
+        assertEquals(6000, lastPlayed.get());
+        // Smart draws every game with Genius, so which of the two leads
+        // depends only on how often each beats Easy
+        assertEquals("Easy", standings.get(2).getName());
+        for (Rating rating : standings) {
+            assertEquals(4000, rating.getGames());
+            if (rating.getName().equals("Genius")) {
+                assertEquals(0, rating.getLosses());
+            }
+        }
+    }
+
+    @Test
+    public void evenResultsGiveEqualRatings() {
+        String[] names = {"A", "B"};
+        long[][] wins = {{10, 30}, {30, 10}};
+        long[][] draws = {{0, 40}, {40, 0}};
+        List<Rating> ratings = BradleyTerry.rate(names, wins, draws);
+        assertEquals(1500.0, ratings.get(0).getElo(), 1e-6);
+        assertEquals(1500.0, ratings.get(1).getElo(), 1e-6);
+        assertTrue(ratings.get(0).getMargin() > 0.0);
+    }
+
+    @Test
+    public void strongerSideGetsHigherRating() {
+        String[] names = {"Weak", "Strong"};
+        long[][] wins = {{0, 25}, {75, 0}};
+        long[][] draws = new long[2][2];
+        List<Rating> ratings = BradleyTerry.rate(names, wins, draws);
+        assertEquals("Strong", ratings.get(0).getName());
+        // 3:1 odds are about 191 Elo points
+        assertEquals(191.0, ratings.get(0).getElo() - ratings.get(1).getElo(), 5.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateEntrantIsRejected() {
+        Tournament tournament = new Tournament();
+        tournament.registerEngineLevels();
+        tournament.registerEngineLevels();
+    }
+}
@@ -0,0 +1,75 @@
+package edu.wctc.java.demo.tictactoe.ui;
+
+import edu.wctc.java.demo.tictactoe.domain.Board;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for BoardCanvas covering mouse-to-cell mapping, marks, highlights
+ * and painting into an off-screen image.
+ */
+public class BoardCanvasTest {
+    private BoardCanvas canvas;
+
+    @Before
+    public void setUp() {
+        canvas = new BoardCanvas(15, 15);
+        canvas.setSize(300, 330); // 20-pixel cells, extra height unused
+    }
+
+    @Test
+    public void pointsMapToCells() {
+        assertEquals(0, canvas.cellAt(0, 0));
+        assertEquals(0, canvas.cellAt(19, 19));
+        assertEquals(1, canvas.cellAt(20, 0));
+        assertEquals(15, canvas.cellAt(0, 20));
+        assertEquals(224, canvas.cellAt(299, 299));
+        assertEquals(-1, canvas.cellAt(299, 305));
+        assertEquals(-1, canvas.cellAt(-1, 5));
+    }
+
+    @Test
+    public void cellBoundsMatchTheMapping() {
+        Rectangle bounds = canvas.getCellBounds(16);
+        assertEquals(new Rectangle(20, 20, 20, 20), bounds);
+        assertEquals(16, canvas.cellAt(bounds.x, bounds.y));
+        assertEquals(16, canvas.cellAt(bounds.x + 19, bounds.y + 19));
+    }
+
+    @Test
+    public void marksAndHighlightsAreKeptAndCleared() {
+        canvas.setMark(7, Board.X);
+        canvas.setMark(8, Board.O);
+        canvas.setHighlighted(7, true);
+        assertEquals(Board.X, canvas.getMark(7));
+        assertEquals(Board.O, canvas.getMark(8));
+        assertTrue(canvas.isHighlighted(7));
+        canvas.clear();
+        assertEquals(Board.EMPTY, canvas.getMark(7));
+        assertFalse(canvas.isHighlighted(7));
+    }
+
+    @Test
+    public void paintingDrawsMarksOnlyInTheirCells() {
+        canvas.setMark(0, Board.X);
+        canvas.setHighlighted(1, true);
+        BufferedImage image = new BufferedImage(300, 330, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        canvas.paint(g);
+        g.dispose();
+        int white = Color.WHITE.getRGB();
+        assertFalse(image.getRGB(10, 10) == white);         // the X crosses the center
+        assertEquals(Color.GREEN.getRGB(), image.getRGB(30, 10));
+        assertEquals(white, image.getRGB(50, 10));          // empty cell
+    }
+
+    @Test
+    public void preferredSizeFitsEveryCell() {
+        BoardCanvas small = new BoardCanvas(4, 4);
+        assertEquals(4 * 40 + 1, small.getPreferredSize().width);
+    }
+}